@@ -0,0 +1,17 @@
+#!/bin/sh
+# Compila el modelo y el banco de medidas y ejecuta BancoModelo, que lanza una
+# JVM por medida.
+#
+# Uso: bench/medir.sh [filtro] [iteraciones] [milisegundos]
+# Las opciones de la JVM de cada medida se pasan con JAVA_OPTS.
+set -e
+PRACTICA=$(cd "$(dirname "$0")/.." && pwd)
+LIB="$PRACTICA/../lib"
+CLASES="${TMPDIR:-/tmp}/quantik-bench"
+CP=$(find "$LIB" -name '*.jar' | tr '\n' ':')
+
+rm -rf "$CLASES"
+mkdir -p "$CLASES"
+find "$PRACTICA/src" "$PRACTICA/bench" -name '*.java' > "$CLASES/fuentes.txt"
+javac -encoding UTF-8 -nowarn -d "$CLASES" -cp "$CP" @"$CLASES/fuentes.txt"
+exec java $JAVA_OPTS -cp "$CLASES:$CP" quantik.bench.BancoModelo "$@"
@@ -0,0 +1,277 @@
+package quantik.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.Celda;
+import quantik.modelo.GestorGrupos;
+import quantik.modelo.Pieza;
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Medidas de los caminos mas usados del modelo sobre posiciones de mitad de
+ * partida, con el tablero de objetos y con el de bitboards.
+ *
+ * Para cada tablero se mide: GestorGrupos.hayGrupoGanador,
+ * GestorGrupos.hayConflictoEnGruposDeCelda, Partida.esJugadaLegalEnTurnoActual,
+ * Tablero.clonar, Tablero.aTexto, Caja.retirar y una partida aleatoria completa
+ * desde cada posicion, deshecha despues con deshacerJugada. Las consultas por
+ * celda recorren las dieciseis celdas y las cuatro figuras de cada posicion.
+ *
+ * Uso: BancoModelo [filtro] [iteraciones] [milisegundos]. Solo se ejecutan las
+ * medidas cuyo nombre contiene el filtro. La salida da, por medida, los
+ * nanosegundos por operacion con su desviacion, los bytes reservados por
+ * operacion y las recolecciones durante la medida.
+ *
+ * Cada medida se ejecuta en su propia JVM, como los forks de JMH: el bucle de
+ * Medidor solo llega a ver una operacion y su llamada no se vuelve
+ * megamorfica por las medidas anteriores. El proceso principal lanza un hijo
+ * por medida con el filtro =nombre, que ejecuta solo esa medida en la JVM
+ * actual y sin cabecera. El script bench/medir.sh compila y ejecuta el banco.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.bench.Medidor
+ *
+ */
+public final class BancoModelo {
+
+	/**
+	 * Semilla de las posiciones.
+	 */
+	private static final long SEMILLA = 20220601L;
+
+
+	/**
+	 * Numero de posiciones de cada conjunto.
+	 */
+	private static final int NUMERO_POSICIONES = 256;
+
+
+	/**
+	 * Jugadas minimas y maximas hasta cada posicion.
+	 */
+	private static final int MINIMO_JUGADAS = 4;
+	private static final int MAXIMO_JUGADAS = 10;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Ultimo clon creado, para que los clones no se eliminen.
+	 */
+	private static Tablero ultimoClon;
+
+
+	private BancoModelo() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Ejecuta las medidas, cada una en su propia JVM.
+	 *
+	 * @param args			filtro, iteraciones y milisegundos por iteracion,
+	 * 						opcionales.
+	 * @throws IOException	si no se puede lanzar una JVM hija.
+	 * @throws InterruptedException	si se interrumpe la espera de una hija.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String filtro = args.length > 0 ? args[0] : "";
+		String iteraciones = args.length > 1 ? args[1] : "5";
+		String milisegundos = args.length > 2 ? args[2] : "500";
+		int[][] secuencias = Posiciones.generarSecuencias(SEMILLA, NUMERO_POSICIONES, MINIMO_JUGADAS,
+				MAXIMO_JUGADAS, TableroBitboard::new);
+		if (filtro.startsWith("=")) {
+			Medidor medidor = new Medidor(3, Integer.parseInt(iteraciones), Long.parseLong(milisegundos));
+			medirTablero("objetos", Tablero::new, secuencias, medidor, filtro, null);
+			medirTablero("bitboard", TableroBitboard::new, secuencias, medidor, filtro, null);
+			System.err.println("(sumidero " + medidor.consultarSumidero() + ")");
+			return;
+		}
+		List<String> nombres = new ArrayList<>();
+		medirTablero("objetos", Tablero::new, secuencias, null, filtro, nombres);
+		medirTablero("bitboard", TableroBitboard::new, secuencias, null, filtro, nombres);
+		System.out.printf("%-40s %12s %10s %12s %6s%n", "medida", "ns/op", "error", "B/op", "gc");
+		for (String nombre : nombres) {
+			List<String> orden = new ArrayList<>();
+			orden.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			orden.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+			orden.add("-cp");
+			orden.add(System.getProperty("java.class.path"));
+			orden.add(BancoModelo.class.getName());
+			orden.add("=" + nombre);
+			orden.add(iteraciones);
+			orden.add(milisegundos);
+			int salida = new ProcessBuilder(orden).inheritIO().start().waitFor();
+			if (salida != 0) {
+				System.err.println("La medida " + nombre + " ha acabado con el codigo " + salida);
+			}
+		}
+	}
+
+
+	/**
+	 * Ejecuta las medidas con un tipo de tablero.
+	 *
+	 * @param etiqueta		nombre del tablero en la salida.
+	 * @param tablero		crea tableros vacios del tipo a medir.
+	 * @param secuencias	jugadas hasta cada posicion.
+	 * @param medidor		medidor.
+	 * @param filtro		filtro de las medidas.
+	 * @param nombres		lista en la que se anotan las medidas en vez de
+	 * 						ejecutarlas, o null para ejecutarlas.
+	 */
+	private static void medirTablero(String etiqueta, Supplier<Tablero> tablero, int[][] secuencias, Medidor medidor,
+			String filtro, List<String> nombres) {
+		int numero = secuencias.length;
+		Partida[] partidas = Posiciones.crearPartidas(secuencias, tablero);
+		Tablero[] tableros = new Tablero[numero];
+		GestorGrupos[] gestores = new GestorGrupos[numero];
+		Celda[][] celdas = new Celda[numero][16];
+		Color[] turnos = new Color[numero];
+		Caja[] cajas = new Caja[numero];
+		for (int n = 0; n < numero; n++) {
+			tableros[n] = partidas[n].consultarTablero();
+			gestores[n] = new GestorGrupos(tableros[n]);
+			for (int celda = 0; celda < 16; celda++) {
+				celdas[n][celda] = tableros[n].obtenerCelda(celda / 4, celda % 4);
+			}
+			turnos[n] = partidas[n].consultarTurno();
+			cajas[n] = crearCaja(secuencias[n], turnos[n]);
+		}
+		int consultas = numero * 64;
+
+		medir(medidor, etiqueta + ".hayGrupoGanador", filtro, nombres, numero,
+				i -> gestores[i].hayGrupoGanador() ? 1 : 0);
+		medir(medidor, etiqueta + ".hayConflictoEnGruposDeCelda", filtro, nombres, consultas,
+				i -> gestores[i >>> 6].hayConflictoEnGruposDeCelda(celdas[i >>> 6][i & 0xF], FIGURAS[(i >>> 4) & 0x3],
+						turnos[i >>> 6]) ? 1 : 0);
+		medir(medidor, etiqueta + ".esJugadaLegalEnTurnoActual", filtro, nombres, consultas,
+				i -> partidas[i >>> 6].esJugadaLegalEnTurnoActual((i >>> 2) & 0x3, i & 0x3, FIGURAS[(i >>> 4) & 0x3])
+						? 1 : 0);
+		medir(medidor, etiqueta + ".Tablero.clonar", filtro, nombres, numero, i -> {
+			ultimoClon = tableros[i].clonar();
+			return 1;
+		});
+		medir(medidor, etiqueta + ".Tablero.aTexto", filtro, nombres, numero, i -> tableros[i].aTexto().length());
+		medir(medidor, etiqueta + ".Caja.retirar", filtro, nombres, numero * 4, i -> {
+			Figura figura = FIGURAS[i & 0x3];
+			Pieza pieza = cajas[i >>> 2].retirar(figura);
+			if (pieza == null) {
+				return 0;
+			}
+			cajas[i >>> 2].reponer(figura);
+			return 1;
+		});
+		Partida[] reproducidas = Posiciones.crearPartidas(secuencias, tablero);
+		Partidas aleatorias = new Partidas(SEMILLA);
+		medir(medidor, etiqueta + ".partidaAleatoria", filtro, nombres, numero,
+				i -> aleatorias.jugarHastaAcabar(reproducidas[i]));
+	}
+
+
+	/**
+	 * Mide una operacion si su nombre pasa el filtro y muestra el resultado, o
+	 * solo anota su nombre.
+	 *
+	 * @param medidor		medidor.
+	 * @param nombre		nombre de la medida.
+	 * @param filtro		=nombre exacto o texto que debe contener el nombre.
+	 * @param nombres		lista de medidas anotadas o null para medir.
+	 * @param tamaño		numero de elementos del conjunto de datos.
+	 * @param operacion		operacion a medir.
+	 */
+	private static void medir(Medidor medidor, String nombre, String filtro, List<String> nombres, int tamaño,
+			Medidor.Operacion operacion) {
+		boolean pasa = filtro.startsWith("=") ? nombre.equals(filtro.substring(1)) : nombre.contains(filtro);
+		if (!pasa) {
+			return;
+		}
+		if (nombres != null) {
+			nombres.add(nombre);
+		} else {
+			System.out.println(medidor.medir(nombre, operacion, tamaño));
+		}
+	}
+
+
+	/**
+	 * Crea la caja del color indicado tras retirar las piezas de sus jugadas.
+	 *
+	 * @param secuencia	jugadas desde el tablero vacio, empezando las blancas.
+	 * @param color		color de la caja.
+	 * @return Caja		caja.
+	 */
+	private static Caja crearCaja(int[] secuencia, Color color) {
+		Caja caja = new Caja(color);
+		for (int i = color == Color.BLANCO ? 0 : 1; i < secuencia.length; i += 2) {
+			caja.retirar(FIGURAS[secuencia[i] & 0x3]);
+		}
+		return caja;
+	}
+
+
+	/**
+	 * Juega partidas aleatorias hasta el final y las deshace, sin crear objetos.
+	 */
+	private static final class Partidas {
+
+		/**
+		 * Generador de las jugadas.
+		 */
+		private final SplittableRandom random;
+
+		/**
+		 * Jugadas legales de la posicion actual.
+		 */
+		private final int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+
+		/**
+		 * Testigos de las jugadas hechas.
+		 */
+		private final int[] testigos = new int[16];
+
+		/**
+		 * Constructor.
+		 *
+		 * @param semilla	semilla.
+		 */
+		Partidas(long semilla) {
+			this.random = new SplittableRandom(semilla);
+		}
+
+		/**
+		 * Juega al azar hasta acabar la partida y la devuelve a su posicion.
+		 *
+		 * @param partida	partida no acabada.
+		 * @return long		ordinal del ganador mas uno por las jugadas hechas.
+		 */
+		long jugarHastaAcabar(Partida partida) {
+			int hechas = 0;
+			while (!partida.estaAcabadaPartida()) {
+				int numero = partida.generarJugadasLegales(jugadas);
+				testigos[hechas++] = partida.hacerJugada(jugadas[random.nextInt(numero)]);
+			}
+			long resultado = (partida.consultarGanador().ordinal() + 1L) * hechas;
+			while (hechas > 0) {
+				partida.deshacerJugada(testigos[--hechas]);
+			}
+			return resultado;
+		}
+	}
+}
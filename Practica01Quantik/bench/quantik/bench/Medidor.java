@@ -0,0 +1,277 @@
+package quantik.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Mide el tiempo y la memoria reservada por operacion de un fragmento de
+ * codigo, al estilo de JMH con el perfilador de GC.
+ *
+ * Cada medida hace primero unas iteraciones de calentamiento que se descartan
+ * y despues unas iteraciones de duracion fija. En cada iteracion la operacion
+ * se ejecuta en bucle recorriendo todos los indices de su conjunto de datos, de
+ * modo que el JIT no puede especializarse en una sola posicion. Los resultados
+ * de la operacion se acumulan en un campo para que no se eliminen como codigo
+ * muerto. La llamada a la operacion dentro del bucle es la misma para todas
+ * las medidas, asi que cada medida debe hacerse en su propia JVM para que el
+ * JIT la vea monomorfica, como hace BancoModelo.
+ *
+ * La memoria reservada se obtiene del contador por hilo de la JVM (disponible
+ * en HotSpot) y las recolecciones de los MXBean de los recolectores.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.bench.BancoModelo
+ *
+ */
+public final class Medidor {
+
+	/**
+	 * Operacion a medir sobre el elemento i de su conjunto de datos.
+	 */
+	@FunctionalInterface
+	public interface Operacion {
+
+		/**
+		 * Ejecuta la operacion.
+		 *
+		 * @param i		indice del elemento, entre 0 y el tamaño del conjunto.
+		 * @return long	cualquier valor que dependa del resultado.
+		 */
+		long ejecutar(int i);
+	}
+
+
+	/**
+	 * Iteraciones de calentamiento.
+	 */
+	private final int calentamiento;
+
+
+	/**
+	 * Iteraciones medidas.
+	 */
+	private final int iteraciones;
+
+
+	/**
+	 * Duracion minima de cada iteracion en nanosegundos.
+	 */
+	private final long duracion;
+
+
+	/**
+	 * Contador de memoria reservada por hilo o null si la JVM no lo ofrece.
+	 */
+	private final com.sun.management.ThreadMXBean memoria;
+
+
+	/**
+	 * Acumulador de los resultados de las operaciones.
+	 */
+	private long sumidero;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param calentamiento		iteraciones de calentamiento.
+	 * @param iteraciones		iteraciones medidas, al menos 1.
+	 * @param milisegundos		duracion minima de cada iteracion.
+	 */
+	public Medidor(int calentamiento, int iteraciones, long milisegundos) {
+		if (iteraciones < 1) {
+			throw new IllegalArgumentException("Numero de iteraciones incorrecto: " + iteraciones);
+		}
+		this.calentamiento = calentamiento;
+		this.iteraciones = iteraciones;
+		this.duracion = milisegundos * 1_000_000L;
+		ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+		if (hilos instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) hilos).isThreadAllocatedMemorySupported()) {
+			com.sun.management.ThreadMXBean conMemoria = (com.sun.management.ThreadMXBean) hilos;
+			conMemoria.setThreadAllocatedMemoryEnabled(true);
+			this.memoria = conMemoria;
+		} else {
+			this.memoria = null;
+		}
+	}
+
+
+	/**
+	 * Mide una operacion.
+	 *
+	 * @param nombre		nombre de la medida.
+	 * @param operacion		operacion a medir.
+	 * @param tamaño		numero de elementos del conjunto de datos.
+	 * @return Resultado	tiempo y memoria por operacion.
+	 */
+	public Resultado medir(String nombre, Operacion operacion, int tamaño) {
+		for (int i = 0; i < calentamiento; i++) {
+			iterar(operacion, tamaño);
+		}
+		double[] tiempos = new double[iteraciones];
+		long operaciones = 0;
+		long reservados = reservadosPorHilo();
+		long recolecciones = contarRecolecciones();
+		for (int i = 0; i < iteraciones; i++) {
+			long inicio = System.nanoTime();
+			long hechas = iterar(operacion, tamaño);
+			tiempos[i] = (double) (System.nanoTime() - inicio) / hechas;
+			operaciones += hechas;
+		}
+		reservados = reservadosPorHilo() - reservados;
+		recolecciones = contarRecolecciones() - recolecciones;
+		return new Resultado(nombre, tiempos, memoria == null ? Double.NaN : (double) reservados / operaciones,
+				recolecciones);
+	}
+
+
+	/**
+	 * Devuelve el acumulador, para que los resultados se consideren usados.
+	 *
+	 * @return long	acumulador.
+	 */
+	public long consultarSumidero() {
+		return sumidero;
+	}
+
+
+	/**
+	 * Ejecuta pasadas completas sobre el conjunto hasta cumplir la duracion.
+	 *
+	 * @param operacion	operacion.
+	 * @param tamaño	numero de elementos del conjunto de datos.
+	 * @return long		numero de operaciones ejecutadas.
+	 */
+	private long iterar(Operacion operacion, int tamaño) {
+		long fin = System.nanoTime() + duracion;
+		long hechas = 0;
+		long acumulado = sumidero;
+		do {
+			for (int i = 0; i < tamaño; i++) {
+				acumulado += operacion.ejecutar(i);
+			}
+			hechas += tamaño;
+		} while (System.nanoTime() < fin);
+		sumidero = acumulado;
+		return hechas;
+	}
+
+
+	/**
+	 * Devuelve los bytes reservados por el hilo actual.
+	 *
+	 * @return long	bytes reservados o 0 si no se pueden consultar.
+	 */
+	private long reservadosPorHilo() {
+		return memoria == null ? 0 : memoria.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+
+	/**
+	 * Devuelve el numero total de recolecciones de todos los recolectores.
+	 *
+	 * @return long	recolecciones.
+	 */
+	private static long contarRecolecciones() {
+		long total = 0;
+		List<GarbageCollectorMXBean> recolectores = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean recolector : recolectores) {
+			total += Math.max(recolector.getCollectionCount(), 0);
+		}
+		return total;
+	}
+
+
+	/**
+	 * Resultado de una medida.
+	 */
+	public static final class Resultado {
+
+		/**
+		 * Nombre de la medida.
+		 */
+		private final String nombre;
+
+		/**
+		 * Nanosegundos por operacion de cada iteracion.
+		 */
+		private final double[] tiempos;
+
+		/**
+		 * Bytes reservados por operacion o NaN si no se conocen.
+		 */
+		private final double bytes;
+
+		/**
+		 * Recolecciones durante las iteraciones medidas.
+		 */
+		private final long recolecciones;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param nombre		nombre de la medida.
+		 * @param tiempos		nanosegundos por operacion de cada iteracion.
+		 * @param bytes			bytes reservados por operacion.
+		 * @param recolecciones	recolecciones durante la medida.
+		 */
+		Resultado(String nombre, double[] tiempos, double bytes, long recolecciones) {
+			this.nombre = nombre;
+			this.tiempos = tiempos;
+			this.bytes = bytes;
+			this.recolecciones = recolecciones;
+		}
+
+		public String consultarNombre() {
+			return nombre;
+		}
+
+		/**
+		 * Devuelve la media de nanosegundos por operacion.
+		 *
+		 * @return double	media.
+		 */
+		public double consultarMedia() {
+			double suma = 0;
+			for (double tiempo : tiempos) {
+				suma += tiempo;
+			}
+			return suma / tiempos.length;
+		}
+
+		/**
+		 * Devuelve la desviacion tipica de los nanosegundos por operacion.
+		 *
+		 * @return double	desviacion tipica, 0 con una sola iteracion.
+		 */
+		public double consultarDesviacion() {
+			if (tiempos.length < 2) {
+				return 0;
+			}
+			double media = consultarMedia();
+			double suma = 0;
+			for (double tiempo : tiempos) {
+				suma += (tiempo - media) * (tiempo - media);
+			}
+			return Math.sqrt(suma / (tiempos.length - 1));
+		}
+
+		public double consultarBytes() {
+			return bytes;
+		}
+
+		public long consultarRecolecciones() {
+			return recolecciones;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-40s %12.2f %10.2f %12.1f %6d", nombre, consultarMedia(), consultarDesviacion(),
+					bytes, recolecciones);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package quantik.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.Tablero;
+import quantik.util.Color;
+
+/**
+ * Conjuntos fijos de posiciones de mitad de partida para las medidas.
+ *
+ * Cada posicion se obtiene jugando desde el tablero vacio un numero aleatorio
+ * de jugadas legales elegidas al azar, sin llegar a acabar la partida. Con la
+ * misma semilla se obtienen siempre las mismas secuencias, de modo que las
+ * medidas sobre distintos tableros o en distintas versiones comparan
+ * exactamente las mismas posiciones.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+public final class Posiciones {
+
+	private Posiciones() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Genera secuencias de jugadas codificadas que llevan a posiciones no acabadas.
+	 *
+	 * @param semilla		semilla.
+	 * @param numero		numero de secuencias.
+	 * @param minimo		minimo de jugadas de cada secuencia.
+	 * @param maximo		maximo de jugadas de cada secuencia.
+	 * @param tablero		crea el tablero vacio sobre el que se generan.
+	 * @return int[][]		secuencias de jugadas (celda << 2 | figura).
+	 */
+	public static int[][] generarSecuencias(long semilla, int numero, int minimo, int maximo,
+			Supplier<Tablero> tablero) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		int[][] secuencias = new int[numero][];
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		for (int n = 0; n < numero; n++) {
+			Partida partida = crearPartida(tablero);
+			int objetivo = minimo + random.nextInt(maximo - minimo + 1);
+			int[] secuencia = new int[objetivo];
+			int hechas = 0;
+			while (hechas < objetivo && !partida.estaAcabadaPartida()) {
+				int jugada = jugadas[random.nextInt(partida.generarJugadasLegales(jugadas))];
+				int testigo = partida.hacerJugada(jugada);
+				if (partida.estaAcabadaPartida()) {
+					partida.deshacerJugada(testigo);
+					break;
+				}
+				secuencia[hechas++] = jugada;
+			}
+			secuencias[n] = Arrays.copyOf(secuencia, hechas);
+		}
+		return secuencias;
+	}
+
+
+	/**
+	 * Crea las partidas que resultan de jugar cada secuencia sobre un tablero nuevo.
+	 *
+	 * @param secuencias	secuencias de jugadas.
+	 * @param tablero		crea el tablero vacio de cada partida.
+	 * @return Partida[]	partidas.
+	 */
+	public static Partida[] crearPartidas(int[][] secuencias, Supplier<Tablero> tablero) {
+		Partida[] partidas = new Partida[secuencias.length];
+		for (int n = 0; n < secuencias.length; n++) {
+			partidas[n] = crearPartida(tablero);
+			for (int jugada : secuencias[n]) {
+				partidas[n].hacerJugada(jugada);
+			}
+		}
+		return partidas;
+	}
+
+
+	/**
+	 * Crea una partida vacia sobre un tablero nuevo.
+	 *
+	 * @param tablero	crea el tablero vacio.
+	 * @return Partida	partida.
+	 */
+	public static Partida crearPartida(Supplier<Tablero> tablero) {
+		return new Partida(tablero.get(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+	}
+}
@@ -0,0 +1,66 @@
+package quantik.carga;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import quantik.servidor.ServidorNio;
+
+/**
+ * Conexion con las tramas binarias de ServidorNio. Cada peticion lleva como
+ * mucho una jugada, igual que una orden del protocolo de texto, para que las
+ * latencias de los dos servidores sean comparables.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.ServidorNio
+ *
+ */
+public class ConexionBinaria extends ConexionCarga {
+
+	/**
+	 * Jugada de la peticion en curso.
+	 */
+	private final int[] jugadas = new int[1];
+
+
+	/**
+	 * Constructor que conecta con el servidor local.
+	 *
+	 * @param puerto		puerto del servidor.
+	 * @throws IOException	si no se puede conectar.
+	 */
+	public ConexionBinaria(int puerto) throws IOException {
+		super(puerto, ServidorNio.MAXIMA_PETICION, ServidorNio.RESPUESTA);
+	}
+
+
+	@Override
+	protected void codificarPartida(ByteBuffer destino) {
+		ServidorNio.codificarPeticion(destino, 0, jugadas, 0, false);
+	}
+
+
+	@Override
+	protected void codificarJugada(ByteBuffer destino, long id, int jugada) {
+		jugadas[0] = jugada;
+		ServidorNio.codificarPeticion(destino, id, jugadas, 1, false);
+	}
+
+
+	@Override
+	protected void codificarCierre(ByteBuffer destino, long id) {
+		ServidorNio.codificarPeticion(destino, id, jugadas, 0, true);
+	}
+
+
+	@Override
+	protected long decodificar(ByteBuffer origen, int peticion) {
+		if (origen.remaining() < ServidorNio.RESPUESTA) {
+			return PENDIENTE;
+		}
+		long id = origen.getLong();
+		byte estado = origen.get();
+		origen.position(origen.position() + ServidorNio.RESPUESTA - Long.BYTES - 1);
+		return peticion == PETICION_PARTIDA ? id : estado;
+	}
+}
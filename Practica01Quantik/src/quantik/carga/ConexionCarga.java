@@ -0,0 +1,256 @@
+package quantik.carga;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Conexion no bloqueante de un jugador simulado con un servidor de partidas.
+ *
+ * Cada conexion tiene como mucho una peticion en vuelo: se envia con
+ * pedirPartida, pedirJugada o pedirCierre y su respuesta se recoge con recibir
+ * cuando el Selector del generador de carga avisa de que hay datos. Las
+ * subclases solo codifican las peticiones y decodifican las respuestas de su
+ * protocolo. Los estados devueltos usan los codigos de ServidorNio, sea cual
+ * sea el protocolo.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.ServidorNio
+ *
+ */
+public abstract class ConexionCarga implements Closeable {
+
+	/**
+	 * Respuesta de recibir cuando aun no ha llegado completa.
+	 */
+	public static final long PENDIENTE = Long.MIN_VALUE;
+
+
+	/**
+	 * Peticion de una partida nueva.
+	 */
+	public static final int PETICION_PARTIDA = 0;
+
+
+	/**
+	 * Peticion de una jugada.
+	 */
+	public static final int PETICION_JUGADA = 1;
+
+
+	/**
+	 * Peticion de cierre de una partida.
+	 */
+	public static final int PETICION_CIERRE = 2;
+
+
+	/**
+	 * Conexion no bloqueante.
+	 */
+	private final SocketChannel canal;
+
+
+	/**
+	 * Peticion en curso, lista para escribir.
+	 */
+	private final ByteBuffer salida;
+
+
+	/**
+	 * Bytes recibidos que aun no forman una respuesta completa.
+	 */
+	private final ByteBuffer entrada;
+
+
+	/**
+	 * Tipo de la ultima peticion.
+	 */
+	private int peticion;
+
+
+	/**
+	 * Constructor que conecta con el servidor local y deja la conexion en modo
+	 * no bloqueante.
+	 *
+	 * @param puerto			puerto del servidor.
+	 * @param maximaPeticion	tamaño maximo de una peticion en bytes.
+	 * @param maximaRespuesta	tamaño maximo de una respuesta en bytes.
+	 * @throws IOException		si no se puede conectar.
+	 */
+	protected ConexionCarga(int puerto, int maximaPeticion, int maximaRespuesta) throws IOException {
+		canal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto));
+		try {
+			canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			canal.configureBlocking(false);
+		} catch (IOException e) {
+			canal.close();
+			throw e;
+		}
+		salida = ByteBuffer.allocateDirect(maximaPeticion);
+		entrada = ByteBuffer.allocateDirect(maximaRespuesta);
+		salida.limit(0);
+	}
+
+
+	/**
+	 * Devuelve el canal, para registrarlo en un Selector.
+	 *
+	 * @return SocketChannel	canal no bloqueante.
+	 */
+	public SocketChannel consultarCanal() {
+		return canal;
+	}
+
+
+	/**
+	 * Devuelve el tipo de la ultima peticion.
+	 *
+	 * @return int	PETICION_PARTIDA, PETICION_JUGADA o PETICION_CIERRE.
+	 */
+	public int consultarPeticion() {
+		return peticion;
+	}
+
+
+	/**
+	 * Pide una partida nueva.
+	 *
+	 * @return boolean		True si se ha enviado entera; si no, hay que llamar
+	 * 						a enviar cuando el canal admita escritura.
+	 * @throws IOException	si falla la conexion.
+	 */
+	public boolean pedirPartida() throws IOException {
+		salida.clear();
+		codificarPartida(salida);
+		return empezar(PETICION_PARTIDA);
+	}
+
+
+	/**
+	 * Pide una jugada.
+	 *
+	 * @param id			identificador de la partida.
+	 * @param jugada		jugada codificada (celda << 2 | figura).
+	 * @return boolean		True si se ha enviado entera.
+	 * @throws IOException	si falla la conexion.
+	 */
+	public boolean pedirJugada(long id, int jugada) throws IOException {
+		salida.clear();
+		codificarJugada(salida, id, jugada);
+		return empezar(PETICION_JUGADA);
+	}
+
+
+	/**
+	 * Pide quitar una partida del servidor.
+	 *
+	 * @param id			identificador de la partida.
+	 * @return boolean		True si se ha enviado entera.
+	 * @throws IOException	si falla la conexion.
+	 */
+	public boolean pedirCierre(long id) throws IOException {
+		salida.clear();
+		codificarCierre(salida, id);
+		return empezar(PETICION_CIERRE);
+	}
+
+
+	/**
+	 * Envia lo que quede de la peticion en curso sin bloquear.
+	 *
+	 * @return boolean		True si ya se ha enviado entera.
+	 * @throws IOException	si falla la conexion.
+	 */
+	public boolean enviar() throws IOException {
+		canal.write(salida);
+		return !salida.hasRemaining();
+	}
+
+
+	/**
+	 * Lee lo disponible sin bloquear y decodifica la respuesta si esta
+	 * completa.
+	 *
+	 * @return long			identificador de la partida tras pedirPartida,
+	 * 						estado o codigo de error tras pedirJugada o
+	 * 						pedirCierre, o PENDIENTE si falta parte de la
+	 * 						respuesta.
+	 * @throws IOException	si falla la conexion o la respuesta es incorrecta.
+	 */
+	public long recibir() throws IOException {
+		if (canal.read(entrada) < 0) {
+			throw new IOException("Conexion cerrada por el servidor");
+		}
+		entrada.flip();
+		long respuesta = decodificar(entrada, peticion);
+		entrada.compact();
+		if (respuesta == PENDIENTE && !entrada.hasRemaining()) {
+			throw new IOException("Respuesta demasiado larga");
+		}
+		return respuesta;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		canal.close();
+	}
+
+
+	/**
+	 * Escribe la peticion de una partida nueva.
+	 *
+	 * @param destino	buffer de la peticion.
+	 */
+	protected abstract void codificarPartida(ByteBuffer destino);
+
+
+	/**
+	 * Escribe la peticion de una jugada.
+	 *
+	 * @param destino	buffer de la peticion.
+	 * @param id		identificador de la partida.
+	 * @param jugada	jugada codificada.
+	 */
+	protected abstract void codificarJugada(ByteBuffer destino, long id, int jugada);
+
+
+	/**
+	 * Escribe la peticion de cierre de una partida.
+	 *
+	 * @param destino	buffer de la peticion.
+	 * @param id		identificador de la partida.
+	 */
+	protected abstract void codificarCierre(ByteBuffer destino, long id);
+
+
+	/**
+	 * Decodifica una respuesta si esta completa.
+	 *
+	 * @param origen		bytes recibidos; si la respuesta esta completa se
+	 * 						consume y si no se deja la posicion como estaba.
+	 * @param peticion		tipo de la peticion respondida.
+	 * @return long			respuesta como en recibir o PENDIENTE.
+	 * @throws IOException	si la respuesta es incorrecta.
+	 */
+	protected abstract long decodificar(ByteBuffer origen, int peticion) throws IOException;
+
+
+	/**
+	 * Empieza a enviar la peticion que se acaba de codificar.
+	 *
+	 * @param tipo			tipo de la peticion.
+	 * @return boolean		True si se ha enviado entera.
+	 * @throws IOException	si falla la conexion.
+	 */
+	private boolean empezar(int tipo) throws IOException {
+		peticion = tipo;
+		salida.flip();
+		return enviar();
+	}
+}
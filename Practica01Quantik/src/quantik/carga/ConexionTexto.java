@@ -0,0 +1,103 @@
+package quantik.carga;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import quantik.registro.FormatoRegistro;
+import quantik.servidor.ServidorNio;
+import quantik.servidor.ServidorPartidas;
+import quantik.util.Color;
+
+/**
+ * Conexion con el protocolo de lineas de ServidorPartidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.ServidorPartidas
+ *
+ */
+public class ConexionTexto extends ConexionCarga {
+
+	/**
+	 * Constructor que conecta con el servidor local.
+	 *
+	 * @param puerto		puerto del servidor.
+	 * @throws IOException	si no se puede conectar.
+	 */
+	public ConexionTexto(int puerto) throws IOException {
+		super(puerto, ServidorPartidas.MAXIMA_LINEA + 1, ServidorPartidas.MAXIMA_LINEA + 1);
+	}
+
+
+	@Override
+	protected void codificarPartida(ByteBuffer destino) {
+		escribir(destino, "NUEVA");
+	}
+
+
+	@Override
+	protected void codificarJugada(ByteBuffer destino, long id, int jugada) {
+		escribir(destino, "JUGAR " + id + " " + FormatoRegistro.aTexto(jugada));
+	}
+
+
+	@Override
+	protected void codificarCierre(ByteBuffer destino, long id) {
+		escribir(destino, "CERRAR " + id);
+	}
+
+
+	@Override
+	protected long decodificar(ByteBuffer origen, int peticion) throws IOException {
+		int fin = origen.position();
+		while (fin < origen.limit() && origen.get(fin) != '\n') {
+			fin++;
+		}
+		if (fin == origen.limit()) {
+			return PENDIENTE;
+		}
+		byte[] bytes = new byte[fin - origen.position()];
+		origen.get(bytes).get();
+		String respuesta = new String(bytes, StandardCharsets.UTF_8);
+		String[] partes = respuesta.split(" ");
+		if ((peticion == PETICION_PARTIDA) != partes[0].equals("PARTIDA") || partes.length < 2) {
+			throw new IOException("Respuesta inesperada: " + respuesta);
+		}
+		switch (partes[0]) {
+		case "PARTIDA":
+			return Long.parseLong(partes[1]);
+		case "CERRADA":
+			return 0;
+		case "TURNO":
+			return Color.valueOf(partes[1]).ordinal();
+		case "GANADOR":
+			return ServidorNio.GANA_BLANCO + Color.valueOf(partes[1]).ordinal();
+		case "ERROR":
+			switch (partes[1]) {
+			case "partida":
+				return ServidorNio.ERROR_PARTIDA;
+			case "ilegal":
+				return ServidorNio.ERROR_ILEGAL;
+			case "acabada":
+				return ServidorNio.ERROR_ACABADA;
+			default:
+				return ServidorNio.ERROR_FORMATO;
+			}
+		default:
+			throw new IOException("Respuesta inesperada: " + respuesta);
+		}
+	}
+
+
+	/**
+	 * Escribe una orden terminada en fin de linea.
+	 *
+	 * @param destino	buffer de la peticion.
+	 * @param orden		orden.
+	 */
+	private static void escribir(ByteBuffer destino, String orden) {
+		destino.put(orden.getBytes(StandardCharsets.UTF_8));
+		destino.put((byte) '\n');
+	}
+}
@@ -0,0 +1,448 @@
+package quantik.carga;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.servidor.ServidorNio;
+import quantik.servidor.ServidorPartidas;
+import quantik.util.Color;
+
+/**
+ * Genera carga sobre un servidor de partidas con muchos jugadores simulados.
+ *
+ * Cada jugador simulado tiene su propia conexion no bloqueante y su propia
+ * partida local, con la que elige al azar jugadas legales y comprueba que el
+ * servidor responde lo mismo que las reglas de Partida. Los jugadores se
+ * reparten entre unos pocos hilos, cada uno con un Selector sobre las
+ * conexiones de sus jugadores, y todos los jugadores tienen a la vez una
+ * peticion en vuelo, asi que el servidor ve tantos clientes simultaneos como
+ * jugadores. Cada hilo anota la latencia de cada peticion en su propio
+ * HistogramaLatencias.
+ *
+ * Es una medida en bucle cerrado por jugador: un jugador no envia la siguiente
+ * peticion hasta recibir la respuesta, de modo que si el servidor se para las
+ * peticiones que no se llegan a enviar no cuentan en el histograma. Una
+ * partida cuya respuesta no coincide con la esperada se cierra en el servidor
+ * y se empieza otra, y al acabar el tiempo se cierran las partidas en curso,
+ * de modo que la carga no deja partidas abiertas en el servidor.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.carga.HistogramaLatencias
+ *
+ */
+public class GeneradorCarga {
+
+	/**
+	 * Crea las conexiones de los jugadores simulados.
+	 */
+	@FunctionalInterface
+	public interface FabricaConexiones {
+
+		/**
+		 * Abre una conexion con el servidor.
+		 *
+		 * @return ConexionCarga	conexion.
+		 * @throws IOException		si no se puede conectar.
+		 */
+		ConexionCarga abrir() throws IOException;
+	}
+
+
+	/**
+	 * Crea las conexiones.
+	 */
+	private final FabricaConexiones fabrica;
+
+
+	/**
+	 * Numero de jugadores simulados.
+	 */
+	private final int jugadores;
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param fabrica	crea las conexiones con el servidor.
+	 * @param jugadores	numero de jugadores simulados, al menos tantos como hilos.
+	 * @param hilos		numero de hilos.
+	 */
+	public GeneradorCarga(FabricaConexiones fabrica, int jugadores, int hilos) {
+		if (hilos < 1 || jugadores < hilos) {
+			throw new IllegalArgumentException("Configuracion incorrecta: " + jugadores + " jugadores, " + hilos
+					+ " hilos");
+		}
+		this.fabrica = fabrica;
+		this.jugadores = jugadores;
+		this.hilos = hilos;
+	}
+
+
+	/**
+	 * Conecta los jugadores, genera carga durante el tiempo indicado, cierra las
+	 * partidas en curso y cierra las conexiones.
+	 *
+	 * @param milisegundos	duracion de la carga.
+	 * @param semilla		semilla de las jugadas.
+	 * @return Informe		latencias y totales.
+	 * @throws IOException	si no se puede conectar o falla una conexion.
+	 */
+	public Informe ejecutar(long milisegundos, long semilla) throws IOException {
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<Conductor> conductores = new ArrayList<>(hilos);
+		try {
+			SplittableRandom random = new SplittableRandom(semilla);
+			for (int i = 0; i < hilos; i++) {
+				conductores.add(new Conductor(random.split()));
+			}
+			for (int i = 0; i < jugadores; i++) {
+				conductores.get(i % hilos).simulados.add(new Simulado(fabrica.abrir()));
+			}
+			long inicio = System.nanoTime();
+			long fin = inicio + milisegundos * 1_000_000L;
+			List<Future<?>> tareas = new ArrayList<>(hilos);
+			for (Conductor conductor : conductores) {
+				tareas.add(ejecutor.submit(() -> {
+					conductor.conducir(fin);
+					return null;
+				}));
+			}
+			Informe informe = new Informe();
+			for (int i = 0; i < hilos; i++) {
+				tareas.get(i).get();
+				informe.sumar(conductores.get(i));
+			}
+			informe.nanosegundos = System.nanoTime() - inicio;
+			return informe;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Carga interrumpida", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException("Error en un hilo de carga", e.getCause());
+		} finally {
+			ejecutor.shutdown();
+			for (Conductor conductor : conductores) {
+				for (Simulado simulado : conductor.simulados) {
+					simulado.conexion.close();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Genera carga contra un servidor local y muestra el informe.
+	 *
+	 * @param args			protocolo ("texto" o "binario"), puerto, jugadores,
+	 * 						hilos y segundos; todos opcionales.
+	 * @throws IOException	si no se puede conectar.
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean binario = args.length > 0 && args[0].equals("binario");
+		int puerto = args.length > 1 ? Integer.parseInt(args[1]) : binario ? ServidorNio.PUERTO : ServidorPartidas.PUERTO;
+		int jugadores = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int hilos = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		long segundos = args.length > 4 ? Long.parseLong(args[4]) : 10;
+		FabricaConexiones fabrica = binario ? () -> new ConexionBinaria(puerto) : () -> new ConexionTexto(puerto);
+		System.out.println(new GeneradorCarga(fabrica, jugadores, hilos).ejecutar(segundos * 1000, 1L));
+	}
+
+
+	/**
+	 * Jugador simulado: su conexion y su partida local.
+	 */
+	private static final class Simulado {
+
+		/**
+		 * Conexion con el servidor.
+		 */
+		private final ConexionCarga conexion;
+
+		/**
+		 * Partida local con la que se eligen y comprueban las jugadas.
+		 */
+		private Partida partida;
+
+		/**
+		 * Identificador de la partida en el servidor o -1 si no hay.
+		 */
+		private long id = -1;
+
+		/**
+		 * True si la partida se abandona por una respuesta inesperada.
+		 */
+		private boolean abandonada;
+
+		/**
+		 * Valor de System.nanoTime al enviar la peticion en vuelo.
+		 */
+		private long inicio;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param conexion	conexion con el servidor.
+		 */
+		Simulado(ConexionCarga conexion) {
+			this.conexion = conexion;
+		}
+	}
+
+
+	/**
+	 * Hilo que atiende con un Selector a sus jugadores simulados.
+	 */
+	private static final class Conductor {
+
+		/**
+		 * Jugadores del hilo.
+		 */
+		private final List<Simulado> simulados = new ArrayList<>();
+
+		/**
+		 * Generador de las jugadas.
+		 */
+		private final SplittableRandom random;
+
+		/**
+		 * Latencias de las peticiones del hilo en nanosegundos.
+		 */
+		private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+		/**
+		 * Jugadas legales de la posicion actual.
+		 */
+		private final int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+
+		/**
+		 * Partidas acabadas.
+		 */
+		private long partidas;
+
+		/**
+		 * Respuestas distintas de las esperadas.
+		 */
+		private long errores;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param random	generador propio del hilo.
+		 */
+		Conductor(SplittableRandom random) {
+			this.random = random;
+		}
+
+		/**
+		 * Mantiene una peticion en vuelo por jugador hasta el instante indicado
+		 * y despues cierra las partidas que quedan en curso.
+		 *
+		 * @param fin			valor de System.nanoTime en el que parar.
+		 * @throws IOException	si falla una conexion.
+		 */
+		void conducir(long fin) throws IOException {
+			try (Selector selector = Selector.open()) {
+				int enVuelo = 0;
+				for (Simulado simulado : simulados) {
+					SelectionKey clave = simulado.conexion.consultarCanal().register(selector, SelectionKey.OP_READ,
+							simulado);
+					if (pedir(clave, simulado, false)) {
+						enVuelo++;
+					}
+				}
+				while (enVuelo > 0) {
+					selector.select();
+					Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+					while (claves.hasNext()) {
+						SelectionKey clave = claves.next();
+						claves.remove();
+						Simulado simulado = (Simulado) clave.attachment();
+						if (clave.isWritable() && simulado.conexion.enviar()) {
+							clave.interestOps(SelectionKey.OP_READ);
+						}
+						if (!clave.isReadable()) {
+							continue;
+						}
+						long respuesta = simulado.conexion.recibir();
+						if (respuesta != ConexionCarga.PENDIENTE) {
+							long ahora = System.nanoTime();
+							latencias.registrar(ahora - simulado.inicio);
+							anotar(simulado, respuesta);
+							if (!pedir(clave, simulado, ahora >= fin)) {
+								enVuelo--;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Envia la siguiente peticion de un jugador: crear la partida, jugar o
+		 * cerrarla cuando ha acabado o se abandona. Acabado el tiempo solo se
+		 * cierra la partida en curso, si la hay.
+		 *
+		 * @param clave			clave de la conexion.
+		 * @param simulado		jugador.
+		 * @param acabando		True si ha acabado el tiempo.
+		 * @return boolean		True si se ha enviado una peticion.
+		 * @throws IOException	si falla la conexion.
+		 */
+		private boolean pedir(SelectionKey clave, Simulado simulado, boolean acabando) throws IOException {
+			ConexionCarga conexion = simulado.conexion;
+			boolean enviada;
+			if (simulado.id < 0) {
+				if (acabando) {
+					return false;
+				}
+				simulado.inicio = System.nanoTime();
+				enviada = conexion.pedirPartida();
+			} else if (acabando || simulado.abandonada || simulado.partida.estaAcabadaPartida()) {
+				simulado.inicio = System.nanoTime();
+				enviada = conexion.pedirCierre(simulado.id);
+			} else {
+				Partida partida = simulado.partida;
+				int jugada = jugadas[random.nextInt(partida.generarJugadasLegales(jugadas))];
+				partida.hacerJugada(jugada);
+				simulado.inicio = System.nanoTime();
+				enviada = conexion.pedirJugada(simulado.id, jugada);
+			}
+			if (!enviada) {
+				clave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+			return true;
+		}
+
+		/**
+		 * Anota la respuesta a la ultima peticion de un jugador.
+		 *
+		 * @param simulado	jugador.
+		 * @param respuesta	respuesta recibida.
+		 */
+		private void anotar(Simulado simulado, long respuesta) {
+			switch (simulado.conexion.consultarPeticion()) {
+			case ConexionCarga.PETICION_PARTIDA:
+				simulado.id = respuesta;
+				simulado.abandonada = false;
+				simulado.partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+				break;
+			case ConexionCarga.PETICION_CIERRE:
+				if (!simulado.abandonada && simulado.partida.estaAcabadaPartida()) {
+					partidas++;
+				}
+				simulado.id = -1;
+				break;
+			default:
+				Partida partida = simulado.partida;
+				Color ganador = partida.consultarGanador();
+				int esperado = ganador == null ? partida.consultarTurno().ordinal()
+						: ServidorNio.GANA_BLANCO + ganador.ordinal();
+				if (respuesta != esperado) {
+					errores++;
+					simulado.abandonada = true;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Resultado de una ejecucion.
+	 */
+	public static final class Informe {
+
+		/**
+		 * Latencias de todas las peticiones en nanosegundos.
+		 */
+		private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+		/**
+		 * Partidas acabadas.
+		 */
+		private long partidas;
+
+		/**
+		 * Respuestas distintas de las esperadas.
+		 */
+		private long errores;
+
+		/**
+		 * Duracion de la carga.
+		 */
+		private long nanosegundos;
+
+		/**
+		 * Suma los resultados de un hilo.
+		 *
+		 * @param conductor	hilo.
+		 */
+		private void sumar(Conductor conductor) {
+			latencias.sumar(conductor.latencias);
+			partidas += conductor.partidas;
+			errores += conductor.errores;
+		}
+
+		/**
+		 * Devuelve las latencias en nanosegundos.
+		 *
+		 * @return HistogramaLatencias	latencias.
+		 */
+		public HistogramaLatencias consultarLatencias() {
+			return latencias;
+		}
+
+		public long consultarPeticiones() {
+			return latencias.consultarTotal();
+		}
+
+		public long consultarPartidas() {
+			return partidas;
+		}
+
+		public long consultarErrores() {
+			return errores;
+		}
+
+		/**
+		 * Devuelve las peticiones atendidas por segundo.
+		 *
+		 * @return double	peticiones por segundo.
+		 */
+		public double consultarPeticionesPorSegundo() {
+			return nanosegundos == 0 ? 0 : latencias.consultarTotal() * 1e9 / nanosegundos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"%d peticiones en %.1f s (%.0f/s), %d partidas, %d errores%n"
+							+ "latencia us: media %.1f p50 %.1f p90 %.1f p99 %.1f p999 %.1f max %.1f",
+					latencias.consultarTotal(), nanosegundos / 1e9, consultarPeticionesPorSegundo(), partidas,
+					errores, latencias.consultarMedia() / 1e3, latencias.consultarPercentil(50) / 1e3,
+					latencias.consultarPercentil(90) / 1e3, latencias.consultarPercentil(99) / 1e3,
+					latencias.consultarPercentil(99.9) / 1e3, latencias.consultarMaximo() / 1e3);
+		}
+	}
+}
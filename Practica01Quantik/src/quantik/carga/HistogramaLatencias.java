@@ -0,0 +1,192 @@
+package quantik.carga;
+
+/**
+ * Histograma de latencias con precision relativa fija, al estilo de
+ * HdrHistogram.
+ *
+ * Los valores menores que 128 tienen una casilla cada uno. A partir de ahi
+ * cada potencia de dos se divide en 64 casillas iguales, de modo que el error
+ * relativo de cualquier valor es menor que 1/64 (un 1,6 %) y todo el rango de
+ * long cabe en menos de 4000 casillas. Registrar un valor es calcular su
+ * casilla con numberOfLeadingZeros e incrementar un contador, sin crear
+ * objetos.
+ *
+ * Un histograma no es seguro entre hilos: cada hilo registra en el suyo y al
+ * final se suman con sumar.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+public final class HistogramaLatencias {
+
+	/**
+	 * Bits de la parte significativa de cada casilla por encima de la zona lineal.
+	 */
+	private static final int BITS_SUBCASILLA = 6;
+
+
+	/**
+	 * Valores con casilla propia: 2^(BITS_SUBCASILLA + 1).
+	 */
+	private static final int LINEAL = 1 << (BITS_SUBCASILLA + 1);
+
+
+	/**
+	 * Numero de casillas para todo el rango de long.
+	 */
+	private static final int CASILLAS = indice(Long.MAX_VALUE) + 1;
+
+
+	/**
+	 * Numero de valores de cada casilla.
+	 */
+	private final long[] cuentas = new long[CASILLAS];
+
+
+	/**
+	 * Numero total de valores.
+	 */
+	private long total;
+
+
+	/**
+	 * Valor minimo registrado.
+	 */
+	private long minimo = Long.MAX_VALUE;
+
+
+	/**
+	 * Valor maximo registrado.
+	 */
+	private long maximo;
+
+
+	/**
+	 * Suma de los valores, para la media.
+	 */
+	private double suma;
+
+
+	/**
+	 * Registra un valor.
+	 *
+	 * @param valor	valor, cero o mayor.
+	 */
+	public void registrar(long valor) {
+		if (valor < 0) {
+			throw new IllegalArgumentException("Valor negativo: " + valor);
+		}
+		cuentas[indice(valor)]++;
+		total++;
+		suma += valor;
+		minimo = Math.min(minimo, valor);
+		maximo = Math.max(maximo, valor);
+	}
+
+
+	/**
+	 * Suma a este histograma los valores de otro.
+	 *
+	 * @param otro	histograma.
+	 */
+	public void sumar(HistogramaLatencias otro) {
+		for (int i = 0; i < CASILLAS; i++) {
+			cuentas[i] += otro.cuentas[i];
+		}
+		total += otro.total;
+		suma += otro.suma;
+		minimo = Math.min(minimo, otro.minimo);
+		maximo = Math.max(maximo, otro.maximo);
+	}
+
+
+	public long consultarTotal() {
+		return total;
+	}
+
+
+	/**
+	 * Devuelve el valor maximo registrado.
+	 *
+	 * @return long	maximo o 0 si no hay valores.
+	 */
+	public long consultarMaximo() {
+		return maximo;
+	}
+
+
+	/**
+	 * Devuelve el valor minimo registrado.
+	 *
+	 * @return long	minimo o 0 si no hay valores.
+	 */
+	public long consultarMinimo() {
+		return total == 0 ? 0 : minimo;
+	}
+
+
+	/**
+	 * Devuelve la media exacta de los valores registrados.
+	 *
+	 * @return double	media o 0 si no hay valores.
+	 */
+	public double consultarMedia() {
+		return total == 0 ? 0 : suma / total;
+	}
+
+
+	/**
+	 * Devuelve el percentil indicado: el menor valor tal que al menos ese
+	 * porcentaje de los valores registrados es menor o igual, redondeado al
+	 * limite superior de su casilla sin pasar del maximo.
+	 *
+	 * @param percentil	percentil entre 0 y 100.
+	 * @return long		valor del percentil o 0 si no hay valores.
+	 */
+	public long consultarPercentil(double percentil) {
+		if (total == 0) {
+			return 0;
+		}
+		long objetivo = Math.max(1, (long) Math.ceil(percentil / 100 * total));
+		long acumulado = 0;
+		for (int i = 0; i < CASILLAS; i++) {
+			acumulado += cuentas[i];
+			if (acumulado >= objetivo) {
+				return Math.max(Math.min(limiteSuperior(i), maximo), consultarMinimo());
+			}
+		}
+		return maximo;
+	}
+
+
+	/**
+	 * Devuelve la casilla de un valor.
+	 *
+	 * @param valor	valor, cero o mayor.
+	 * @return int	casilla.
+	 */
+	static int indice(long valor) {
+		if (valor < LINEAL) {
+			return (int) valor;
+		}
+		int desplazamiento = 64 - Long.numberOfLeadingZeros(valor) - (BITS_SUBCASILLA + 1);
+		return (desplazamiento << BITS_SUBCASILLA) + (int) (valor >>> desplazamiento);
+	}
+
+
+	/**
+	 * Devuelve el mayor valor de una casilla.
+	 *
+	 * @param indice	casilla.
+	 * @return long		mayor valor que cae en la casilla.
+	 */
+	static long limiteSuperior(int indice) {
+		if (indice < LINEAL) {
+			return indice;
+		}
+		int desplazamiento = (indice >>> BITS_SUBCASILLA) - 1;
+		long mantisa = (indice & ((1 << BITS_SUBCASILLA) - 1)) + (1 << BITS_SUBCASILLA);
+		return ((mantisa + 1) << desplazamiento) - 1;
+	}
+}
@@ -1,5 +1,404 @@
 package quantik.control;
 
+import quantik.modelo.Caja;
+import quantik.modelo.Celda;
+import quantik.modelo.GestorGrupos;
+import quantik.modelo.Pieza;
+import quantik.modelo.Simetrias;
+import quantik.modelo.Tablero;
+import quantik.util.Color;
+import quantik.util.Figura;
+import quantik.util.Zobrist;
+
+/**
+ * Partida de Quantik entre las piezas blancas y las negras.
+ *
+ * Empiezan siempre las blancas. Gana quien completa un grupo con cuatro figuras
+ * diferentes y, si el jugador con turno no puede colocar ninguna pieza, gana
+ * el contrario.
+ *
+ * Para recorrer arboles de jugadas sin clonar el tablero ni las cajas se puede
+ * usar hacerJugada, que devuelve un testigo entero, y deshacerJugada con ese
+ * testigo para volver exactamente a la posicion anterior.
+ *
+ * Las jugadas legales se pueden obtener de una vez, sin crear objetos, como
+ * mascara de celdas por figura con consultarJugadasLegales o codificadas en un
+ * array del llamante con generarJugadasLegales.
+ *
+ * @author Rocio Agueda Miguel
+ * @see quantik.modelo.Tablero
+ * @see quantik.modelo.Caja
+ * @see quantik.modelo.GestorGrupos
+ *
+ */
 public class Partida {
 
+	/**
+	 * Numero maximo de jugadas legales en una posicion: 16 celdas por 4 figuras.
+	 */
+	public static final int MAXIMO_JUGADAS = 64;
+
+
+	/**
+	 * Bits del testigo con el indice de la celda (fila * 4 + columna).
+	 */
+	private static final int MASCARA_CELDA = 0xF;
+
+
+	/**
+	 * Desplazamiento del ordinal de la figura en el testigo.
+	 */
+	private static final int DESPLAZAMIENTO_FIGURA = 4;
+
+
+	/**
+	 * Desplazamiento del ordinal del turno anterior en el testigo.
+	 */
+	private static final int DESPLAZAMIENTO_TURNO = 6;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Tablero de la partida.
+	 */
+	private Tablero tablero;
+
+
+	/**
+	 * Caja de piezas blancas.
+	 */
+	private Caja cajaBlancas;
+
+
+	/**
+	 * Caja de piezas negras.
+	 */
+	private Caja cajaNegras;
+
+
+	/**
+	 * Gestor de los grupos del tablero.
+	 */
+	private GestorGrupos gestorGrupos;
+
+
+	/**
+	 * Color con el turno actual.
+	 */
+	private Color turno;
+
+
+	/**
+	 * Numero de jugadas realizadas.
+	 */
+	private int numeroJugada;
+
+
+	/**
+	 * Constructor que inicia la partida con el turno de las blancas.
+	 *
+	 * @param tablero		tablero sobre el que se juega.
+	 * @param cajaBlancas	caja de piezas blancas.
+	 * @param cajaNegras	caja de piezas negras.
+	 */
+	public Partida(Tablero tablero, Caja cajaBlancas, Caja cajaNegras) {
+		this.tablero = tablero;
+		this.cajaBlancas = cajaBlancas;
+		this.cajaNegras = cajaNegras;
+		this.gestorGrupos = new GestorGrupos(tablero);
+		this.turno = Color.BLANCO;
+		this.numeroJugada = 0;
+	}
+
+
+	/**
+	 * Devuelve un clon en profundidad de la partida, con su propio tablero,
+	 * cajas y gestor de grupos, en el mismo turno y numero de jugada.
+	 *
+	 * @return Partida	clon de la partida.
+	 */
+	public Partida clonar() {
+		Partida partida = new Partida(tablero.clonar(), cajaBlancas.clonar(), cajaNegras.clonar());
+		partida.turno = turno;
+		partida.numeroJugada = numeroJugada;
+		return partida;
+	}
+
+
+	/**
+	 * Pasa el turno al color contrario.
+	 */
+	public void cambiarTurno() {
+		turno = turno.obtenerContrario();
+	}
+
+
+	/**
+	 * Coloca en la celda una pieza con la figura indicada retirada de la caja
+	 * del turno actual. Se supone que la jugada es legal.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @param figura	figura de la pieza.
+	 */
+	public void colocarPiezaEnTurnoActual(int fila, int columna, Figura figura) {
+		Pieza pieza = consultarCajaTurnoActual().retirar(figura);
+		tablero.colocar(fila, columna, pieza);
+		numeroJugada++;
+	}
+
+
+	/**
+	 * Realiza la jugada del turno actual y pasa el turno, salvo que la jugada
+	 * complete un grupo, igual que en el bucle de juego. Se supone que la jugada
+	 * es legal.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @param figura	figura de la pieza.
+	 * @return int		testigo para deshacer la jugada con deshacerJugada.
+	 */
+	public int hacerJugada(int fila, int columna, Figura figura) {
+		int testigo = (fila * tablero.consultarNumeroColumnas() + columna)
+				| figura.ordinal() << DESPLAZAMIENTO_FIGURA
+				| turno.ordinal() << DESPLAZAMIENTO_TURNO;
+		colocarPiezaEnTurnoActual(fila, columna, figura);
+		if (!hayAlgunGrupoCompleto()) {
+			cambiarTurno();
+		}
+		return testigo;
+	}
+
+
+	/**
+	 * Realiza una jugada codificada como en generarJugadasLegales, igual que
+	 * hacerJugada con la fila, la columna y la figura. Se supone que la jugada
+	 * es legal.
+	 *
+	 * @param jugada	(fila * 4 + columna) << 2 | ordinal de la figura.
+	 * @return int		testigo para deshacer la jugada con deshacerJugada.
+	 */
+	public int hacerJugada(int jugada) {
+		int celda = jugada >>> 2;
+		int columnas = tablero.consultarNumeroColumnas();
+		return hacerJugada(celda / columnas, celda % columnas, FIGURAS[jugada & 0x3]);
+	}
+
+
+	/**
+	 * Deshace la ultima jugada realizada con hacerJugada, restaurando el
+	 * tablero, las cajas, el turno y el numero de jugada. Las jugadas deben
+	 * deshacerse en orden inverso al que se hicieron.
+	 *
+	 * @param testigo	testigo devuelto por hacerJugada.
+	 */
+	public void deshacerJugada(int testigo) {
+		int celda = testigo & MASCARA_CELDA;
+		Figura figura = FIGURAS[(testigo >>> DESPLAZAMIENTO_FIGURA) & 0x3];
+		turno = (testigo >>> DESPLAZAMIENTO_TURNO & 1) == 0 ? Color.BLANCO : Color.NEGRO;
+		int columnas = tablero.consultarNumeroColumnas();
+		tablero.colocar(celda / columnas, celda % columnas, null);
+		consultarCajaTurnoActual().reponer(figura);
+		numeroJugada--;
+	}
+
+
+	/**
+	 * Devuelve un clon del tablero de la partida.
+	 *
+	 * @return Tablero	clon del tablero.
+	 */
+	public Tablero consultarTablero() {
+		return tablero.clonar();
+	}
+
+
+	public Color consultarTurno() {
+		return turno;
+	}
+
+
+	public int consultarNumeroJugada() {
+		return numeroJugada;
+	}
+
+
+	/**
+	 * Devuelve el ganador de la partida: el turno actual si ha completado un
+	 * grupo o el contrario si el turno actual esta bloqueado.
+	 *
+	 * @return Color	color ganador o null si la partida no ha acabado.
+	 */
+	public Color consultarGanador() {
+		if (hayAlgunGrupoCompleto()) {
+			return turno;
+		}
+		if (estaBloqueadoTurnoActual()) {
+			return turno.obtenerContrario();
+		}
+		return null;
+	}
+
+
+	/**
+	 * Comprueba si el jugador con turno puede colocar en la celda una pieza con
+	 * la figura indicada: la celda esta en el tablero y vacia, le queda una pieza
+	 * con esa figura y no hay en sus grupos una pieza igual del color contrario.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @param figura	figura de la pieza.
+	 * @return boolean	True si la jugada es legal y False en caso contrario.
+	 */
+	public boolean esJugadaLegalEnTurnoActual(int fila, int columna, Figura figura) {
+		if (!tablero.estaEnTablero(fila, columna)) {
+			return false;
+		}
+		Celda celda = tablero.obtenerCelda(fila, columna);
+		return celda.estaVacia() && consultarCajaTurnoActual().estaDisponible(figura)
+				&& !gestorGrupos.hayConflictoEnGruposDeCelda(celda, figura, turno);
+	}
+
+
+	/**
+	 * Comprueba si el jugador con turno puede hacer una jugada codificada como en
+	 * generarJugadasLegales, con los mismos criterios que
+	 * esJugadaLegalEnTurnoActual con la fila, la columna y la figura.
+	 *
+	 * @param jugada	(fila * 4 + columna) << 2 | ordinal de la figura.
+	 * @return boolean	True si la jugada es legal y False en caso contrario.
+	 */
+	public boolean esJugadaLegalEnTurnoActual(int jugada) {
+		if ((jugada & ~(MASCARA_CELDA << 2 | 0x3)) != 0) {
+			return false;
+		}
+		return (consultarJugadasLegales(FIGURAS[jugada & 0x3]) & 1 << (jugada >>> 2)) != 0;
+	}
+
+
+	/**
+	 * Devuelve las celdas en las que el turno actual puede colocar una pieza con
+	 * la figura indicada, con los mismos criterios que esJugadaLegalEnTurnoActual.
+	 *
+	 * @param figura	figura de la pieza.
+	 * @return int		mascara de 16 bits con el bit fila * 4 + columna de cada
+	 * 					celda legal, o cero si no quedan piezas con esa figura.
+	 */
+	public int consultarJugadasLegales(Figura figura) {
+		if (!consultarCajaTurnoActual().estaDisponible(figura)) {
+			return 0;
+		}
+		return gestorGrupos.consultarCeldasPermitidas(figura, turno);
+	}
+
+
+	/**
+	 * Escribe en el array todas las jugadas legales del turno actual, cada una
+	 * codificada como (fila * 4 + columna) << 2 | ordinal de la figura.
+	 *
+	 * @param jugadas	array de al menos MAXIMO_JUGADAS posiciones.
+	 * @return int		numero de jugadas escritas.
+	 */
+	public int generarJugadasLegales(int[] jugadas) {
+		int numero = 0;
+		for (Figura figura : FIGURAS) {
+			int celdas = consultarJugadasLegales(figura);
+			while (celdas != 0) {
+				jugadas[numero++] = Integer.numberOfTrailingZeros(celdas) << 2 | figura.ordinal();
+				celdas &= celdas - 1;
+			}
+		}
+		return numero;
+	}
+
+
+	/**
+	 * Devuelve las celdas en las que el turno actual gana colocando una pieza
+	 * con la figura indicada.
+	 *
+	 * @param figura	figura de la pieza.
+	 * @return int		mascara de 16 bits con las jugadas legales que completan
+	 * 					un grupo con cuatro figuras diferentes.
+	 */
+	public int consultarJugadasGanadoras(Figura figura) {
+		int legales = consultarJugadasLegales(figura);
+		return legales == 0 ? 0 : legales & gestorGrupos.consultarCeldasGanadoras(figura);
+	}
+
+
+	/**
+	 * Comprueba si la partida ha acabado, por grupo completo o por bloqueo.
+	 *
+	 * @return boolean	True si ha acabado y False en caso contrario.
+	 */
+	public boolean estaAcabadaPartida() {
+		return hayAlgunGrupoCompleto() || estaBloqueadoTurnoActual();
+	}
+
+
+	/**
+	 * Comprueba si el jugador con turno no tiene ninguna jugada legal.
+	 *
+	 * @return boolean	True si esta bloqueado y False en caso contrario.
+	 */
+	public boolean estaBloqueadoTurnoActual() {
+		for (Figura figura : FIGURAS) {
+			if (consultarJugadasLegales(figura) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Comprueba si algun grupo tiene cuatro piezas con figuras diferentes.
+	 *
+	 * @return boolean	True si hay grupo completo y False en caso contrario.
+	 */
+	public boolean hayAlgunGrupoCompleto() {
+		return gestorGrupos.hayGrupoGanador();
+	}
+
+
+	/**
+	 * Devuelve la clave de Zobrist de 64 bits de la posicion: piezas del
+	 * tablero, contenido de las dos cajas y turno. Dos posiciones iguales
+	 * tienen la misma clave, por lo que sirve para tablas de transposicion.
+	 *
+	 * @return long	clave de la posicion.
+	 * @see quantik.util.Zobrist
+	 */
+	public long consultarClavePosicion() {
+		return tablero.consultarClave() ^ cajaBlancas.consultarClave() ^ cajaNegras.consultarClave()
+				^ Zobrist.claveTurno(turno);
+	}
+
+
+	/**
+	 * Devuelve la clave canonica de la posicion, igual para todas las posiciones
+	 * equivalentes por simetria del tablero, renombrado de figuras o intercambio
+	 * de colores junto con el turno.
+	 *
+	 * @return long	clave canonica de la posicion.
+	 * @see quantik.modelo.Simetrias
+	 */
+	public long consultarClaveCanonica() {
+		return Simetrias.claveCanonica(tablero, turno);
+	}
+
+
+	/**
+	 * Devuelve la caja del color con turno.
+	 *
+	 * @return Caja	caja del turno actual.
+	 */
+	private Caja consultarCajaTurnoActual() {
+		return turno == Color.BLANCO ? cajaBlancas : cajaNegras;
+	}
 }
@@ -1,10 +1,16 @@
 package quantik.modelo;
 import java.util.Arrays;
-import java.util.Objects;
 
 import quantik.util.*;
 
 /**
+ * Caja con las ocho piezas de un color, dos de cada figura.
+ * 
+ * No se guardan las piezas sino un contador de 2 bits por figura, todos en un
+ * mismo byte (la figura de ordinal i ocupa los bits 2i y 2i+1), de modo que
+ * consultar y retirar no recorren nada ni crean objetos: la pieza retirada es
+ * la instancia compartida de Pieza.de.
+ * 
  * @author Rocio Agueda Miguel
  * @version 1.0
  * @see quantik.util.Color
@@ -13,6 +19,24 @@ import quantik.util.*;
  */
 public class Caja {
 	
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+	
+	
+	/**
+	 * Piezas de cada figura en una caja llena.
+	 */
+	private static final int PIEZAS_POR_FIGURA = 2;
+	
+	
+	/**
+	 * Contadores de una caja llena: 2 piezas de cada una de las cuatro figuras.
+	 */
+	private static final byte CAJA_LLENA = (byte) 0b10_10_10_10;
+	
+	
 	/**
 	 * Atributo privado color
 	 */
@@ -20,15 +44,15 @@ public class Caja {
 	
 	
 	/**
-	 * Conjnunto de piezas que tenemos en la caja
+	 * Contadores de 2 bits de las piezas de cada figura que quedan en la caja.
 	 */
-	Pieza [] piezasCaja = new Pieza [8];
+	private byte disponibles;
 	
 	
 	/**
-	 * Contador de las piezas de la caja
+	 * Clave de Zobrist del contenido, actualizada al retirar y reponer.
 	 */
-	private int contador;
+	private long clave;
 	
 	
 	/**
@@ -39,16 +63,10 @@ public class Caja {
 	 */
 	public Caja(Color color) {
 		this.color = color;
-		this.piezasCaja[0] = new Pieza(Figura.CILINDRO, color);
-		this.piezasCaja[1] = new Pieza(Figura.CILINDRO, color);
-		this.piezasCaja[2] = new Pieza(Figura.CONO, color);
-		this.piezasCaja[3] = new Pieza(Figura.CONO, color);
-		this.piezasCaja[4] = new Pieza(Figura.CUBO, color);
-		this.piezasCaja[5] = new Pieza(Figura.CUBO, color);
-		this.piezasCaja[6] = new Pieza(Figura.ESFERA, color);
-		this.piezasCaja[7] = new Pieza(Figura.ESFERA, color);
-		contador = 8;
-		
+		this.disponibles = CAJA_LLENA;
+		for(Figura figura : FIGURAS) {
+			clave ^= Zobrist.claveCaja(color, figura, PIEZAS_POR_FIGURA);
+		}
 	}
 	
 	
@@ -59,7 +77,8 @@ public class Caja {
 	 */
 	public Caja clonar() {
 		Caja caja = new Caja(this.color);
-		caja.piezasCaja = this.piezasCaja.clone();
+		caja.disponibles = this.disponibles;
+		caja.clave = this.clave;
 		return caja;
 	}
 	
@@ -76,12 +95,21 @@ public class Caja {
 	
 	/**
 	 * Este metodo devuelve un array con todas los clones de piezas
-	 * 	que tenemos en la caja.
+	 * 	que tenemos en la caja, ordenadas por figura. Como en
+	 * 	Celda.consultarPieza, se clonan las instancias compartidas de
+	 * 	Pieza.de, de modo que quien consulta no recibe las de la caja.
 	 *  
 	 * @return piezas 	array con las piezas que hay en la caja.
 	 */
 	public Pieza[] consultarPiezasDisponibles() {
-		return this.clonar().piezasCaja;
+		Pieza[] piezas = new Pieza[contarPiezasActuales()];
+		int n = 0;
+		for(Figura figura : FIGURAS) {
+			for(int i = 0; i < contarPiezas(figura); i++) {
+				piezas[n++] = Pieza.de(figura, color).clonar();
+			}
+		}
+		return piezas;
 	}
 	
 	
@@ -92,7 +120,8 @@ public class Caja {
 	 * @return contador   entero que representa el numero de piezas. 
 	 */
 	public int contarPiezasActuales() {
-		return contador;
+		int pares = (disponibles & 0x33) + ((disponibles >>> 2) & 0x33);
+		return (pares & 0xF) + (pares >>> 4);
 	}
 	
 	
@@ -102,46 +131,84 @@ public class Caja {
 	 * @return boolean True si la pieza esta disponinle y False en caso contrario.
 	 */
 	public boolean estaDisponible(Figura figura) {
-		
-		boolean encontrado = false;
-		
-		for(Pieza pieza : this.piezasCaja) {
-			if(pieza != null && pieza.consultarFigura().aTexto() == figura.aTexto()) {
-				encontrado = true;
-			}
-		}
-		return encontrado;
+		return contarPiezas(figura) != 0;
 	}
 
 	
+	/**
+	 * Retira de la caja una pieza con la figura indicada.
+	 * 
+	 * @param figura	figura de la pieza a retirar.
+	 * @return Pieza	pieza retirada o null si no quedan piezas con esa figura.
+	 */
 	public Pieza retirar(Figura figura) {
-		
-		Pieza pieza = null;
-		for(int i = 0; i < this.piezasCaja.length; i++) {
-			if(this.piezasCaja[i] != null && this.piezasCaja[i].consultarFigura().aTexto() == figura.aTexto()) {
-				pieza = this.piezasCaja[i].clonar();
-				this.piezasCaja[i] = null;
-				contador -= 1;
-			}	
+		int piezas = contarPiezas(figura);
+		if(piezas == 0) {
+			return null;
 		}
-		return pieza;
-			
+		disponibles -= 1 << desplazamiento(figura);
+		clave ^= Zobrist.claveCaja(color, figura, piezas) ^ Zobrist.claveCaja(color, figura, piezas - 1);
+		return Pieza.de(figura, color);
+	}
+	
+	
+	/**
+	 * Devuelve a la caja una pieza con la figura indicada, deshaciendo un
+	 * retirar anterior. Si ya estan las dos piezas de esa figura no se hace nada.
+	 * 
+	 * @param figura	figura de la pieza a devolver.
+	 */
+	public void reponer(Figura figura) {
+		int piezas = contarPiezas(figura);
+		if(piezas < PIEZAS_POR_FIGURA) {
+			disponibles += 1 << desplazamiento(figura);
+			clave ^= Zobrist.claveCaja(color, figura, piezas) ^ Zobrist.claveCaja(color, figura, piezas + 1);
+		}
+	}
+	
+	
+	/**
+	 * Devuelve la clave de Zobrist de 64 bits del contenido de la caja.
+	 * 
+	 * @return long	clave de la caja.
+	 * @see quantik.util.Zobrist
+	 */
+	public long consultarClave() {
+		return clave;
+	}
+	
+	
+	/**
+	 * Devuelve el numero de piezas de la figura que quedan en la caja.
+	 * 
+	 * @param figura	figura.
+	 * @return int		piezas de esa figura, de 0 a 2.
+	 */
+	private int contarPiezas(Figura figura) {
+		return (disponibles >>> desplazamiento(figura)) & 0x3;
+	}
+	
+	
+	/**
+	 * Devuelve la posicion del contador de la figura dentro del byte.
+	 * 
+	 * @param figura	figura.
+	 * @return int		desplazamiento en bits.
+	 */
+	private static int desplazamiento(Figura figura) {
+		return figura.ordinal() * 2;
 	}
 	
 	
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(piezasCaja);
-		result = prime * result + Objects.hash(color, contador);
-		return result;
+		return Long.hashCode(consultarClave());
 	}
 	
 	
 	@Override
 	public String toString() {
-		return "Caja [color=" + color + ", piezasCaja=" + Arrays.toString(piezasCaja) + ", contador=" + contador + "]";
+		return "Caja [color=" + color + ", piezasCaja=" + Arrays.toString(consultarPiezasDisponibles()) + ", contador=" + contarPiezasActuales() + "]";
 	}
 	
 	
@@ -154,6 +221,6 @@ public class Caja {
 		if (getClass() != obj.getClass())
 			return false;
 		Caja other = (Caja) obj;
-		return color == other.color && contador == other.contador && Arrays.equals(piezasCaja, other.piezasCaja);
+		return color == other.color && disponibles == other.disponibles;
 	}
 }
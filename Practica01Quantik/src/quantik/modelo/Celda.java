@@ -3,28 +3,33 @@ package quantik.modelo;
 import java.util.Objects;
 
 /**
+ * Celda del tablero con su posicion y la pieza colocada.
+ * 
+ * La posicion es una Coordenada compartida, de modo que la celda solo guarda
+ * dos referencias.
  * 
  * @author Rocio Agueda Miguel
  * @version 1.0
  * @see quiantik.modelo.Pieza
+ * @see quantik.modelo.Coordenada
  *
  */
 public class Celda {
 	
 	/**
-	 * Atributo privado fila
+	 * Posicion fija de la celda en el tablero.
 	 */
-	private int fila;
+	private final Coordenada coordenada;
 	
 	/**
-	 * Atributo privado columna
+	 * Atributo privado pieza
 	 */
-	private int columna;
+	private Pieza pieza;
 	
 	/**
-	 * Atributo privado pieza
+	 * Tablero al que pertenece la celda, o null si la celda es independiente.
 	 */
-	private Pieza pieza;
+	private final Tablero tablero;
 	
 	/**
 	 * Constructor de la clase que inicializa la celda vacía, 
@@ -34,9 +39,32 @@ public class Celda {
 	 * @param columna numero de la columna en la que se situa la celda
 	 */
 	public Celda(int fila, int columna) {
-		this.fila = fila;
-		this.columna = columna;
+		this(Coordenada.de(fila, columna));
+	}
+	
+	
+	/**
+	 * Constructor de una celda vacia en la coordenada indicada.
+	 * 
+	 * @param coordenada posicion de la celda.
+	 */
+	Celda(Coordenada coordenada) {
+		this(coordenada, null);
+	}
+	
+	
+	/**
+	 * Constructor de una celda vacia de un tablero. Las piezas colocadas en la
+	 * celda se colocan a traves del tablero, que asi mantiene su clave y el
+	 * estado de sus grupos.
+	 * 
+	 * @param coordenada posicion de la celda.
+	 * @param tablero tablero al que pertenece la celda o null.
+	 */
+	Celda(Coordenada coordenada, Tablero tablero) {
+		this.coordenada = coordenada;
 		this.pieza = null;
+		this.tablero = tablero;
 	}
 	
 	
@@ -46,33 +74,76 @@ public class Celda {
 	 * @return celda clon de la celda actual.
 	 */
 	public Celda clonar() {
-		Celda celda = new Celda(this.fila, this.columna);
-		celda.colocar(pieza.clonar());
+		Celda celda = new Celda(this.coordenada);
+		Pieza piezaActual = obtenerPieza();
+		if (piezaActual != null) {
+			celda.colocar(piezaActual.clonar());
+		}
 		return celda;
 	}
 	
 	/**
 	 * Procedimiento que establece una pieza pasada como argumento en
-	 * 	la celda actual.
+	 * 	la celda actual. Si la celda pertenece a un tablero, la pieza se
+	 * 	coloca a traves de el.
 	 * 
 	 * @param pieza pieza que vamos a colocar en la celda.
 	 */
 	public void colocar(Pieza pieza){
+		if (tablero != null) {
+			tablero.colocar(consultarFila(), consultarColumna(), pieza);
+		} else {
+			asignar(pieza);
+		}
+	}
+	
+	
+	/**
+	 * Guarda la pieza en la celda sin avisar al tablero. Solo lo usa el tablero
+	 * al colocar.
+	 * 
+	 * @param pieza pieza colocada o null.
+	 */
+	void asignar(Pieza pieza) {
 		this.pieza = pieza;
 	}
 	
 	
 	public int consultarColumna() {
-		return columna;
+		return coordenada.consultarColumna();
+	}
+	
+	
+	public Coordenada consultarCoordenada() {
+		return coordenada;
 	}
 	
 	
 	public int consultarFila() {
-		return fila;
+		return coordenada.consultarFila();
 	}
 	
 	
+	/**
+	 * Devuelve un clon de la pieza colocada en la celda.
+	 * 
+	 * @return pieza clon de la pieza o null si la celda esta vacia.
+	 */
 	public Pieza consultarPieza() {
+		Pieza actual = obtenerPieza();
+		return actual == null ? null : actual.clonar();
+	}
+	
+	
+	/**
+	 * Devuelve la referencia a la pieza colocada en la celda sin clonarla.
+	 * 
+	 * Las celdas que no guardan la pieza en el propio objeto (por ejemplo las
+	 * vistas de un TableroBitboard) sobrescriben este metodo.
+	 * 
+	 * @return pieza colocada o null si la celda esta vacia.
+	 */
+	Pieza obtenerPieza() {
 		return pieza;
 	}
 	
@@ -83,7 +154,7 @@ public class Celda {
 	 * @return boolean True si la celda esta vacia y False en caso contrario.
 	 */
 	public boolean estaVacia() {
-		return (pieza == null);
+		return (obtenerPieza() == null);
 	}
 	
 	@Override
@@ -95,17 +166,17 @@ public class Celda {
 		if (getClass() != obj.getClass())
 			return false;
 		Celda other = (Celda) obj;
-		return columna == other.columna && fila == other.fila && Objects.equals(pieza, other.pieza);
+		return coordenada.equals(other.coordenada) && Objects.equals(obtenerPieza(), other.obtenerPieza());
 	}
 	
 	@Override
 	public int hashCode() {
-		return Objects.hash(columna, fila, pieza);
+		return Objects.hash(consultarColumna(), consultarFila(), obtenerPieza());
 	}
 	
 	@Override
 	public String toString() {
-		return "Celda [fila =" + fila + ", columna =" + columna + ", pieza =" + pieza + "]";
+		return "Celda [fila =" + consultarFila() + ", columna =" + consultarColumna() + ", pieza =" + obtenerPieza() + "]";
 	}
 
 }
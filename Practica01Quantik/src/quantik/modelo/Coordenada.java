@@ -0,0 +1,115 @@
+package quantik.modelo;
+
+/**
+ * Posicion inmutable (fila, columna) de una celda.
+ *
+ * Las dieciseis coordenadas del tablero se crean al cargar la clase y
+ * Coordenada.de devuelve siempre la misma instancia para cada una, de modo que
+ * dos coordenadas del tablero son iguales si y solo si son la misma referencia.
+ * Las coordenadas fuera del tablero se crean en cada llamada.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.modelo.Celda
+ *
+ */
+public final class Coordenada {
+
+	/**
+	 * Numero de filas del tablero.
+	 */
+	private static final int NUMERO_FILAS = 4;
+
+
+	/**
+	 * Numero de columnas del tablero.
+	 */
+	private static final int NUMERO_COLUMNAS = 4;
+
+
+	/**
+	 * Coordenadas del tablero indexadas por fila * 4 + columna.
+	 */
+	private static final Coordenada[] DEL_TABLERO = new Coordenada[NUMERO_FILAS * NUMERO_COLUMNAS];
+
+	static {
+		for (int indice = 0; indice < DEL_TABLERO.length; indice++) {
+			DEL_TABLERO[indice] = new Coordenada(indice / NUMERO_COLUMNAS, indice % NUMERO_COLUMNAS);
+		}
+	}
+
+
+	/**
+	 * Fila.
+	 */
+	private final int fila;
+
+
+	/**
+	 * Columna.
+	 */
+	private final int columna;
+
+
+	/**
+	 * Constructor privado, las coordenadas se obtienen con Coordenada.de.
+	 *
+	 * @param fila		fila.
+	 * @param columna	columna.
+	 */
+	private Coordenada(int fila, int columna) {
+		this.fila = fila;
+		this.columna = columna;
+	}
+
+
+	/**
+	 * Devuelve la coordenada de la fila y columna indicadas.
+	 *
+	 * @param fila			fila.
+	 * @param columna		columna.
+	 * @return Coordenada	instancia compartida si esta en el tablero o una nueva
+	 * 						en caso contrario.
+	 */
+	public static Coordenada de(int fila, int columna) {
+		if (fila >= 0 && fila < NUMERO_FILAS && columna >= 0 && columna < NUMERO_COLUMNAS) {
+			return DEL_TABLERO[fila * NUMERO_COLUMNAS + columna];
+		}
+		return new Coordenada(fila, columna);
+	}
+
+
+	public int consultarFila() {
+		return fila;
+	}
+
+
+	public int consultarColumna() {
+		return columna;
+	}
+
+
+	@Override
+	public int hashCode() {
+		return fila * 31 + columna;
+	}
+
+
+	@Override
+	public String toString() {
+		return "Coordenada [fila=" + fila + ", columna=" + columna + "]";
+	}
+
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Coordenada other = (Coordenada) obj;
+		return fila == other.fila && columna == other.columna;
+	}
+}
@@ -1,26 +1,365 @@
 package quantik.modelo;
 import quantik.util.*;
 /**
- * 
+ * Gestiona los doce grupos del tablero: cuatro filas, cuatro columnas y cuatro
+ * cuadrantes.
+ *
+ * Para no recorrer los grupos en cada consulta se mantiene, por cada grupo, la
+ * mascara de 4 bits con las figuras presentes, el numero de piezas y la mascara
+ * de figuras de cada color. Ese estado lo guarda el propio tablero, uno solo
+ * por tablero, y se actualiza en cada pieza colocada, de modo que las
+ * comprobaciones de ganador y de conflicto no recorren celdas ni crean
+ * objetos. Los gestores creados sobre un mismo tablero comparten su estado, asi
+ * que crear y descartar gestores no deja avisos pendientes en el tablero.
+ *
+ * Los grupos se numeran 0..3 para las filas, 4..7 para las columnas y 8..11
+ * para los cuadrantes (de izquierda a derecha y de arriba a abajo). Al cargar la
+ * clase se generan las tablas de los tres grupos de cada celda y de la mascara
+ * de 16 bits de las celdas de cada grupo.
+ *
  * @author Rocio Agueda Miguel
  * @see quantik.modelo.Tablero
  *
  */
 public class GestorGrupos {
-	
+
+	/**
+	 * Numero de grupos del tablero.
+	 */
+	private static final int NUMERO_GRUPOS = 12;
+
+
+	/**
+	 * Numero de figuras distintas.
+	 */
+	private static final int NUMERO_FIGURAS = Figura.values().length;
+
+
+	/**
+	 * Mascara con las cuatro figuras presentes.
+	 */
+	private static final int TODAS_LAS_FIGURAS = (1 << NUMERO_FIGURAS) - 1;
+
+
+	/**
+	 * Bits de cada contador de piezas por (color, figura).
+	 */
+	private static final int BITS_CONTADOR = 3;
+
+
+	/**
+	 * Numero de celdas del tablero.
+	 */
+	private static final int NUMERO_CELDAS = 16;
+
+
+	/**
+	 * Numero de columnas del tablero, para calcular el indice de una celda.
+	 */
+	private static final int NUMERO_COLUMNAS = 4;
+
+
+	/**
+	 * Indices de los tres grupos (fila, columna y cuadrante) de cada celda,
+	 * indexados por fila * 4 + columna.
+	 */
+	static final int[][] GRUPOS_DE_CELDA = new int[NUMERO_CELDAS][3];
+
+
+	/**
+	 * Mascara de 16 bits con las celdas de cada grupo.
+	 */
+	static final int[] MASCARA_GRUPO = new int[NUMERO_GRUPOS];
+
+
+	static {
+		for (int indice = 0; indice < NUMERO_CELDAS; indice++) {
+			int fila = indice / NUMERO_COLUMNAS;
+			int columna = indice % NUMERO_COLUMNAS;
+			GRUPOS_DE_CELDA[indice][0] = fila;
+			GRUPOS_DE_CELDA[indice][1] = 4 + columna;
+			GRUPOS_DE_CELDA[indice][2] = 8 + (fila / 2) * 2 + columna / 2;
+			for (int grupo : GRUPOS_DE_CELDA[indice]) {
+				MASCARA_GRUPO[grupo] |= 1 << indice;
+			}
+		}
+	}
+
+
+	/**
+	 * Tablero cuyos grupos se gestionan.
+	 */
+	private Tablero tablero;
+
+
+	/**
+	 * Estado de los grupos, compartido con el tablero.
+	 */
+	private final Estado estado;
+
+
+	/**
+	 * Grupos de cada celda sobre las celdas del tablero, creados en la primera
+	 * consulta y compartidos por todas las siguientes.
+	 */
+	private Grupo[][] gruposDeCelda;
+
+
+	/**
+	 * Constructor que usa el estado de los grupos del tablero, que este calcula
+	 * la primera vez a partir de sus piezas.
+	 *
+	 * @param tablero	tablero cuyos grupos se gestionan.
+	 */
 	public GestorGrupos(Tablero tablero) {
-		
+		this.tablero = tablero;
+		this.estado = tablero.consultarEstadoGrupos();
 	}
-	
+
+
+	/**
+	 * Comprueba si en alguno de los grupos de la celda hay una pieza con la misma
+	 * figura y del color contrario al turno.
+	 *
+	 * @param celda		celda en la que se quiere colocar.
+	 * @param figura	figura de la pieza a colocar.
+	 * @param turno		color de la pieza a colocar.
+	 * @return boolean	True si hay conflicto y False en caso contrario.
+	 */
 	public boolean hayConflictoEnGruposDeCelda(Celda celda, Figura figura, Color turno) {
-		
+		int[] grupos = GRUPOS_DE_CELDA[indice(celda.consultarFila(), celda.consultarColumna())];
+		int[] contrario = estado.figurasPorColor[turno.obtenerContrario().ordinal()];
+		int bit = 1 << figura.ordinal();
+		return ((contrario[grupos[0]] | contrario[grupos[1]] | contrario[grupos[2]]) & bit) != 0;
+	}
+
+
+	/**
+	 * Devuelve la mascara de 16 bits (bit fila * 4 + columna) de las celdas vacias
+	 * en las que el turno puede colocar una pieza con la figura indicada, es decir,
+	 * las que no comparten grupo con una pieza de esa figura del color contrario.
+	 * No tiene en cuenta si quedan piezas de la figura en la caja.
+	 *
+	 * @param figura	figura de la pieza a colocar.
+	 * @param turno		color de la pieza a colocar.
+	 * @return int		mascara de celdas permitidas.
+	 */
+	public int consultarCeldasPermitidas(Figura figura, Color turno) {
+		int[] contrario = estado.figurasPorColor[turno.obtenerContrario().ordinal()];
+		int bit = 1 << figura.ordinal();
+		int prohibidas = estado.ocupadas;
+		for (int grupo = 0; grupo < NUMERO_GRUPOS; grupo++) {
+			if ((contrario[grupo] & bit) != 0) {
+				prohibidas |= MASCARA_GRUPO[grupo];
+			}
+		}
+		return ~prohibidas & ((1 << NUMERO_CELDAS) - 1);
 	}
-	
+
+
+	/**
+	 * Devuelve la mascara de 16 bits de las celdas en las que una pieza con la
+	 * figura indicada completaria un grupo con cuatro figuras diferentes: la
+	 * celda vacia de cada grupo con tres piezas de las otras tres figuras.
+	 *
+	 * @param figura	figura de la pieza a colocar.
+	 * @return int		mascara de celdas ganadoras.
+	 */
+	public int consultarCeldasGanadoras(Figura figura) {
+		int faltan = TODAS_LAS_FIGURAS & ~(1 << figura.ordinal());
+		int celdas = 0;
+		for (int grupo = 0; grupo < NUMERO_GRUPOS; grupo++) {
+			if (estado.piezas[grupo] == 3 && estado.figuras[grupo] == faltan) {
+				celdas |= MASCARA_GRUPO[grupo];
+			}
+		}
+		return celdas & ~estado.ocupadas;
+	}
+
+
+	/**
+	 * Comprueba si algun grupo tiene cuatro piezas con figuras diferentes.
+	 *
+	 * @return boolean	True si hay grupo ganador y False en caso contrario.
+	 */
 	public boolean hayGrupoGanador() {
-		
+		return estado.gruposGanadores > 0;
 	}
-	
+
+
+	/**
+	 * Devuelve los tres grupos (fila, columna y cuadrante) que contienen la celda.
+	 *
+	 * Los grupos se crean una sola vez, pero cada consulta devuelve una copia
+	 * del array, de modo que quien lo modifique no altera las siguientes.
+	 *
+	 * @param celda		celda del tablero.
+	 * @return Grupo[]	copia de los grupos que contienen la celda.
+	 */
 	public Grupo[] obtenerGruposConteniendoCelda(Celda celda) {
-		
+		if (gruposDeCelda == null) {
+			crearGrupos();
+		}
+		return gruposDeCelda[indice(celda.consultarFila(), celda.consultarColumna())].clone();
+	}
+
+
+	/**
+	 * Crea los doce grupos sobre las celdas del tablero y reparte las
+	 * referencias en los arrays de grupos de cada celda.
+	 */
+	private void crearGrupos() {
+		Grupo[] grupos = new Grupo[NUMERO_GRUPOS];
+		for (int grupo = 0; grupo < NUMERO_GRUPOS; grupo++) {
+			Celda[] celdas = new Celda[4];
+			int n = 0;
+			for (int indice = 0; indice < NUMERO_CELDAS; indice++) {
+				if ((MASCARA_GRUPO[grupo] & (1 << indice)) != 0) {
+					celdas[n++] = tablero.obtenerCelda(indice / NUMERO_COLUMNAS, indice % NUMERO_COLUMNAS);
+				}
+			}
+			grupos[grupo] = new Grupo(celdas);
+		}
+		Grupo[][] porCelda = new Grupo[NUMERO_CELDAS][];
+		for (int indice = 0; indice < NUMERO_CELDAS; indice++) {
+			int[] indices = GRUPOS_DE_CELDA[indice];
+			porCelda[indice] = new Grupo[] { grupos[indices[0]], grupos[indices[1]], grupos[indices[2]] };
+		}
+		gruposDeCelda = porCelda;
+	}
+
+
+	/**
+	 * Devuelve el indice de la celda en las tablas.
+	 *
+	 * @param fila		fila.
+	 * @param columna	columna.
+	 * @return int		fila * 4 + columna.
+	 */
+	private static int indice(int fila, int columna) {
+		return fila * NUMERO_COLUMNAS + columna;
+	}
+
+
+	/**
+	 * Estado incremental de los doce grupos de un tablero. Cada tablero tiene uno
+	 * solo, que crea en la primera consulta y actualiza en cada colocacion.
+	 */
+	static final class Estado {
+
+		/**
+		 * Mascara de figuras presentes en cada grupo, sin tener en cuenta el color.
+		 */
+		private final int[] figuras = new int[NUMERO_GRUPOS];
+
+		/**
+		 * Numero de piezas en cada grupo.
+		 */
+		private final int[] piezas = new int[NUMERO_GRUPOS];
+
+		/**
+		 * Mascara de figuras presentes en cada grupo, indexada por ordinal del color.
+		 */
+		private final int[][] figurasPorColor = new int[Color.values().length][NUMERO_GRUPOS];
+
+		/**
+		 * Contadores de 3 bits de piezas de cada (color, figura) en cada grupo,
+		 * necesarios para saber cuando desaparece una figura al retirar una pieza.
+		 */
+		private final int[] contadores = new int[NUMERO_GRUPOS];
+
+		/**
+		 * Numero de grupos completos con cuatro figuras diferentes.
+		 */
+		private int gruposGanadores;
+
+		/**
+		 * Mascara de 16 bits con las celdas ocupadas del tablero.
+		 */
+		private int ocupadas;
+
+		/**
+		 * Constructor que calcula el estado a partir de las piezas del tablero.
+		 *
+		 * @param tablero	tablero.
+		 */
+		Estado(Tablero tablero) {
+			for (int i = 0; i < tablero.consultarNumeroFilas(); i++) {
+				for (int j = 0; j < tablero.consultarNumeroColumnas(); j++) {
+					Pieza pieza = tablero.obtenerPiezaEn(i, j);
+					if (pieza != null) {
+						actualizar(i, j, null, pieza);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Actualiza el estado de los grupos de la celda tras cambiar su pieza.
+		 * Lo invoca el tablero en cada colocacion.
+		 *
+		 * @param fila		fila de la celda.
+		 * @param columna	columna de la celda.
+		 * @param anterior	pieza que habia en la celda o null.
+		 * @param nueva		pieza colocada o null.
+		 */
+		void actualizar(int fila, int columna, Pieza anterior, Pieza nueva) {
+			int indice = indice(fila, columna);
+			if (nueva != null) {
+				ocupadas |= 1 << indice;
+			} else {
+				ocupadas &= ~(1 << indice);
+			}
+			int[] grupos = GRUPOS_DE_CELDA[indice];
+			actualizarGrupo(grupos[0], anterior, nueva);
+			actualizarGrupo(grupos[1], anterior, nueva);
+			actualizarGrupo(grupos[2], anterior, nueva);
+		}
+
+
+		/**
+		 * Sustituye en el estado del grupo la pieza anterior por la nueva.
+		 *
+		 * @param grupo		indice del grupo.
+		 * @param anterior	pieza que habia en la celda o null.
+		 * @param nueva		pieza colocada o null.
+		 */
+		private void actualizarGrupo(int grupo, Pieza anterior, Pieza nueva) {
+			if (anterior != null) {
+				modificar(grupo, anterior, -1);
+			}
+			if (nueva != null) {
+				modificar(grupo, nueva, 1);
+			}
+		}
+
+
+		/**
+		 * Suma o resta una pieza al estado del grupo.
+		 *
+		 * @param grupo		indice del grupo.
+		 * @param pieza		pieza que se anade o se retira.
+		 * @param signo		1 para anadir y -1 para retirar.
+		 */
+		private void modificar(int grupo, Pieza pieza, int signo) {
+			int color = pieza.consultarColor().ordinal();
+			int figura = pieza.consultarFigura().ordinal();
+			int desplazamiento = (color * NUMERO_FIGURAS + figura) * BITS_CONTADOR;
+			boolean eraGanador = figuras[grupo] == TODAS_LAS_FIGURAS;
+
+			contadores[grupo] += signo << desplazamiento;
+			piezas[grupo] += signo;
+			if (((contadores[grupo] >>> desplazamiento) & ((1 << BITS_CONTADOR) - 1)) != 0) {
+				figurasPorColor[color][grupo] |= 1 << figura;
+			} else {
+				figurasPorColor[color][grupo] &= ~(1 << figura);
+			}
+			figuras[grupo] = figurasPorColor[0][grupo] | figurasPorColor[1][grupo];
+
+			boolean esGanador = figuras[grupo] == TODAS_LAS_FIGURAS;
+			if (esGanador != eraGanador) {
+				gruposGanadores += esGanador ? 1 : -1;
+			}
+		}
 	}
 }
@@ -1,6 +1,5 @@
 package quantik.modelo;
 import java.util.Arrays;
-import java.util.Objects;
 
 import quantik.util.*;
 
@@ -18,13 +17,14 @@ public class Grupo {
 	/**
 	 * Referencias a las cuatro celdas del tablero que conforman el grupo.
 	 */
-	private Celda [] celdas = new Celda [3];
+	private Celda [] celdas = new Celda [4];
 	
 	
 	/**
-	 * Atributo privado celda.
+	 * Mascara de 16 bits con las posiciones de las celdas del grupo, donde el bit
+	 * de la celda (fila, columna) es fila * 4 + columna.
 	 */
-	private Celda celda;
+	private int mascara;
 	
 	
 	/**
@@ -35,8 +35,26 @@ public class Grupo {
 	 */
 	public Grupo(Celda[] celdas) {
 		for(int i = 0; i < this.celdas.length; i++) {
-			this.celdas[i] = celda.clonar();
+			this.celdas[i] = celdas[i];
+			if(celdas[i] != null) {
+				this.mascara |= calcularBit(celdas[i].consultarFila(), celdas[i].consultarColumna());
+			}
+		}
+	}
+	
+	
+	/**
+	 * Calcula el bit de la mascara correspondiente a una posicion.
+	 * 
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @return int		bit de la posicion o 0 si esta fuera del tablero.
+	 */
+	private static int calcularBit(int fila, int columna) {
+		if(fila < 0 || fila > 3 || columna < 0 || columna > 3) {
+			return 0;
 		}
+		return 1 << (fila * 4 + columna);
 	}
 	
 	
@@ -46,9 +64,11 @@ public class Grupo {
 	 * @return grupo	clon de Grupo.
 	 */
 	public Grupo clonar() {
-		Grupo grupo = new Grupo(this.celdas);
-		grupo.celdas = celdas.clone();
-		return grupo;
+		Celda[] clones = new Celda[this.celdas.length];
+		for(int i = 0; i < this.celdas.length; i++) {
+			clones[i] = this.celdas[i].clonar();
+		}
+		return new Grupo(clones);
 	}
 	
 	
@@ -80,20 +100,15 @@ public class Grupo {
 	
 	
 	/**
-	 * Metodo que comprueba si existe una celda en el grupo igual a la celda
-	 *  pasada como argumento.
+	 * Metodo que comprueba si el grupo contiene la posicion de la celda pasada
+	 *  como argumento.
 	 *  
 	 * @param celdaABuscar celda que queremos saber si esta en el grupo.
 	 * @return boolean	True si la celda esta en el grupo y False en caso contrario.
 	 */
 	public boolean contieneCelda(Celda celdaABuscar) {
-		boolean contiene = false;
-		for(int i = 0; i < this.celdas.length; i++) {
-			if(this.celdas[i] == celdaABuscar ) {
-				contiene = true;
-			}
-		}
-		return contiene;
+		int bit = calcularBit(celdaABuscar.consultarFila(), celdaABuscar.consultarColumna());
+		return (mascara & bit) != 0;
 	}
 	
 	
@@ -105,12 +120,14 @@ public class Grupo {
 	 * 						y False en caso contrario.
 	 */
 	public boolean estaCompletoConFigurasDiferentes() {
-		boolean sonDistintos = false;
-		for(int i = 0; i < this.celdas.length; i++) {
-			if(celdas[i].consultarPieza() != null && celdas[i].consultarPieza().consultarFigura().aTexto() != celdas[i + 1].consultarPieza().consultarFigura().aTexto() ) {
-				sonDistintos = true;
+		int figuras = 0;
+		for(Celda celda : this.celdas) {
+			if(celda.estaVacia()) {
+				return false;
 			}
-		} return sonDistintos;
+			figuras |= 1 << celda.consultarPieza().consultarFigura().ordinal();
+		}
+		return figuras == (1 << Figura.values().length) - 1;
 	}
 	
 	
@@ -125,13 +142,15 @@ public class Grupo {
 	 */
 	public boolean existeMismaPiezaDelColorContrario(Figura figura, Color color) {
 		boolean existe = false;
-		for(int i = 0; i < this.celdas.length; i++) {
-			if(celdas[i].consultarPieza() != null && celdas[i].consultarPieza().consultarFigura().aTexto() == figura.aTexto()){
-				if(celdas[i].consultarPieza().consultarColor().toChar() == color.obtenerContrario().toChar()){
+		for(Celda celda : this.celdas) {
+			if(!celda.estaVacia()) {
+				Pieza pieza = celda.consultarPieza();
+				if(pieza.consultarFigura() == figura && pieza.consultarColor() == color.obtenerContrario()) {
 					existe = true;
 				}
 			}
-		}return existe;	
+		}
+		return existe;
 	} 
 	
 	
@@ -144,21 +163,17 @@ public class Grupo {
 		if (getClass() != obj.getClass())
 			return false;
 		Grupo other = (Grupo) obj;
-		return Objects.equals(celda, other.celda) && Arrays.equals(celdas, other.celdas);
+		return Arrays.equals(celdas, other.celdas);
 	}
 	
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(celdas);
-		result = prime * result + Objects.hash(celda);
-		return result;
+		return Arrays.hashCode(celdas);
 	}
 	
 	@Override
 	public String toString() {
-		return "Grupo [celdas=" + Arrays.toString(celdas) + ", celda=" + celda + "]";
+		return "Grupo [celdas=" + Arrays.toString(celdas) + "]";
 	}
 }
 
@@ -4,6 +4,11 @@ import java.util.Objects;
 import quantik.util.*;
 
 /**
+ * Pieza inmutable de una figura y un color.
+ * 
+ * Solo hay ocho piezas distintas, por lo que el modelo usa las instancias
+ * compartidas que devuelve Pieza.de en lugar de crear piezas nuevas. El
+ * metodo clonar sigue devolviendo una pieza nueva equivalente.
  * 
  * @author Rocio Agueda Miguel
  * @version 1.0
@@ -13,15 +18,28 @@ import quantik.util.*;
  */
 public class Pieza {
 	
+	/**
+	 * Instancias compartidas indexadas por [color][figura].
+	 */
+	private static final Pieza[][] COMPARTIDAS = new Pieza[Color.values().length][Figura.values().length];
+	
+	static {
+		for (Color color : Color.values()) {
+			for (Figura figura : Figura.values()) {
+				COMPARTIDAS[color.ordinal()][figura.ordinal()] = new Pieza(figura, color);
+			}
+		}
+	}
+	
 	/**
 	 * Atributo privado color.
 	 */
-	private Color color;
+	private final Color color;
 	
 	/**
 	 * Atributo privado figura.
 	 */
-	private Figura figura;
+	private final Figura figura;
 	
 	/**
 	 * Constructor de la clase
@@ -35,6 +53,18 @@ public class Pieza {
 		this.color = color;
 	}
 	
+	/**
+	 * Devuelve la instancia compartida de la pieza con la figura y el color
+	 * indicados.
+	 * 
+	 * @param figura forma de la pieza.
+	 * @param color  color de la pieza.
+	 * @return Pieza instancia compartida, la misma en todas las llamadas.
+	 */
+	public static Pieza de(Figura figura, Color color) {
+		return COMPARTIDAS[color.ordinal()][figura.ordinal()];
+	}
+	
 	/**
 	 * Método que devuelve la concatenacion de los textos asociados a la figura y color de la pieza.
 	 * 
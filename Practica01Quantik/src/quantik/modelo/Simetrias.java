@@ -0,0 +1,169 @@
+package quantik.modelo;
+
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Claves canonicas de posiciones de Quantik respecto a sus simetrias.
+ *
+ * Dos posiciones son equivalentes si una se obtiene de la otra permutando las
+ * celdas sin romper los grupos, renombrando las figuras o intercambiando los
+ * colores junto con el turno. Las permutaciones de celdas que conservan las
+ * filas, columnas y cuadrantes son 128: se permutan las filas respetando las
+ * parejas {0,1} y {2,3} (8 formas), lo mismo con las columnas y opcionalmente
+ * se traspone. Las 8 simetrias del cuadrado son un subgrupo de estas.
+ *
+ * La clave canonica guarda una celda por cada 4 bits, empezando por la celda
+ * 0 en los bits mas altos: 0 si esta vacia y 1 + color * 4 + figura en otro
+ * caso, con color 0 para el jugador con turno y figuras numeradas por orden de
+ * aparicion. La clave es la minima entre todas las simetrias, de modo que dos
+ * posiciones equivalentes tienen la misma clave y dos no equivalentes no.
+ *
+ * No se incluyen las cajas: en una partida jugada desde el principio su
+ * contenido se deduce de las piezas del tablero.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.modelo.Tablero
+ *
+ */
+public final class Simetrias {
+
+	/**
+	 * Numero de celdas del tablero.
+	 */
+	private static final int NUMERO_CELDAS = 16;
+
+
+	/**
+	 * Numero de columnas del tablero.
+	 */
+	private static final int NUMERO_COLUMNAS = 4;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Permutaciones de celdas que conservan los grupos. SIMETRIAS[s][i] es la
+	 * celda de la posicion original que pasa a la celda i con la simetria s.
+	 */
+	static final int[][] SIMETRIAS;
+
+	static {
+		int[][] parejas = new int[8][];
+		int n = 0;
+		for (int[] base : new int[][] { { 0, 1, 2, 3 }, { 2, 3, 0, 1 } }) {
+			for (int primera = 0; primera < 2; primera++) {
+				for (int segunda = 0; segunda < 2; segunda++) {
+					parejas[n++] = new int[] { base[primera], base[1 - primera], base[2 + segunda],
+							base[3 - segunda] };
+				}
+			}
+		}
+		SIMETRIAS = new int[parejas.length * parejas.length * 2][NUMERO_CELDAS];
+		int s = 0;
+		for (int[] filas : parejas) {
+			for (int[] columnas : parejas) {
+				for (int traspuesta = 0; traspuesta < 2; traspuesta++) {
+					for (int celda = 0; celda < NUMERO_CELDAS; celda++) {
+						int fila = celda / NUMERO_COLUMNAS;
+						int columna = celda % NUMERO_COLUMNAS;
+						SIMETRIAS[s][celda] = traspuesta == 0
+								? filas[fila] * NUMERO_COLUMNAS + columnas[columna]
+								: filas[columna] * NUMERO_COLUMNAS + columnas[fila];
+					}
+					s++;
+				}
+			}
+		}
+	}
+
+
+	private Simetrias() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Devuelve la clave canonica de las piezas del tablero con el turno indicado.
+	 *
+	 * @param tablero	tablero.
+	 * @param turno		color con turno.
+	 * @return long		clave canonica, igual para todas las posiciones equivalentes.
+	 */
+	public static long claveCanonica(Tablero tablero, Color turno) {
+		long celdas = codificar(tablero, turno, 1);
+		celdas |= codificar(tablero, turno.obtenerContrario(), 1 + FIGURAS.length);
+		return claveCanonica(celdas);
+	}
+
+
+	/**
+	 * Codifica con 4 bits por celda las piezas de un color del tablero.
+	 *
+	 * @param tablero	tablero.
+	 * @param color		color de las piezas.
+	 * @param base		valor de la primera figura de ese color.
+	 * @return long		celdas con las piezas del color.
+	 */
+	private static long codificar(Tablero tablero, Color color, int base) {
+		long celdas = 0L;
+		for (Figura figura : FIGURAS) {
+			int ocupacion = tablero.consultarOcupacion(figura, color);
+			long valor = base + figura.ordinal();
+			while (ocupacion != 0) {
+				celdas |= valor << (Integer.numberOfTrailingZeros(ocupacion) * 4);
+				ocupacion &= ocupacion - 1;
+			}
+		}
+		return celdas;
+	}
+
+
+	/**
+	 * Devuelve la clave canonica de una posicion dada celda a celda.
+	 *
+	 * @param celdas	4 bits por celda, la celda i en los bits 4i a 4i+3, con
+	 * 					0 si esta vacia o 1 + color * 4 + ordinal de la figura,
+	 * 					con color 0 para el jugador con turno.
+	 * @return long		clave canonica.
+	 */
+	static long claveCanonica(long celdas) {
+		long mejor = -1L;
+		for (int[] simetria : SIMETRIAS) {
+			long clave = 0L;
+			int etiquetas = 0;
+			int siguiente = 0;
+			boolean menor = false;
+			int celda = 0;
+			for (; celda < NUMERO_CELDAS; celda++) {
+				int valor = (int) (celdas >>> (simetria[celda] * 4)) & 0xF;
+				if (valor != 0) {
+					int figura = (valor - 1) & 0x3;
+					int etiqueta = (etiquetas >>> (figura * 4)) & 0xF;
+					if (etiqueta == 0) {
+						etiqueta = ++siguiente;
+						etiquetas |= etiqueta << (figura * 4);
+					}
+					valor = valor - figura + etiqueta - 1;
+				}
+				clave = clave << 4 | valor;
+				if (!menor) {
+					long prefijo = mejor >>> ((NUMERO_CELDAS - 1 - celda) * 4);
+					if (Long.compareUnsigned(clave, prefijo) > 0) {
+						break;
+					}
+					menor = clave != prefijo;
+				}
+			}
+			if (celda == NUMERO_CELDAS && Long.compareUnsigned(clave, mejor) < 0) {
+				mejor = clave;
+			}
+		}
+		return mejor;
+	}
+}
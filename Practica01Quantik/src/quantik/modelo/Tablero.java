@@ -1,51 +1,319 @@
 package quantik.modelo;
 
+import java.util.Arrays;
+
+import quantik.util.*;
+
 /**
- * 
+ * Tablero de cuatro filas y cuatro columnas sobre el que se colocan las piezas.
+ *
+ * Esta clase es la implementacion de referencia basada en objetos: cada posicion
+ * es una Celda que guarda la referencia a su Pieza. Las representaciones mas
+ * compactas (por ejemplo TableroBitboard) heredan de ella y deben comportarse
+ * exactamente igual.
+ *
  * @author Rocio Agueda Miguel
+ * @see quantik.modelo.Celda
+ * @see quantik.modelo.Pieza
+ * @see quantik.modelo.TableroBitboard
  *
  */
 public class Tablero {
 
+	/**
+	 * Numero de filas del tablero.
+	 */
+	private static final int NUMERO_FILAS = 4;
+
+
+	/**
+	 * Numero de columnas del tablero.
+	 */
+	private static final int NUMERO_COLUMNAS = 4;
+
+
+	/**
+	 * Celdas del tablero, null en las subclases que usan otra representacion.
+	 */
+	private Celda [][] celdas;
+
+
+	/**
+	 * Clave de Zobrist de las piezas colocadas, actualizada en cada colocacion.
+	 */
+	private long clave;
+
+
+	/**
+	 * Estado de los grupos, creado en la primera consulta y compartido por todos
+	 * los gestores de grupos del tablero.
+	 */
+	private GestorGrupos.Estado estadoGrupos;
+
+
+	/**
+	 * Constructor de la clase que inicializa el tablero con todas sus celdas vacias.
+	 */
 	public Tablero() {
-		
+		this.celdas = crearCeldas();
+	}
+
+
+	/**
+	 * Constructor para las subclases, que pueden prescindir de las celdas.
+	 *
+	 * @param celdas	celdas del tablero o null si la subclase no las utiliza.
+	 */
+	Tablero(Celda[][] celdas) {
+		this.celdas = celdas;
 	}
-	
+
+
+	/**
+	 * Crea las dieciseis celdas vacias del tablero, que colocan sus piezas a
+	 * traves de el.
+	 *
+	 * @return celdas	matriz de celdas vacias.
+	 */
+	private Celda[][] crearCeldas() {
+		Celda[][] celdas = new Celda[NUMERO_FILAS][NUMERO_COLUMNAS];
+		for (int i = 0; i < NUMERO_FILAS; i++) {
+			for (int j = 0; j < NUMERO_COLUMNAS; j++) {
+				celdas[i][j] = new Celda(Coordenada.de(i, j), this);
+			}
+		}
+		return celdas;
+	}
+
+
+	/**
+	 * Genera el texto del tablero con los indices de filas y columnas y el texto
+	 * de la pieza colocada en cada celda.
+	 *
+	 * @return String	texto del tablero.
+	 */
 	public String aTexto() {
-		
+		StringBuilder sb = new StringBuilder();
+		sb.append("\t  0\t  1\t    2\t  3\n");
+		for (int i = 0; i < consultarNumeroFilas(); i++) {
+			sb.append(i);
+			for (int j = 0; j < consultarNumeroColumnas(); j++) {
+				Pieza pieza = obtenerPiezaEn(i, j);
+				sb.append('\t');
+				sb.append(pieza == null ? "-----" : "-" + pieza.aTexto() + "-");
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
 	}
-	
+
+
+	/**
+	 * Metodo que devuelve un clon en profundidad del tablero actual.
+	 *
+	 * @return tablero	clon del tablero.
+	 */
 	public Tablero clonar() {
-		
+		Tablero tablero = new Tablero();
+		for (int i = 0; i < NUMERO_FILAS; i++) {
+			for (int j = 0; j < NUMERO_COLUMNAS; j++) {
+				tablero.celdas[i][j].asignar(celdas[i][j].obtenerPieza());
+			}
+		}
+		tablero.clave = clave;
+		return tablero;
+	}
+
+
+	/**
+	 * Coloca la pieza en la celda indicada. Si las coordenadas no pertenecen
+	 * al tablero no se hace nada.
+	 *
+	 * Las piezas colocadas en una celda del tablero pasan tambien por este
+	 * metodo, de modo que la clave y los grupos nunca se quedan desfasados.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @param pieza		pieza a colocar.
+	 */
+	public void colocar(int fila, int columna, Pieza pieza) {
+		if (estaEnTablero(fila, columna)) {
+			Celda celda = celdas[fila][columna];
+			Pieza anterior = celda.obtenerPieza();
+			celda.asignar(pieza);
+			notificarColocacion(fila, columna, anterior, pieza);
+		}
+	}
+
+
+	/**
+	 * Devuelve el estado de los grupos del tablero, que se calcula la primera
+	 * vez a partir de las piezas y despues se actualiza en cada colocacion. Los
+	 * clones del tablero calculan el suyo propio.
+	 *
+	 * @return estado	estado de los grupos.
+	 */
+	GestorGrupos.Estado consultarEstadoGrupos() {
+		if (estadoGrupos == null) {
+			estadoGrupos = new GestorGrupos.Estado(this);
+		}
+		return estadoGrupos;
 	}
-	
-	public void colocar (Fila fila, Columna columna, Pieza pieza) {
-		
+
+
+	/**
+	 * Actualiza la clave de Zobrist y el estado de los grupos tras un cambio en
+	 * una celda.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @param anterior	pieza que habia en la celda o null.
+	 * @param nueva		pieza colocada o null.
+	 */
+	void notificarColocacion(int fila, int columna, Pieza anterior, Pieza nueva) {
+		int indice = fila * NUMERO_COLUMNAS + columna;
+		if (anterior != null) {
+			clave ^= Zobrist.clavePieza(anterior.consultarFigura(), anterior.consultarColor(), indice);
+		}
+		if (nueva != null) {
+			clave ^= Zobrist.clavePieza(nueva.consultarFigura(), nueva.consultarColor(), indice);
+		}
+		if (estadoGrupos != null) {
+			estadoGrupos.actualizar(fila, columna, anterior, nueva);
+		}
 	}
-	
+
+
+	/**
+	 * Devuelve un clon de la celda indicada.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @return celda	clon de la celda o null si no esta en el tablero.
+	 */
 	public Celda consultarCelda(int fila, int columna) {
-		
+		if (!estaEnTablero(fila, columna)) {
+			return null;
+		}
+		return celdas[fila][columna].clonar();
 	}
-	
+
+
+	/**
+	 * Devuelve la referencia a la celda indicada, sin clonar.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @return celda	celda del tablero o null si no esta en el tablero.
+	 */
+	public Celda obtenerCelda(int fila, int columna) {
+		if (!estaEnTablero(fila, columna)) {
+			return null;
+		}
+		return celdas[fila][columna];
+	}
+
+
+	/**
+	 * Devuelve la mascara de 16 bits con las celdas ocupadas por piezas con la
+	 * figura y el color indicados. El bit de la celda (fila, columna) es
+	 * fila * 4 + columna.
+	 *
+	 * @param figura	figura de las piezas.
+	 * @param color		color de las piezas.
+	 * @return int		mascara de ocupacion.
+	 */
+	public int consultarOcupacion(Figura figura, Color color) {
+		int mascara = 0;
+		for (int i = 0; i < NUMERO_FILAS; i++) {
+			for (int j = 0; j < NUMERO_COLUMNAS; j++) {
+				Pieza pieza = celdas[i][j].obtenerPieza();
+				if (pieza != null && pieza.consultarFigura() == figura && pieza.consultarColor() == color) {
+					mascara |= 1 << (i * NUMERO_COLUMNAS + j);
+				}
+			}
+		}
+		return mascara;
+	}
+
+
+	/**
+	 * Devuelve la clave de Zobrist de 64 bits de las piezas colocadas.
+	 *
+	 * @return long	clave del tablero.
+	 * @see quantik.util.Zobrist
+	 */
+	public long consultarClave() {
+		return clave;
+	}
+
+
+	/**
+	 * Copia la clave de otro tablero, para los clones de las subclases.
+	 *
+	 * @param origen	tablero del que se copia la clave.
+	 */
+	void copiarClave(Tablero origen) {
+		clave = origen.clave;
+	}
+
+
+	/**
+	 * Devuelve la referencia a la pieza colocada en la celda, sin clonar.
+	 * Las coordenadas deben estar en el tablero.
+	 *
+	 * @param fila		fila de la celda.
+	 * @param columna	columna de la celda.
+	 * @return pieza	pieza colocada o null si la celda esta vacia.
+	 */
+	Pieza obtenerPiezaEn(int fila, int columna) {
+		return celdas[fila][columna].obtenerPieza();
+	}
+
+
 	public int consultarNumeroColumnas() {
-		
+		return NUMERO_COLUMNAS;
 	}
-	
+
+
 	public int consultarNumeroFilas() {
-		
-	}
-	
-	public boolean equals(Object obj) {
-		
+		return NUMERO_FILAS;
 	}
-	
+
+
+	/**
+	 * Comprueba si las coordenadas pertenecen al tablero.
+	 *
+	 * @param fila		fila.
+	 * @param columna	columna.
+	 * @return boolean	True si estan en el tablero y False en caso contrario.
+	 */
 	public boolean estaEnTablero(int fila, int columna) {
-		
+		return fila >= 0 && fila < NUMERO_FILAS && columna >= 0 && columna < NUMERO_COLUMNAS;
+	}
+
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Tablero other = (Tablero) obj;
+		return Arrays.deepEquals(celdas, other.celdas);
 	}
-	
+
+
+	@Override
 	public int hashCode() {
-		
+		return Long.hashCode(clave);
+	}
+
+
+	@Override
+	public String toString() {
+		return "Tablero [celdas=" + Arrays.deepToString(celdas) + "]";
 	}
-	
-	
 }
@@ -0,0 +1,215 @@
+package quantik.modelo;
+
+import quantik.util.*;
+
+/**
+ * Tablero representado con bitboards.
+ *
+ * Para cada par (Figura, Color) se guarda una mascara de 16 bits con las celdas
+ * que ocupan esas piezas. Las cuatro mascaras de un mismo color se empaquetan
+ * en un long, una por cada 16 bits segun el ordinal de la figura, de modo que
+ * todo el estado del tablero son dos palabras. El bit de la celda (fila, columna)
+ * dentro de su mascara es fila * 4 + columna.
+ *
+ * Las celdas que devuelve obtenerCelda son vistas sobre las mascaras: leen y
+ * escriben directamente en el tablero, igual que las celdas del modelo de
+ * objetos, y solo se crean si alguien las pide.
+ *
+ * @author Rocio Agueda Miguel
+ * @see quantik.modelo.Tablero
+ *
+ */
+public class TableroBitboard extends Tablero {
+
+	/**
+	 * Numero de celdas del tablero.
+	 */
+	private static final int NUMERO_CELDAS = 16;
+
+
+	/**
+	 * Mascara con los 16 bits de una figura.
+	 */
+	private static final long MASCARA_FIGURA = 0xFFFFL;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Mascaras de las piezas blancas.
+	 */
+	private long blancas;
+
+
+	/**
+	 * Mascaras de las piezas negras.
+	 */
+	private long negras;
+
+
+	/**
+	 * Vistas sobre las celdas, creadas bajo demanda.
+	 */
+	private Celda[] vistas;
+
+
+	/**
+	 * Constructor de la clase que inicializa el tablero vacio.
+	 */
+	public TableroBitboard() {
+		super(null);
+	}
+
+
+	@Override
+	public Tablero clonar() {
+		TableroBitboard tablero = new TableroBitboard();
+		tablero.blancas = blancas;
+		tablero.negras = negras;
+		tablero.copiarClave(this);
+		return tablero;
+	}
+
+
+	@Override
+	public void colocar(int fila, int columna, Pieza pieza) {
+		if (estaEnTablero(fila, columna)) {
+			int indice = fila * consultarNumeroColumnas() + columna;
+			long celda = 0x0001_0001_0001_0001L << indice;
+			Pieza anterior = ((blancas | negras) & celda) == 0 ? null : obtenerPiezaEn(fila, columna);
+			colocar(indice, pieza);
+			notificarColocacion(fila, columna, anterior, pieza);
+		}
+	}
+
+
+	/**
+	 * Coloca la pieza en la celda indicada por su indice, sustituyendo la que
+	 * hubiera. Con una pieza null la celda queda vacia.
+	 *
+	 * @param indice	indice de la celda (fila * 4 + columna).
+	 * @param pieza		pieza a colocar.
+	 */
+	private void colocar(int indice, Pieza pieza) {
+		long celda = 0x0001_0001_0001_0001L << indice;
+		blancas &= ~celda;
+		negras &= ~celda;
+		if (pieza != null) {
+			long bit = 1L << (pieza.consultarFigura().ordinal() * NUMERO_CELDAS + indice);
+			if (pieza.consultarColor() == Color.BLANCO) {
+				blancas |= bit;
+			} else {
+				negras |= bit;
+			}
+		}
+	}
+
+
+	@Override
+	public Celda consultarCelda(int fila, int columna) {
+		if (!estaEnTablero(fila, columna)) {
+			return null;
+		}
+		Celda celda = new Celda(fila, columna);
+		Pieza pieza = obtenerPiezaEn(fila, columna);
+		if (pieza != null) {
+			celda.colocar(pieza);
+		}
+		return celda;
+	}
+
+
+	@Override
+	public Celda obtenerCelda(int fila, int columna) {
+		if (!estaEnTablero(fila, columna)) {
+			return null;
+		}
+		if (vistas == null) {
+			vistas = new Celda[NUMERO_CELDAS];
+		}
+		int indice = fila * consultarNumeroColumnas() + columna;
+		if (vistas[indice] == null) {
+			vistas[indice] = new Vista(fila, columna);
+		}
+		return vistas[indice];
+	}
+
+
+	@Override
+	public int consultarOcupacion(Figura figura, Color color) {
+		long mascaras = color == Color.BLANCO ? blancas : negras;
+		return (int) ((mascaras >>> (figura.ordinal() * NUMERO_CELDAS)) & MASCARA_FIGURA);
+	}
+
+
+	@Override
+	Pieza obtenerPiezaEn(int fila, int columna) {
+		int indice = fila * consultarNumeroColumnas() + columna;
+		for (int i = 0; i < FIGURAS.length; i++) {
+			int desplazamiento = i * NUMERO_CELDAS + indice;
+			if (((blancas >>> desplazamiento) & 1L) != 0) {
+				return Pieza.de(FIGURAS[i], Color.BLANCO);
+			}
+			if (((negras >>> desplazamiento) & 1L) != 0) {
+				return Pieza.de(FIGURAS[i], Color.NEGRO);
+			}
+		}
+		return null;
+	}
+
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TableroBitboard other = (TableroBitboard) obj;
+		return blancas == other.blancas && negras == other.negras;
+	}
+
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(consultarClave());
+	}
+
+
+	@Override
+	public String toString() {
+		return "TableroBitboard [blancas=" + Long.toHexString(blancas) + ", negras=" + Long.toHexString(negras) + "]";
+	}
+
+
+	/**
+	 * Celda que lee y escribe su pieza en las mascaras del tablero.
+	 */
+	private final class Vista extends Celda {
+
+		/**
+		 * Constructor de la vista sobre la celda indicada.
+		 *
+		 * @param fila		fila de la celda.
+		 * @param columna	columna de la celda.
+		 */
+		Vista(int fila, int columna) {
+			super(fila, columna);
+		}
+
+		@Override
+		public void colocar(Pieza pieza) {
+			TableroBitboard.this.colocar(consultarFila(), consultarColumna(), pieza);
+		}
+
+		@Override
+		Pieza obtenerPieza() {
+			return obtenerPiezaEn(consultarFila(), consultarColumna());
+		}
+	}
+}
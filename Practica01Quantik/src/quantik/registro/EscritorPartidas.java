@@ -0,0 +1,167 @@
+package quantik.registro;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escribe partidas en un fichero con el formato de FormatoRegistro.
+ *
+ * Los registros se acumulan en un buffer y se escriben en el canal por
+ * bloques. Si el canal esta vacio se escribe la cabecera; si no, se comprueba
+ * y los registros se añaden al final. Si el fichero acaba en un registro a
+ * medias, de una escritura interrumpida, se trunca antes de añadir. Un
+ * escritor no debe usarse desde varios hilos a la vez.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.registro.FormatoRegistro
+ *
+ */
+public class EscritorPartidas implements Closeable {
+
+	/**
+	 * Registros que caben en el buffer por defecto.
+	 */
+	private static final int REGISTROS_BUFFER = 4096;
+
+
+	/**
+	 * Canal del fichero.
+	 */
+	private final FileChannel canal;
+
+
+	/**
+	 * Registros pendientes de escribir.
+	 */
+	private final ByteBuffer buffer;
+
+
+	/**
+	 * Posicion del canal en la que se escribe el siguiente bloque.
+	 */
+	private long posicion;
+
+
+	/**
+	 * Registros escritos por este escritor.
+	 */
+	private long registros;
+
+
+	/**
+	 * Constructor sobre un canal abierto para lectura y escritura. Un registro
+	 * incompleto al final del fichero se descarta.
+	 *
+	 * @param canal			canal del fichero, que se cierra al cerrar el escritor.
+	 * @throws IOException	si hay un error de entrada/salida o el fichero no
+	 * 						es de partidas.
+	 */
+	public EscritorPartidas(FileChannel canal) throws IOException {
+		this.canal = canal;
+		this.buffer = ByteBuffer.allocateDirect(REGISTROS_BUFFER * FormatoRegistro.TAMAÑO_REGISTRO);
+		ByteBuffer cabecera = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_CABECERA);
+		long tamaño = canal.size();
+		if (tamaño == 0) {
+			FormatoRegistro.escribirCabecera(cabecera);
+			cabecera.flip();
+			escribirCompleto(cabecera, 0);
+			posicion = FormatoRegistro.TAMAÑO_CABECERA;
+		} else {
+			LectorPartidas.leerCompleto(canal, cabecera, 0);
+			cabecera.flip();
+			FormatoRegistro.comprobarCabecera(cabecera);
+			posicion = tamaño - (tamaño - FormatoRegistro.TAMAÑO_CABECERA) % FormatoRegistro.TAMAÑO_REGISTRO;
+			if (posicion < tamaño) {
+				canal.truncate(posicion);
+			}
+		}
+	}
+
+
+	/**
+	 * Crea un fichero de partidas nuevo, o vacia el existente.
+	 *
+	 * @param fichero				ruta del fichero.
+	 * @return EscritorPartidas		escritor.
+	 * @throws IOException			si hay un error de entrada/salida.
+	 */
+	public static EscritorPartidas crear(Path fichero) throws IOException {
+		return new EscritorPartidas(FileChannel.open(fichero, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE));
+	}
+
+
+	/**
+	 * Añade una partida.
+	 *
+	 * @param jugadas		jugadas codificadas.
+	 * @param numero		numero de jugadas, entre 0 y FormatoRegistro.MAXIMO_JUGADAS.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public void escribir(int[] jugadas, int numero) throws IOException {
+		if (buffer.remaining() < FormatoRegistro.TAMAÑO_REGISTRO) {
+			vaciar();
+		}
+		FormatoRegistro.codificar(jugadas, numero, buffer);
+		registros++;
+	}
+
+
+	/**
+	 * Escribe en el canal los registros pendientes.
+	 *
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public void vaciar() throws IOException {
+		buffer.flip();
+		int bytes = buffer.remaining();
+		escribirCompleto(buffer, posicion);
+		posicion += bytes;
+		buffer.clear();
+	}
+
+
+	/**
+	 * Devuelve el numero de partidas escritas por este escritor.
+	 *
+	 * @return long	partidas escritas.
+	 */
+	public long consultarRegistros() {
+		return registros;
+	}
+
+
+	/**
+	 * Escribe los registros pendientes y cierra el canal.
+	 *
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			vaciar();
+		} finally {
+			canal.close();
+		}
+	}
+
+
+	/**
+	 * Escribe todo el contenido del buffer a partir de una posicion del canal.
+	 *
+	 * @param origen		buffer.
+	 * @param desde			posicion del canal.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	private void escribirCompleto(ByteBuffer origen, long desde) throws IOException {
+		long destino = desde;
+		while (origen.hasRemaining()) {
+			destino += canal.write(origen, destino);
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package quantik.registro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import quantik.util.Figura;
+
+/**
+ * Formato binario de los ficheros de partidas.
+ *
+ * Una jugada ocupa 6 bits: 4 para la celda (fila * 4 + columna) y 2 para el
+ * ordinal de la figura, igual que las jugadas codificadas de
+ * Partida.generarJugadasLegales. El color no se guarda porque se deduce del
+ * turno. Una partida tiene como mucho 16 jugadas, asi que cada registro ocupa
+ * 13 bytes fijos: un byte con el numero de jugadas y 12 bytes con las 16
+ * jugadas empaquetadas empezando por el bit mas alto, rellenando con ceros las
+ * que no se han jugado. Con registros de tamaño fijo el registro n empieza en
+ * el byte TAMAÑO_CABECERA + n * TAMAÑO_REGISTRO.
+ *
+ * El fichero empieza con una cabecera de 8 bytes: la marca "QNTK", la version
+ * del formato, el tamaño de registro y dos bytes reservados a cero.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.registro.EscritorPartidas
+ * @see quantik.registro.LectorPartidas
+ *
+ */
+public final class FormatoRegistro {
+
+	/**
+	 * Marca de los ficheros de partidas ("QNTK").
+	 */
+	public static final int MARCA = 0x514E544B;
+
+
+	/**
+	 * Version del formato.
+	 */
+	public static final byte VERSION = 1;
+
+
+	/**
+	 * Tamaño de la cabecera en bytes.
+	 */
+	public static final int TAMAÑO_CABECERA = 8;
+
+
+	/**
+	 * Numero maximo de jugadas de una partida: una por celda.
+	 */
+	public static final int MAXIMO_JUGADAS = 16;
+
+
+	/**
+	 * Bits de una jugada.
+	 */
+	private static final int BITS_JUGADA = 6;
+
+
+	/**
+	 * Mascara de los bits de una jugada.
+	 */
+	private static final int MASCARA_JUGADA = (1 << BITS_JUGADA) - 1;
+
+
+	/**
+	 * Tamaño de un registro en bytes: el numero de jugadas y las jugadas.
+	 */
+	public static final int TAMAÑO_REGISTRO = 1 + MAXIMO_JUGADAS * BITS_JUGADA / 8;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	private FormatoRegistro() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Escribe la cabecera en la posicion actual del buffer.
+	 *
+	 * @param destino	buffer con al menos TAMAÑO_CABECERA bytes libres.
+	 */
+	public static void escribirCabecera(ByteBuffer destino) {
+		destino.putInt(MARCA);
+		destino.put(VERSION);
+		destino.put((byte) TAMAÑO_REGISTRO);
+		destino.putShort((short) 0);
+	}
+
+
+	/**
+	 * Lee y comprueba la cabecera en la posicion actual del buffer.
+	 *
+	 * @param origen		buffer con al menos TAMAÑO_CABECERA bytes.
+	 * @throws IOException	si la cabecera no es la de un fichero de partidas.
+	 */
+	public static void comprobarCabecera(ByteBuffer origen) throws IOException {
+		if (origen.remaining() < TAMAÑO_CABECERA || origen.getInt() != MARCA) {
+			throw new IOException("No es un fichero de partidas");
+		}
+		byte version = origen.get();
+		byte tamaño = origen.get();
+		origen.getShort();
+		if (version != VERSION) {
+			throw new IOException("Version de fichero de partidas no soportada: " + version);
+		}
+		if (tamaño != TAMAÑO_REGISTRO) {
+			throw new IOException("Tamaño de registro de partidas incorrecto: " + tamaño + " bytes en lugar de "
+					+ TAMAÑO_REGISTRO);
+		}
+	}
+
+
+	/**
+	 * Escribe un registro con las jugadas en la posicion actual del buffer.
+	 *
+	 * @param jugadas	jugadas codificadas.
+	 * @param numero	numero de jugadas, entre 0 y MAXIMO_JUGADAS.
+	 * @param destino	buffer con al menos TAMAÑO_REGISTRO bytes libres.
+	 */
+	public static void codificar(int[] jugadas, int numero, ByteBuffer destino) {
+		if (numero < 0 || numero > MAXIMO_JUGADAS) {
+			throw new IllegalArgumentException("Numero de jugadas incorrecto: " + numero);
+		}
+		destino.put((byte) numero);
+		long acumulado = 0;
+		int bits = 0;
+		for (int i = 0; i < MAXIMO_JUGADAS; i++) {
+			acumulado = acumulado << BITS_JUGADA | (i < numero ? jugadas[i] & MASCARA_JUGADA : 0);
+			bits += BITS_JUGADA;
+			while (bits >= 8) {
+				bits -= 8;
+				destino.put((byte) (acumulado >>> bits));
+			}
+		}
+	}
+
+
+	/**
+	 * Lee un registro en la posicion actual del buffer.
+	 *
+	 * @param origen		buffer con al menos TAMAÑO_REGISTRO bytes.
+	 * @param jugadas		array de al menos MAXIMO_JUGADAS posiciones para las jugadas.
+	 * @return int					numero de jugadas.
+	 * @throws RegistroIncorrecto	si el numero de jugadas es incorrecto; el
+	 * 								buffer queda al final del registro.
+	 */
+	public static int decodificar(ByteBuffer origen, int[] jugadas) throws RegistroIncorrecto {
+		int numero = origen.get() & 0xFF;
+		if (numero > MAXIMO_JUGADAS) {
+			origen.position(origen.position() + TAMAÑO_REGISTRO - 1);
+			throw new RegistroIncorrecto(numero);
+		}
+		long acumulado = 0;
+		int bits = 0;
+		int leidas = 0;
+		while (leidas < MAXIMO_JUGADAS) {
+			acumulado = acumulado << 8 | (origen.get() & 0xFF);
+			bits += 8;
+			while (bits >= BITS_JUGADA) {
+				bits -= BITS_JUGADA;
+				int jugada = (int) (acumulado >>> bits) & MASCARA_JUGADA;
+				if (leidas < numero) {
+					jugadas[leidas] = jugada;
+				}
+				leidas++;
+			}
+		}
+		return numero;
+	}
+
+
+	/**
+	 * Devuelve una jugada en el formato nnll de la interfaz de texto.
+	 *
+	 * @param jugada	jugada codificada.
+	 * @return String	fila, columna y texto de la figura, por ejemplo "12ES".
+	 */
+	public static String aTexto(int jugada) {
+		int celda = (jugada >>> 2) & 0xF;
+		return "" + celda / 4 + celda % 4 + FIGURAS[jugada & 0x3].aTexto();
+	}
+
+
+	/**
+	 * Codifica una jugada en el formato nnll de la interfaz de texto.
+	 *
+	 * @param texto	jugada, por ejemplo "12ES".
+	 * @return int	jugada codificada o -1 si el formato es incorrecto.
+	 */
+	public static int deTexto(String texto) {
+		if (texto.length() != 4) {
+			return -1;
+		}
+		int fila = texto.charAt(0) - '0';
+		int columna = texto.charAt(1) - '0';
+		if (fila < 0 || fila > 3 || columna < 0 || columna > 3) {
+			return -1;
+		}
+		String figura = texto.substring(2);
+		for (Figura candidata : FIGURAS) {
+			if (candidata.aTexto().equals(figura)) {
+				return (fila * 4 + columna) << 2 | candidata.ordinal();
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Excepcion de un registro con un numero de jugadas incorrecto. Como los
+	 * registros tienen tamaño fijo, se puede saltar el registro y seguir
+	 * leyendo el siguiente.
+	 */
+	public static final class RegistroIncorrecto extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param numero	numero de jugadas leido.
+		 */
+		RegistroIncorrecto(int numero) {
+			super("Registro de partida incorrecto: " + numero + " jugadas");
+		}
+	}
+}
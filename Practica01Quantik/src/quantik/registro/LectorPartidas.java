@@ -0,0 +1,186 @@
+package quantik.registro;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee secuencialmente las partidas de un fichero con el formato de
+ * FormatoRegistro.
+ *
+ * Los registros se leen del canal por bloques en un buffer propio y se
+ * decodifican sobre el array que pasa quien llama, de modo que leer una
+ * partida no crea objetos. Las lecturas son posicionales y no mueven la
+ * posicion del canal. Un lector no debe usarse desde varios hilos a la vez.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.registro.FormatoRegistro
+ *
+ */
+public class LectorPartidas implements Closeable {
+
+	/**
+	 * Registros que caben en el buffer por defecto.
+	 */
+	private static final int REGISTROS_BUFFER = 4096;
+
+
+	/**
+	 * Canal del fichero.
+	 */
+	private final FileChannel canal;
+
+
+	/**
+	 * Registros leidos del canal pendientes de decodificar.
+	 */
+	private final ByteBuffer buffer;
+
+
+	/**
+	 * Posicion del canal del siguiente bloque.
+	 */
+	private long posicion;
+
+
+	/**
+	 * Posicion del canal en la que termina el ultimo registro a leer.
+	 */
+	private long fin;
+
+
+	/**
+	 * Constructor que comprueba la cabecera.
+	 *
+	 * @param canal			canal del fichero, que se cierra al cerrar el lector.
+	 * @throws IOException	si hay un error de entrada/salida o el fichero no
+	 * 						es de partidas.
+	 */
+	public LectorPartidas(FileChannel canal) throws IOException {
+		this.canal = canal;
+		ByteBuffer cabecera = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_CABECERA);
+		leerCompleto(canal, cabecera, 0);
+		cabecera.flip();
+		FormatoRegistro.comprobarCabecera(cabecera);
+		this.posicion = FormatoRegistro.TAMAÑO_CABECERA;
+		this.fin = posicion + contarRegistros(canal) * FormatoRegistro.TAMAÑO_REGISTRO;
+		this.buffer = ByteBuffer.allocateDirect(REGISTROS_BUFFER * FormatoRegistro.TAMAÑO_REGISTRO);
+		buffer.limit(0);
+	}
+
+
+	/**
+	 * Abre un fichero de partidas para leerlo.
+	 *
+	 * @param fichero			ruta del fichero.
+	 * @return LectorPartidas	lector.
+	 * @throws IOException		si hay un error de entrada/salida o el fichero no
+	 * 							es de partidas.
+	 */
+	public static LectorPartidas abrir(Path fichero) throws IOException {
+		return new LectorPartidas(FileChannel.open(fichero, StandardOpenOption.READ));
+	}
+
+
+	/**
+	 * Devuelve el numero de registros completos de un fichero de partidas.
+	 *
+	 * @param canal			canal del fichero.
+	 * @return long			numero de registros.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public static long contarRegistros(FileChannel canal) throws IOException {
+		return Math.max(canal.size() - FormatoRegistro.TAMAÑO_CABECERA, 0) / FormatoRegistro.TAMAÑO_REGISTRO;
+	}
+
+
+	/**
+	 * Devuelve el numero de registros completos del fichero.
+	 *
+	 * @return long			numero de registros.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public long contarRegistros() throws IOException {
+		return contarRegistros(canal);
+	}
+
+
+	/**
+	 * Restringe la lectura a un rango de registros, descartando lo que quede
+	 * por leer. Permite repartir un fichero entre varios lectores por rangos de
+	 * bytes alineados con los registros.
+	 *
+	 * @param primero		indice del primer registro.
+	 * @param numero		numero de registros.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public void limitar(long primero, long numero) throws IOException {
+		long registros = contarRegistros();
+		if (primero < 0 || numero < 0 || primero + numero > registros) {
+			throw new IllegalArgumentException("Rango de registros incorrecto: " + primero + "+" + numero);
+		}
+		posicion = FormatoRegistro.TAMAÑO_CABECERA + primero * FormatoRegistro.TAMAÑO_REGISTRO;
+		fin = posicion + numero * FormatoRegistro.TAMAÑO_REGISTRO;
+		buffer.limit(0);
+	}
+
+
+	/**
+	 * Lee la siguiente partida. Si el registro es incorrecto se salta, de modo
+	 * que la siguiente llamada lee el registro que le sigue.
+	 *
+	 * @param jugadas		array de al menos FormatoRegistro.MAXIMO_JUGADAS posiciones.
+	 * @return int			numero de jugadas o -1 si no quedan partidas.
+	 * @throws IOException	si hay un error de entrada/salida o el registro es
+	 * 						incorrecto (FormatoRegistro.RegistroIncorrecto).
+	 */
+	public int leer(int[] jugadas) throws IOException {
+		if (!buffer.hasRemaining()) {
+			if (posicion >= fin) {
+				return -1;
+			}
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), fin - posicion));
+			leerCompleto(canal, buffer, posicion);
+			posicion += buffer.position();
+			buffer.flip();
+		}
+		return FormatoRegistro.decodificar(buffer, jugadas);
+	}
+
+
+	/**
+	 * Cierra el canal.
+	 *
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	@Override
+	public void close() throws IOException {
+		canal.close();
+	}
+
+
+	/**
+	 * Llena el buffer con bytes del canal a partir de una posicion.
+	 *
+	 * @param canal			canal.
+	 * @param destino		buffer.
+	 * @param desde			posicion del canal.
+	 * @throws IOException	si hay un error de entrada/salida o el fichero se acaba antes.
+	 */
+	static void leerCompleto(FileChannel canal, ByteBuffer destino, long desde) throws IOException {
+		long origen = desde;
+		while (destino.hasRemaining()) {
+			int leidos = canal.read(destino, origen);
+			if (leidos < 0) {
+				throw new EOFException("Fichero de partidas incompleto");
+			}
+			origen += leidos;
+		}
+	}
+}
@@ -0,0 +1,423 @@
+package quantik.registro;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Vuelve a jugar las partidas de un fichero comprobando cada jugada con las
+ * reglas de Partida.
+ *
+ * Cada jugada se comprueba con esJugadaLegalEnTurnoActual antes de hacerla y
+ * al final de la partida se recalcula el ganador con consultarGanador. Una
+ * partida es ilegal si alguna jugada no es legal o se juega despues de acabar,
+ * y queda sin acabar si se terminan las jugadas antes de que haya ganador.
+ * Los registros con un numero de jugadas incorrecto se cuentan y se saltan
+ * sin detener la reproduccion.
+ *
+ * El fichero se reparte entre varios hilos por bloques de registros
+ * consecutivos, que cada hilo reserva con un contador atomico y lee con su
+ * propio canal. Cada hilo reutiliza una sola partida, que deshace al terminar
+ * cada una, y lleva su propio Resumen que se suma al final, de modo que
+ * reproducir una partida no crea objetos ni comparte estado entre hilos.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.registro.LectorPartidas
+ *
+ */
+public class ReproductorPartidas {
+
+	/**
+	 * Registros por bloque por defecto.
+	 */
+	private static final long REGISTROS_BLOQUE = 1 << 16;
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Registros de cada bloque que reserva un hilo.
+	 */
+	private final long registrosBloque;
+
+
+	/**
+	 * Crea el tablero vacio de la partida de cada hilo.
+	 */
+	private final Supplier<Tablero> tablero;
+
+
+	/**
+	 * Constructor con bloques por defecto sobre TableroBitboard.
+	 *
+	 * @param hilos	numero de hilos.
+	 */
+	public ReproductorPartidas(int hilos) {
+		this(hilos, REGISTROS_BLOQUE, TableroBitboard::new);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param hilos				numero de hilos.
+	 * @param registrosBloque	registros de cada bloque, al menos 1.
+	 * @param tablero			crea el tablero vacio de la partida de cada hilo.
+	 */
+	public ReproductorPartidas(int hilos, long registrosBloque, Supplier<Tablero> tablero) {
+		if (hilos < 1 || registrosBloque < 1) {
+			throw new IllegalArgumentException("Configuracion incorrecta: " + hilos + " hilos, bloques de "
+					+ registrosBloque);
+		}
+		this.hilos = hilos;
+		this.registrosBloque = registrosBloque;
+		this.tablero = tablero;
+	}
+
+
+	/**
+	 * Reproduce todas las partidas del fichero.
+	 *
+	 * @param fichero		fichero de partidas.
+	 * @return Resumen		totales de todas las partidas.
+	 * @throws IOException	si hay un error de entrada/salida o el fichero es incorrecto.
+	 */
+	public Resumen reproducir(Path fichero) throws IOException {
+		long registros;
+		try (LectorPartidas lector = LectorPartidas.abrir(fichero)) {
+			registros = lector.contarRegistros();
+		}
+		AtomicLong siguiente = new AtomicLong();
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		long inicio = System.nanoTime();
+		try {
+			List<Future<Resumen>> tareas = new ArrayList<>(hilos);
+			for (int i = 0; i < hilos; i++) {
+				tareas.add(ejecutor.submit(() -> new Mesa().reproducir(fichero, siguiente, registros)));
+			}
+			Resumen total = new Resumen();
+			for (Future<Resumen> tarea : tareas) {
+				total.sumar(tarea.get());
+			}
+			total.nanosegundos = System.nanoTime() - inicio;
+			return total;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Reproduccion interrumpida", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException("Error en un hilo de reproduccion", e.getCause());
+		} finally {
+			ejecutor.shutdown();
+		}
+	}
+
+
+	/**
+	 * Reproduce un fichero de partidas y muestra el resumen.
+	 *
+	 * @param args			fichero y numero de hilos (por defecto, los procesadores disponibles).
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Uso: ReproductorPartidas fichero [hilos]");
+			return;
+		}
+		int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		System.out.println(new ReproductorPartidas(hilos).reproducir(Path.of(args[0])));
+	}
+
+
+	/**
+	 * Estado de un hilo: su lector, su partida y su resumen.
+	 */
+	private final class Mesa {
+
+		/**
+		 * Partida reutilizada en todas las partidas del hilo.
+		 */
+		private final Partida partida = new Partida(tablero.get(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+
+		/**
+		 * Jugadas del registro en curso.
+		 */
+		private final int[] jugadas = new int[FormatoRegistro.MAXIMO_JUGADAS];
+
+		/**
+		 * Testigos de las jugadas hechas.
+		 */
+		private final int[] testigos = new int[FormatoRegistro.MAXIMO_JUGADAS];
+
+		/**
+		 * Totales del hilo.
+		 */
+		private final Resumen resumen = new Resumen();
+
+		/**
+		 * Reproduce bloques de registros hasta que no quedan.
+		 *
+		 * @param fichero		fichero de partidas.
+		 * @param siguiente		primer registro sin reservar.
+		 * @param registros		numero de registros del fichero.
+		 * @return Resumen		totales del hilo.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		Resumen reproducir(Path fichero, AtomicLong siguiente, long registros) throws IOException {
+			try (LectorPartidas lector = LectorPartidas.abrir(fichero)) {
+				for (long bloque = siguiente.getAndAdd(registrosBloque); bloque < registros;
+						bloque = siguiente.getAndAdd(registrosBloque)) {
+					lector.limitar(bloque, Math.min(registrosBloque, registros - bloque));
+					for (long registro = bloque;; registro++) {
+						int numero;
+						try {
+							numero = lector.leer(jugadas);
+						} catch (FormatoRegistro.RegistroIncorrecto e) {
+							resumen.anotarIncorrecto(registro);
+							continue;
+						}
+						if (numero < 0) {
+							break;
+						}
+						reproducirPartida(numero, registro);
+					}
+				}
+			}
+			return resumen;
+		}
+
+		/**
+		 * Reproduce una partida, la anota y devuelve la partida al tablero vacio.
+		 *
+		 * @param numero	numero de jugadas.
+		 * @param registro	indice del registro en el fichero.
+		 */
+		private void reproducirPartida(int numero, long registro) {
+			int hechas = 0;
+			boolean legal = true;
+			while (hechas < numero) {
+				if (partida.estaAcabadaPartida() || !partida.esJugadaLegalEnTurnoActual(jugadas[hechas])) {
+					legal = false;
+					break;
+				}
+				testigos[hechas] = partida.hacerJugada(jugadas[hechas]);
+				hechas++;
+			}
+			resumen.partidas++;
+			resumen.jugadas += hechas;
+			if (!legal) {
+				resumen.anotarIlegal(registro);
+			} else if (partida.estaAcabadaPartida()) {
+				Color ganador = partida.consultarGanador();
+				resumen.victorias[ganador.ordinal()]++;
+				if (!partida.hayAlgunGrupoCompleto()) {
+					resumen.bloqueos[ganador.ordinal()]++;
+				}
+			} else {
+				resumen.sinAcabar++;
+			}
+			while (hechas > 0) {
+				partida.deshacerJugada(testigos[--hechas]);
+			}
+		}
+	}
+
+
+	/**
+	 * Totales de una reproduccion.
+	 */
+	public static final class Resumen {
+
+		/**
+		 * Partidas reproducidas.
+		 */
+		private long partidas;
+
+		/**
+		 * Jugadas legales hechas.
+		 */
+		private long jugadas;
+
+		/**
+		 * Partidas ganadas por cada color, indexadas por ordinal.
+		 */
+		private final long[] victorias = new long[2];
+
+		/**
+		 * Partidas ganadas por cada color por bloqueo del contrario.
+		 */
+		private final long[] bloqueos = new long[2];
+
+		/**
+		 * Partidas con alguna jugada ilegal.
+		 */
+		private long ilegales;
+
+		/**
+		 * Indice del primer registro ilegal o -1.
+		 */
+		private long primerIlegal = -1;
+
+		/**
+		 * Registros incorrectos que no se han podido reproducir.
+		 */
+		private long incorrectos;
+
+		/**
+		 * Indice del primer registro incorrecto o -1.
+		 */
+		private long primerIncorrecto = -1;
+
+		/**
+		 * Partidas que terminan sin ganador.
+		 */
+		private long sinAcabar;
+
+		/**
+		 * Nanosegundos empleados.
+		 */
+		private long nanosegundos;
+
+		/**
+		 * Anota una partida ilegal.
+		 *
+		 * @param registro	indice del registro.
+		 */
+		private void anotarIlegal(long registro) {
+			if (ilegales++ == 0) {
+				primerIlegal = registro;
+			}
+		}
+
+		/**
+		 * Anota un registro incorrecto.
+		 *
+		 * @param registro	indice del registro.
+		 */
+		private void anotarIncorrecto(long registro) {
+			if (incorrectos++ == 0) {
+				primerIncorrecto = registro;
+			}
+		}
+
+		/**
+		 * Suma los totales de otro resumen.
+		 *
+		 * @param otro	resumen.
+		 */
+		private void sumar(Resumen otro) {
+			partidas += otro.partidas;
+			jugadas += otro.jugadas;
+			for (int i = 0; i < victorias.length; i++) {
+				victorias[i] += otro.victorias[i];
+				bloqueos[i] += otro.bloqueos[i];
+			}
+			ilegales += otro.ilegales;
+			if (otro.primerIlegal >= 0 && (primerIlegal < 0 || otro.primerIlegal < primerIlegal)) {
+				primerIlegal = otro.primerIlegal;
+			}
+			incorrectos += otro.incorrectos;
+			if (otro.primerIncorrecto >= 0 && (primerIncorrecto < 0 || otro.primerIncorrecto < primerIncorrecto)) {
+				primerIncorrecto = otro.primerIncorrecto;
+			}
+			sinAcabar += otro.sinAcabar;
+		}
+
+		public long consultarPartidas() {
+			return partidas;
+		}
+
+		public long consultarJugadas() {
+			return jugadas;
+		}
+
+		/**
+		 * Devuelve las partidas ganadas por un color.
+		 *
+		 * @param color	color.
+		 * @return long	partidas ganadas.
+		 */
+		public long consultarVictorias(Color color) {
+			return victorias[color.ordinal()];
+		}
+
+		/**
+		 * Devuelve las partidas ganadas por un color por bloqueo del contrario.
+		 *
+		 * @param color	color.
+		 * @return long	partidas ganadas por bloqueo.
+		 */
+		public long consultarBloqueos(Color color) {
+			return bloqueos[color.ordinal()];
+		}
+
+		public long consultarIlegales() {
+			return ilegales;
+		}
+
+		/**
+		 * Devuelve el indice del primer registro con una jugada ilegal.
+		 *
+		 * @return long	indice o -1 si todas las partidas son legales.
+		 */
+		public long consultarPrimerIlegal() {
+			return primerIlegal;
+		}
+
+		public long consultarIncorrectos() {
+			return incorrectos;
+		}
+
+		/**
+		 * Devuelve el indice del primer registro incorrecto.
+		 *
+		 * @return long	indice o -1 si todos los registros son correctos.
+		 */
+		public long consultarPrimerIncorrecto() {
+			return primerIncorrecto;
+		}
+
+		public long consultarSinAcabar() {
+			return sinAcabar;
+		}
+
+		/**
+		 * Devuelve las partidas reproducidas por segundo.
+		 *
+		 * @return double	partidas por segundo o 0 si no se conoce el tiempo.
+		 */
+		public double consultarPartidasPorSegundo() {
+			return nanosegundos == 0 ? 0 : partidas * 1e9 / nanosegundos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"%d partidas, %d jugadas%n" + "blancas %d (%d por bloqueo), negras %d (%d por bloqueo)%n"
+							+ "ilegales %d (primera %d), sin acabar %d%n" + "incorrectos %d (primero %d)%n"
+							+ "%.0f partidas/s",
+					partidas, jugadas, victorias[0], bloqueos[0], victorias[1], bloqueos[1], ilegales, primerIlegal,
+					sinAcabar, incorrectos, primerIncorrecto, consultarPartidasPorSegundo());
+		}
+	}
+}
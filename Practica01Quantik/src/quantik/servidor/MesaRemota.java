@@ -0,0 +1,202 @@
+package quantik.servidor;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Partida alojada en el servidor.
+ *
+ * Cada mesa tiene su propia partida y todos los accesos pasan por sus metodos
+ * sincronizados, de modo que las conexiones que juegan en partidas distintas
+ * nunca comparten un cerrojo. Los metodos jugar devuelven en un int el
+ * resultado y el estado de la partida tomados con el mismo cerrojo, asi que
+ * otra conexion no puede jugar entre la jugada y la consulta del estado.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.ServidorPartidas
+ *
+ */
+public final class MesaRemota {
+
+	/**
+	 * Resultado de una jugada aceptada con la partida en curso.
+	 */
+	public static final int EN_CURSO = 0;
+
+
+	/**
+	 * Resultado de una jugada aceptada que acaba la partida.
+	 */
+	public static final int ACABADA = 1;
+
+
+	/**
+	 * Resultado de una jugada ilegal.
+	 */
+	public static final int ILEGAL = 2;
+
+
+	/**
+	 * Resultado de una jugada en una partida ya acabada.
+	 */
+	public static final int YA_ACABADA = 3;
+
+
+	/**
+	 * Identificador de la partida.
+	 */
+	private final long id;
+
+
+	/**
+	 * Partida, solo accesible con el cerrojo de la mesa.
+	 */
+	private final Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO),
+			new Caja(Color.NEGRO));
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param id	identificador de la partida.
+	 */
+	MesaRemota(long id) {
+		this.id = id;
+	}
+
+
+	public long consultarId() {
+		return id;
+	}
+
+
+	/**
+	 * Hace una jugada del turno actual si es legal y devuelve el resultado con
+	 * el estado de la partida tomado en la misma seccion sincronizada.
+	 *
+	 * @param jugada	jugada codificada (celda << 2 | figura).
+	 * @return int		respuesta empaquetada; se lee con resultado, estado,
+	 * 					aplicadas y numeroJugada.
+	 */
+	public synchronized int jugar(int jugada) {
+		int resultado = hacer(jugada);
+		return empaquetar(resultado, resultado == EN_CURSO || resultado == ACABADA ? 1 : 0);
+	}
+
+
+	/**
+	 * Hace en orden varias jugadas hasta la primera que no es legal y devuelve
+	 * el resultado con el estado de la partida, todo en una sola seccion
+	 * sincronizada.
+	 *
+	 * @param jugadas	jugadas codificadas.
+	 * @param numero	numero de jugadas.
+	 * @return int		respuesta empaquetada; el resultado es el de la ultima
+	 * 					jugada intentada o, sin jugadas, EN_CURSO o ACABADA.
+	 */
+	public synchronized int jugar(int[] jugadas, int numero) {
+		int resultado = partida.estaAcabadaPartida() ? ACABADA : EN_CURSO;
+		int aplicadas = 0;
+		while (aplicadas < numero) {
+			resultado = hacer(jugadas[aplicadas]);
+			if (resultado == ILEGAL || resultado == YA_ACABADA) {
+				break;
+			}
+			aplicadas++;
+		}
+		return empaquetar(resultado, aplicadas);
+	}
+
+
+	/**
+	 * Describe el estado de la partida como en la respuesta a ESTADO.
+	 *
+	 * @return String	"TURNO color jugadas" o "GANADOR color jugadas".
+	 */
+	public synchronized String describirEstado() {
+		Color ganador = partida.consultarGanador();
+		return (ganador == null ? "TURNO " + partida.consultarTurno() : "GANADOR " + ganador) + " "
+				+ partida.consultarNumeroJugada();
+	}
+
+
+	/**
+	 * Devuelve el resultado de una respuesta de jugar.
+	 *
+	 * @param respuesta	respuesta empaquetada.
+	 * @return int		EN_CURSO, ACABADA, ILEGAL o YA_ACABADA.
+	 */
+	public static int resultado(int respuesta) {
+		return respuesta & 0xFF;
+	}
+
+
+	/**
+	 * Devuelve el estado de la partida de una respuesta de jugar.
+	 *
+	 * @param respuesta	respuesta empaquetada.
+	 * @return int		ordinal del turno si la partida sigue o 2 + ordinal del
+	 * 					ganador si ha acabado.
+	 */
+	public static int estado(int respuesta) {
+		return respuesta >>> 8 & 0xFF;
+	}
+
+
+	/**
+	 * Devuelve las jugadas aplicadas de una respuesta de jugar.
+	 *
+	 * @param respuesta	respuesta empaquetada.
+	 * @return int		jugadas aplicadas.
+	 */
+	public static int aplicadas(int respuesta) {
+		return respuesta >>> 16 & 0xFF;
+	}
+
+
+	/**
+	 * Devuelve las jugadas hechas en la partida de una respuesta de jugar.
+	 *
+	 * @param respuesta	respuesta empaquetada.
+	 * @return int		jugadas hechas.
+	 */
+	public static int numeroJugada(int respuesta) {
+		return respuesta >>> 24;
+	}
+
+
+	/**
+	 * Hace una jugada si es legal, con el cerrojo ya tomado.
+	 *
+	 * @param jugada	jugada codificada.
+	 * @return int		EN_CURSO, ACABADA, ILEGAL o YA_ACABADA.
+	 */
+	private int hacer(int jugada) {
+		if (partida.estaAcabadaPartida()) {
+			return YA_ACABADA;
+		}
+		if (!partida.esJugadaLegalEnTurnoActual(jugada)) {
+			return ILEGAL;
+		}
+		partida.hacerJugada(jugada);
+		return partida.estaAcabadaPartida() ? ACABADA : EN_CURSO;
+	}
+
+
+	/**
+	 * Empaqueta un resultado con el estado actual de la partida, con el
+	 * cerrojo ya tomado.
+	 *
+	 * @param resultado	resultado de la ultima jugada.
+	 * @param aplicadas	jugadas aplicadas.
+	 * @return int		respuesta empaquetada.
+	 */
+	private int empaquetar(int resultado, int aplicadas) {
+		Color ganador = partida.consultarGanador();
+		int estado = ganador == null ? partida.consultarTurno().ordinal() : 2 + ganador.ordinal();
+		return resultado | estado << 8 | aplicadas << 16 | partida.consultarNumeroJugada() << 24;
+	}
+}
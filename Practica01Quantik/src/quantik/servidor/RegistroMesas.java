@@ -0,0 +1,75 @@
+package quantik.servidor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Partidas en curso de un servidor, por identificador.
+ *
+ * Los identificadores empiezan en 1 y no se reutilizan. El registro puede
+ * compartirse entre varios servidores, de modo que una partida creada por una
+ * conexion de texto puede jugarse por una binaria y al reves.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.MesaRemota
+ *
+ */
+public final class RegistroMesas {
+
+	/**
+	 * Partidas en curso por identificador.
+	 */
+	private final Map<Long, MesaRemota> mesas = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Siguiente identificador de partida.
+	 */
+	private final AtomicLong siguienteId = new AtomicLong(1);
+
+
+	/**
+	 * Crea una partida nueva y la registra.
+	 *
+	 * @return MesaRemota	partida creada.
+	 */
+	public MesaRemota crear() {
+		MesaRemota mesa = new MesaRemota(siguienteId.getAndIncrement());
+		mesas.put(mesa.consultarId(), mesa);
+		return mesa;
+	}
+
+
+	/**
+	 * Busca una partida.
+	 *
+	 * @param id			identificador.
+	 * @return MesaRemota	partida o null si no existe.
+	 */
+	public MesaRemota buscar(long id) {
+		return mesas.get(id);
+	}
+
+
+	/**
+	 * Quita una partida del registro.
+	 *
+	 * @param id		identificador.
+	 * @return boolean	True si la partida existia.
+	 */
+	public boolean cerrar(long id) {
+		return mesas.remove(id) != null;
+	}
+
+
+	/**
+	 * Devuelve el numero de partidas registradas.
+	 *
+	 * @return int	partidas.
+	 */
+	public int contar() {
+		return mesas.size();
+	}
+}
@@ -0,0 +1,636 @@
+package quantik.servidor;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor de partidas con E/S no bloqueante y tramas binarias.
+ *
+ * Un hilo acepta las conexiones y las reparte por turno entre varios hilos
+ * reactores, cada uno con su Selector. Un reactor lee de cada conexion los
+ * bytes disponibles, atiende todas las tramas completas directamente desde el
+ * ByteBuffer sobre las partidas del RegistroMesas y escribe las respuestas sin
+ * pasar por String. Una conexion inactiva solo ocupa su clave de seleccion y un
+ * buffer de entrada de MAXIMA_PETICION bytes.
+ *
+ * Trama de peticion:
+ * <pre>
+ * byte   cabecera: bits 0-4 numero n de jugadas (0 a 16), bit 7 cerrar
+ * long   id de la partida, o 0 para crear una nueva
+ * m byte n jugadas de 6 bits (celda &lt;&lt; 2 | figura) en el orden en que se
+ *        hacen, empaquetadas desde el bit mas alto como en FormatoRegistro;
+ *        m = (6n + 7) / 8 y los bits sobrantes del ultimo byte van a cero
+ * </pre>
+ * Las jugadas se hacen en orden hasta la primera que falla. Si el bit de
+ * cerrar esta activo la partida se quita del registro despues de responder.
+ *
+ * Trama de respuesta, RESPUESTA bytes:
+ * <pre>
+ * long   id de la partida
+ * byte   estado: TURNO_BLANCO, TURNO_NEGRO, GANA_BLANCO, GANA_NEGRO o un error
+ * byte   jugadas aplicadas de la peticion
+ * byte   jugadas hechas en la partida
+ * </pre>
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.ServidorPartidas
+ *
+ */
+public class ServidorNio {
+
+	/**
+	 * Puerto por defecto.
+	 */
+	public static final int PUERTO = 7879;
+
+
+	/**
+	 * Bytes de la peticion antes de las jugadas.
+	 */
+	public static final int CABECERA_PETICION = 1 + Long.BYTES;
+
+
+	/**
+	 * Numero maximo de jugadas de una peticion.
+	 */
+	public static final int MAXIMO_JUGADAS = 16;
+
+
+	/**
+	 * Bits de una jugada en la peticion.
+	 */
+	private static final int BITS_JUGADA = 6;
+
+
+	/**
+	 * Mascara de los bits de una jugada.
+	 */
+	private static final int MASCARA_JUGADA = (1 << BITS_JUGADA) - 1;
+
+
+	/**
+	 * Tamaño de una respuesta.
+	 */
+	public static final int RESPUESTA = Long.BYTES + 3;
+
+
+	/**
+	 * Bit de la cabecera que pide cerrar la partida.
+	 */
+	public static final int CERRAR = 0x80;
+
+
+	/**
+	 * Bits de la cabecera con el numero de jugadas.
+	 */
+	private static final int MASCARA_NUMERO = 0x1F;
+
+
+	/**
+	 * Tamaño maximo de una peticion, incluidas las que dicen tener mas jugadas
+	 * de las permitidas.
+	 */
+	public static final int MAXIMA_PETICION = CABECERA_PETICION + bytesJugadas(MASCARA_NUMERO);
+
+
+	/**
+	 * Estados de la respuesta. Los cuatro primeros coinciden con
+	 * MesaRemota.estado.
+	 */
+	public static final byte TURNO_BLANCO = 0;
+	public static final byte TURNO_NEGRO = 1;
+	public static final byte GANA_BLANCO = 2;
+	public static final byte GANA_NEGRO = 3;
+	public static final byte ERROR_PARTIDA = 4;
+	public static final byte ERROR_ILEGAL = 5;
+	public static final byte ERROR_ACABADA = 6;
+	public static final byte ERROR_FORMATO = 7;
+
+
+	/**
+	 * Respuestas que caben en el buffer de salida de un reactor.
+	 */
+	private static final int RESPUESTAS_BUFFER = 1024;
+
+
+	/**
+	 * Partidas en curso.
+	 */
+	private final RegistroMesas mesas;
+
+
+	/**
+	 * Reactores entre los que se reparten las conexiones.
+	 */
+	private final Reactor[] reactores;
+
+
+	/**
+	 * Conexiones abiertas.
+	 */
+	private final AtomicInteger conexiones = new AtomicInteger();
+
+
+	/**
+	 * Canal de escucha.
+	 */
+	private ServerSocketChannel escucha;
+
+
+	/**
+	 * Hilo que acepta las conexiones.
+	 */
+	private Thread aceptador;
+
+
+	/**
+	 * Constructor con un registro de partidas propio.
+	 *
+	 * @param hilos	numero de reactores.
+	 */
+	public ServidorNio(int hilos) {
+		this(new RegistroMesas(), hilos);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param mesas	registro de partidas, que puede compartirse con otros servidores.
+	 * @param hilos	numero de reactores.
+	 */
+	public ServidorNio(RegistroMesas mesas, int hilos) {
+		if (hilos < 1) {
+			throw new IllegalArgumentException("Numero de reactores incorrecto: " + hilos);
+		}
+		this.mesas = mesas;
+		this.reactores = new Reactor[hilos];
+	}
+
+
+	/**
+	 * Empieza a aceptar conexiones en la interfaz local.
+	 *
+	 * @param puerto		puerto o 0 para uno libre.
+	 * @return int			puerto en el que escucha.
+	 * @throws IOException	si no se puede abrir el puerto.
+	 */
+	public synchronized int iniciar(int puerto) throws IOException {
+		if (escucha != null) {
+			throw new IllegalStateException("El servidor ya esta iniciado");
+		}
+		escucha = ServerSocketChannel.open();
+		escucha.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 4096);
+		for (int i = 0; i < reactores.length; i++) {
+			reactores[i] = new Reactor(i);
+			reactores[i].iniciar();
+		}
+		aceptador = new Thread(this::aceptar, "quantik-aceptador-nio");
+		aceptador.setDaemon(true);
+		aceptador.start();
+		return ((InetSocketAddress) escucha.getLocalAddress()).getPort();
+	}
+
+
+	/**
+	 * Deja de aceptar conexiones y cierra las abiertas. Al volver el numero de
+	 * conexiones abiertas es cero.
+	 *
+	 * @throws IOException	si hay un error al cerrar.
+	 */
+	public synchronized void cerrar() throws IOException {
+		if (escucha == null) {
+			return;
+		}
+		escucha.close();
+		try {
+			aceptador.join();
+			for (Reactor reactor : reactores) {
+				reactor.cerrar();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Devuelve el numero de conexiones abiertas.
+	 *
+	 * @return int	conexiones.
+	 */
+	public int consultarConexiones() {
+		return conexiones.get();
+	}
+
+
+	/**
+	 * Devuelve el numero de partidas en curso.
+	 *
+	 * @return int	partidas.
+	 */
+	public int consultarPartidas() {
+		return mesas.contar();
+	}
+
+
+	/**
+	 * Escribe una peticion en el buffer.
+	 *
+	 * @param destino	buffer con al menos CABECERA_PETICION + bytesJugadas(numero)
+	 * 					bytes libres.
+	 * @param id		partida o 0 para crear una nueva.
+	 * @param jugadas	jugadas codificadas.
+	 * @param numero	numero de jugadas, entre 0 y MAXIMO_JUGADAS.
+	 * @param cerrar	True para cerrar la partida despues.
+	 */
+	public static void codificarPeticion(ByteBuffer destino, long id, int[] jugadas, int numero, boolean cerrar) {
+		if (numero < 0 || numero > MAXIMO_JUGADAS) {
+			throw new IllegalArgumentException("Numero de jugadas incorrecto: " + numero);
+		}
+		destino.put((byte) (numero | (cerrar ? CERRAR : 0)));
+		destino.putLong(id);
+		int acumulado = 0;
+		int bits = 0;
+		for (int i = 0; i < numero; i++) {
+			acumulado = acumulado << BITS_JUGADA | jugadas[i] & MASCARA_JUGADA;
+			bits += BITS_JUGADA;
+			if (bits >= 8) {
+				bits -= 8;
+				destino.put((byte) (acumulado >>> bits));
+			}
+		}
+		if (bits > 0) {
+			destino.put((byte) (acumulado << 8 - bits));
+		}
+	}
+
+
+	/**
+	 * Devuelve los bytes que ocupan las jugadas empaquetadas de una peticion.
+	 *
+	 * @param numero	numero de jugadas.
+	 * @return int		bytes.
+	 */
+	static int bytesJugadas(int numero) {
+		return (numero * BITS_JUGADA + 7) / 8;
+	}
+
+
+	/**
+	 * Devuelve el tamaño de la peticion que empieza en la posicion actual.
+	 *
+	 * @param entrada	buffer con al menos un byte.
+	 * @return int		bytes de la peticion completa.
+	 */
+	static int medirPeticion(ByteBuffer entrada) {
+		return CABECERA_PETICION + bytesJugadas(entrada.get(entrada.position()) & MASCARA_NUMERO);
+	}
+
+
+	/**
+	 * Atiende una peticion completa y escribe su respuesta.
+	 *
+	 * @param entrada	buffer con la peticion completa en su posicion actual.
+	 * @param salida	buffer con al menos RESPUESTA bytes libres.
+	 * @param jugadas	array de al menos MAXIMO_JUGADAS posiciones para las
+	 * 					jugadas de la peticion.
+	 */
+	void responder(ByteBuffer entrada, ByteBuffer salida, int[] jugadas) {
+		int cabecera = entrada.get() & 0xFF;
+		long id = entrada.getLong();
+		int numero = cabecera & MASCARA_NUMERO;
+		int fin = entrada.position() + bytesJugadas(numero);
+		MesaRemota mesa = null;
+		byte estado;
+		int aplicadas = 0;
+		int hechas = 0;
+		if (numero <= MAXIMO_JUGADAS) {
+			mesa = id == 0 ? mesas.crear() : mesas.buscar(id);
+		}
+		if (numero > MAXIMO_JUGADAS) {
+			estado = ERROR_FORMATO;
+		} else if (mesa == null) {
+			estado = ERROR_PARTIDA;
+		} else {
+			int acumulado = 0;
+			int bits = 0;
+			for (int i = 0; i < numero; i++) {
+				if (bits < BITS_JUGADA) {
+					acumulado = acumulado << 8 | entrada.get() & 0xFF;
+					bits += 8;
+				}
+				bits -= BITS_JUGADA;
+				jugadas[i] = acumulado >>> bits & MASCARA_JUGADA;
+			}
+			int respuesta = mesa.jugar(jugadas, numero);
+			aplicadas = MesaRemota.aplicadas(respuesta);
+			hechas = MesaRemota.numeroJugada(respuesta);
+			switch (MesaRemota.resultado(respuesta)) {
+			case MesaRemota.ILEGAL:
+				estado = ERROR_ILEGAL;
+				break;
+			case MesaRemota.YA_ACABADA:
+				estado = ERROR_ACABADA;
+				break;
+			default:
+				estado = (byte) MesaRemota.estado(respuesta);
+			}
+		}
+		entrada.position(fin);
+		salida.putLong(mesa == null ? id : mesa.consultarId());
+		salida.put(estado);
+		salida.put((byte) aplicadas);
+		salida.put((byte) hechas);
+		if (mesa != null && (cabecera & CERRAR) != 0) {
+			mesas.cerrar(mesa.consultarId());
+		}
+	}
+
+
+	/**
+	 * Inicia el servidor y espera hasta que se detenga el proceso.
+	 *
+	 * @param args			puerto y numero de reactores, opcionales.
+	 * @throws IOException	si no se puede abrir el puerto.
+	 */
+	public static void main(String[] args) throws IOException {
+		int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int puerto = new ServidorNio(hilos).iniciar(args.length > 0 ? Integer.parseInt(args[0]) : PUERTO);
+		System.out.println("Servidor binario de partidas escuchando en el puerto " + puerto);
+		try {
+			Thread.currentThread().join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Acepta conexiones y las reparte por turno entre los reactores.
+	 */
+	private void aceptar() {
+		int siguiente = 0;
+		long espera = 0;
+		while (escucha.isOpen()) {
+			try {
+				SocketChannel canal = escucha.accept();
+				canal.configureBlocking(false);
+				canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				conexiones.incrementAndGet();
+				reactores[siguiente].añadir(canal);
+				siguiente = (siguiente + 1) % reactores.length;
+				espera = 0;
+			} catch (IOException e) {
+				if (escucha.isOpen()) {
+					espera = ServidorPartidas.esperarTrasError(espera);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Estado de una conexion.
+	 */
+	private static final class Conexion {
+
+		/**
+		 * Bytes recibidos que aun no forman una peticion completa.
+		 */
+		private final ByteBuffer entrada = ByteBuffer.allocate(MAXIMA_PETICION);
+
+		/**
+		 * Respuestas pendientes de enviar o null si no hay.
+		 */
+		private ByteBuffer pendiente;
+	}
+
+
+	/**
+	 * Hilo con un Selector que atiende un subconjunto de las conexiones.
+	 */
+	private final class Reactor implements Runnable {
+
+		/**
+		 * Selector de las conexiones del reactor.
+		 */
+		private final Selector selector;
+
+		/**
+		 * Conexiones aceptadas pendientes de registrar en el selector.
+		 */
+		private final Queue<SocketChannel> nuevas = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Respuestas de una pasada de lectura.
+		 */
+		private final ByteBuffer salida = ByteBuffer.allocateDirect(RESPUESTAS_BUFFER * RESPUESTA);
+
+		/**
+		 * Jugadas de la peticion en curso.
+		 */
+		private final int[] jugadas = new int[MAXIMO_JUGADAS];
+
+		/**
+		 * Hilo del reactor.
+		 */
+		private final Thread hilo;
+
+		/**
+		 * Si se ha pedido cerrar el reactor.
+		 */
+		private volatile boolean cerrado;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param numero		numero del reactor, para el nombre del hilo.
+		 * @throws IOException	si no se puede abrir el selector.
+		 */
+		Reactor(int numero) throws IOException {
+			this.selector = Selector.open();
+			this.hilo = new Thread(this, "quantik-reactor-" + numero);
+			hilo.setDaemon(true);
+		}
+
+		/**
+		 * Arranca el hilo del reactor.
+		 */
+		void iniciar() {
+			hilo.start();
+		}
+
+		/**
+		 * Entrega una conexion aceptada al reactor.
+		 *
+		 * @param canal	conexion en modo no bloqueante.
+		 */
+		void añadir(SocketChannel canal) {
+			nuevas.add(canal);
+			selector.wakeup();
+		}
+
+		/**
+		 * Pide al hilo del reactor que cierre sus conexiones y su selector, y
+		 * espera a que termine. Solo el hilo del reactor usa las claves del
+		 * selector, que no admiten accesos desde varios hilos.
+		 *
+		 * @throws InterruptedException	si se interrumpe la espera.
+		 */
+		void cerrar() throws InterruptedException {
+			cerrado = true;
+			selector.wakeup();
+			hilo.join();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!cerrado) {
+					selector.select();
+					for (SocketChannel canal = nuevas.poll(); canal != null; canal = nuevas.poll()) {
+						canal.register(selector, SelectionKey.OP_READ, new Conexion());
+					}
+					Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+					while (claves.hasNext()) {
+						SelectionKey clave = claves.next();
+						claves.remove();
+						atender(clave);
+					}
+				}
+			} catch (IOException e) {
+				// selector roto: el reactor termina
+			} finally {
+				liberar();
+			}
+		}
+
+		/**
+		 * Cierra todas las conexiones del reactor, registradas o no, y el
+		 * selector.
+		 */
+		private void liberar() {
+			for (SelectionKey clave : selector.keys()) {
+				if (clave.isValid()) {
+					desconectar(clave);
+				}
+			}
+			for (SocketChannel canal = nuevas.poll(); canal != null; canal = nuevas.poll()) {
+				try {
+					canal.close();
+				} catch (IOException e) {
+					// ya estaba cerrada
+				}
+				conexiones.decrementAndGet();
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// el reactor termina igualmente
+			}
+		}
+
+		/**
+		 * Atiende una conexion lista para leer o escribir. Mientras una conexion
+		 * tiene respuestas pendientes no se leen sus peticiones.
+		 *
+		 * @param clave	clave de la conexion.
+		 */
+		private void atender(SelectionKey clave) {
+			SocketChannel canal = (SocketChannel) clave.channel();
+			Conexion conexion = (Conexion) clave.attachment();
+			try {
+				if (conexion.pendiente != null) {
+					canal.write(conexion.pendiente);
+					if (conexion.pendiente.hasRemaining()) {
+						return;
+					}
+					conexion.pendiente = null;
+					clave.interestOps(SelectionKey.OP_READ);
+				}
+				leer(clave, canal, conexion);
+			} catch (IOException e) {
+				desconectar(clave);
+			}
+		}
+
+		/**
+		 * Lee lo disponible, atiende las peticiones completas y envia las respuestas.
+		 *
+		 * @param clave			clave de la conexion.
+		 * @param canal			conexion.
+		 * @param conexion		estado de la conexion.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		private void leer(SelectionKey clave, SocketChannel canal, Conexion conexion) throws IOException {
+			ByteBuffer entrada = conexion.entrada;
+			salida.clear();
+			int leidos;
+			do {
+				leidos = canal.read(entrada);
+				entrada.flip();
+				while (entrada.hasRemaining() && entrada.remaining() >= medirPeticion(entrada)) {
+					if (salida.remaining() < RESPUESTA && !enviar(clave, canal, conexion)) {
+						entrada.compact();
+						return;
+					}
+					responder(entrada, salida, jugadas);
+				}
+				entrada.compact();
+			} while (leidos > 0);
+			if (enviar(clave, canal, conexion) && leidos < 0) {
+				desconectar(clave);
+			}
+		}
+
+		/**
+		 * Envia las respuestas acumuladas; lo que no se puede enviar queda
+		 * pendiente hasta que la conexion admita escritura.
+		 *
+		 * @param clave			clave de la conexion.
+		 * @param canal			conexion.
+		 * @param conexion		estado de la conexion.
+		 * @return boolean		True si se ha enviado todo.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		private boolean enviar(SelectionKey clave, SocketChannel canal, Conexion conexion) throws IOException {
+			salida.flip();
+			canal.write(salida);
+			boolean completo = !salida.hasRemaining();
+			if (!completo) {
+				conexion.pendiente = ByteBuffer.allocate(salida.remaining()).put(salida).flip();
+				clave.interestOps(SelectionKey.OP_WRITE);
+			}
+			salida.clear();
+			return completo;
+		}
+
+		/**
+		 * Cierra una conexion.
+		 *
+		 * @param clave	clave de la conexion.
+		 */
+		private void desconectar(SelectionKey clave) {
+			clave.cancel();
+			try {
+				clave.channel().close();
+			} catch (IOException e) {
+				// ya estaba cerrada
+			}
+			conexiones.decrementAndGet();
+		}
+	}
+}
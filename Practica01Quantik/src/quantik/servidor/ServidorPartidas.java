@@ -0,0 +1,438 @@
+package quantik.servidor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import quantik.registro.FormatoRegistro;
+import quantik.util.Color;
+/**
+ * Servidor TCP que aloja muchas partidas independientes a la vez.
+ *
+ * Cada conexion se atiende en su propio hilo con E/S bloqueante. En una JVM con
+ * hilos virtuales se usa uno por conexion; si no, hilos de plataforma con una
+ * pila pequeña. Las partidas se guardan en un RegistroMesas, un
+ * ConcurrentHashMap por identificador, y cada una tiene su propio cerrojo
+ * (MesaRemota), asi que no hay ningun cerrojo global.
+ *
+ * Protocolo de lineas en UTF-8, una respuesta por orden:
+ * <pre>
+ * NUEVA                 PARTIDA id
+ * JUGAR id nnll         TURNO color | GANADOR color | ERROR motivo
+ * ESTADO id             TURNO color jugadas | GANADOR color jugadas
+ * CERRAR id             CERRADA id
+ * SALIR                 ADIOS (y se cierra la conexion)
+ * </pre>
+ * Las jugadas usan la notacion nnll de la interfaz de texto, por ejemplo 12ES.
+ * Los motivos de error son: orden, formato, partida, ilegal y acabada. Una
+ * linea de mas de MAXIMA_LINEA caracteres se descarta y se responde con
+ * ERROR formato.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.servidor.MesaRemota
+ *
+ */
+public class ServidorPartidas {
+
+	/**
+	 * Puerto por defecto.
+	 */
+	public static final int PUERTO = 7878;
+
+
+	/**
+	 * Tamaño de pila de los hilos de plataforma de las conexiones.
+	 */
+	private static final long PILA_CONEXION = 256 * 1024;
+
+
+	/**
+	 * Conexiones pendientes de aceptar que admite el sistema.
+	 */
+	private static final int PENDIENTES = 4096;
+
+
+	/**
+	 * Numero maximo de caracteres de una linea del protocolo.
+	 */
+	public static final int MAXIMA_LINEA = 256;
+
+
+	/**
+	 * Milisegundos maximos de espera antes de volver a aceptar tras un error.
+	 */
+	private static final long ESPERA_MAXIMA = 1000;
+
+
+	/**
+	 * Linea devuelta por leerLinea cuando supera MAXIMA_LINEA; se compara por
+	 * identidad.
+	 */
+	private static final String LINEA_LARGA = new String("\n");
+
+
+	/**
+	 * Partidas en curso.
+	 */
+	private final RegistroMesas mesas;
+
+
+	/**
+	 * Conexiones abiertas.
+	 */
+	private final Map<Socket, Boolean> conexiones = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Hilos de las conexiones.
+	 */
+	private final ExecutorService ejecutor = crearEjecutor(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+
+	/**
+	 * Socket de escucha.
+	 */
+	private ServerSocket escucha;
+
+
+	/**
+	 * Constructor con un registro de partidas propio.
+	 */
+	public ServidorPartidas() {
+		this(new RegistroMesas());
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param mesas	registro de partidas, que puede compartirse con otros servidores.
+	 */
+	public ServidorPartidas(RegistroMesas mesas) {
+		this.mesas = mesas;
+	}
+
+
+	/**
+	 * Empieza a aceptar conexiones en la interfaz local.
+	 *
+	 * @param puerto		puerto o 0 para uno libre.
+	 * @return int			puerto en el que escucha.
+	 * @throws IOException	si no se puede abrir el puerto.
+	 */
+	public synchronized int iniciar(int puerto) throws IOException {
+		if (escucha != null) {
+			throw new IllegalStateException("El servidor ya esta iniciado");
+		}
+		escucha = new ServerSocket();
+		escucha.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), PENDIENTES);
+		Thread aceptador = new Thread(this::aceptar, "quantik-aceptador");
+		aceptador.setDaemon(true);
+		aceptador.start();
+		return escucha.getLocalPort();
+	}
+
+
+	/**
+	 * Deja de aceptar conexiones y cierra las abiertas.
+	 *
+	 * @throws IOException	si hay un error al cerrar el socket de escucha.
+	 */
+	public synchronized void cerrar() throws IOException {
+		if (escucha != null) {
+			escucha.close();
+		}
+		for (Socket socket : conexiones.keySet()) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// la conexion ya estaba cerrada
+			}
+		}
+		ejecutor.shutdown();
+	}
+
+
+	/**
+	 * Devuelve el numero de partidas en curso.
+	 *
+	 * @return int	partidas.
+	 */
+	public int consultarPartidas() {
+		return mesas.contar();
+	}
+
+
+	/**
+	 * Devuelve el numero de conexiones abiertas.
+	 *
+	 * @return int	conexiones.
+	 */
+	public int consultarConexiones() {
+		return conexiones.size();
+	}
+
+
+	/**
+	 * Atiende una orden del protocolo.
+	 *
+	 * @param linea		orden recibida.
+	 * @return String	respuesta, o null si la orden es SALIR.
+	 */
+	String atender(String linea) {
+		String[] partes = linea.trim().split(" +");
+		switch (partes[0]) {
+		case "NUEVA":
+			return "PARTIDA " + mesas.crear().consultarId();
+		case "JUGAR":
+			return partes.length == 3 ? jugar(partes[1], partes[2]) : "ERROR formato";
+		case "ESTADO":
+			return partes.length == 2 ? estado(partes[1]) : "ERROR formato";
+		case "CERRAR":
+			if (partes.length != 2) {
+				return "ERROR formato";
+			}
+			MesaRemota cerrada = buscar(partes[1]);
+			if (cerrada == null) {
+				return "ERROR partida";
+			}
+			mesas.cerrar(cerrada.consultarId());
+			return "CERRADA " + cerrada.consultarId();
+		case "SALIR":
+			return null;
+		default:
+			return "ERROR orden";
+		}
+	}
+
+
+	/**
+	 * Inicia el servidor y espera hasta que se detenga el proceso.
+	 *
+	 * @param args			puerto, opcional.
+	 * @throws IOException	si no se puede abrir el puerto.
+	 */
+	public static void main(String[] args) throws IOException {
+		int puerto = new ServidorPartidas().iniciar(args.length > 0 ? Integer.parseInt(args[0]) : PUERTO);
+		System.out.println("Servidor de partidas escuchando en el puerto " + puerto);
+		try {
+			Thread.currentThread().join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/**
+	 * Acepta conexiones hasta que se cierra el socket de escucha.
+	 */
+	private void aceptar() {
+		long espera = 0;
+		while (!escucha.isClosed()) {
+			try {
+				Socket socket = escucha.accept();
+				socket.setTcpNoDelay(true);
+				conexiones.put(socket, Boolean.TRUE);
+				ejecutor.execute(() -> atender(socket));
+				espera = 0;
+			} catch (IOException e) {
+				if (!escucha.isClosed()) {
+					espera = esperarTrasError(espera);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Espera antes de volver a aceptar tras un error, de modo que un error que
+	 * se repite (por ejemplo, sin descriptores libres) no deja el hilo
+	 * aceptador girando en vacio. La espera se dobla en cada error seguido.
+	 *
+	 * @param espera	milisegundos de la espera anterior o 0 si no la hubo.
+	 * @return long		milisegundos de esta espera, como mucho ESPERA_MAXIMA.
+	 */
+	static long esperarTrasError(long espera) {
+		long siguiente = Math.min(Math.max(1, espera * 2), ESPERA_MAXIMA);
+		try {
+			Thread.sleep(siguiente);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return siguiente;
+	}
+
+
+	/**
+	 * Atiende una conexion hasta que el cliente sale o la cierra.
+	 *
+	 * @param socket	conexion.
+	 */
+	private void atender(Socket socket) {
+		try (socket;
+				BufferedReader entrada = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter salida = new PrintWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), false)) {
+			StringBuilder leida = new StringBuilder(MAXIMA_LINEA);
+			for (String linea = leerLinea(entrada, leida); linea != null; linea = leerLinea(entrada, leida)) {
+				String respuesta = linea == LINEA_LARGA ? "ERROR formato" : atender(linea);
+				salida.print(respuesta == null ? "ADIOS" : respuesta);
+				salida.print('\n');
+				salida.flush();
+				if (respuesta == null) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// el cliente ha cerrado la conexion
+		} finally {
+			conexiones.remove(socket);
+		}
+	}
+
+
+	/**
+	 * Lee una linea de como mucho MAXIMA_LINEA caracteres. Si es mas larga, el
+	 * resto se descarta sin guardarlo hasta el fin de linea, asi que una
+	 * conexion no puede hacer crecer la memoria del servidor.
+	 *
+	 * @param entrada		entrada de la conexion.
+	 * @param leida			buffer de la linea, reutilizado entre llamadas.
+	 * @return String		linea sin el fin de linea, LINEA_LARGA si es mas larga
+	 * 						de lo permitido o null al final de la entrada.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	static String leerLinea(Reader entrada, StringBuilder leida) throws IOException {
+		leida.setLength(0);
+		boolean larga = false;
+		int caracter = entrada.read();
+		if (caracter < 0) {
+			return null;
+		}
+		while (caracter >= 0 && caracter != '\n') {
+			if (leida.length() < MAXIMA_LINEA) {
+				leida.append((char) caracter);
+			} else {
+				larga = true;
+			}
+			caracter = entrada.read();
+		}
+		if (larga) {
+			return LINEA_LARGA;
+		}
+		int fin = leida.length();
+		if (fin > 0 && leida.charAt(fin - 1) == '\r') {
+			leida.setLength(fin - 1);
+		}
+		return leida.toString();
+	}
+
+
+	/**
+	 * Atiende la orden JUGAR.
+	 *
+	 * @param id		identificador de la partida.
+	 * @param texto		jugada en formato nnll.
+	 * @return String	respuesta.
+	 */
+	private String jugar(String id, String texto) {
+		MesaRemota mesa = buscar(id);
+		if (mesa == null) {
+			return "ERROR partida";
+		}
+		int jugada = FormatoRegistro.deTexto(texto);
+		if (jugada < 0) {
+			return "ERROR formato";
+		}
+		int respuesta = mesa.jugar(jugada);
+		switch (MesaRemota.resultado(respuesta)) {
+		case MesaRemota.ILEGAL:
+			return "ERROR ilegal";
+		case MesaRemota.YA_ACABADA:
+			return "ERROR acabada";
+		default:
+			int estado = MesaRemota.estado(respuesta);
+			return (estado < 2 ? "TURNO " : "GANADOR ") + Color.values()[estado & 1];
+		}
+	}
+
+
+	/**
+	 * Atiende la orden ESTADO.
+	 *
+	 * @param id		identificador de la partida.
+	 * @return String	respuesta.
+	 */
+	private String estado(String id) {
+		MesaRemota mesa = buscar(id);
+		if (mesa == null) {
+			return "ERROR partida";
+		}
+		return mesa.describirEstado();
+	}
+
+
+	/**
+	 * Busca una partida por el texto de su identificador.
+	 *
+	 * @param id			identificador en texto.
+	 * @return MesaRemota	partida o null si no existe o el texto es incorrecto.
+	 */
+	private MesaRemota buscar(String id) {
+		try {
+			return mesas.buscar(Long.parseLong(id));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Crea el ejecutor de las conexiones: un hilo virtual por tarea si la JVM
+	 * los tiene y, si no, hilos de plataforma bajo demanda con pila pequeña.
+	 * En los JDK 19 y 20 los hilos virtuales son una API en vista previa y sin
+	 * --enable-preview lanzan UnsupportedOperationException, que tambien lleva
+	 * a los hilos de plataforma.
+	 *
+	 * @param clase				clase con el metodo que crea el ejecutor de
+	 * 							hilos virtuales.
+	 * @param metodo			nombre del metodo, publico, estatico y sin
+	 * 							parametros.
+	 * @return ExecutorService	ejecutor.
+	 */
+	static ExecutorService crearEjecutor(Class<?> clase, String metodo) {
+		try {
+			return (ExecutorService) MethodHandles.publicLookup()
+					.findStatic(clase, metodo, MethodType.methodType(ExecutorService.class))
+					.invoke();
+		} catch (NoSuchMethodException | IllegalAccessException | UnsupportedOperationException e) {
+			AtomicLong numero = new AtomicLong();
+			ThreadFactory fabrica = tarea -> {
+				Thread hilo = new Thread(null, tarea, "quantik-conexion-" + numero.incrementAndGet(), PILA_CONEXION);
+				hilo.setDaemon(true);
+				return hilo;
+			};
+			return Executors.newCachedThreadPool(fabrica);
+		} catch (Throwable e) {
+			throw new IllegalStateException("No se puede crear el ejecutor de conexiones", e);
+		}
+	}
+}
@@ -0,0 +1,457 @@
+package quantik.solver;
+
+import java.util.Arrays;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.solver.Solucionador.BusquedaCancelada;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Elige jugadas con una busqueda alfa-beta de profundidad limitada, para jugar
+ * contra una persona sin esperar a resolver la posicion.
+ *
+ * Se profundiza de uno en uno hasta agotar el tiempo o los nodos (iterative
+ * deepening) y cada iteracion empieza por la mejor jugada de la anterior. Se
+ * busca con ventana nula todas las jugadas salvo la primera (principal
+ * variation search) y se repite la busqueda con la ventana completa cuando una
+ * la supera. El resto de jugadas se ordena por las dos ultimas jugadas que
+ * han producido un corte en el mismo nivel (killer) y por los cortes que ha
+ * producido cada jugada en toda la busqueda (history).
+ *
+ * Las posiciones en las que el turno puede completar un grupo o esta bloqueado
+ * tienen valor exacto, mejor cuanto antes se gane. En el resto, al llegar a la
+ * profundidad pedida, se valora la diferencia entre las jugadas legales de los
+ * dos colores.
+ *
+ * El tiempo se consulta cada 1024 nodos y al agotarse se devuelve la mejor
+ * jugada de la ultima iteracion completa o una mejor ya comprobada de la que
+ * estaba en curso.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.Solucionador
+ *
+ */
+public class BusquedaAlfaBeta {
+
+	/**
+	 * Valor de ganar en la posicion actual; se resta un punto por cada jugada
+	 * que haga falta para ganar.
+	 */
+	public static final int VICTORIA = 10_000;
+
+
+	/**
+	 * Cota mayor que cualquier valor.
+	 */
+	private static final int INFINITO = VICTORIA + 1;
+
+
+	/**
+	 * Numero de celdas del tablero.
+	 */
+	private static final int NUMERO_CELDAS = 16;
+
+
+	/**
+	 * Numero maximo de niveles de la busqueda.
+	 */
+	private static final int MAXIMO_NIVELES = 17;
+
+
+	/**
+	 * Nodos entre dos consultas del tiempo menos uno.
+	 */
+	private static final int MASCARA_TIEMPO = 1023;
+
+
+	/**
+	 * Valor de orden de la primera jugada killer, mayor que cualquier history.
+	 */
+	private static final int ORDEN_KILLER = Integer.MAX_VALUE - 1;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Jugadas generadas en cada nivel.
+	 */
+	private final int[][] jugadas = new int[MAXIMO_NIVELES][Partida.MAXIMO_JUGADAS];
+
+
+	/**
+	 * Valor de orden de las jugadas de cada nivel.
+	 */
+	private final int[][] ordenes = new int[MAXIMO_NIVELES][Partida.MAXIMO_JUGADAS];
+
+
+	/**
+	 * Dos ultimas jugadas que han producido un corte en cada nivel.
+	 */
+	private final int[][] killers = new int[MAXIMO_NIVELES][2];
+
+
+	/**
+	 * Cortes producidos por cada jugada de cada color en la busqueda actual,
+	 * ponderados por la profundidad restante.
+	 */
+	private final int[][] historia = new int[2][Partida.MAXIMO_JUGADAS];
+
+
+	/**
+	 * Copia de la partida que se esta buscando.
+	 */
+	private Partida partida;
+
+
+	/**
+	 * Valor de System.nanoTime en el que parar.
+	 */
+	private long fin;
+
+
+	/**
+	 * Nodos a partir de los cuales parar.
+	 */
+	private long maximoNodos;
+
+
+	/**
+	 * Nodos visitados en la ultima busqueda.
+	 */
+	private long nodos;
+
+
+	/**
+	 * Nanosegundos de la ultima busqueda.
+	 */
+	private long nanosegundos;
+
+
+	/**
+	 * Ultima profundidad completada.
+	 */
+	private int profundidad;
+
+
+	/**
+	 * Valor de la jugada elegida para el jugador con turno.
+	 */
+	private int valor;
+
+
+	/**
+	 * Busca la mejor jugada del turno actual durante el tiempo indicado.
+	 *
+	 * @param partida		partida, que no se modifica.
+	 * @param milisegundos	tiempo maximo de busqueda.
+	 * @return int			jugada codificada o -1 si la partida ha acabado.
+	 */
+	public int buscar(Partida partida, long milisegundos) {
+		return buscar(partida, milisegundos, Long.MAX_VALUE);
+	}
+
+
+	/**
+	 * Busca la mejor jugada del turno actual hasta agotar el tiempo o los
+	 * nodos. Con un limite de nodos y tiempo de sobra el resultado es siempre
+	 * el mismo.
+	 *
+	 * @param partida		partida, que no se modifica.
+	 * @param milisegundos	tiempo maximo de busqueda.
+	 * @param maximoNodos	nodos maximos.
+	 * @return int			jugada codificada o -1 si la partida ha acabado.
+	 */
+	public int buscar(Partida partida, long milisegundos, long maximoNodos) {
+		long inicio = System.nanoTime();
+		this.fin = inicio + Math.min(milisegundos, Long.MAX_VALUE / 2_000_000L) * 1_000_000L;
+		this.maximoNodos = maximoNodos;
+		this.partida = partida.clonar();
+		this.nodos = 0;
+		this.profundidad = 0;
+		this.valor = 0;
+		try {
+			return buscarRaiz();
+		} finally {
+			this.partida = null;
+			this.nanosegundos = System.nanoTime() - inicio;
+		}
+	}
+
+
+	/**
+	 * Devuelve la ultima profundidad completada en la ultima busqueda.
+	 *
+	 * @return int	profundidad.
+	 */
+	public int consultarProfundidad() {
+		return profundidad;
+	}
+
+
+	/**
+	 * Devuelve el valor de la jugada elegida en la ultima busqueda: mayor que
+	 * cero si es buena para el jugador con turno y VICTORIA menos el numero de
+	 * jugadas si gana con seguridad.
+	 *
+	 * @return int	valor.
+	 */
+	public int consultarValor() {
+		return valor;
+	}
+
+
+	/**
+	 * Devuelve los nodos visitados en la ultima busqueda.
+	 *
+	 * @return long	nodos.
+	 */
+	public long consultarNodos() {
+		return nodos;
+	}
+
+
+	/**
+	 * Devuelve los nodos por segundo de la ultima busqueda.
+	 *
+	 * @return double	nodos por segundo.
+	 */
+	public double consultarNodosPorSegundo() {
+		return nanosegundos == 0 ? 0 : nodos * 1e9 / nanosegundos;
+	}
+
+
+	/**
+	 * Busca desde el tablero vacio y muestra la jugada, la profundidad y los
+	 * nodos por segundo, para seguir el rendimiento entre versiones.
+	 *
+	 * @param args	milisegundos de busqueda.
+	 */
+	public static void main(String[] args) {
+		long milisegundos = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+		Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+		BusquedaAlfaBeta busqueda = new BusquedaAlfaBeta();
+		int jugada = busqueda.buscar(partida, milisegundos);
+		System.out.printf("%d/%d/%s valor %d, profundidad %d, %d nodos en %.3f s (%.0f nodos/s)%n",
+				(jugada >>> 2) / 4, (jugada >>> 2) % 4, FIGURAS[jugada & 0x3].aTexto(), busqueda.consultarValor(),
+				busqueda.consultarProfundidad(), busqueda.consultarNodos(), busqueda.nanosegundos / 1e9,
+				busqueda.consultarNodosPorSegundo());
+	}
+
+
+	/**
+	 * Profundiza desde la raiz hasta agotar el tiempo, los nodos o encontrar un
+	 * valor exacto.
+	 *
+	 * @return int	jugada codificada o -1 si la partida ha acabado.
+	 */
+	private int buscarRaiz() {
+		if (partida.hayAlgunGrupoCompleto()) {
+			return -1;
+		}
+		nodos++;
+		int ganadora = buscarJugadaGanadora();
+		if (ganadora >= 0) {
+			profundidad = 1;
+			valor = VICTORIA - 1;
+			return ganadora;
+		}
+		int[] raiz = jugadas[0];
+		int numero = partida.generarJugadasLegales(raiz);
+		if (numero == 0) {
+			valor = -VICTORIA;
+			return -1;
+		}
+		for (int[] fila : historia) {
+			Arrays.fill(fila, 0);
+		}
+		for (int[] nivel : killers) {
+			nivel[0] = -1;
+			nivel[1] = -1;
+		}
+		int mejorJugada = raiz[0];
+		int limite = NUMERO_CELDAS - partida.consultarNumeroJugada();
+		for (int objetivo = 1; objetivo <= limite && !agotado(); objetivo++) {
+			int alfa = -INFINITO;
+			int mejorIteracion = -1;
+			try {
+				for (int i = 0; i < numero; i++) {
+					int jugada = raiz[i];
+					int testigo = partida.hacerJugada(jugada);
+					int resultado;
+					if (i == 0) {
+						resultado = -negamax(objetivo - 1, 1, -INFINITO, -alfa);
+					} else {
+						resultado = -negamax(objetivo - 1, 1, -alfa - 1, -alfa);
+						if (resultado > alfa) {
+							resultado = -negamax(objetivo - 1, 1, -INFINITO, -alfa);
+						}
+					}
+					partida.deshacerJugada(testigo);
+					if (resultado > alfa) {
+						alfa = resultado;
+						mejorIteracion = i;
+					}
+				}
+			} catch (BusquedaCancelada e) {
+				if (mejorIteracion > 0) {
+					mejorJugada = raiz[mejorIteracion];
+					valor = alfa;
+				}
+				break;
+			}
+			mejorJugada = raiz[mejorIteracion];
+			valor = alfa;
+			profundidad = objetivo;
+			System.arraycopy(raiz, 0, raiz, 1, mejorIteracion);
+			raiz[0] = mejorJugada;
+			if (Math.abs(valor) >= VICTORIA - MAXIMO_NIVELES) {
+				break;
+			}
+		}
+		return mejorJugada;
+	}
+
+
+	/**
+	 * Negamax con poda alfa-beta y ventana nula para las jugadas que siguen a
+	 * la primera.
+	 *
+	 * @param restante	profundidad que queda.
+	 * @param nivel		distancia a la raiz.
+	 * @param alfa		cota inferior.
+	 * @param beta		cota superior.
+	 * @return int		valor para el jugador con turno.
+	 */
+	private int negamax(int restante, int nivel, int alfa, int beta) {
+		nodos++;
+		if (nodos >= maximoNodos || (nodos & MASCARA_TIEMPO) == 0 && System.nanoTime() >= fin) {
+			throw BusquedaCancelada.INSTANCIA;
+		}
+		if (buscarJugadaGanadora() >= 0) {
+			return VICTORIA - nivel - 1;
+		}
+		int[] generadas = jugadas[nivel];
+		int numero = partida.generarJugadasLegales(generadas);
+		if (numero == 0) {
+			return -(VICTORIA - nivel);
+		}
+		if (restante == 0) {
+			return evaluar(numero);
+		}
+		int[] orden = ordenes[nivel];
+		int[] historiaTurno = historia[partida.consultarTurno().ordinal()];
+		for (int i = 0; i < numero; i++) {
+			int jugada = generadas[i];
+			orden[i] = jugada == killers[nivel][0] ? ORDEN_KILLER
+					: jugada == killers[nivel][1] ? ORDEN_KILLER - 1 : historiaTurno[jugada];
+		}
+		int mejor = -INFINITO;
+		for (int i = 0; i < numero; i++) {
+			int jugada = extraerSiguiente(generadas, orden, i, numero);
+			int testigo = partida.hacerJugada(jugada);
+			int resultado;
+			if (i == 0) {
+				resultado = -negamax(restante - 1, nivel + 1, -beta, -alfa);
+			} else {
+				resultado = -negamax(restante - 1, nivel + 1, -alfa - 1, -alfa);
+				if (resultado > alfa && resultado < beta) {
+					resultado = -negamax(restante - 1, nivel + 1, -beta, -alfa);
+				}
+			}
+			partida.deshacerJugada(testigo);
+			if (resultado > mejor) {
+				mejor = resultado;
+				if (resultado > alfa) {
+					alfa = resultado;
+					if (alfa >= beta) {
+						if (killers[nivel][0] != jugada) {
+							killers[nivel][1] = killers[nivel][0];
+							killers[nivel][0] = jugada;
+						}
+						historiaTurno[jugada] += restante * restante;
+						break;
+					}
+				}
+			}
+		}
+		return mejor;
+	}
+
+
+	/**
+	 * Valora una posicion sin acabar por la diferencia de jugadas legales.
+	 *
+	 * @param propias	jugadas legales del turno actual.
+	 * @return int		valor para el jugador con turno.
+	 */
+	private int evaluar(int propias) {
+		partida.cambiarTurno();
+		int contrarias = 0;
+		for (Figura figura : FIGURAS) {
+			contrarias += Integer.bitCount(partida.consultarJugadasLegales(figura));
+		}
+		partida.cambiarTurno();
+		return propias - contrarias;
+	}
+
+
+	/**
+	 * Lleva a la posicion i la jugada con mayor valor de orden de las que
+	 * quedan y la devuelve.
+	 *
+	 * @param generadas	jugadas del nivel.
+	 * @param orden		valores de orden de las jugadas.
+	 * @param i			posicion a ocupar.
+	 * @param numero	numero de jugadas.
+	 * @return int		jugada codificada.
+	 */
+	private static int extraerSiguiente(int[] generadas, int[] orden, int i, int numero) {
+		int mejor = i;
+		for (int j = i + 1; j < numero; j++) {
+			if (orden[j] > orden[mejor]) {
+				mejor = j;
+			}
+		}
+		int jugada = generadas[mejor];
+		generadas[mejor] = generadas[i];
+		generadas[i] = jugada;
+		int aux = orden[mejor];
+		orden[mejor] = orden[i];
+		orden[i] = aux;
+		return jugada;
+	}
+
+
+	/**
+	 * Comprueba si se ha agotado el tiempo o los nodos.
+	 *
+	 * @return boolean	True si hay que parar y False en caso contrario.
+	 */
+	private boolean agotado() {
+		return nodos >= maximoNodos || System.nanoTime() >= fin;
+	}
+
+
+	/**
+	 * Busca una jugada del turno actual que complete un grupo.
+	 *
+	 * @return int	jugada codificada o -1 si no hay ninguna.
+	 */
+	private int buscarJugadaGanadora() {
+		for (Figura figura : FIGURAS) {
+			int celdas = partida.consultarJugadasGanadoras(figura);
+			if (celdas != 0) {
+				return Integer.numberOfTrailingZeros(celdas) << 2 | figura.ordinal();
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,547 @@
+package quantik.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Elige jugadas con busqueda de Monte Carlo en arbol (MCTS) y seleccion UCT,
+ * para las posiciones en las que resolver con el Solucionador tarda demasiado.
+ *
+ * El arbol se guarda en arrays de enteros indexados por nodo, reservados una
+ * vez y reutilizados en cada busqueda; los hijos de un nodo ocupan posiciones
+ * consecutivas. Todos los hilos recorren el mismo arbol: al bajar por un nodo
+ * suman ya su visita, que cuenta como derrota hasta que llega el resultado
+ * (perdida virtual), de modo que los demas hilos tienden a probar otras ramas.
+ * Un nodo se expande la segunda vez que se visita; si se acaba el espacio el
+ * arbol deja de crecer y se siguen haciendo simulaciones desde sus hojas.
+ *
+ * Las simulaciones juegan al azar con la generacion de jugadas por mascaras de
+ * Partida hasta el final de la partida. En Quantik gana siempre el jugador que
+ * acaba de mover, tanto si completa un grupo como si deja bloqueado al otro, y
+ * cada nodo guarda las victorias del jugador que hizo la jugada que lleva a el.
+ *
+ * La busqueda acaba al agotar el tiempo o el numero de simulaciones y devuelve
+ * la jugada de la raiz con mas visitas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.Solucionador
+ *
+ */
+public class BusquedaMonteCarlo {
+
+	/**
+	 * Numero de nodos por defecto.
+	 */
+	private static final int CAPACIDAD = 1 << 20;
+
+
+	/**
+	 * Constante de exploracion de UCT.
+	 */
+	private static final double EXPLORACION = 1.0;
+
+
+	/**
+	 * Visitas que debe tener un nodo para expandirlo.
+	 */
+	private static final int UMBRAL_EXPANSION = 2;
+
+
+	/**
+	 * Primer hijo de un nodo que no se ha expandido.
+	 */
+	private static final int SIN_EXPANDIR = -1;
+
+
+	/**
+	 * Primer hijo de un nodo que otro hilo esta expandiendo.
+	 */
+	private static final int EXPANDIENDO = -2;
+
+
+	/**
+	 * Indice de la raiz.
+	 */
+	private static final int RAIZ = 0;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Hilos de trabajo ademas del que llama, o null con un solo hilo.
+	 */
+	private final ExecutorService ejecutor;
+
+
+	/**
+	 * Jugada que lleva a cada nodo.
+	 */
+	private final int[] jugadaNodo;
+
+
+	/**
+	 * Numero de hijos de cada nodo expandido.
+	 */
+	private final int[] numeroHijos;
+
+
+	/**
+	 * Indice del primer hijo, SIN_EXPANDIR o EXPANDIENDO. Se escribe despues
+	 * que numeroHijos y las jugadas de los hijos para publicarlos.
+	 */
+	private final AtomicIntegerArray primerHijo;
+
+
+	/**
+	 * Visitas de cada nodo, incluidas las que aun no tienen resultado.
+	 */
+	private final AtomicIntegerArray visitas;
+
+
+	/**
+	 * Victorias del jugador que hizo la jugada que lleva a cada nodo.
+	 */
+	private final AtomicIntegerArray victorias;
+
+
+	/**
+	 * Primer nodo libre.
+	 */
+	private final AtomicInteger siguienteNodo = new AtomicInteger();
+
+
+	/**
+	 * Simulaciones que quedan en la busqueda actual.
+	 */
+	private final AtomicLong pendientes = new AtomicLong();
+
+
+	/**
+	 * Generador de semillas para las busquedas sin semilla.
+	 */
+	private final SplittableRandom semillas = new SplittableRandom();
+
+
+	/**
+	 * Simulaciones de la ultima busqueda.
+	 */
+	private long simulaciones;
+
+
+	/**
+	 * Constructor con el numero de nodos por defecto.
+	 *
+	 * @param hilos	numero de hilos.
+	 */
+	public BusquedaMonteCarlo(int hilos) {
+		this(hilos, CAPACIDAD);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param hilos		numero de hilos, incluido el que llama a buscar.
+	 * @param capacidad	numero maximo de nodos del arbol.
+	 */
+	public BusquedaMonteCarlo(int hilos, int capacidad) {
+		if (hilos < 1 || capacidad < Partida.MAXIMO_JUGADAS + 1) {
+			throw new IllegalArgumentException("Configuracion incorrecta: " + hilos + " hilos, " + capacidad
+					+ " nodos");
+		}
+		this.hilos = hilos;
+		this.ejecutor = hilos > 1 ? Executors.newFixedThreadPool(hilos - 1) : null;
+		this.jugadaNodo = new int[capacidad];
+		this.numeroHijos = new int[capacidad];
+		this.primerHijo = new AtomicIntegerArray(capacidad);
+		this.visitas = new AtomicIntegerArray(capacidad);
+		this.victorias = new AtomicIntegerArray(capacidad);
+	}
+
+
+	/**
+	 * Busca durante el tiempo indicado la mejor jugada del turno actual.
+	 *
+	 * @param partida		partida, que no se modifica.
+	 * @param milisegundos	tiempo de busqueda.
+	 * @return int			jugada codificada o -1 si la partida ha acabado.
+	 */
+	public int buscar(Partida partida, long milisegundos) {
+		return buscar(partida, milisegundos, Long.MAX_VALUE, semillas.nextLong());
+	}
+
+
+	/**
+	 * Busca la mejor jugada del turno actual hasta agotar el tiempo o las
+	 * simulaciones. Con un hilo y la misma semilla el resultado es siempre el
+	 * mismo si se agotan antes las simulaciones.
+	 *
+	 * @param partida		partida, que no se modifica.
+	 * @param milisegundos	tiempo maximo de busqueda.
+	 * @param simulaciones	numero maximo de simulaciones.
+	 * @param semilla		semilla de las simulaciones.
+	 * @return int			jugada codificada o -1 si la partida ha acabado.
+	 */
+	public int buscar(Partida partida, long milisegundos, long simulaciones, long semilla) {
+		long fin = System.nanoTime() + Math.min(milisegundos, Long.MAX_VALUE / 2_000_000L) * 1_000_000L;
+		this.simulaciones = 0;
+		siguienteNodo.set(RAIZ + 1);
+		iniciarNodo(RAIZ, -1);
+		if (partida.estaAcabadaPartida()) {
+			return -1;
+		}
+		for (Figura figura : FIGURAS) {
+			int celdas = partida.consultarJugadasGanadoras(figura);
+			if (celdas != 0) {
+				return Integer.numberOfTrailingZeros(celdas) << 2 | figura.ordinal();
+			}
+		}
+		pendientes.set(simulaciones);
+		SplittableRandom random = new SplittableRandom(semilla);
+		List<Trabajador> trabajadores = new ArrayList<>(hilos);
+		for (int i = 0; i < hilos; i++) {
+			trabajadores.add(new Trabajador(partida.clonar(), random.split()));
+		}
+		trabajadores.get(0).expandir(RAIZ);
+		List<Future<?>> tareas = new ArrayList<>(hilos - 1);
+		for (int i = 1; i < hilos; i++) {
+			Trabajador trabajador = trabajadores.get(i);
+			tareas.add(ejecutor.submit(() -> trabajador.simular(fin)));
+		}
+		trabajadores.get(0).simular(fin);
+		for (Future<?> tarea : tareas) {
+			try {
+				tarea.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				pendientes.set(0);
+			} catch (ExecutionException e) {
+				pendientes.set(0);
+				throw new IllegalStateException("Error en un hilo de busqueda", e.getCause());
+			}
+		}
+		for (Trabajador trabajador : trabajadores) {
+			this.simulaciones += trabajador.simulaciones;
+		}
+		return jugadaNodo[mejorHijo()];
+	}
+
+
+	/**
+	 * Devuelve el numero de simulaciones de la ultima busqueda.
+	 *
+	 * @return long	simulaciones.
+	 */
+	public long consultarSimulaciones() {
+		return simulaciones;
+	}
+
+
+	/**
+	 * Devuelve el numero de nodos del arbol de la ultima busqueda.
+	 *
+	 * @return int	nodos.
+	 */
+	public int consultarNodos() {
+		return siguienteNodo.get();
+	}
+
+
+	/**
+	 * Devuelve la proporcion de simulaciones ganadas con la jugada elegida en
+	 * la ultima busqueda.
+	 *
+	 * @return double	victorias entre visitas de la jugada elegida.
+	 */
+	public double consultarValor() {
+		if (primerHijo.get(RAIZ) < 0 || numeroHijos[RAIZ] == 0) {
+			return 0;
+		}
+		int mejor = mejorHijo();
+		return visitas.get(mejor) == 0 ? 0 : (double) victorias.get(mejor) / visitas.get(mejor);
+	}
+
+
+	/**
+	 * Detiene los hilos de trabajo.
+	 */
+	public void cerrar() {
+		if (ejecutor != null) {
+			ejecutor.shutdown();
+		}
+	}
+
+
+	/**
+	 * Busca desde el tablero vacio y muestra la jugada y las simulaciones por
+	 * segundo.
+	 *
+	 * @param args	numero de hilos y milisegundos de busqueda.
+	 */
+	public static void main(String[] args) {
+		int hilos = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		long milisegundos = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+		Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+		BusquedaMonteCarlo busqueda = new BusquedaMonteCarlo(hilos);
+		try {
+			long inicio = System.nanoTime();
+			int jugada = busqueda.buscar(partida, milisegundos);
+			double segundos = (System.nanoTime() - inicio) / 1e9;
+			System.out.printf("%d/%d/%s valor %.3f, %d simulaciones en %.3f s (%.0f/s), %d nodos%n",
+					(jugada >>> 2) / 4, (jugada >>> 2) % 4, FIGURAS[jugada & 0x3].aTexto(), busqueda.consultarValor(),
+					busqueda.consultarSimulaciones(), segundos, busqueda.consultarSimulaciones() / segundos,
+					busqueda.consultarNodos());
+		} finally {
+			busqueda.cerrar();
+		}
+	}
+
+
+	/**
+	 * Prepara un nodo recien reservado.
+	 *
+	 * @param nodo		indice del nodo.
+	 * @param jugada	jugada que lleva a el.
+	 */
+	private void iniciarNodo(int nodo, int jugada) {
+		jugadaNodo[nodo] = jugada;
+		numeroHijos[nodo] = 0;
+		visitas.set(nodo, 0);
+		victorias.set(nodo, 0);
+		primerHijo.set(nodo, SIN_EXPANDIR);
+	}
+
+
+	/**
+	 * Reserva nodos consecutivos.
+	 *
+	 * @param numero	numero de nodos.
+	 * @return int		indice del primero o -1 si no caben.
+	 */
+	private int reservar(int numero) {
+		while (true) {
+			int primero = siguienteNodo.get();
+			if (primero + numero > jugadaNodo.length) {
+				return -1;
+			}
+			if (siguienteNodo.compareAndSet(primero, primero + numero)) {
+				return primero;
+			}
+		}
+	}
+
+
+	/**
+	 * Devuelve el hijo de la raiz con mas visitas.
+	 *
+	 * @return int	indice del nodo.
+	 */
+	private int mejorHijo() {
+		int primero = primerHijo.get(RAIZ);
+		int mejor = primero;
+		for (int hijo = primero + 1; hijo < primero + numeroHijos[RAIZ]; hijo++) {
+			if (visitas.get(hijo) > visitas.get(mejor)) {
+				mejor = hijo;
+			}
+		}
+		return mejor;
+	}
+
+
+	/**
+	 * Estado de un hilo de busqueda: su copia de la partida y sus arrays.
+	 */
+	private final class Trabajador {
+
+		/**
+		 * Copia de la partida en la raiz, que se recupera tras cada simulacion.
+		 */
+		private final Partida partida;
+
+		/**
+		 * Generador propio del hilo.
+		 */
+		private final SplittableRandom random;
+
+		/**
+		 * Color que mueve en la raiz.
+		 */
+		private final Color turnoRaiz;
+
+		/**
+		 * Jugadas legales de la posicion actual.
+		 */
+		private final int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+
+		/**
+		 * Testigos de las jugadas hechas desde la raiz.
+		 */
+		private final int[] testigos = new int[Partida.MAXIMO_JUGADAS];
+
+		/**
+		 * Nodos recorridos desde la raiz, que esta en la posicion 0.
+		 */
+		private final int[] camino = new int[Partida.MAXIMO_JUGADAS];
+
+		/**
+		 * Simulaciones hechas por el hilo.
+		 */
+		private long simulaciones;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param partida	copia de la partida en la raiz.
+		 * @param random	generador del hilo.
+		 */
+		Trabajador(Partida partida, SplittableRandom random) {
+			this.partida = partida;
+			this.random = random;
+			this.turnoRaiz = partida.consultarTurno();
+		}
+
+		/**
+		 * Hace simulaciones hasta agotar el tiempo o las simulaciones.
+		 *
+		 * @param fin	valor de System.nanoTime en el que parar.
+		 */
+		void simular(long fin) {
+			while (pendientes.getAndDecrement() > 0 && System.nanoTime() < fin) {
+				simular();
+				simulaciones++;
+			}
+		}
+
+		/**
+		 * Baja por el arbol con UCT, juega al azar hasta el final desde la hoja
+		 * y anota el resultado en los nodos recorridos. Como gana siempre el
+		 * ultimo en mover, basta la paridad del numero de jugadas.
+		 */
+		private void simular() {
+			int nodo = RAIZ;
+			int profundidad = 0;
+			camino[0] = RAIZ;
+			visitas.incrementAndGet(RAIZ);
+			while (true) {
+				int primero = primerHijo.get(nodo);
+				if (primero < 0) {
+					if (primero == EXPANDIENDO || visitas.get(nodo) < UMBRAL_EXPANSION || !expandir(nodo)) {
+						break;
+					}
+					primero = primerHijo.get(nodo);
+				}
+				int numero = numeroHijos[nodo];
+				if (numero == 0) {
+					break;
+				}
+				nodo = seleccionar(nodo, primero, numero);
+				visitas.incrementAndGet(nodo);
+				testigos[profundidad] = partida.hacerJugada(jugadaNodo[nodo]);
+				camino[++profundidad] = nodo;
+			}
+			int jugadas = jugarAlAzar(profundidad);
+			Color ganador = jugadas % 2 == 1 ? turnoRaiz : turnoRaiz.obtenerContrario();
+			for (int i = 1; i <= profundidad; i++) {
+				if ((i % 2 == 1) == (ganador == turnoRaiz)) {
+					victorias.incrementAndGet(camino[i]);
+				}
+			}
+			for (int i = jugadas - 1; i >= 0; i--) {
+				partida.deshacerJugada(testigos[i]);
+			}
+		}
+
+		/**
+		 * Juega al azar desde la posicion actual hasta el final de la partida.
+		 *
+		 * @param profundidad	jugadas hechas desde la raiz.
+		 * @return int			jugadas hechas desde la raiz al acabar.
+		 */
+		private int jugarAlAzar(int profundidad) {
+			while (!partida.hayAlgunGrupoCompleto()) {
+				int numero = partida.generarJugadasLegales(jugadas);
+				if (numero == 0) {
+					break;
+				}
+				testigos[profundidad++] = partida.hacerJugada(jugadas[random.nextInt(numero)]);
+			}
+			return profundidad;
+		}
+
+		/**
+		 * Crea los hijos de un nodo en la posicion actual de la partida, si
+		 * ningun otro hilo lo esta haciendo y caben en el arbol.
+		 *
+		 * @param nodo		nodo de la posicion actual.
+		 * @return boolean	True si se ha expandido y False en caso contrario.
+		 */
+		boolean expandir(int nodo) {
+			if (!primerHijo.compareAndSet(nodo, SIN_EXPANDIR, EXPANDIENDO)) {
+				return false;
+			}
+			int numero = partida.hayAlgunGrupoCompleto() ? 0 : partida.generarJugadasLegales(jugadas);
+			int primero = reservar(numero);
+			if (primero < 0) {
+				primerHijo.set(nodo, SIN_EXPANDIR);
+				return false;
+			}
+			for (int i = 0; i < numero; i++) {
+				iniciarNodo(primero + i, jugadas[i]);
+			}
+			numeroHijos[nodo] = numero;
+			primerHijo.set(nodo, primero);
+			return true;
+		}
+
+		/**
+		 * Elige el hijo con mayor valor UCT; los que no tienen visitas primero.
+		 *
+		 * @param nodo		nodo padre.
+		 * @param primero	indice del primer hijo.
+		 * @param numero	numero de hijos.
+		 * @return int		indice del hijo elegido.
+		 */
+		private int seleccionar(int nodo, int primero, int numero) {
+			double logaritmo = Math.log(visitas.get(nodo));
+			int mejor = primero;
+			double mejorValor = Double.NEGATIVE_INFINITY;
+			for (int hijo = primero; hijo < primero + numero; hijo++) {
+				int n = visitas.get(hijo);
+				if (n == 0) {
+					return hijo;
+				}
+				double valor = (double) victorias.get(hijo) / n + EXPLORACION * Math.sqrt(logaritmo / n);
+				if (valor > mejorValor) {
+					mejorValor = valor;
+					mejor = hijo;
+				}
+			}
+			return mejor;
+		}
+	}
+}
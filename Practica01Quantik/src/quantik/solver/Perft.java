@@ -0,0 +1,219 @@
+package quantik.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Cuenta los caminos de jugadas legales hasta una profundidad dada (perft),
+ * para validar y medir la generacion de jugadas.
+ *
+ * Una posicion en la que algun grupo esta completo no tiene jugadas, igual que
+ * una en la que el turno esta bloqueado, de modo que solo se cuentan las hojas
+ * que estan exactamente a la profundidad pedida. En el ultimo nivel se suman
+ * directamente los bits de las mascaras de jugadas legales.
+ *
+ * Numeros de referencia desde el tablero vacio:
+ * <pre>
+ * 1    64
+ * 2    3392
+ * 3    167552
+ * 4    6776960
+ * 5    231883776
+ * 6    6241600512
+ * </pre>
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.control.Partida#generarJugadasLegales(int[])
+ *
+ */
+public final class Perft {
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	private Perft() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Cuenta las hojas a la profundidad indicada desde la posicion actual.
+	 *
+	 * @param partida		partida, que queda en la misma posicion al terminar.
+	 * @param profundidad	profundidad, cero o mayor.
+	 * @return long			numero de hojas.
+	 */
+	public static long contar(Partida partida, int profundidad) {
+		return contar(partida, profundidad, new int[Math.max(profundidad, 1)][Partida.MAXIMO_JUGADAS]);
+	}
+
+
+	/**
+	 * Cuenta las hojas a la profundidad indicada por cada jugada de la raiz.
+	 *
+	 * @param partida		partida, que queda en la misma posicion al terminar.
+	 * @param profundidad	profundidad, al menos 1.
+	 * @return Map			hojas por jugada codificada, ordenadas por jugada.
+	 */
+	public static Map<Integer, Long> dividir(Partida partida, int profundidad) {
+		Map<Integer, Long> cuentas = new TreeMap<>();
+		if (partida.hayAlgunGrupoCompleto()) {
+			return cuentas;
+		}
+		int[] raiz = new int[Partida.MAXIMO_JUGADAS];
+		int[][] jugadas = new int[Math.max(profundidad - 1, 1)][Partida.MAXIMO_JUGADAS];
+		int numero = partida.generarJugadasLegales(raiz);
+		for (int i = 0; i < numero; i++) {
+			int testigo = partida.hacerJugada(raiz[i]);
+			cuentas.put(raiz[i], contar(partida, profundidad - 1, jugadas));
+			partida.deshacerJugada(testigo);
+		}
+		return cuentas;
+	}
+
+
+	/**
+	 * Cuenta las hojas por cada jugada de la raiz repartiendo las jugadas entre
+	 * varios hilos, cada uno con su copia de la partida.
+	 *
+	 * @param partida		partida, que no se modifica.
+	 * @param profundidad	profundidad, al menos 1.
+	 * @param hilos			numero de hilos.
+	 * @return Map			hojas por jugada codificada, ordenadas por jugada.
+	 */
+	public static Map<Integer, Long> dividirEnParalelo(Partida partida, int profundidad, int hilos) {
+		Map<Integer, Long> cuentas = new TreeMap<>();
+		if (partida.hayAlgunGrupoCompleto()) {
+			return cuentas;
+		}
+		int[] raiz = new int[Partida.MAXIMO_JUGADAS];
+		int numero = partida.generarJugadasLegales(raiz);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<Long>> tareas = new ArrayList<>(numero);
+			for (int i = 0; i < numero; i++) {
+				Partida copia = partida.clonar();
+				copia.hacerJugada(raiz[i]);
+				tareas.add(ejecutor.submit(() -> contar(copia, profundidad - 1)));
+			}
+			for (int i = 0; i < numero; i++) {
+				cuentas.put(raiz[i], tareas.get(i).get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Perft interrumpido", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error en un hilo de perft", e.getCause());
+		} finally {
+			ejecutor.shutdown();
+		}
+		return cuentas;
+	}
+
+
+	/**
+	 * Cuenta las hojas a la profundidad indicada repartiendo las jugadas de la
+	 * raiz entre varios hilos.
+	 *
+	 * @param partida		partida, que no se modifica.
+	 * @param profundidad	profundidad, cero o mayor.
+	 * @param hilos			numero de hilos.
+	 * @return long			numero de hojas.
+	 */
+	public static long contarEnParalelo(Partida partida, int profundidad, int hilos) {
+		if (profundidad == 0) {
+			return 1;
+		}
+		long total = 0;
+		for (long cuenta : dividirEnParalelo(partida, profundidad, hilos).values()) {
+			total += cuenta;
+		}
+		return total;
+	}
+
+
+	/**
+	 * Ejecuta perft sobre el tablero vacio y muestra las hojas y el tiempo.
+	 *
+	 * @param args	profundidad, numero de hilos (1 por defecto) y opcionalmente
+	 * 				"dividir" para mostrar las hojas de cada jugada de la raiz.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Uso: Perft profundidad [hilos] [dividir]");
+			return;
+		}
+		int profundidad = Integer.parseInt(args[0]);
+		int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		boolean desglose = args.length > 2 && args[2].equals("dividir");
+		Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+		long inicio = System.nanoTime();
+		long total;
+		if (desglose && profundidad > 0) {
+			Map<Integer, Long> cuentas = hilos > 1 ? dividirEnParalelo(partida, profundidad, hilos)
+					: dividir(partida, profundidad);
+			total = 0;
+			for (Map.Entry<Integer, Long> entrada : cuentas.entrySet()) {
+				int jugada = entrada.getKey();
+				System.out.printf("%d/%d/%s: %d%n", (jugada >>> 2) / 4, (jugada >>> 2) % 4,
+						FIGURAS[jugada & 0x3].aTexto(), entrada.getValue());
+				total += entrada.getValue();
+			}
+		} else {
+			total = hilos > 1 ? contarEnParalelo(partida, profundidad, hilos) : contar(partida, profundidad);
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		System.out.printf("perft(%d) = %d en %.3f s (%.0f hojas/s)%n", profundidad, total, segundos,
+				total / Math.max(segundos, 1e-9));
+	}
+
+
+	/**
+	 * Cuenta recursivamente las hojas usando los arrays de jugadas de cada nivel.
+	 *
+	 * @param partida		partida.
+	 * @param profundidad	profundidad restante.
+	 * @param jugadas		arrays de jugadas, uno por nivel restante.
+	 * @return long			numero de hojas.
+	 */
+	private static long contar(Partida partida, int profundidad, int[][] jugadas) {
+		if (profundidad == 0) {
+			return 1;
+		}
+		if (partida.hayAlgunGrupoCompleto()) {
+			return 0;
+		}
+		if (profundidad == 1) {
+			long hojas = 0;
+			for (Figura figura : FIGURAS) {
+				hojas += Integer.bitCount(partida.consultarJugadasLegales(figura));
+			}
+			return hojas;
+		}
+		int[] generadas = jugadas[profundidad - 1];
+		int numero = partida.generarJugadasLegales(generadas);
+		long hojas = 0;
+		for (int i = 0; i < numero; i++) {
+			int testigo = partida.hacerJugada(generadas[i]);
+			hojas += contar(partida, profundidad - 1, jugadas);
+			partida.deshacerJugada(testigo);
+		}
+		return hojas;
+	}
+}
@@ -0,0 +1,98 @@
+package quantik.solver;
+
+import quantik.util.Figura;
+
+/**
+ * Resultado de resolver una posicion: valor para el jugador con turno y una
+ * jugada que lo consigue.
+ *
+ * La jugada se codifica como en Partida.generarJugadasLegales:
+ * (fila * 4 + columna) << 2 | ordinal de la figura, o -1 si no hay jugada
+ * porque la partida ya ha acabado o el turno esta bloqueado.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.Solucionador
+ *
+ */
+public final class Solucion {
+
+	/**
+	 * True si gana el jugador con turno con juego perfecto.
+	 */
+	private final boolean ganaTurno;
+
+
+	/**
+	 * Mejor jugada codificada o -1.
+	 */
+	private final int jugada;
+
+
+	/**
+	 * Numero de nodos visitados.
+	 */
+	private final long nodos;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ganaTurno	true si gana el jugador con turno.
+	 * @param jugada	mejor jugada codificada o -1.
+	 * @param nodos		nodos visitados.
+	 */
+	public Solucion(boolean ganaTurno, int jugada, long nodos) {
+		this.ganaTurno = ganaTurno;
+		this.jugada = jugada;
+		this.nodos = nodos;
+	}
+
+
+	public boolean ganaTurno() {
+		return ganaTurno;
+	}
+
+
+	public int consultarJugada() {
+		return jugada;
+	}
+
+
+	/**
+	 * Comprueba si la solucion incluye jugada.
+	 *
+	 * @return boolean	True si hay jugada y False en caso contrario.
+	 */
+	public boolean tieneJugada() {
+		return jugada >= 0;
+	}
+
+
+	public int consultarFila() {
+		return (jugada >>> 2) / 4;
+	}
+
+
+	public int consultarColumna() {
+		return (jugada >>> 2) % 4;
+	}
+
+
+	public Figura consultarFigura() {
+		return Figura.values()[jugada & 0x3];
+	}
+
+
+	public long consultarNodos() {
+		return nodos;
+	}
+
+
+	@Override
+	public String toString() {
+		return "Solucion [ganaTurno=" + ganaTurno + ", jugada="
+				+ (tieneJugada() ? consultarFila() + "/" + consultarColumna() + "/" + consultarFigura() : "-")
+				+ ", nodos=" + nodos + "]";
+	}
+}
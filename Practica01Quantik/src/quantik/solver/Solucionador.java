@@ -0,0 +1,358 @@
+package quantik.solver;
+
+import java.util.function.BooleanSupplier;
+
+import quantik.control.Partida;
+import quantik.util.Figura;
+
+/**
+ * Resuelve posiciones de Quantik con juego perfecto.
+ *
+ * Usa negamax con poda alfa-beta sobre los valores GANA y PIERDE del jugador
+ * con turno: con solo dos valores la ventana es siempre [PIERDE, GANA] y la
+ * poda consiste en dejar de explorar un nodo en cuanto una jugada gana. Antes
+ * de generar jugadas se comprueba si hay alguna que complete un grupo, y los
+ * resultados se guardan en una tabla de transposicion por clave canonica, de
+ * modo que las posiciones equivalentes por simetria se resuelven una sola vez.
+ *
+ * La busqueda hace y deshace jugadas sobre la propia partida, que queda como
+ * estaba al terminar. Un solucionador no debe usarse desde varios hilos a la vez.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.control.Partida
+ * @see quantik.modelo.Simetrias
+ *
+ */
+public class Solucionador {
+
+	/**
+	 * Valor de una posicion ganada por el jugador con turno.
+	 */
+	public static final int GANA = 1;
+
+
+	/**
+	 * Valor de una posicion perdida por el jugador con turno.
+	 */
+	public static final int PIERDE = -1;
+
+
+	/**
+	 * Tamaño por defecto de la tabla de transposicion (2^22 entradas).
+	 */
+	private static final int BITS_TABLA = 22;
+
+
+	/**
+	 * Numero maximo de niveles de busqueda: una jugada por celda.
+	 */
+	private static final int MAXIMO_NIVELES = 17;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Condicion que nunca cancela, usada en las busquedas secuenciales.
+	 */
+	private static final BooleanSupplier NUNCA = () -> false;
+
+
+	/**
+	 * Tabla de transposicion.
+	 */
+	private final TablaTransposicion tabla;
+
+
+	/**
+	 * Jugadas generadas en cada nivel, reutilizadas entre busquedas.
+	 */
+	private final int[][] jugadas = new int[MAXIMO_NIVELES][Partida.MAXIMO_JUGADAS];
+
+
+	/**
+	 * Partida que se esta resolviendo.
+	 */
+	private Partida partida;
+
+
+	/**
+	 * Nodos visitados en la busqueda actual.
+	 */
+	private long nodos;
+
+
+	/**
+	 * Condicion consultada en cada nodo para abandonar la busqueda.
+	 */
+	private BooleanSupplier cancelacion = NUNCA;
+
+
+	/**
+	 * Rotacion del orden de las jugadas de cada nivel, cero para el orden en que
+	 * se generan.
+	 */
+	private int orden;
+
+
+	/**
+	 * Constructor con una tabla de transposicion del tamaño por defecto.
+	 */
+	public Solucionador() {
+		this(new TablaTransposicionSecuencial(BITS_TABLA));
+	}
+
+
+	/**
+	 * Constructor con la tabla de transposicion indicada, que puede conservar
+	 * resultados de busquedas anteriores.
+	 *
+	 * @param tabla	tabla de transposicion.
+	 */
+	public Solucionador(TablaTransposicion tabla) {
+		this.tabla = tabla;
+	}
+
+
+	/**
+	 * Resuelve la posicion actual de la partida.
+	 *
+	 * @param partida	partida, que queda en la misma posicion al terminar.
+	 * @return Solucion	valor para el jugador con turno y mejor jugada.
+	 */
+	public Solucion resolver(Partida partida) {
+		return resolver(partida, NUNCA);
+	}
+
+
+	/**
+	 * Resuelve la posicion actual de la partida abandonando la busqueda si se
+	 * cumple la condicion, en cuyo caso la partida puede quedar con jugadas sin
+	 * deshacer.
+	 *
+	 * @param partida		partida.
+	 * @param cancelacion	condicion para abandonar la busqueda.
+	 * @return Solucion		valor para el jugador con turno y mejor jugada.
+	 * @throws BusquedaCancelada si se cumple la condicion de cancelacion.
+	 */
+	Solucion resolver(Partida partida, BooleanSupplier cancelacion) {
+		this.partida = partida;
+		this.nodos = 1;
+		this.cancelacion = cancelacion;
+		try {
+			return resolverRaiz();
+		} finally {
+			this.cancelacion = NUNCA;
+		}
+	}
+
+
+	/**
+	 * Cambia el orden en que se exploran las jugadas de cada nivel: con orden k
+	 * las jugadas del nivel n empiezan por la k * (n + 1)-esima. Los hilos
+	 * auxiliares de una busqueda compartida usan ordenes distintos para no
+	 * recorrer el arbol en paralelo por el mismo camino.
+	 *
+	 * @param orden	rotacion, cero para el orden de generacion.
+	 */
+	void cambiarOrden(int orden) {
+		this.orden = orden;
+	}
+
+
+	/**
+	 * Resuelve la raiz de la partida actual.
+	 *
+	 * @return Solucion	valor para el jugador con turno y mejor jugada.
+	 */
+	private Solucion resolverRaiz() {
+		if (partida.hayAlgunGrupoCompleto()) {
+			return new Solucion(true, -1, nodos);
+		}
+		int ganadora = buscarJugadaGanadora();
+		if (ganadora >= 0) {
+			return new Solucion(true, ganadora, nodos);
+		}
+		int[] raiz = jugadas[0];
+		int numero = partida.generarJugadasLegales(raiz);
+		int mejor = PIERDE;
+		int mejorJugada = numero > 0 ? raiz[0] : -1;
+		int inicio = primeraJugada(0, numero);
+		for (int i = 0; i < numero && mejor != GANA; i++) {
+			int jugada = raiz[siguienteJugada(inicio, i, numero)];
+			int valor = -evaluarJugada(jugada, 1);
+			if (valor > mejor) {
+				mejor = valor;
+				mejorJugada = jugada;
+			}
+		}
+		return new Solucion(mejor == GANA, mejorJugada, nodos);
+	}
+
+
+	/**
+	 * Evalua la posicion actual de la partida para el jugador con turno, que no
+	 * debe haber acabado por grupo completo. Si la condicion se cumple durante
+	 * la busqueda se abandona con BusquedaCancelada y la partida puede quedar
+	 * con jugadas sin deshacer; la tabla solo guarda valores ya completos.
+	 *
+	 * @param partida		partida.
+	 * @param cancelacion	condicion para abandonar la busqueda.
+	 * @return int			GANA o PIERDE.
+	 * @throws BusquedaCancelada si se cumple la condicion de cancelacion.
+	 */
+	int evaluar(Partida partida, BooleanSupplier cancelacion) {
+		this.partida = partida;
+		this.cancelacion = cancelacion;
+		try {
+			return negamax(0, PIERDE, GANA);
+		} finally {
+			this.cancelacion = NUNCA;
+		}
+	}
+
+
+	/**
+	 * Devuelve los nodos visitados en la ultima busqueda o, si se ha usado
+	 * evaluar, acumulados desde la ultima llamada a resolver.
+	 *
+	 * @return long	nodos visitados.
+	 */
+	long consultarNodos() {
+		return nodos;
+	}
+
+
+	/**
+	 * Devuelve la tabla de transposicion del solucionador.
+	 *
+	 * @return TablaTransposicion	tabla.
+	 */
+	public TablaTransposicion consultarTabla() {
+		return tabla;
+	}
+
+
+	/**
+	 * Hace la jugada, evalua la posicion resultante desde el punto de vista del
+	 * rival y la deshace.
+	 *
+	 * @param jugada	jugada codificada.
+	 * @param nivel		nivel de la posicion resultante.
+	 * @return int		valor para el rival.
+	 */
+	private int evaluarJugada(int jugada, int nivel) {
+		int testigo = partida.hacerJugada(jugada);
+		int valor = negamax(nivel, PIERDE, GANA);
+		partida.deshacerJugada(testigo);
+		return valor;
+	}
+
+
+	/**
+	 * Negamax con poda alfa-beta.
+	 *
+	 * @param nivel	nivel de la posicion.
+	 * @param alfa	cota inferior.
+	 * @param beta	cota superior.
+	 * @return int	valor para el jugador con turno.
+	 */
+	private int negamax(int nivel, int alfa, int beta) {
+		nodos++;
+		if (cancelacion.getAsBoolean()) {
+			throw BusquedaCancelada.INSTANCIA;
+		}
+		if (buscarJugadaGanadora() >= 0) {
+			return GANA;
+		}
+		long clave = partida.consultarClaveCanonica();
+		int guardado = tabla.consultar(clave);
+		if (guardado != TablaTransposicion.DESCONOCIDO) {
+			return guardado;
+		}
+		int[] generadas = jugadas[nivel];
+		int numero = partida.generarJugadasLegales(generadas);
+		int mejor = PIERDE;
+		int inicio = primeraJugada(nivel, numero);
+		for (int i = 0; i < numero; i++) {
+			int jugada = generadas[siguienteJugada(inicio, i, numero)];
+			int testigo = partida.hacerJugada(jugada);
+			int valor = -negamax(nivel + 1, -beta, -alfa);
+			partida.deshacerJugada(testigo);
+			if (valor > mejor) {
+				mejor = valor;
+				alfa = Math.max(alfa, valor);
+				if (alfa >= beta) {
+					break;
+				}
+			}
+		}
+		tabla.guardar(clave, mejor);
+		return mejor;
+	}
+
+
+	/**
+	 * Devuelve la posicion de la primera jugada a explorar en un nivel.
+	 *
+	 * @param nivel		nivel.
+	 * @param numero	numero de jugadas del nivel.
+	 * @return int		posicion en el array de jugadas.
+	 */
+	private int primeraJugada(int nivel, int numero) {
+		return orden == 0 || numero == 0 ? 0 : orden * (nivel + 1) % numero;
+	}
+
+
+	/**
+	 * Devuelve la posicion de la i-esima jugada a explorar.
+	 *
+	 * @param inicio	posicion de la primera.
+	 * @param i			numero de orden.
+	 * @param numero	numero de jugadas del nivel.
+	 * @return int		posicion en el array de jugadas.
+	 */
+	private static int siguienteJugada(int inicio, int i, int numero) {
+		int posicion = inicio + i;
+		return posicion < numero ? posicion : posicion - numero;
+	}
+
+
+	/**
+	 * Busca una jugada del turno actual que complete un grupo.
+	 *
+	 * @return int	jugada codificada o -1 si no hay ninguna.
+	 */
+	private int buscarJugadaGanadora() {
+		for (Figura figura : FIGURAS) {
+			int celdas = partida.consultarJugadasGanadoras(figura);
+			if (celdas != 0) {
+				return Integer.numberOfTrailingZeros(celdas) << 2 | figura.ordinal();
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Excepcion con la que se abandona una busqueda cancelada. Se usa una unica
+	 * instancia sin traza, ya que solo sirve para deshacer la recursion.
+	 */
+	static final class BusquedaCancelada extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Instancia compartida.
+		 */
+		static final BusquedaCancelada INSTANCIA = new BusquedaCancelada();
+
+		private BusquedaCancelada() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package quantik.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import quantik.control.Partida;
+import quantik.solver.Solucionador.BusquedaCancelada;
+
+/**
+ * Resuelve posiciones de Quantik con varios hilos que buscan desde la misma
+ * raiz y comparten la tabla de transposicion (Lazy SMP).
+ *
+ * Cada hilo resuelve su propia copia de la partida con un Solucionador que
+ * recorre las jugadas en un orden distinto, de modo que los hilos avanzan por
+ * ramas diferentes y se aprovechan de las posiciones que ya han resuelto los
+ * demas a traves de la tabla compartida, que no usa cerrojos. El primer hilo
+ * que termina da la solucion y los demas abandonan su busqueda.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.TablaTransposicionConcurrente
+ *
+ */
+public class SolucionadorLazySMP {
+
+	/**
+	 * Tamaño por defecto de la tabla compartida (2^22 entradas).
+	 */
+	private static final int BITS_TABLA = 22;
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Tabla de transposicion compartida.
+	 */
+	private final TablaTransposicionConcurrente tabla;
+
+
+	/**
+	 * Hilos de trabajo.
+	 */
+	private final ExecutorService ejecutor;
+
+
+	/**
+	 * Constructor con la tabla del tamaño por defecto.
+	 *
+	 * @param hilos	numero de hilos.
+	 */
+	public SolucionadorLazySMP(int hilos) {
+		this(hilos, new TablaTransposicionConcurrente(BITS_TABLA));
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param hilos	numero de hilos.
+	 * @param tabla	tabla compartida, que conserva los resultados entre busquedas.
+	 */
+	public SolucionadorLazySMP(int hilos, TablaTransposicionConcurrente tabla) {
+		if (hilos < 1) {
+			throw new IllegalArgumentException("Numero de hilos incorrecto: " + hilos);
+		}
+		this.hilos = hilos;
+		this.tabla = tabla;
+		this.ejecutor = Executors.newFixedThreadPool(hilos);
+	}
+
+
+	/**
+	 * Resuelve la posicion actual de la partida, que no se modifica.
+	 *
+	 * @param partida	partida.
+	 * @return Solucion	valor para el jugador con turno y mejor jugada, con los
+	 * 					nodos visitados por todos los hilos.
+	 */
+	public Solucion resolver(Partida partida) {
+		AtomicBoolean terminada = new AtomicBoolean();
+		AtomicReference<Solucion> resultado = new AtomicReference<>();
+		LongAdder nodos = new LongAdder();
+		List<Future<?>> tareas = new ArrayList<>(hilos);
+		for (int i = 0; i < hilos; i++) {
+			Partida copia = partida.clonar();
+			Solucionador solucionador = new Solucionador(tabla);
+			solucionador.cambiarOrden(i);
+			tareas.add(ejecutor.submit(() -> {
+				try {
+					Solucion solucion = solucionador.resolver(copia, terminada::get);
+					if (resultado.compareAndSet(null, solucion)) {
+						terminada.set(true);
+					}
+				} catch (BusquedaCancelada e) {
+					// otro hilo ha terminado antes
+				} finally {
+					nodos.add(solucionador.consultarNodos());
+				}
+			}));
+		}
+		for (Future<?> tarea : tareas) {
+			try {
+				tarea.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				terminada.set(true);
+			} catch (ExecutionException e) {
+				terminada.set(true);
+				throw new IllegalStateException("Error en un hilo de busqueda", e.getCause());
+			}
+		}
+		Solucion solucion = resultado.get();
+		if (solucion == null) {
+			throw new IllegalStateException("Busqueda interrumpida");
+		}
+		return new Solucion(solucion.ganaTurno(), solucion.consultarJugada(), nodos.sum());
+	}
+
+
+	/**
+	 * Devuelve la tabla compartida.
+	 *
+	 * @return TablaTransposicionConcurrente	tabla.
+	 */
+	public TablaTransposicionConcurrente consultarTabla() {
+		return tabla;
+	}
+
+
+	/**
+	 * Detiene los hilos de trabajo.
+	 */
+	public void cerrar() {
+		ejecutor.shutdown();
+	}
+}
@@ -0,0 +1,325 @@
+package quantik.solver;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.solver.Solucionador.BusquedaCancelada;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Resuelve posiciones de Quantik repartiendo la busqueda entre varios hilos.
+ *
+ * Las jugadas de la raiz, y las de sus descendientes hasta la profundidad de
+ * division, se convierten en tareas de un ForkJoinPool que se roban el trabajo
+ * entre hilos. Cada tarea tiene su propia copia de la partida y, a partir de la
+ * profundidad de division, la resuelve con el Solucionador secuencial del hilo.
+ * Las jugadas que llevan a posiciones equivalentes por simetria se reparten una
+ * sola vez.
+ *
+ * Las cotas alfa-beta se comparten a traves del arbol de tareas: en cuanto una
+ * tarea demuestra que su posicion esta perdida, la tarea padre queda ganada y
+ * todas las tareas que cuelgan de ella abandonan su busqueda.
+ *
+ * El valor coincide siempre con el del Solucionador secuencial; la jugada
+ * puede ser otra igual de buena.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.Solucionador
+ *
+ */
+public class SolucionadorParalelo {
+
+	/**
+	 * Profundidad de division por defecto.
+	 */
+	private static final int PROFUNDIDAD_DIVISION = 3;
+
+
+	/**
+	 * Tamaño por defecto de la tabla de cada hilo (2^20 entradas).
+	 */
+	private static final int BITS_TABLA = 20;
+
+
+	/**
+	 * Valor de una tarea cancelada.
+	 */
+	private static final int CANCELADA = TablaTransposicion.DESCONOCIDO;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Hilos de trabajo.
+	 */
+	private final ForkJoinPool pool;
+
+
+	/**
+	 * Niveles del arbol que se reparten como tareas.
+	 */
+	private final int profundidadDivision;
+
+
+	/**
+	 * Solucionador secuencial de cada hilo, con su tabla de transposicion.
+	 */
+	private final ThreadLocal<Solucionador> solucionadores;
+
+
+	/**
+	 * Nodos visitados en la busqueda actual por todos los hilos.
+	 */
+	private final LongAdder nodos = new LongAdder();
+
+
+	/**
+	 * Constructor con la profundidad de division y el tamaño de tabla por defecto.
+	 *
+	 * @param hilos	numero de hilos.
+	 */
+	public SolucionadorParalelo(int hilos) {
+		this(hilos, BITS_TABLA, PROFUNDIDAD_DIVISION);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param hilos					numero de hilos.
+	 * @param bitsTabla				logaritmo del tamaño de la tabla de cada hilo.
+	 * @param profundidadDivision	niveles del arbol repartidos como tareas, al menos 1.
+	 */
+	public SolucionadorParalelo(int hilos, int bitsTabla, int profundidadDivision) {
+		if (profundidadDivision < 1) {
+			throw new IllegalArgumentException("Profundidad de division incorrecta: " + profundidadDivision);
+		}
+		this.pool = new ForkJoinPool(hilos);
+		this.profundidadDivision = profundidadDivision;
+		this.solucionadores = ThreadLocal.withInitial(() -> new Solucionador(new TablaTransposicionSecuencial(bitsTabla)));
+	}
+
+
+	/**
+	 * Resuelve la posicion actual de la partida, que no se modifica.
+	 *
+	 * @param partida	partida.
+	 * @return Solucion	valor para el jugador con turno y mejor jugada.
+	 */
+	public Solucion resolver(Partida partida) {
+		Partida copia = partida.clonar();
+		if (copia.hayAlgunGrupoCompleto()) {
+			return new Solucion(true, -1, 1);
+		}
+		nodos.reset();
+		Tarea raiz = new Tarea(copia, -1, profundidadDivision, null);
+		boolean gana = pool.invoke(raiz) == Solucionador.GANA;
+		return new Solucion(gana, gana ? raiz.jugadaGanadora : raiz.primeraJugada, nodos.sum());
+	}
+
+
+	/**
+	 * Detiene los hilos de trabajo.
+	 */
+	public void cerrar() {
+		pool.shutdown();
+	}
+
+
+	/**
+	 * Resuelve la partida con 1, 2, 4... hasta el maximo de hilos indicado y
+	 * escribe una tabla con el tiempo, los nodos y la aceleracion respecto a un
+	 * solo hilo.
+	 *
+	 * @param partida		partida a resolver.
+	 * @param maximoHilos	numero maximo de hilos.
+	 * @param salida		destino del informe.
+	 */
+	public static void medirEscalado(Partida partida, int maximoHilos, PrintStream salida) {
+		salida.println("hilos\tms\tnodos\taceleracion\tvalor");
+		double base = 0;
+		for (int hilos = 1; hilos <= maximoHilos; hilos = hilos == maximoHilos ? hilos + 1 : Math.min(hilos * 2, maximoHilos)) {
+			SolucionadorParalelo solucionador = new SolucionadorParalelo(hilos);
+			long inicio = System.nanoTime();
+			Solucion solucion = solucionador.resolver(partida);
+			double milisegundos = (System.nanoTime() - inicio) / 1e6;
+			solucionador.cerrar();
+			if (hilos == 1) {
+				base = milisegundos;
+			}
+			salida.printf("%d\t%.0f\t%d\t%.2f\t%s%n", hilos, milisegundos, solucion.consultarNodos(),
+					base / milisegundos, solucion.ganaTurno() ? "GANA" : "PIERDE");
+		}
+	}
+
+
+	/**
+	 * Muestra el informe de escalado sobre el tablero vacio.
+	 *
+	 * @param args	numero maximo de hilos (por defecto, los procesadores disponibles).
+	 */
+	public static void main(String[] args) {
+		int maximo = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+		medirEscalado(partida, maximo, System.out);
+	}
+
+
+	/**
+	 * Tarea que resuelve la posicion a la que se llega con una jugada.
+	 */
+	private final class Tarea extends RecursiveTask<Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Copia de la partida en la posicion de la tarea.
+		 */
+		private final Partida partida;
+
+		/**
+		 * Jugada que lleva a esta posicion desde la del padre.
+		 */
+		private final int jugada;
+
+		/**
+		 * Niveles que quedan por repartir como tareas.
+		 */
+		private final int profundidad;
+
+		/**
+		 * Tarea de la posicion anterior o null en la raiz.
+		 */
+		private final Tarea padre;
+
+		/**
+		 * True cuando se sabe que la posicion esta ganada.
+		 */
+		private volatile boolean resuelta;
+
+		/**
+		 * Jugada con la que se gana la posicion.
+		 */
+		private volatile int jugadaGanadora = -1;
+
+		/**
+		 * Primera jugada legal, para devolver alguna si la posicion esta perdida.
+		 */
+		private int primeraJugada = -1;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param partida		copia de la partida en la posicion de la tarea.
+		 * @param jugada		jugada que lleva a esta posicion.
+		 * @param profundidad	niveles que quedan por repartir.
+		 * @param padre			tarea padre o null.
+		 */
+		Tarea(Partida partida, int jugada, int profundidad, Tarea padre) {
+			this.partida = partida;
+			this.jugada = jugada;
+			this.profundidad = profundidad;
+			this.padre = padre;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (cancelada()) {
+				return CANCELADA;
+			}
+			int valor = profundidad == 0 ? evaluarSecuencial() : dividir();
+			if (valor == Solucionador.PIERDE && padre != null) {
+				padre.jugadaGanadora = jugada;
+				padre.resuelta = true;
+			}
+			return valor;
+		}
+
+		/**
+		 * Comprueba si esta tarea o alguna de sus antecesoras ya esta resuelta.
+		 *
+		 * @return boolean	True si la busqueda ya no hace falta.
+		 */
+		private boolean cancelada() {
+			for (Tarea tarea = this; tarea != null; tarea = tarea.padre) {
+				if (tarea.resuelta) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Resuelve la posicion con el solucionador secuencial del hilo.
+		 *
+		 * @return int	valor de la posicion o CANCELADA.
+		 */
+		private int evaluarSecuencial() {
+			Solucionador solucionador = solucionadores.get();
+			long antes = solucionador.consultarNodos();
+			try {
+				return solucionador.evaluar(partida, this::cancelada);
+			} catch (BusquedaCancelada e) {
+				return CANCELADA;
+			} finally {
+				nodos.add(solucionador.consultarNodos() - antes);
+			}
+		}
+
+		/**
+		 * Reparte las jugadas de la posicion como tareas hijas.
+		 *
+		 * @return int	valor de la posicion o CANCELADA.
+		 */
+		private int dividir() {
+			nodos.increment();
+			for (Figura figura : FIGURAS) {
+				int celdas = partida.consultarJugadasGanadoras(figura);
+				if (celdas != 0) {
+					jugadaGanadora = Integer.numberOfTrailingZeros(celdas) << 2 | figura.ordinal();
+					return Solucionador.GANA;
+				}
+			}
+			int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+			int numero = partida.generarJugadasLegales(jugadas);
+			if (numero == 0) {
+				return Solucionador.PIERDE;
+			}
+			primeraJugada = jugadas[0];
+			List<Tarea> hijas = new ArrayList<>();
+			Set<Long> vistas = new HashSet<>();
+			for (int i = 0; i < numero; i++) {
+				Partida hija = partida.clonar();
+				hija.hacerJugada(jugadas[i]);
+				if (vistas.add(hija.consultarClaveCanonica())) {
+					hijas.add(new Tarea(hija, jugadas[i], profundidad - 1, this));
+				}
+			}
+			invokeAll(hijas);
+			if (resuelta) {
+				return Solucionador.GANA;
+			}
+			for (Tarea hija : hijas) {
+				if (hija.join() == CANCELADA) {
+					return CANCELADA;
+				}
+			}
+			return Solucionador.PIERDE;
+		}
+	}
+}
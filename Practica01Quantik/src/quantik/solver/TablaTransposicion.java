@@ -0,0 +1,55 @@
+package quantik.solver;
+
+/**
+ * Tabla de transposicion con el valor exacto de posiciones ya resueltas.
+ *
+ * Las entradas se indexan por la clave canonica de la posicion y la tabla
+ * nunca crece: cuando se llena se sustituyen entradas, de modo que solo se
+ * pierden resultados ya calculados. TablaTransposicionSecuencial es la de un
+ * solo hilo y TablaTransposicionConcurrente la compartida por varios.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.TablaTransposicionSecuencial
+ * @see quantik.solver.TablaTransposicionConcurrente
+ *
+ */
+public interface TablaTransposicion {
+
+	/**
+	 * Valor de una entrada vacia o de una clave no encontrada.
+	 */
+	int DESCONOCIDO = 0;
+
+
+	/**
+	 * Devuelve el valor guardado para la clave.
+	 *
+	 * @param clave	clave canonica.
+	 * @return int	valor guardado o DESCONOCIDO.
+	 */
+	int consultar(long clave);
+
+
+	/**
+	 * Guarda el valor de la clave.
+	 *
+	 * @param clave	clave canonica.
+	 * @param valor	valor distinto de DESCONOCIDO y representable en un byte.
+	 */
+	void guardar(long clave, int valor);
+
+
+	/**
+	 * Vacia la tabla.
+	 */
+	void limpiar();
+
+
+	/**
+	 * Devuelve el numero de entradas de la tabla.
+	 *
+	 * @return int	capacidad.
+	 */
+	int consultarCapacidad();
+}
@@ -0,0 +1,103 @@
+package quantik.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tabla de transposicion compartida por varios hilos sin bloqueos.
+ *
+ * Cada entrada ocupa dos long consecutivos: el dato (valor, marca de entrada
+ * ocupada y hash de la clave en los 32 bits altos, para que datos de claves
+ * distintas nunca se parezcan) y la clave canonica con XOR del dato. Los
+ * hilos escriben y leen las dos palabras por separado, sin CAS ni cerrojos; si
+ * dos escrituras se mezclan en la misma entrada, la clave recuperada con XOR
+ * del dato leido no coincide y la entrada se trata como vacia. Asi una lectura nunca devuelve el valor de
+ * otra posicion, aunque alguna vez pierda uno ya calculado.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.SolucionadorLazySMP
+ * @see quantik.solver.TablaTransposicion
+ *
+ */
+public class TablaTransposicionConcurrente implements TablaTransposicion {
+
+	/**
+	 * Marca de entrada ocupada en el dato.
+	 */
+	private static final long OCUPADA = 1L << 8;
+
+
+	/**
+	 * Entradas: en 2i la clave con XOR del dato y en 2i+1 el dato.
+	 */
+	private final AtomicLongArray entradas;
+
+
+	/**
+	 * Mascara para reducir un hash a una entrada de la tabla.
+	 */
+	private final int mascara;
+
+
+	/**
+	 * Constructor de una tabla con 2^bits entradas.
+	 *
+	 * @param bits	logaritmo en base 2 del numero de entradas, de 4 a 29.
+	 */
+	public TablaTransposicionConcurrente(int bits) {
+		if (bits < 4 || bits > 29) {
+			throw new IllegalArgumentException("Tamaño de tabla fuera de rango: " + bits);
+		}
+		entradas = new AtomicLongArray(2 << bits);
+		mascara = (1 << bits) - 1;
+	}
+
+
+	@Override
+	public int consultar(long clave) {
+		int indice = TablaTransposicionSecuencial.dispersar(clave);
+		for (int i = 0; i < TablaTransposicionSecuencial.PRUEBAS; i++) {
+			int posicion = ((indice + i) & mascara) << 1;
+			long dato = entradas.getOpaque(posicion + 1);
+			if (dato == 0) {
+				return DESCONOCIDO;
+			}
+			if ((entradas.getOpaque(posicion) ^ dato) == clave) {
+				return (byte) dato;
+			}
+		}
+		return DESCONOCIDO;
+	}
+
+
+	@Override
+	public void guardar(long clave, int valor) {
+		int indice = TablaTransposicionSecuencial.dispersar(clave);
+		long dato = (long) indice << 32 | OCUPADA | (valor & 0xFF);
+		int destino = (indice & mascara) << 1;
+		for (int i = 0; i < TablaTransposicionSecuencial.PRUEBAS; i++) {
+			int posicion = ((indice + i) & mascara) << 1;
+			long actual = entradas.getOpaque(posicion + 1);
+			if (actual == 0 || (entradas.getOpaque(posicion) ^ actual) == clave) {
+				destino = posicion;
+				break;
+			}
+		}
+		entradas.setOpaque(destino, clave ^ dato);
+		entradas.setOpaque(destino + 1, dato);
+	}
+
+
+	@Override
+	public void limpiar() {
+		for (int i = 0; i < entradas.length(); i++) {
+			entradas.setOpaque(i, 0L);
+		}
+	}
+
+
+	@Override
+	public int consultarCapacidad() {
+		return entradas.length() >> 1;
+	}
+}
@@ -0,0 +1,126 @@
+package quantik.solver;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de transposicion para un solo hilo.
+ *
+ * Las entradas se indexan por la clave canonica de la posicion y se guardan en
+ * dos arrays paralelos (claves y valores), con direccionamiento abierto. Si las
+ * posiciones de prueba de una clave estan ocupadas se sustituye la primera, de
+ * modo que la tabla nunca crece y solo se pierden resultados ya calculados.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.modelo.Simetrias
+ * @see quantik.solver.TablaTransposicion
+ *
+ */
+public class TablaTransposicionSecuencial implements TablaTransposicion {
+
+	/**
+	 * Numero de posiciones consecutivas probadas para cada clave.
+	 */
+	static final int PRUEBAS = 8;
+
+
+	/**
+	 * Claves canonicas de las entradas.
+	 */
+	private final long[] claves;
+
+
+	/**
+	 * Valores de las entradas, DESCONOCIDO si la entrada esta vacia.
+	 */
+	private final byte[] valores;
+
+
+	/**
+	 * Mascara para reducir un hash a una posicion de la tabla.
+	 */
+	private final int mascara;
+
+
+	/**
+	 * Constructor de una tabla con 2^bits entradas.
+	 *
+	 * @param bits	logaritmo en base 2 del numero de entradas, de 4 a 30.
+	 */
+	public TablaTransposicionSecuencial(int bits) {
+		if (bits < 4 || bits > 30) {
+			throw new IllegalArgumentException("Tamaño de tabla fuera de rango: " + bits);
+		}
+		claves = new long[1 << bits];
+		valores = new byte[1 << bits];
+		mascara = (1 << bits) - 1;
+	}
+
+
+	@Override
+	public int consultar(long clave) {
+		int indice = indice(clave);
+		for (int i = 0; i < PRUEBAS; i++) {
+			int posicion = (indice + i) & mascara;
+			if (valores[posicion] == DESCONOCIDO) {
+				return DESCONOCIDO;
+			}
+			if (claves[posicion] == clave) {
+				return valores[posicion];
+			}
+		}
+		return DESCONOCIDO;
+	}
+
+
+	@Override
+	public void guardar(long clave, int valor) {
+		int indice = indice(clave);
+		for (int i = 0; i < PRUEBAS; i++) {
+			int posicion = (indice + i) & mascara;
+			if (valores[posicion] == DESCONOCIDO || claves[posicion] == clave) {
+				claves[posicion] = clave;
+				valores[posicion] = (byte) valor;
+				return;
+			}
+		}
+		claves[indice] = clave;
+		valores[indice] = (byte) valor;
+	}
+
+
+	@Override
+	public void limpiar() {
+		Arrays.fill(valores, (byte) DESCONOCIDO);
+	}
+
+
+	@Override
+	public int consultarCapacidad() {
+		return valores.length;
+	}
+
+
+	/**
+	 * Calcula la posicion inicial de una clave.
+	 *
+	 * @param clave	clave canonica.
+	 * @return int	posicion en la tabla.
+	 */
+	private int indice(long clave) {
+		return dispersar(clave) & mascara;
+	}
+
+
+	/**
+	 * Mezcla los bits de una clave canonica, que en posiciones parecidas solo
+	 * difieren en unas pocas celdas.
+	 *
+	 * @param clave	clave canonica.
+	 * @return int	hash de la clave.
+	 */
+	static int dispersar(long clave) {
+		long mezcla = clave * 0x9E3779B97F4A7C15L;
+		return (int) (mezcla ^ (mezcla >>> 32));
+	}
+}
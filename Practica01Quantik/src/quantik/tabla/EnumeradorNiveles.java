@@ -0,0 +1,403 @@
+package quantik.tabla;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Enumera por niveles las posiciones canonicas alcanzables desde una posicion
+ * inicial guardando cada nivel en disco, de modo que la memoria no depende
+ * del numero de posiciones.
+ *
+ * El nivel de una posicion es su numero de piezas, que desde el tablero vacio
+ * es el numero de jugadas hechas. Cada nivel se guarda en el directorio como
+ * un fichero de claves canonicas ordenadas sin repetir (ver FicheroClaves). Para
+ * pasar al siguiente, el fichero se reparte por intervalos entre los hilos;
+ * cada hilo clasifica sus posiciones, genera las siguientes de las que siguen
+ * en juego con las reglas de Partida y las guarda en un buffer de claves que,
+ * al llenarse, se ordena y se escribe como un tramo. Los tramos de todos los
+ * hilos se mezclan despues en el fichero del nivel siguiente.
+ *
+ * Las posiciones de cada nivel se clasifican en: en juego, acabadas con un
+ * grupo completo y acabadas porque el turno esta bloqueado. En los dos casos
+ * acabados gana el jugador que acaba de mover, que desde el tablero vacio son
+ * las blancas si el numero de piezas es impar. Las posiciones en juego y
+ * bloqueadas son las que guarda GeneradorTabla.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.tabla.FicheroClaves
+ * @see quantik.tabla.GeneradorTabla
+ *
+ */
+public class EnumeradorNiveles {
+
+	/**
+	 * Claves en memoria por hilo minimas.
+	 */
+	public static final int MINIMO_CLAVES_POR_HILO = 1 << 10;
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Claves en memoria de cada hilo.
+	 */
+	private final int clavesPorHilo;
+
+
+	/**
+	 * Directorio de los ficheros de niveles.
+	 */
+	private final Path directorio;
+
+
+	/**
+	 * Hilos de trabajo.
+	 */
+	private final ExecutorService ejecutor;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param hilos				numero de hilos.
+	 * @param clavesEnMemoria	claves que se pueden tener en memoria entre
+	 * 							todos los hilos antes de escribir un tramo.
+	 * @param directorio		directorio de los ficheros de niveles, que debe
+	 * 							existir.
+	 */
+	public EnumeradorNiveles(int hilos, long clavesEnMemoria, Path directorio) {
+		if (hilos < 1) {
+			throw new IllegalArgumentException("Numero de hilos incorrecto: " + hilos);
+		}
+		if (clavesEnMemoria / hilos < MINIMO_CLAVES_POR_HILO) {
+			throw new IllegalArgumentException("Memoria insuficiente: " + clavesEnMemoria + " claves");
+		}
+		this.hilos = hilos;
+		this.clavesPorHilo = (int) Math.min(clavesEnMemoria / hilos, Integer.MAX_VALUE - 8);
+		this.directorio = directorio;
+		this.ejecutor = Executors.newFixedThreadPool(hilos);
+	}
+
+
+	/**
+	 * Devuelve el fichero de un nivel.
+	 *
+	 * @param directorio	directorio de los ficheros de niveles.
+	 * @param nivel			numero de piezas.
+	 * @return Path			fichero de claves del nivel.
+	 */
+	public static Path rutaNivel(Path directorio, int nivel) {
+		return directorio.resolve(String.format("nivel-%02d.claves", nivel));
+	}
+
+
+	/**
+	 * Enumera las posiciones alcanzables desde la partida y deja en el
+	 * directorio un fichero por nivel.
+	 *
+	 * @param raiz			partida en la posicion inicial, que no se modifica.
+	 * @return Resumen		posiciones de cada nivel por clasificacion.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public Resumen enumerar(Partida raiz) throws IOException {
+		Resumen resumen = new Resumen();
+		int nivel = FormatoTabla.contarPiezas(raiz.consultarClaveCanonica());
+		FicheroClaves.escribir(rutaNivel(directorio, nivel), new long[] { raiz.consultarClaveCanonica() }, 1);
+		while (nivel < FormatoTabla.NIVELES) {
+			Path fichero = rutaNivel(directorio, nivel);
+			long numero = FicheroClaves.contar(fichero);
+			List<Callable<Expansion>> tareas = new ArrayList<>();
+			for (int tarea = 0; tarea < hilos; tarea++) {
+				long desde = numero * tarea / hilos;
+				long hasta = numero * (tarea + 1) / hilos;
+				String prefijo = String.format("nivel-%02d.tramo-%d-", nivel + 1, tarea);
+				tareas.add(() -> expandir(fichero, desde, hasta, prefijo));
+			}
+			List<Path> tramos = new ArrayList<>();
+			for (Expansion expansion : ejecutar(tareas)) {
+				resumen.sumar(nivel, expansion);
+				tramos.addAll(expansion.tramos);
+			}
+			if (tramos.isEmpty()) {
+				break;
+			}
+			nivel++;
+			FicheroClaves.mezclar(tramos, rutaNivel(directorio, nivel));
+		}
+		return resumen;
+	}
+
+
+	/**
+	 * Detiene los hilos de trabajo.
+	 */
+	public void cerrar() {
+		ejecutor.shutdown();
+	}
+
+
+	/**
+	 * Enumera las posiciones desde el tablero vacio y muestra el resumen.
+	 *
+	 * @param args			directorio, numero de hilos y millones de claves en
+	 * 						memoria.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path directorio = Paths.get(args.length > 0 ? args[0] : "niveles");
+		int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long claves = (args.length > 2 ? Long.parseLong(args[2]) : 4) * 1_000_000L;
+		Files.createDirectories(directorio);
+		EnumeradorNiveles enumerador = new EnumeradorNiveles(hilos, claves, directorio);
+		try {
+			long inicio = System.nanoTime();
+			Resumen resumen = enumerador.enumerar(
+					new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO)));
+			System.out.print(resumen);
+			System.out.printf("Niveles en %s enumerados en %.1f s%n", directorio, (System.nanoTime() - inicio) / 1e9);
+		} finally {
+			enumerador.cerrar();
+		}
+	}
+
+
+	/**
+	 * Clasifica las posiciones de un intervalo de un nivel y escribe en tramos
+	 * ordenados las claves siguientes a las que siguen en juego.
+	 *
+	 * @param fichero		fichero del nivel.
+	 * @param desde			primera posicion del intervalo.
+	 * @param hasta			posicion siguiente a la ultima.
+	 * @param prefijo		prefijo de los ficheros de tramos.
+	 * @return Expansion	posiciones por clasificacion y tramos escritos.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	private Expansion expandir(Path fichero, long desde, long hasta, String prefijo) throws IOException {
+		Expansion expansion = new Expansion();
+		long[] siguientes = new long[clavesPorHilo];
+		int numero = 0;
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		try (FicheroClaves.Lector lector = new FicheroClaves.Lector(fichero, desde, hasta)) {
+			while (lector.avanzar()) {
+				Partida partida = FormatoTabla.decodificar(lector.consultarActual());
+				if (partida.hayAlgunGrupoCompleto()) {
+					expansion.grupo++;
+					continue;
+				}
+				int legales = partida.generarJugadasLegales(jugadas);
+				if (legales == 0) {
+					expansion.bloqueo++;
+					continue;
+				}
+				expansion.enJuego++;
+				for (int j = 0; j < legales; j++) {
+					if (numero == siguientes.length) {
+						numero = ListaClaves.quitarRepetidas(ordenar(siguientes, numero), numero);
+						if (numero > siguientes.length / 2) {
+							escribirTramo(expansion, prefijo, siguientes, numero);
+							numero = 0;
+						}
+					}
+					int testigo = partida.hacerJugada(jugadas[j]);
+					siguientes[numero++] = partida.consultarClaveCanonica();
+					partida.deshacerJugada(testigo);
+				}
+			}
+		}
+		if (numero > 0) {
+			numero = ListaClaves.quitarRepetidas(ordenar(siguientes, numero), numero);
+			escribirTramo(expansion, prefijo, siguientes, numero);
+		}
+		return expansion;
+	}
+
+
+	/**
+	 * Ordena el principio de un array.
+	 *
+	 * @param claves	claves.
+	 * @param numero	numero de claves que se ordenan.
+	 * @return long[]	el mismo array.
+	 */
+	private static long[] ordenar(long[] claves, int numero) {
+		Arrays.sort(claves, 0, numero);
+		return claves;
+	}
+
+
+	/**
+	 * Escribe un tramo ordenado sin repetidas.
+	 *
+	 * @param expansion		expansion a la que se añade el tramo.
+	 * @param prefijo		prefijo del fichero.
+	 * @param claves		claves ordenadas sin repetir.
+	 * @param numero		numero de claves.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	private void escribirTramo(Expansion expansion, String prefijo, long[] claves, int numero) throws IOException {
+		Path tramo = directorio.resolve(prefijo + expansion.tramos.size());
+		FicheroClaves.escribir(tramo, claves, numero);
+		expansion.tramos.add(tramo);
+	}
+
+
+	/**
+	 * Ejecuta las tareas en los hilos de trabajo y espera sus resultados.
+	 *
+	 * @param tareas		tareas.
+	 * @return List			resultados en el orden de las tareas.
+	 * @throws IOException	si una tarea falla por un error de entrada/salida.
+	 */
+	private List<Expansion> ejecutar(List<Callable<Expansion>> tareas) throws IOException {
+		List<Expansion> resultados = new ArrayList<>(tareas.size());
+		try {
+			for (Future<Expansion> tarea : ejecutor.invokeAll(tareas)) {
+				resultados.add(tarea.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Enumeracion interrumpida", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException("Error en un hilo de enumeracion", e.getCause());
+		}
+		return resultados;
+	}
+
+
+	/**
+	 * Resultado de expandir un intervalo de un nivel.
+	 */
+	private static final class Expansion {
+
+		/**
+		 * Posiciones en juego.
+		 */
+		private long enJuego;
+
+		/**
+		 * Posiciones con un grupo completo.
+		 */
+		private long grupo;
+
+		/**
+		 * Posiciones con el turno bloqueado.
+		 */
+		private long bloqueo;
+
+		/**
+		 * Tramos escritos.
+		 */
+		private final List<Path> tramos = new ArrayList<>();
+	}
+
+
+	/**
+	 * Numero de posiciones de cada nivel por clasificacion.
+	 */
+	public static final class Resumen {
+
+		/**
+		 * Posiciones en juego de cada nivel.
+		 */
+		private final long[] enJuego = new long[FormatoTabla.NIVELES];
+
+		/**
+		 * Posiciones con un grupo completo de cada nivel.
+		 */
+		private final long[] grupo = new long[FormatoTabla.NIVELES];
+
+		/**
+		 * Posiciones con el turno bloqueado de cada nivel.
+		 */
+		private final long[] bloqueo = new long[FormatoTabla.NIVELES];
+
+		/**
+		 * Suma la expansion de un intervalo.
+		 *
+		 * @param nivel		numero de piezas.
+		 * @param expansion	expansion del intervalo.
+		 */
+		private void sumar(int nivel, Expansion expansion) {
+			enJuego[nivel] += expansion.enJuego;
+			grupo[nivel] += expansion.grupo;
+			bloqueo[nivel] += expansion.bloqueo;
+		}
+
+		/**
+		 * Devuelve el numero de posiciones con las piezas indicadas.
+		 *
+		 * @param nivel	numero de piezas.
+		 * @return long	posiciones.
+		 */
+		public long consultarPosiciones(int nivel) {
+			return enJuego[nivel] + grupo[nivel] + bloqueo[nivel];
+		}
+
+		/**
+		 * Devuelve el numero de posiciones en juego con las piezas indicadas.
+		 *
+		 * @param nivel	numero de piezas.
+		 * @return long	posiciones en juego.
+		 */
+		public long consultarEnJuego(int nivel) {
+			return enJuego[nivel];
+		}
+
+		/**
+		 * Devuelve el numero de posiciones acabadas con un grupo completo con
+		 * las piezas indicadas.
+		 *
+		 * @param nivel	numero de piezas.
+		 * @return long	posiciones con grupo.
+		 */
+		public long consultarGrupo(int nivel) {
+			return grupo[nivel];
+		}
+
+		/**
+		 * Devuelve el numero de posiciones acabadas con el turno bloqueado con
+		 * las piezas indicadas.
+		 *
+		 * @param nivel	numero de piezas.
+		 * @return long	posiciones bloqueadas.
+		 */
+		public long consultarBloqueo(int nivel) {
+			return bloqueo[nivel];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder texto = new StringBuilder("piezas\tposiciones\ten juego\tgrupo\tbloqueo\tganador\n");
+			long total = 0;
+			for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+				total += consultarPosiciones(nivel);
+				texto.append(String.format("%d\t%d\t%d\t%d\t%d\t%s%n", nivel, consultarPosiciones(nivel),
+						enJuego[nivel], grupo[nivel], bloqueo[nivel], nivel % 2 == 1 ? Color.BLANCO : Color.NEGRO));
+			}
+			return texto.append(String.format("total\t%d%n", total)).toString();
+		}
+	}
+}
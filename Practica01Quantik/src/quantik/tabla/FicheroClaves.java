@@ -0,0 +1,328 @@
+package quantik.tabla;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Ficheros de claves sin cabecera, 8 bytes por clave, y su mezcla ordenada.
+ *
+ * Los tramos ordenados que escribe EnumeradorNiveles se mezclan de
+ * MAXIMO_ENTRADAS en MAXIMO_ENTRADAS con una cola de prioridad, quitando las
+ * claves repetidas, hasta que queda un solo fichero. Cada entrada abierta
+ * ocupa un buffer de TAMAÑO_BUFFER bytes, asi que la mezcla usa la misma
+ * memoria sea cual sea el numero de claves.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.tabla.EnumeradorNiveles
+ *
+ */
+final class FicheroClaves {
+
+	/**
+	 * Numero maximo de ficheros que se mezclan a la vez.
+	 */
+	static final int MAXIMO_ENTRADAS = 64;
+
+
+	/**
+	 * Tamaño del buffer de lectura y escritura.
+	 */
+	private static final int TAMAÑO_BUFFER = 1 << 16;
+
+
+	private FicheroClaves() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Devuelve el numero de claves de un fichero.
+	 *
+	 * @param fichero		fichero de claves.
+	 * @return long			claves.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	static long contar(Path fichero) throws IOException {
+		return Files.size(fichero) / Long.BYTES;
+	}
+
+
+	/**
+	 * Escribe las primeras claves de un array.
+	 *
+	 * @param destino		fichero, que se sobrescribe.
+	 * @param claves		claves.
+	 * @param numero		numero de claves que se escriben.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	static void escribir(Path destino, long[] claves, int numero) throws IOException {
+		try (Escritor escritor = new Escritor(destino)) {
+			for (int i = 0; i < numero; i++) {
+				escritor.agregar(claves[i]);
+			}
+		}
+	}
+
+
+	/**
+	 * Mezcla ficheros ordenados sin repetidas en uno solo ordenado sin
+	 * repetidas y borra las entradas. Si hay mas de MAXIMO_ENTRADAS se mezclan
+	 * por grupos en ficheros intermedios junto al destino. Si falla, las
+	 * entradas del grupo que se estaba mezclando y los ficheros intermedios ya
+	 * escritos se quedan en disco.
+	 *
+	 * @param entradas		ficheros ordenados.
+	 * @param destino		fichero mezclado, que se sobrescribe.
+	 * @return long			numero de claves distintas.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	static long mezclar(List<Path> entradas, Path destino) throws IOException {
+		List<Path> pendientes = new ArrayList<>(entradas);
+		int pasada = 0;
+		while (pendientes.size() > MAXIMO_ENTRADAS) {
+			List<Path> mezclados = new ArrayList<>();
+			for (int desde = 0; desde < pendientes.size(); desde += MAXIMO_ENTRADAS) {
+				List<Path> grupo = pendientes.subList(desde, Math.min(desde + MAXIMO_ENTRADAS, pendientes.size()));
+				Path intermedio = destino.resolveSibling(destino.getFileName() + ".mezcla-" + pasada + "-" + mezclados.size());
+				mezclarGrupo(grupo, intermedio);
+				mezclados.add(intermedio);
+			}
+			pendientes = mezclados;
+			pasada++;
+		}
+		return mezclarGrupo(pendientes, destino);
+	}
+
+
+	/**
+	 * Mezcla a la vez unos ficheros ordenados y los borra cuando el destino
+	 * esta escrito y cerrado. Si falla, borra el destino a medias y deja las
+	 * entradas.
+	 *
+	 * @param entradas		ficheros ordenados.
+	 * @param destino		fichero mezclado.
+	 * @return long			numero de claves distintas.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	private static long mezclarGrupo(List<Path> entradas, Path destino) throws IOException {
+		List<Lector> lectores = new ArrayList<>();
+		long numero;
+		try {
+			try (Escritor escritor = new Escritor(destino)) {
+				PriorityQueue<Lector> cola = new PriorityQueue<>(Math.max(1, entradas.size()),
+						(a, b) -> Long.compare(a.consultarActual(), b.consultarActual()));
+				for (Path entrada : entradas) {
+					Lector lector = new Lector(entrada, 0, contar(entrada));
+					lectores.add(lector);
+					if (lector.avanzar()) {
+						cola.add(lector);
+					}
+				}
+				boolean primera = true;
+				long ultima = 0;
+				while (!cola.isEmpty()) {
+					Lector lector = cola.poll();
+					long clave = lector.consultarActual();
+					if (primera || clave != ultima) {
+						escritor.agregar(clave);
+						ultima = clave;
+						primera = false;
+					}
+					if (lector.avanzar()) {
+						cola.add(lector);
+					}
+				}
+				numero = escritor.consultarNumero();
+			} finally {
+				for (Lector lector : lectores) {
+					lector.close();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			try {
+				Files.deleteIfExists(destino);
+			} catch (IOException borrado) {
+				e.addSuppressed(borrado);
+			}
+			throw e;
+		}
+		for (Path entrada : entradas) {
+			Files.deleteIfExists(entrada);
+		}
+		return numero;
+	}
+
+
+	/**
+	 * Lectura secuencial de un intervalo de claves de un fichero.
+	 */
+	static final class Lector implements Closeable {
+
+		/**
+		 * Canal del fichero.
+		 */
+		private final FileChannel canal;
+
+		/**
+		 * Buffer de lectura.
+		 */
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMAÑO_BUFFER);
+
+		/**
+		 * Posicion en bytes de la siguiente lectura del canal.
+		 */
+		private long posicion;
+
+		/**
+		 * Posicion en bytes del final del intervalo.
+		 */
+		private final long fin;
+
+		/**
+		 * Ultima clave leida.
+		 */
+		private long actual;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param fichero		fichero de claves.
+		 * @param desde			primera clave del intervalo.
+		 * @param hasta			clave siguiente a la ultima.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		Lector(Path fichero, long desde, long hasta) throws IOException {
+			this.canal = FileChannel.open(fichero, StandardOpenOption.READ);
+			this.posicion = desde * Long.BYTES;
+			this.fin = hasta * Long.BYTES;
+			buffer.limit(0);
+		}
+
+		/**
+		 * Lee la siguiente clave.
+		 *
+		 * @return boolean		True si se ha leido y False al final del
+		 * 						intervalo.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		boolean avanzar() throws IOException {
+			if (!buffer.hasRemaining()) {
+				if (posicion >= fin) {
+					return false;
+				}
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), fin - posicion));
+				while (buffer.hasRemaining()) {
+					if (canal.read(buffer, posicion + buffer.position()) < 0) {
+						throw new IOException("Fichero de claves incompleto");
+					}
+				}
+				posicion += buffer.limit();
+				buffer.flip();
+			}
+			actual = buffer.getLong();
+			return true;
+		}
+
+		/**
+		 * Devuelve la ultima clave leida.
+		 *
+		 * @return long	clave.
+		 */
+		long consultarActual() {
+			return actual;
+		}
+
+		@Override
+		public void close() throws IOException {
+			canal.close();
+		}
+	}
+
+
+	/**
+	 * Escritura secuencial de claves en un fichero.
+	 */
+	static final class Escritor implements Closeable {
+
+		/**
+		 * Canal del fichero.
+		 */
+		private final FileChannel canal;
+
+		/**
+		 * Buffer de escritura.
+		 */
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMAÑO_BUFFER);
+
+		/**
+		 * Claves escritas.
+		 */
+		private long numero;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param fichero		fichero, que se sobrescribe.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		Escritor(Path fichero) throws IOException {
+			this.canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		/**
+		 * Añade una clave.
+		 *
+		 * @param clave			clave.
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		void agregar(long clave) throws IOException {
+			if (!buffer.hasRemaining()) {
+				vaciar();
+			}
+			buffer.putLong(clave);
+			numero++;
+		}
+
+		/**
+		 * Devuelve el numero de claves escritas.
+		 *
+		 * @return long	claves.
+		 */
+		long consultarNumero() {
+			return numero;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				vaciar();
+			} finally {
+				canal.close();
+			}
+		}
+
+		/**
+		 * Escribe el contenido del buffer.
+		 *
+		 * @throws IOException	si hay un error de entrada/salida.
+		 */
+		private void vaciar() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				canal.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package quantik.tabla;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Formato binario de las tablas de resultados y decodificacion de las claves
+ * canonicas que guardan.
+ *
+ * El fichero empieza con una cabecera de 8 bytes: la marca "QNTB", la version
+ * del formato, el numero de niveles, el orden de las posiciones y un byte
+ * reservado a cero. Le sigue el indice: NIVELES + 1 enteros de 8 bytes con el
+ * numero de la primera posicion de cada nivel, el ultimo igual al total de
+ * posiciones. El nivel de una posicion es su numero de piezas.
+ *
+ * Despues van las claves canonicas de todas las posiciones, 8 bytes cada una,
+ * y al final un bit por posicion, en enteros de 8 bytes empezando por el bit
+ * menos significativo, a 1 si gana el jugador con turno. Con ORDEN_NIVELES
+ * las posiciones van por niveles y dentro de cada nivel ordenadas de menor a
+ * mayor con signo. Con ORDEN_HASH van en el orden de los valores del
+ * IndicePerfecto de la tabla, y el indice de la cabecera solo da el numero de
+ * posiciones de cada nivel.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.modelo.Simetrias
+ * @see quantik.tabla.GeneradorTabla
+ * @see quantik.tabla.TablaResultados
+ *
+ */
+public final class FormatoTabla {
+
+	/**
+	 * Marca de los ficheros de tablas ("QNTB").
+	 */
+	public static final int MARCA = 0x514E5442;
+
+
+	/**
+	 * Version del formato.
+	 */
+	public static final byte VERSION = 1;
+
+
+	/**
+	 * Posiciones por niveles, ordenadas dentro de cada nivel.
+	 */
+	public static final byte ORDEN_NIVELES = 0;
+
+
+	/**
+	 * Posiciones en el orden de los valores del indice de la tabla.
+	 */
+	public static final byte ORDEN_HASH = 1;
+
+
+	/**
+	 * Numero de niveles: de 0 a 16 piezas.
+	 */
+	public static final int NIVELES = 17;
+
+
+	/**
+	 * Tamaño de la cabecera con el indice en bytes.
+	 */
+	public static final int TAMAÑO_CABECERA = 8 + (NIVELES + 1) * Long.BYTES;
+
+
+	/**
+	 * Numero de celdas del tablero.
+	 */
+	private static final int NUMERO_CELDAS = 16;
+
+
+	/**
+	 * Bit mas bajo de cada celda de una clave.
+	 */
+	private static final long BITS_BAJOS = 0x1111_1111_1111_1111L;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	private FormatoTabla() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Escribe la cabecera y el indice en la posicion actual del buffer.
+	 *
+	 * @param destino	buffer con al menos TAMAÑO_CABECERA bytes libres.
+	 * @param inicios	primera posicion de cada nivel y total, NIVELES + 1 valores.
+	 * @param orden		ORDEN_NIVELES u ORDEN_HASH.
+	 */
+	public static void escribirCabecera(ByteBuffer destino, long[] inicios, byte orden) {
+		destino.putInt(MARCA);
+		destino.put(VERSION);
+		destino.put((byte) NIVELES);
+		destino.put(orden);
+		destino.put((byte) 0);
+		for (int nivel = 0; nivel <= NIVELES; nivel++) {
+			destino.putLong(inicios[nivel]);
+		}
+	}
+
+
+	/**
+	 * Lee y comprueba la cabecera en la posicion actual del buffer.
+	 *
+	 * @param origen		buffer con al menos TAMAÑO_CABECERA bytes.
+	 * @return long[]		primera posicion de cada nivel y total.
+	 * @throws IOException	si la cabecera no es la de una tabla de resultados.
+	 */
+	public static long[] leerCabecera(ByteBuffer origen) throws IOException {
+		if (origen.remaining() < TAMAÑO_CABECERA || origen.getInt() != MARCA) {
+			throw new IOException("No es una tabla de resultados");
+		}
+		byte version = origen.get();
+		byte niveles = origen.get();
+		byte orden = origen.get();
+		origen.get();
+		if (version != VERSION || niveles != NIVELES) {
+			throw new IOException("Version de tabla de resultados no soportada: " + version);
+		}
+		if (orden != ORDEN_NIVELES && orden != ORDEN_HASH) {
+			throw new IOException("Orden de tabla de resultados desconocido: " + orden);
+		}
+		long[] inicios = new long[NIVELES + 1];
+		for (int nivel = 0; nivel <= NIVELES; nivel++) {
+			inicios[nivel] = origen.getLong();
+			if (inicios[nivel] < (nivel == 0 ? 0 : inicios[nivel - 1])) {
+				throw new IOException("Indice de tabla de resultados incorrecto");
+			}
+		}
+		return inicios;
+	}
+
+
+	/**
+	 * Devuelve el orden de las posiciones de una tabla cuya cabecera ya se ha
+	 * comprobado.
+	 *
+	 * @param datos	contenido de la tabla desde el principio.
+	 * @return byte	ORDEN_NIVELES u ORDEN_HASH.
+	 */
+	public static byte consultarOrden(ByteBuffer datos) {
+		return datos.get(6);
+	}
+
+
+	/**
+	 * Devuelve la posicion en el fichero del primer entero con los bits de
+	 * resultado.
+	 *
+	 * @param total	numero de posiciones.
+	 * @return long	posicion en bytes.
+	 */
+	public static long posicionResultados(long total) {
+		return TAMAÑO_CABECERA + total * Long.BYTES;
+	}
+
+
+	/**
+	 * Devuelve el tamaño del fichero.
+	 *
+	 * @param total	numero de posiciones.
+	 * @return long	tamaño en bytes.
+	 */
+	public static long calcularTamaño(long total) {
+		return posicionResultados(total) + (total + Long.SIZE - 1) / Long.SIZE * Long.BYTES;
+	}
+
+
+	/**
+	 * Devuelve el numero de piezas de una clave canonica.
+	 *
+	 * @param clave	clave canonica.
+	 * @return int	numero de celdas ocupadas.
+	 */
+	public static int contarPiezas(long clave) {
+		long ocupadas = clave | clave >>> 1 | clave >>> 2 | clave >>> 3;
+		return Long.bitCount(ocupadas & BITS_BAJOS);
+	}
+
+
+	/**
+	 * Construye una partida con las piezas de una clave canonica, con las
+	 * piezas del jugador con turno en blanco y turno de las blancas. La clave
+	 * canonica de la partida es la misma clave.
+	 *
+	 * @param clave		clave canonica.
+	 * @return Partida	partida con las piezas retiradas de sus cajas.
+	 */
+	public static Partida decodificar(long clave) {
+		Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+		for (int celda = 0; celda < NUMERO_CELDAS; celda++) {
+			int valor = (int) (clave >>> ((NUMERO_CELDAS - 1 - celda) * 4)) & 0xF;
+			if (valor != 0) {
+				Color color = valor <= FIGURAS.length ? Color.BLANCO : Color.NEGRO;
+				if (partida.consultarTurno() != color) {
+					partida.cambiarTurno();
+				}
+				partida.colocarPiezaEnTurnoActual(celda / 4, celda % 4, FIGURAS[(valor - 1) & 0x3]);
+			}
+		}
+		if (partida.consultarTurno() != Color.BLANCO) {
+			partida.cambiarTurno();
+		}
+		return partida;
+	}
+}
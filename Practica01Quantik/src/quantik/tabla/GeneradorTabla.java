@@ -0,0 +1,475 @@
+package quantik.tabla;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Resuelve todas las posiciones alcanzables desde una posicion inicial por
+ * analisis retrogrado y escribe la tabla de resultados con el formato de
+ * FormatoTabla.
+ *
+ * Cada jugada añade una pieza, asi que las posiciones forman niveles por
+ * numero de piezas y las jugadas solo llevan de un nivel al siguiente. Primero
+ * se enumeran los niveles hacia delante, guardando las claves canonicas de las
+ * posiciones en las que no hay ningun grupo completo. Despues se etiquetan
+ * del ultimo nivel al primero: una posicion esta ganada si tiene una jugada
+ * que completa un grupo o que lleva a una posicion perdida del nivel
+ * siguiente, que se busca en su array ordenado, y perdida en otro caso,
+ * incluido cuando el turno esta bloqueado.
+ *
+ * Desde el tablero vacio hay unos 11 millones de posiciones canonicas, asi que
+ * todos los niveles caben en memoria (unos 90 MB de claves). Cada nivel se
+ * reparte entre los hilos por tramos del array. Junto a la tabla se escribe
+ * su IndicePerfecto, que se construye con los mismos hilos, y la tabla se
+ * escribe en el orden de los valores del indice; sin indice se escribe por
+ * niveles para la busqueda binaria.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.tabla.TablaResultados
+ *
+ */
+public class GeneradorTabla {
+
+	/**
+	 * Tramos en que se reparte cada nivel por hilo.
+	 */
+	private static final int TRAMOS_POR_HILO = 8;
+
+
+	/**
+	 * Tamaño del buffer de escritura.
+	 */
+	private static final int TAMAÑO_BUFFER = 1 << 20;
+
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Si se escribe el indice y la tabla en su orden.
+	 */
+	private final boolean conIndice;
+
+
+	/**
+	 * Hilos de trabajo.
+	 */
+	private final ExecutorService ejecutor;
+
+
+	/**
+	 * Constructor de un generador que escribe la tabla con indice.
+	 *
+	 * @param hilos	numero de hilos.
+	 */
+	public GeneradorTabla(int hilos) {
+		this(hilos, true);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param hilos		numero de hilos.
+	 * @param conIndice	True para escribir el indice y la tabla en su orden,
+	 * 					False para escribir la tabla por niveles sin indice.
+	 */
+	public GeneradorTabla(int hilos, boolean conIndice) {
+		if (hilos < 1) {
+			throw new IllegalArgumentException("Numero de hilos incorrecto: " + hilos);
+		}
+		this.hilos = hilos;
+		this.conIndice = conIndice;
+		this.ejecutor = Executors.newFixedThreadPool(hilos);
+	}
+
+
+	/**
+	 * Resuelve las posiciones alcanzables desde la partida y escribe la tabla
+	 * y, si el generador es con indice, su indice. Sin indice se borra el
+	 * indice anterior de la tabla si lo hay.
+	 *
+	 * @param raiz			partida en la posicion inicial, que no se modifica.
+	 * @param destino		fichero de la tabla, que se sobrescribe.
+	 * @return Resumen		posiciones y posiciones ganadas por nivel.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public Resumen generar(Partida raiz, Path destino) throws IOException {
+		long[][] niveles = enumerar(raiz);
+		long[][] resultados = etiquetar(niveles);
+		long[] inicios = new long[FormatoTabla.NIVELES + 1];
+		for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+			inicios[nivel + 1] = inicios[nivel] + niveles[nivel].length;
+		}
+		long[] claves = ListaClaves.concatenar(niveles);
+		long[] bits = new long[(claves.length + Long.SIZE - 1) / Long.SIZE];
+		for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+			for (int i = 0; i < niveles[nivel].length; i++) {
+				long posicion = inicios[nivel] + i;
+				bits[(int) (posicion / Long.SIZE)] |= (resultados[nivel][i / Long.SIZE] >>> i & 1L) << posicion;
+			}
+		}
+		if (conIndice) {
+			escribirConIndice(inicios, claves, bits, ejecutor, hilos * TRAMOS_POR_HILO, destino);
+		} else {
+			Files.deleteIfExists(IndicePerfecto.rutaIndice(destino));
+			escribir(inicios, claves, bits, FormatoTabla.ORDEN_NIVELES, destino);
+		}
+		return new Resumen(niveles, resultados);
+	}
+
+
+	/**
+	 * Construye el indice de una tabla, lo escribe y escribe la tabla en el
+	 * orden de sus valores.
+	 *
+	 * @param inicios		primera posicion de cada nivel y total.
+	 * @param claves		claves de las posiciones por niveles.
+	 * @param bits			bits de resultado de las posiciones por niveles.
+	 * @param ejecutor		hilos de trabajo.
+	 * @param tramos		numero de tramos en que se reparte cada pasada.
+	 * @param destino		fichero de la tabla, que se sobrescribe.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	static void escribirConIndice(long[] inicios, long[] claves, long[] bits, ExecutorService ejecutor, int tramos,
+			Path destino) throws IOException {
+		IndicePerfecto indice = IndicePerfecto.construir(claves, ejecutor, tramos, IndicePerfecto.rutaIndice(destino));
+		long[] clavesHash = new long[claves.length];
+		long[] bitsHash = new long[bits.length];
+		for (int i = 0; i < claves.length; i++) {
+			int valor = (int) indice.buscar(claves[i]);
+			clavesHash[valor] = claves[i];
+			bitsHash[valor / Long.SIZE] |= (bits[i / Long.SIZE] >>> i & 1L) << valor;
+		}
+		escribir(inicios, clavesHash, bitsHash, FormatoTabla.ORDEN_HASH, destino);
+	}
+
+
+	/**
+	 * Enumera las posiciones alcanzables sin grupo completo por niveles.
+	 *
+	 * @param raiz		partida en la posicion inicial.
+	 * @return long[][]	claves canonicas ordenadas de cada nivel.
+	 */
+	long[][] enumerar(Partida raiz) {
+		long[][] niveles = new long[FormatoTabla.NIVELES][0];
+		if (raiz.hayAlgunGrupoCompleto()) {
+			return niveles;
+		}
+		int primero = FormatoTabla.contarPiezas(raiz.consultarClaveCanonica());
+		niveles[primero] = new long[] { raiz.consultarClaveCanonica() };
+		for (int nivel = primero; nivel + 1 < FormatoTabla.NIVELES && niveles[nivel].length > 0; nivel++) {
+			long[] actual = niveles[nivel];
+			List<Callable<long[]>> tareas = new ArrayList<>();
+			for (int[] tramo : repartir(actual.length, 1)) {
+				tareas.add(() -> expandir(actual, tramo[0], tramo[1]));
+			}
+			niveles[nivel + 1] = ListaClaves.unir(ejecutar(tareas).toArray(new long[0][]));
+		}
+		return niveles;
+	}
+
+
+	/**
+	 * Etiqueta las posiciones de cada nivel del ultimo al primero.
+	 *
+	 * @param niveles	claves canonicas ordenadas de cada nivel.
+	 * @return long[][]	bits de resultado de cada nivel, a 1 si gana el turno.
+	 */
+	long[][] etiquetar(long[][] niveles) {
+		long[][] resultados = new long[FormatoTabla.NIVELES][];
+		for (int nivel = FormatoTabla.NIVELES - 1; nivel >= 0; nivel--) {
+			long[] claves = niveles[nivel];
+			long[] bits = new long[(claves.length + Long.SIZE - 1) / Long.SIZE];
+			long[] siguientes = nivel + 1 < FormatoTabla.NIVELES ? niveles[nivel + 1] : new long[0];
+			long[] bitsSiguientes = nivel + 1 < FormatoTabla.NIVELES ? resultados[nivel + 1] : new long[0];
+			List<Callable<long[]>> tareas = new ArrayList<>();
+			for (int[] tramo : repartir(claves.length, Long.SIZE)) {
+				tareas.add(() -> {
+					for (int i = tramo[0]; i < tramo[1]; i++) {
+						if (estaGanada(FormatoTabla.decodificar(claves[i]), siguientes, bitsSiguientes)) {
+							bits[i / Long.SIZE] |= 1L << i;
+						}
+					}
+					return null;
+				});
+			}
+			ejecutar(tareas);
+			resultados[nivel] = bits;
+		}
+		return resultados;
+	}
+
+
+	/**
+	 * Detiene los hilos de trabajo.
+	 */
+	public void cerrar() {
+		ejecutor.shutdown();
+	}
+
+
+	/**
+	 * Genera la tabla completa desde el tablero vacio y muestra el resumen.
+	 *
+	 * @param args			fichero de la tabla, numero de hilos y "sin-indice"
+	 * 						para escribirla por niveles sin indice.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path destino = Paths.get(args.length > 0 ? args[0] : "quantik.tabla");
+		int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		GeneradorTabla generador = new GeneradorTabla(hilos, args.length < 3 || !args[2].equals("sin-indice"));
+		try {
+			long inicio = System.nanoTime();
+			Resumen resumen = generador.generar(
+					new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO)), destino);
+			System.out.print(resumen);
+			System.out.printf("Tabla %s generada en %.1f s%n", destino, (System.nanoTime() - inicio) / 1e9);
+		} finally {
+			generador.cerrar();
+		}
+	}
+
+
+	/**
+	 * Genera las claves canonicas de las posiciones siguientes a un tramo de
+	 * un nivel, salvo las que completan un grupo.
+	 *
+	 * @param claves	claves del nivel.
+	 * @param desde		primera posicion del tramo.
+	 * @param hasta		posicion siguiente a la ultima.
+	 * @return long[]	claves siguientes ordenadas sin repetir.
+	 */
+	private static long[] expandir(long[] claves, int desde, int hasta) {
+		ListaClaves siguientes = new ListaClaves();
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		for (int i = desde; i < hasta; i++) {
+			Partida partida = FormatoTabla.decodificar(claves[i]);
+			int numero = partida.generarJugadasLegales(jugadas);
+			for (int j = 0; j < numero; j++) {
+				int testigo = partida.hacerJugada(jugadas[j]);
+				if (!partida.hayAlgunGrupoCompleto()) {
+					siguientes.agregar(partida.consultarClaveCanonica());
+				}
+				partida.deshacerJugada(testigo);
+			}
+		}
+		return siguientes.aArray();
+	}
+
+
+	/**
+	 * Comprueba si el turno gana en una posicion sin grupo completo conociendo
+	 * los resultados del nivel siguiente.
+	 *
+	 * @param partida		partida en la posicion.
+	 * @param siguientes	claves ordenadas del nivel siguiente.
+	 * @param bits			resultados del nivel siguiente.
+	 * @return boolean		True si gana el turno y False en caso contrario.
+	 */
+	private static boolean estaGanada(Partida partida, long[] siguientes, long[] bits) {
+		for (Figura figura : FIGURAS) {
+			if (partida.consultarJugadasGanadoras(figura) != 0) {
+				return true;
+			}
+		}
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		int numero = partida.generarJugadasLegales(jugadas);
+		for (int j = 0; j < numero; j++) {
+			int testigo = partida.hacerJugada(jugadas[j]);
+			int indice = Arrays.binarySearch(siguientes, partida.consultarClaveCanonica());
+			partida.deshacerJugada(testigo);
+			if (indice < 0) {
+				throw new IllegalStateException("Posicion sin enumerar en el nivel siguiente");
+			}
+			if ((bits[indice / Long.SIZE] & 1L << indice) == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Escribe la tabla de resultados.
+	 *
+	 * @param inicios		primera posicion de cada nivel y total.
+	 * @param claves		claves de las posiciones en el orden de la tabla.
+	 * @param bits			bits de resultado en el mismo orden.
+	 * @param orden			FormatoTabla.ORDEN_NIVELES o FormatoTabla.ORDEN_HASH.
+	 * @param destino		fichero de la tabla.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	private static void escribir(long[] inicios, long[] claves, long[] bits, byte orden, Path destino)
+			throws IOException {
+		try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(TAMAÑO_BUFFER);
+			FormatoTabla.escribirCabecera(buffer, inicios, orden);
+			for (long clave : claves) {
+				vaciarSiLleno(canal, buffer);
+				buffer.putLong(clave);
+			}
+			for (long palabra : bits) {
+				vaciarSiLleno(canal, buffer);
+				buffer.putLong(palabra);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				canal.write(buffer);
+			}
+		}
+	}
+
+
+	/**
+	 * Escribe el buffer en el canal si no le caben 8 bytes mas.
+	 *
+	 * @param canal			canal del fichero.
+	 * @param buffer		buffer de escritura.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	private static void vaciarSiLleno(FileChannel canal, ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < Long.BYTES) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				canal.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+
+	/**
+	 * Reparte un nivel en tramos para los hilos.
+	 *
+	 * @param numero		numero de posiciones.
+	 * @param alineacion	multiplo del que deben ser los limites de los tramos.
+	 * @return List			pares {desde, hasta}.
+	 */
+	private List<int[]> repartir(int numero, int alineacion) {
+		List<int[]> tramos = new ArrayList<>();
+		int tamaño = (numero / (hilos * TRAMOS_POR_HILO) + alineacion) / alineacion * alineacion;
+		for (int desde = 0; desde < numero; desde += tamaño) {
+			tramos.add(new int[] { desde, Math.min(desde + tamaño, numero) });
+		}
+		return tramos;
+	}
+
+
+	/**
+	 * Ejecuta las tareas en los hilos de trabajo y espera sus resultados.
+	 *
+	 * @param tareas	tareas.
+	 * @return List		resultados en el orden de las tareas.
+	 */
+	private List<long[]> ejecutar(List<Callable<long[]>> tareas) {
+		List<long[]> resultados = new ArrayList<>(tareas.size());
+		try {
+			for (Future<long[]> tarea : ejecutor.invokeAll(tareas)) {
+				resultados.add(tarea.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Generacion interrumpida", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error en un hilo de generacion", e.getCause());
+		}
+		return resultados;
+	}
+
+
+	/**
+	 * Numero de posiciones y de posiciones ganadas por el turno de cada nivel.
+	 */
+	public static final class Resumen {
+
+		/**
+		 * Posiciones de cada nivel.
+		 */
+		private final long[] posiciones = new long[FormatoTabla.NIVELES];
+
+		/**
+		 * Posiciones ganadas por el turno de cada nivel.
+		 */
+		private final long[] ganadas = new long[FormatoTabla.NIVELES];
+
+		/**
+		 * Constructor.
+		 *
+		 * @param niveles		claves de cada nivel.
+		 * @param resultados	bits de resultado de cada nivel.
+		 */
+		Resumen(long[][] niveles, long[][] resultados) {
+			for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+				posiciones[nivel] = niveles[nivel].length;
+				for (long bits : resultados[nivel]) {
+					ganadas[nivel] += Long.bitCount(bits);
+				}
+			}
+		}
+
+		/**
+		 * Devuelve el numero de posiciones con las piezas indicadas.
+		 *
+		 * @param nivel	numero de piezas.
+		 * @return long	posiciones.
+		 */
+		public long consultarPosiciones(int nivel) {
+			return posiciones[nivel];
+		}
+
+		/**
+		 * Devuelve el numero de posiciones ganadas por el turno con las piezas
+		 * indicadas.
+		 *
+		 * @param nivel	numero de piezas.
+		 * @return long	posiciones ganadas.
+		 */
+		public long consultarGanadas(int nivel) {
+			return ganadas[nivel];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder texto = new StringBuilder("piezas\tposiciones\tganadas\tperdidas\n");
+			long total = 0;
+			for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+				total += posiciones[nivel];
+				texto.append(String.format("%d\t%d\t%d\t%d%n", nivel, posiciones[nivel], ganadas[nivel],
+						posiciones[nivel] - ganadas[nivel]));
+			}
+			return texto.append(String.format("total\t%d%n", total)).toString();
+		}
+	}
+}
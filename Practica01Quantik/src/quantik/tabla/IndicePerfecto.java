@@ -0,0 +1,600 @@
+package quantik.tabla;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Funcion hash perfecta minima sobre las claves de una tabla de resultados,
+ * guardada en un fichero junto a la tabla y proyectada en memoria.
+ *
+ * Sigue el esquema de BBHash: en cada nivel las claves que quedan se reparten
+ * con una funcion hash en un array de bits el doble de grande que su numero;
+ * las claves que caen solas en su bit se quedan en el nivel y las que chocan
+ * pasan al siguiente. La posicion de una clave es el numero de bits a 1 de
+ * todos los niveles anteriores a su bit, que se calcula con un contador cada
+ * 512 bits, de modo que el contador y las palabras que cuenta estan en la
+ * misma linea de cache. Seis de cada diez claves se resuelven en el primer
+ * nivel y la funcion ocupa unos 3,5 bits por clave.
+ *
+ * Una tabla con indice guarda sus claves y sus resultados en el orden de los
+ * valores de la funcion (FormatoTabla.ORDEN_HASH), asi que el valor de una
+ * clave es directamente su posicion en la tabla, sin ninguna tabla de
+ * posiciones intermedia. Una clave que no esta en la tabla tambien da una
+ * posicion, por lo que quien consulta debe comparar la clave guardada en esa
+ * posicion.
+ *
+ * El fichero empieza con la marca "QNTI", la version, el numero de niveles y
+ * dos bytes a cero, el numero de claves, el numero de claves sobrantes y, para
+ * cada uno de los MAXIMO_NIVELES niveles, el primer bit y el tamaño. Siguen
+ * los bits de todos los niveles, los contadores (enteros de 4 bytes) y las
+ * claves sobrantes ordenadas, que no se han separado en ningun nivel.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.tabla.TablaResultados
+ *
+ */
+public final class IndicePerfecto implements Closeable {
+
+	/**
+	 * Marca de los ficheros de indice ("QNTI").
+	 */
+	public static final int MARCA = 0x514E5449;
+
+
+	/**
+	 * Version del formato.
+	 */
+	public static final byte VERSION = 2;
+
+
+	/**
+	 * Numero maximo de niveles de la funcion.
+	 */
+	public static final int MAXIMO_NIVELES = 32;
+
+
+	/**
+	 * Tamaño de la cabecera en bytes.
+	 */
+	public static final int TAMAÑO_CABECERA = 8 + 2 * Long.BYTES + MAXIMO_NIVELES * 2 * Long.BYTES;
+
+
+	/**
+	 * Extension del fichero de indice que se añade al de la tabla.
+	 */
+	public static final String EXTENSION = ".indice";
+
+
+	/**
+	 * Bits de cada nivel por clave del nivel.
+	 */
+	private static final int BITS_POR_CLAVE = 2;
+
+
+	/**
+	 * Palabras de 64 bits por contador.
+	 */
+	private static final int PALABRAS_POR_CONTADOR = 8;
+
+
+	/**
+	 * Tramos en que se reparte cada nivel por hilo.
+	 */
+	private static final int TRAMOS_POR_HILO = 8;
+
+
+	/**
+	 * Operacion para marcar bits en un AtomicLongArray.
+	 */
+	private static final LongBinaryOperator UNION = (a, b) -> a | b;
+
+
+	/**
+	 * Canal del fichero o null si el indice esta en memoria.
+	 */
+	private final FileChannel canal;
+
+
+	/**
+	 * Contenido del indice.
+	 */
+	private final ByteBuffer datos;
+
+
+	/**
+	 * Numero de claves.
+	 */
+	private final long claves;
+
+
+	/**
+	 * Numero de niveles.
+	 */
+	private final int niveles;
+
+
+	/**
+	 * Primer bit de cada nivel.
+	 */
+	private final long[] primerBit;
+
+
+	/**
+	 * Tamaño en bits de cada nivel.
+	 */
+	private final long[] tamaños;
+
+
+	/**
+	 * Posicion en bytes de los contadores.
+	 */
+	private final int posicionContadores;
+
+
+	/**
+	 * Numero de claves sobrantes.
+	 */
+	private final int sobrantes;
+
+
+	/**
+	 * Posicion en bytes de las claves sobrantes.
+	 */
+	private final int posicionSobrantes;
+
+
+	/**
+	 * Constructor que lee y comprueba la cabecera de un indice.
+	 *
+	 * @param canal			canal del fichero o null.
+	 * @param datos			contenido del indice.
+	 * @throws IOException	si el contenido no es un indice completo.
+	 */
+	private IndicePerfecto(FileChannel canal, ByteBuffer datos) throws IOException {
+		this.canal = canal;
+		this.datos = datos;
+		if (datos.capacity() < TAMAÑO_CABECERA || datos.getInt(0) != MARCA) {
+			throw new IOException("No es un indice de tabla de resultados");
+		}
+		if (datos.get(4) != VERSION || datos.get(5) < 0 || datos.get(5) > MAXIMO_NIVELES) {
+			throw new IOException("Version de indice no soportada: " + datos.get(4));
+		}
+		this.niveles = datos.get(5);
+		this.claves = datos.getLong(8);
+		long numeroSobrantes = datos.getLong(16);
+		this.primerBit = new long[niveles];
+		this.tamaños = new long[niveles];
+		long bits = 0;
+		for (int nivel = 0; nivel < niveles; nivel++) {
+			primerBit[nivel] = datos.getLong(24 + nivel * 2 * Long.BYTES);
+			tamaños[nivel] = datos.getLong(24 + nivel * 2 * Long.BYTES + Long.BYTES);
+			if (primerBit[nivel] != bits || tamaños[nivel] <= 0 || tamaños[nivel] % Long.SIZE != 0) {
+				throw new IOException("Niveles de indice incorrectos");
+			}
+			bits += tamaños[nivel];
+		}
+		if (claves < 0 || numeroSobrantes < 0 || numeroSobrantes > claves
+				|| calcularTamaño(bits, numeroSobrantes) != datos.capacity()) {
+			throw new IOException("Indice de tabla de resultados incompleto");
+		}
+		this.sobrantes = (int) numeroSobrantes;
+		this.posicionContadores = TAMAÑO_CABECERA + (int) (bits / Long.SIZE) * Long.BYTES;
+		this.posicionSobrantes = posicionContadores + contadores(bits) * Integer.BYTES;
+	}
+
+
+	/**
+	 * Devuelve la ruta del indice de una tabla.
+	 *
+	 * @param tabla	fichero de la tabla.
+	 * @return Path	fichero del indice en el mismo directorio.
+	 */
+	public static Path rutaIndice(Path tabla) {
+		return tabla.resolveSibling(tabla.getFileName() + EXTENSION);
+	}
+
+
+	/**
+	 * Abre un indice proyectandolo en memoria.
+	 *
+	 * @param fichero			ruta del fichero.
+	 * @return IndicePerfecto	indice abierto.
+	 * @throws IOException		si hay un error de entrada/salida o el fichero no
+	 * 							es un indice.
+	 */
+	public static IndicePerfecto abrir(Path fichero) throws IOException {
+		FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ);
+		try {
+			long tamaño = canal.size();
+			if (tamaño > Integer.MAX_VALUE) {
+				throw new IOException("Indice demasiado grande: " + tamaño + " bytes");
+			}
+			return new IndicePerfecto(canal, canal.map(FileChannel.MapMode.READ_ONLY, 0, tamaño));
+		} catch (IOException e) {
+			canal.close();
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Construye el indice de unas claves distintas y lo escribe. El fichero no
+	 * depende del numero de hilos ni del orden de las claves.
+	 *
+	 * @param claves		claves distintas.
+	 * @param hilos			numero de hilos.
+	 * @param destino		fichero del indice, que se sobrescribe.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public static void construir(long[] claves, int hilos, Path destino) throws IOException {
+		if (hilos < 1) {
+			throw new IllegalArgumentException("Numero de hilos incorrecto: " + hilos);
+		}
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			construir(claves, ejecutor, hilos * TRAMOS_POR_HILO, destino);
+		} finally {
+			ejecutor.shutdown();
+		}
+	}
+
+
+	/**
+	 * Construye el indice de unas claves distintas con unos hilos de trabajo y
+	 * lo escribe.
+	 *
+	 * @param claves			claves distintas.
+	 * @param ejecutor			hilos de trabajo.
+	 * @param tramos			numero de tramos en que se reparte cada pasada.
+	 * @param destino			fichero del indice, que se sobrescribe.
+	 * @return IndicePerfecto	indice construido, en memoria.
+	 * @throws IOException		si hay un error de entrada/salida.
+	 */
+	static IndicePerfecto construir(long[] claves, ExecutorService ejecutor, int tramos, Path destino)
+			throws IOException {
+		ByteBuffer contenido = construir(claves, ejecutor, tramos);
+		try (FileChannel salida = FileChannel.open(destino, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (contenido.hasRemaining()) {
+				salida.write(contenido);
+			}
+		}
+		contenido.clear();
+		return new IndicePerfecto(null, contenido);
+	}
+
+
+	/**
+	 * Devuelve el valor de la funcion para una clave.
+	 *
+	 * @param clave	clave.
+	 * @return long	valor entre 0 y el numero de claves menos uno, distinto para
+	 * 				cada clave del indice, o para una clave que no esta un
+	 * 				valor cualquiera o -1.
+	 */
+	public long buscar(long clave) {
+		for (int nivel = 0; nivel < niveles; nivel++) {
+			long bit = primerBit[nivel] + reducir(mezclar(clave, nivel), tamaños[nivel]);
+			int palabra = (int) (bit >>> 6);
+			long bits = datos.getLong(TAMAÑO_CABECERA + palabra * Long.BYTES);
+			long mascara = 1L << bit;
+			if ((bits & mascara) != 0) {
+				int bloque = palabra / PALABRAS_POR_CONTADOR;
+				long valor = datos.getInt(posicionContadores + bloque * Integer.BYTES);
+				for (int anterior = bloque * PALABRAS_POR_CONTADOR; anterior < palabra; anterior++) {
+					valor += Long.bitCount(datos.getLong(TAMAÑO_CABECERA + anterior * Long.BYTES));
+				}
+				return valor + Long.bitCount(bits & (mascara - 1));
+			}
+		}
+		int desde = 0;
+		int hasta = sobrantes - 1;
+		while (desde <= hasta) {
+			int mitad = (desde + hasta) >>> 1;
+			long leida = datos.getLong(posicionSobrantes + mitad * Long.BYTES);
+			if (leida < clave) {
+				desde = mitad + 1;
+			} else if (leida > clave) {
+				hasta = mitad - 1;
+			} else {
+				return claves - sobrantes + mitad;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Devuelve el numero de claves del indice.
+	 *
+	 * @return long	claves.
+	 */
+	public long consultarClaves() {
+		return claves;
+	}
+
+
+	/**
+	 * Devuelve el numero de niveles de la funcion.
+	 *
+	 * @return int	niveles.
+	 */
+	public int consultarNiveles() {
+		return niveles;
+	}
+
+
+	/**
+	 * Devuelve el tamaño del indice.
+	 *
+	 * @return long	tamaño en bytes.
+	 */
+	public long consultarTamaño() {
+		return datos.capacity();
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		if (canal != null) {
+			canal.close();
+		}
+	}
+
+
+	/**
+	 * Construye el indice de una tabla generada sin indice y escribe la tabla
+	 * en el orden del indice.
+	 *
+	 * @param args			fichero de la tabla sin indice, fichero de la tabla
+	 * 						con indice y numero de hilos.
+	 * @throws IOException	si hay un error de entrada/salida.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path origen = Paths.get(args.length > 0 ? args[0] : "quantik.tabla");
+		Path destino = Paths.get(args.length > 1 ? args[1] : "quantik-indice.tabla");
+		int hilos = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		long[] inicios = new long[FormatoTabla.NIVELES + 1];
+		long[] claves;
+		long[] bits;
+		try (TablaResultados tabla = new TablaResultados(FileChannel.open(origen, StandardOpenOption.READ))) {
+			for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+				inicios[nivel + 1] = inicios[nivel] + tabla.consultarPosiciones(nivel);
+			}
+			claves = new long[(int) tabla.consultarPosiciones()];
+			bits = new long[(claves.length + Long.SIZE - 1) / Long.SIZE];
+			for (int i = 0; i < claves.length; i++) {
+				claves[i] = tabla.consultarClave(i);
+				if (tabla.ganaTurno(i)) {
+					bits[i / Long.SIZE] |= 1L << i;
+				}
+			}
+		}
+		long inicio = System.nanoTime();
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			GeneradorTabla.escribirConIndice(inicios, claves, bits, ejecutor, hilos * TRAMOS_POR_HILO, destino);
+		} finally {
+			ejecutor.shutdown();
+		}
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		try (IndicePerfecto indice = abrir(rutaIndice(destino))) {
+			System.out.printf("Indice %s: %d claves, %d niveles, %.2f bits por clave, %.1f s%n", rutaIndice(destino),
+					indice.consultarClaves(), indice.consultarNiveles(),
+					indice.consultarTamaño() * 8.0 / Math.max(1, indice.consultarClaves()), segundos);
+		}
+	}
+
+
+	/**
+	 * Construye el contenido del indice en memoria.
+	 *
+	 * @param claves		claves distintas.
+	 * @param ejecutor		hilos de trabajo.
+	 * @param tramos		numero de tramos en que se reparte cada pasada.
+	 * @return ByteBuffer	contenido listo para escribir.
+	 * @throws IOException	si hay demasiadas claves para un indice.
+	 */
+	private static ByteBuffer construir(long[] claves, ExecutorService ejecutor, int tramos) throws IOException {
+		List<long[]> bitsNiveles = new ArrayList<>();
+		long[] restantes = claves;
+		while (restantes.length > 0 && bitsNiveles.size() < MAXIMO_NIVELES) {
+			int nivel = bitsNiveles.size();
+			long tamaño = ((long) restantes.length * BITS_POR_CLAVE + Long.SIZE - 1) / Long.SIZE * Long.SIZE;
+			AtomicLongArray vistos = new AtomicLongArray((int) (tamaño / Long.SIZE));
+			AtomicLongArray choques = new AtomicLongArray((int) (tamaño / Long.SIZE));
+			long[] actuales = restantes;
+			List<Callable<long[]>> marcar = new ArrayList<>();
+			for (int[] tramo : repartir(actuales.length, tramos)) {
+				marcar.add(() -> {
+					for (int i = tramo[0]; i < tramo[1]; i++) {
+						long bit = reducir(mezclar(actuales[i], nivel), tamaño);
+						long mascara = 1L << bit;
+						if ((vistos.getAndAccumulate((int) (bit >>> 6), mascara, UNION) & mascara) != 0) {
+							choques.getAndAccumulate((int) (bit >>> 6), mascara, UNION);
+						}
+					}
+					return null;
+				});
+			}
+			ejecutar(ejecutor, marcar);
+			List<Callable<long[]>> separar = new ArrayList<>();
+			for (int[] tramo : repartir(actuales.length, tramos)) {
+				separar.add(() -> {
+					long[] siguientes = new long[tramo[1] - tramo[0]];
+					int numero = 0;
+					for (int i = tramo[0]; i < tramo[1]; i++) {
+						long bit = reducir(mezclar(actuales[i], nivel), tamaño);
+						if ((choques.get((int) (bit >>> 6)) & 1L << bit) != 0) {
+							siguientes[numero++] = actuales[i];
+						}
+					}
+					return Arrays.copyOf(siguientes, numero);
+				});
+			}
+			restantes = ListaClaves.concatenar(ejecutar(ejecutor, separar).toArray(new long[0][]));
+			long[] bits = new long[vistos.length()];
+			for (int palabra = 0; palabra < bits.length; palabra++) {
+				bits[palabra] = vistos.get(palabra) & ~choques.get(palabra);
+			}
+			bitsNiveles.add(bits);
+		}
+		long[] sobrantes = restantes.clone();
+		Arrays.sort(sobrantes);
+
+		long totalBits = 0;
+		for (long[] bits : bitsNiveles) {
+			totalBits += (long) bits.length * Long.SIZE;
+		}
+		long tamaño = calcularTamaño(totalBits, sobrantes.length);
+		if (tamaño > Integer.MAX_VALUE) {
+			throw new IOException("Demasiadas claves para un indice: " + claves.length);
+		}
+		ByteBuffer contenido = ByteBuffer.allocate((int) tamaño);
+		contenido.putInt(MARCA);
+		contenido.put(VERSION);
+		contenido.put((byte) bitsNiveles.size());
+		contenido.putShort((short) 0);
+		contenido.putLong(claves.length);
+		contenido.putLong(sobrantes.length);
+		long primero = 0;
+		for (int nivel = 0; nivel < MAXIMO_NIVELES; nivel++) {
+			long bitsNivel = nivel < bitsNiveles.size() ? (long) bitsNiveles.get(nivel).length * Long.SIZE : 0;
+			contenido.putLong(nivel < bitsNiveles.size() ? primero : 0);
+			contenido.putLong(bitsNivel);
+			primero += bitsNivel;
+		}
+		int acumulado = 0;
+		int palabra = 0;
+		int posicionContadores = TAMAÑO_CABECERA + (int) (totalBits / Long.SIZE) * Long.BYTES;
+		for (long[] bits : bitsNiveles) {
+			for (long valor : bits) {
+				if (palabra % PALABRAS_POR_CONTADOR == 0) {
+					contenido.putInt(posicionContadores + palabra / PALABRAS_POR_CONTADOR * Integer.BYTES, acumulado);
+				}
+				contenido.putLong(valor);
+				acumulado += Long.bitCount(valor);
+				palabra++;
+			}
+		}
+		contenido.position(posicionContadores + contadores(totalBits) * Integer.BYTES);
+		for (long clave : sobrantes) {
+			contenido.putLong(clave);
+		}
+		contenido.clear();
+		return contenido;
+	}
+
+
+	/**
+	 * Mezcla los bits de una clave con la semilla de un nivel (finalizador de
+	 * MurmurHash3).
+	 *
+	 * @param clave	clave.
+	 * @param nivel	nivel.
+	 * @return long	hash de 64 bits.
+	 */
+	private static long mezclar(long clave, int nivel) {
+		long h = clave + (nivel + 1) * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ h >>> 33;
+	}
+
+
+	/**
+	 * Lleva un hash al intervalo [0, tamaño) con una multiplicacion en lugar
+	 * de un resto.
+	 *
+	 * @param hash		hash de 64 bits.
+	 * @param tamaño	tamaño del intervalo, menor que 2^32.
+	 * @return long		valor del intervalo.
+	 */
+	private static long reducir(long hash, long tamaño) {
+		return (hash >>> 32) * tamaño >>> 32;
+	}
+
+
+	/**
+	 * Devuelve el numero de contadores de unos niveles, redondeado a par para
+	 * que las claves sobrantes queden alineadas a 8 bytes.
+	 *
+	 * @param bits	bits de todos los niveles.
+	 * @return int	contadores.
+	 */
+	private static int contadores(long bits) {
+		int numero = (int) ((bits / Long.SIZE + PALABRAS_POR_CONTADOR - 1) / PALABRAS_POR_CONTADOR);
+		return (numero + 1) / 2 * 2;
+	}
+
+
+	/**
+	 * Devuelve el tamaño de un indice.
+	 *
+	 * @param bits		bits de todos los niveles.
+	 * @param sobrantes	numero de claves sobrantes.
+	 * @return long		tamaño en bytes.
+	 */
+	private static long calcularTamaño(long bits, long sobrantes) {
+		return TAMAÑO_CABECERA + bits / Long.SIZE * Long.BYTES + (long) contadores(bits) * Integer.BYTES
+				+ sobrantes * Long.BYTES;
+	}
+
+
+	/**
+	 * Reparte un array en tramos.
+	 *
+	 * @param numero	numero de elementos.
+	 * @param tramos	numero de tramos.
+	 * @return List		pares {desde, hasta}.
+	 */
+	private static List<int[]> repartir(int numero, int tramos) {
+		List<int[]> lista = new ArrayList<>();
+		int tamaño = numero / tramos + 1;
+		for (int desde = 0; desde < numero; desde += tamaño) {
+			lista.add(new int[] { desde, Math.min(desde + tamaño, numero) });
+		}
+		return lista;
+	}
+
+
+	/**
+	 * Ejecuta las tareas en los hilos de trabajo y espera sus resultados.
+	 *
+	 * @param ejecutor	hilos de trabajo.
+	 * @param tareas	tareas.
+	 * @return List		resultados en el orden de las tareas.
+	 */
+	private static List<long[]> ejecutar(ExecutorService ejecutor, List<Callable<long[]>> tareas) {
+		List<long[]> resultados = new ArrayList<>(tareas.size());
+		try {
+			for (Future<long[]> tarea : ejecutor.invokeAll(tareas)) {
+				resultados.add(tarea.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Construccion del indice interrumpida", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error en un hilo de construccion del indice", e.getCause());
+		}
+		return resultados;
+	}
+}
@@ -0,0 +1,132 @@
+package quantik.tabla;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de claves que se ordena y elimina repetidas cada vez que se
+ * llena, de modo que ocupa poco mas que las claves distintas que contiene.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+final class ListaClaves {
+
+	/**
+	 * Capacidad inicial.
+	 */
+	private static final int CAPACIDAD = 1 << 12;
+
+
+	/**
+	 * Claves añadidas.
+	 */
+	private long[] claves = new long[CAPACIDAD];
+
+
+	/**
+	 * Numero de claves.
+	 */
+	private int numero;
+
+
+	/**
+	 * Numero de claves del principio ordenadas y sin repetir.
+	 */
+	private int ordenadas;
+
+
+	/**
+	 * Añade una clave.
+	 *
+	 * @param clave	clave.
+	 */
+	void agregar(long clave) {
+		if (numero == claves.length) {
+			compactar();
+			if (numero > claves.length / 2) {
+				claves = Arrays.copyOf(claves, claves.length * 2);
+			}
+		}
+		claves[numero++] = clave;
+	}
+
+
+	/**
+	 * Devuelve las claves distintas ordenadas.
+	 *
+	 * @return long[]	claves ordenadas sin repetir.
+	 */
+	long[] aArray() {
+		compactar();
+		return Arrays.copyOf(claves, numero);
+	}
+
+
+	/**
+	 * Une arrays de claves ordenadas sin repetir en uno solo.
+	 *
+	 * @param partes	arrays ordenados sin repetir.
+	 * @return long[]	claves de todos ordenadas sin repetir.
+	 */
+	static long[] unir(long[][] partes) {
+		long[] unidas = concatenar(partes);
+		Arrays.sort(unidas);
+		return Arrays.copyOf(unidas, quitarRepetidas(unidas, unidas.length));
+	}
+
+
+	/**
+	 * Pone seguidos los arrays de claves.
+	 *
+	 * @param partes	arrays.
+	 * @return long[]	claves de todos en el orden de los arrays.
+	 */
+	static long[] concatenar(long[][] partes) {
+		int total = 0;
+		for (long[] parte : partes) {
+			total += parte.length;
+		}
+		long[] unidas = new long[total];
+		int posicion = 0;
+		for (long[] parte : partes) {
+			System.arraycopy(parte, 0, unidas, posicion, parte.length);
+			posicion += parte.length;
+		}
+		return unidas;
+	}
+
+
+	/**
+	 * Ordena las claves añadidas y quita las repetidas.
+	 */
+	private void compactar() {
+		if (ordenadas < numero) {
+			Arrays.sort(claves, 0, numero);
+			numero = quitarRepetidas(claves, numero);
+			ordenadas = numero;
+		}
+	}
+
+
+	/**
+	 * Quita las claves repetidas del principio ordenado de un array, dejando
+	 * las distintas al principio.
+	 *
+	 * @param claves	claves.
+	 * @param numero	numero de claves ordenadas.
+	 * @return int		numero de claves distintas.
+	 */
+	static int quitarRepetidas(long[] claves, int numero) {
+		if (numero == 0) {
+			return 0;
+		}
+		int siguiente = 1;
+		for (int i = 1; i < numero; i++) {
+			if (claves[i] != claves[siguiente - 1]) {
+				claves[siguiente++] = claves[i];
+			}
+		}
+		return siguiente;
+	}
+}
@@ -0,0 +1,283 @@
+package quantik.tabla;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import quantik.control.Partida;
+import quantik.solver.Solucionador;
+import quantik.solver.TablaTransposicion;
+import quantik.util.Color;
+
+/**
+ * Consulta una tabla de resultados con el formato de FormatoTabla proyectada
+ * en memoria con FileChannel.map.
+ *
+ * Al abrir solo se leen la cabecera y el indice, asi que abrir no depende del
+ * tamaño de la tabla; el sistema operativo carga las paginas de claves a
+ * medida que se consultan. Una tabla en FormatoTabla.ORDEN_HASH necesita su
+ * IndicePerfecto, que tambien se proyecta: cada consulta calcula la posicion
+ * con la funcion hash, comprueba la clave guardada en ella y lee el bit de la
+ * misma posicion, tres accesos a memoria si la clave se resuelve en el primer
+ * nivel de la funcion. Una tabla en FormatoTabla.ORDEN_NIVELES no tiene
+ * indice y la posicion se busca con una busqueda binaria en las claves del
+ * nivel, unos 20 accesos. Las consultas no crean objetos y usan posiciones
+ * absolutas de los buffers, por lo que se pueden hacer desde varios hilos a
+ * la vez.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.tabla.FormatoTabla
+ * @see quantik.tabla.IndicePerfecto
+ *
+ */
+public class TablaResultados implements Closeable {
+
+	/**
+	 * Canal del fichero.
+	 */
+	private final FileChannel canal;
+
+
+	/**
+	 * Contenido del fichero proyectado en memoria.
+	 */
+	private final ByteBuffer datos;
+
+
+	/**
+	 * Primera posicion de cada nivel y total.
+	 */
+	private final long[] inicios;
+
+
+	/**
+	 * Posicion en bytes de los bits de resultado.
+	 */
+	private final int posicionResultados;
+
+
+	/**
+	 * Indice de las claves o null si se usa la busqueda binaria.
+	 */
+	private final IndicePerfecto indice;
+
+
+	/**
+	 * Constructor que proyecta el fichero y comprueba la cabecera, sin indice.
+	 *
+	 * @param canal			canal del fichero, que se cierra al cerrar la tabla.
+	 * @throws IOException	si hay un error de entrada/salida, el fichero no es
+	 * 						una tabla de resultados o necesita su indice.
+	 */
+	public TablaResultados(FileChannel canal) throws IOException {
+		this(canal, null);
+	}
+
+
+	/**
+	 * Constructor que proyecta el fichero y comprueba la cabecera.
+	 *
+	 * @param canal			canal del fichero, que se cierra al cerrar la tabla.
+	 * @param indice		indice de las claves de la tabla, o null si esta en
+	 * 						orden de niveles, que se cierra al cerrar la tabla.
+	 * @throws IOException	si hay un error de entrada/salida, el fichero no es
+	 * 						una tabla de resultados o el indice no es el suyo.
+	 */
+	public TablaResultados(FileChannel canal, IndicePerfecto indice) throws IOException {
+		this.canal = canal;
+		this.indice = indice;
+		long tamaño = canal.size();
+		if (tamaño > Integer.MAX_VALUE) {
+			throw new IOException("Tabla de resultados demasiado grande: " + tamaño + " bytes");
+		}
+		this.datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamaño);
+		this.inicios = FormatoTabla.leerCabecera(datos.duplicate());
+		long total = inicios[FormatoTabla.NIVELES];
+		if (FormatoTabla.calcularTamaño(total) != tamaño) {
+			throw new IOException("Tabla de resultados incompleta");
+		}
+		this.posicionResultados = (int) FormatoTabla.posicionResultados(total);
+		boolean ordenHash = FormatoTabla.consultarOrden(datos) == FormatoTabla.ORDEN_HASH;
+		if (ordenHash && indice == null) {
+			throw new IOException("La tabla de resultados necesita su indice");
+		}
+		if (indice != null && (!ordenHash || indice.consultarClaves() != total)) {
+			throw new IOException("El indice no corresponde a la tabla de resultados");
+		}
+	}
+
+
+	/**
+	 * Abre una tabla de resultados y su indice si existe.
+	 *
+	 * @param fichero			ruta del fichero.
+	 * @return TablaResultados	tabla abierta.
+	 * @throws IOException		si hay un error de entrada/salida, el fichero no
+	 * 							es una tabla de resultados o el indice no es el
+	 * 							suyo.
+	 */
+	public static TablaResultados abrir(Path fichero) throws IOException {
+		FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ);
+		IndicePerfecto indice = null;
+		try {
+			Path rutaIndice = IndicePerfecto.rutaIndice(fichero);
+			if (Files.exists(rutaIndice)) {
+				indice = IndicePerfecto.abrir(rutaIndice);
+			}
+			return new TablaResultados(canal, indice);
+		} catch (IOException e) {
+			canal.close();
+			if (indice != null) {
+				indice.close();
+			}
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Devuelve el ganador de la partida con juego perfecto de los dos colores.
+	 *
+	 * @param partida	partida jugada desde el principio.
+	 * @return Color	color ganador o null si la posicion no esta en la tabla.
+	 */
+	public Color consultarGanador(Partida partida) {
+		if (partida.hayAlgunGrupoCompleto()) {
+			return partida.consultarGanador();
+		}
+		int valor = consultar(partida.consultarClaveCanonica());
+		if (valor == TablaTransposicion.DESCONOCIDO) {
+			return null;
+		}
+		return valor == Solucionador.GANA ? partida.consultarTurno() : partida.consultarTurno().obtenerContrario();
+	}
+
+
+	/**
+	 * Devuelve el resultado de una posicion para el jugador con turno.
+	 *
+	 * @param clave	clave canonica de una posicion sin grupo completo.
+	 * @return int	Solucionador.GANA, Solucionador.PIERDE o
+	 * 				TablaTransposicion.DESCONOCIDO si no esta en la tabla.
+	 */
+	public int consultar(long clave) {
+		long posicion = buscar(clave);
+		if (posicion < 0) {
+			return TablaTransposicion.DESCONOCIDO;
+		}
+		return ganaTurno(posicion) ? Solucionador.GANA : Solucionador.PIERDE;
+	}
+
+
+	/**
+	 * Devuelve el numero de posiciones de la tabla.
+	 *
+	 * @return long	posiciones.
+	 */
+	public long consultarPosiciones() {
+		return inicios[FormatoTabla.NIVELES];
+	}
+
+
+	/**
+	 * Devuelve el numero de posiciones con las piezas indicadas.
+	 *
+	 * @param nivel	numero de piezas.
+	 * @return long	posiciones.
+	 */
+	public long consultarPosiciones(int nivel) {
+		return inicios[nivel + 1] - inicios[nivel];
+	}
+
+
+	/**
+	 * Indica si la tabla tiene indice.
+	 *
+	 * @return boolean	True si la tabla esta en orden hash y las consultas usan
+	 * 					el indice, False si usan la busqueda binaria.
+	 */
+	public boolean tieneIndice() {
+		return indice != null;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		try {
+			canal.close();
+		} finally {
+			if (indice != null) {
+				indice.close();
+			}
+		}
+	}
+
+
+	/**
+	 * Devuelve la clave canonica de una posicion.
+	 *
+	 * @param posicion	numero de posicion.
+	 * @return long		clave.
+	 */
+	long consultarClave(long posicion) {
+		return datos.getLong(FormatoTabla.TAMAÑO_CABECERA + (int) posicion * Long.BYTES);
+	}
+
+
+	/**
+	 * Indica si gana el jugador con turno en una posicion.
+	 *
+	 * @param posicion	numero de posicion.
+	 * @return boolean	True si gana el turno y False si pierde.
+	 */
+	boolean ganaTurno(long posicion) {
+		long bits = datos.getLong(posicionResultados + (int) (posicion / Long.SIZE) * Long.BYTES);
+		return (bits >>> posicion & 1L) != 0;
+	}
+
+
+	/**
+	 * Busca una clave en la posicion que le da el indice o, si no hay, en las
+	 * claves de su nivel.
+	 *
+	 * @param clave	clave canonica.
+	 * @return long	numero de posicion o -1 si no esta.
+	 */
+	long buscar(long clave) {
+		if (indice != null) {
+			long posicion = indice.buscar(clave);
+			return posicion >= 0 && consultarClave(posicion) == clave ? posicion : -1;
+		}
+		return buscarBinaria(clave);
+	}
+
+
+	/**
+	 * Busca una clave en las claves de su nivel.
+	 *
+	 * @param clave	clave canonica.
+	 * @return long	numero de posicion o -1 si no esta.
+	 */
+	long buscarBinaria(long clave) {
+		int nivel = FormatoTabla.contarPiezas(clave);
+		long desde = inicios[nivel];
+		long hasta = inicios[nivel + 1] - 1;
+		while (desde <= hasta) {
+			long mitad = (desde + hasta) >>> 1;
+			long leida = consultarClave(mitad);
+			if (leida < clave) {
+				desde = mitad + 1;
+			} else if (leida > clave) {
+				hasta = mitad - 1;
+			} else {
+				return mitad;
+			}
+		}
+		return -1;
+	}
+}
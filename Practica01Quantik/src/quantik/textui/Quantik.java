@@ -7,6 +7,7 @@ import quantik.modelo.Caja;
 import quantik.modelo.GestorGrupos;
 import quantik.modelo.Pieza;
 import quantik.modelo.Tablero;
+import quantik.solver.BusquedaAlfaBeta;
 import quantik.util.Color;
 import quantik.util.Figura;
 
@@ -25,6 +26,9 @@ public class Quantik {
 	/** Tamaño en caracteres de una jugada. */
 	private static final int TAMAÑO_JUGADA = 4;
 
+	/** Tiempo por defecto del motor para cada jugada en milisegundos. */
+	private static final long TIEMPO_MOTOR = 2000;
+
 	/**
 	 * Partida
 	 */
@@ -45,14 +49,92 @@ public class Quantik {
 	 */
 	private static Scanner scanner;
 
+	/**
+	 * Motor que juega con el color colorMotor.
+	 */
+	private static BusquedaAlfaBeta motor;
+
+	/**
+	 * Color con el que juega el motor o null si juegan dos personas.
+	 */
+	private static Color colorMotor;
+
+	/**
+	 * Tiempo del motor para cada jugada en milisegundos.
+	 */
+	private static long tiempoMotor;
+
 	/**
 	 * Método raíz.
 	 * 
-	 * @param args argumentos de entrada
+	 * @param args argumentos de entrada: opcionalmente el color con el que juega
+	 *             el motor ("blanco" o "negro") y sus milisegundos por jugada
 	 */
 	public static void main(String[] args) {
-		// A COMPLETAR POR EL ALUMNADO 
-		// REUTILIZANDO LOS MÉTODOS DISPONIBLES
+		colorMotor = args.length > 0 ? leerColor(args[0]) : null;
+		tiempoMotor = args.length > 1 ? Long.parseLong(args[1]) : TIEMPO_MOTOR;
+		motor = new BusquedaAlfaBeta();
+		inicializarPartida();
+		mostrarMensajeBienvenida();
+		mostrarTableroEnFormatoTexto();
+		while (!comprobarSiFinalizaPartida()) {
+			String jugada;
+			if (partida.consultarTurno() == colorMotor) {
+				jugada = calcularJugadaMotor();
+			} else {
+				jugada = recogerJugada();
+				if (jugada.equals("salir")) {
+					mostrarInterrupcionPartida();
+					break;
+				}
+				if (!validarFormato(jugada)) {
+					mostrarErrorEnFormatoDeEntrada();
+					continue;
+				}
+				if (!validarLegalidad(jugada)) {
+					mostrarErrorEnLegalidadJugada();
+					continue;
+				}
+			}
+			realizarJugada(jugada);
+			mostrarTableroEnFormatoTexto();
+			if (partida.hayAlgunGrupoCompleto()) {
+				break;
+			}
+			avanzarTurno();
+		}
+		finalizarPartida();
+	}
+
+	/**
+	 * Obtiene el color del motor a partir de su nombre.
+	 * 
+	 * @param texto "blanco" o "negro", sin distinguir mayúsculas
+	 * @return color del motor
+	 */
+	private static Color leerColor(String texto) {
+		for (Color color : Color.values()) {
+			if (color.name().equalsIgnoreCase(texto)) {
+				return color;
+			}
+		}
+		throw new IllegalArgumentException("Color desconocido: " + texto);
+	}
+
+	/**
+	 * Calcula la jugada del motor dentro de su tiempo y la muestra junto con la
+	 * profundidad alcanzada y los nodos por segundo.
+	 * 
+	 * @return jugada en formato nnll
+	 */
+	private static String calcularJugadaMotor() {
+		int codificada = motor.buscar(partida, tiempoMotor);
+		int celda = codificada >>> 2;
+		String jugada = "" + celda / 4 + celda % 4 + Figura.values()[codificada & 0x3].aTexto();
+		System.out.printf("Jugada del motor con turno %s: %s (profundidad %d, valor %d, %d nodos, %.0f nodos/s)%n",
+				partida.consultarTurno(), jugada, motor.consultarProfundidad(), motor.consultarValor(),
+				motor.consultarNodos(), motor.consultarNodosPorSegundo());
+		return jugada;
 	}
 	
 	/**
@@ -167,7 +249,7 @@ public class Quantik {
 	 */
 	private static void finalizarPartida() {
 		if (partida.estaAcabadaPartida()) {
-			System.out.printf("Ganada la partida por el jugador con turno %s.%n", partida.consultarTurno());
+			System.out.printf("Ganada la partida por el jugador con turno %s.%n", partida.consultarGanador());
 		}
 		scanner.close();
 	}
@@ -0,0 +1,41 @@
+package quantik.torneo;
+
+import java.util.SplittableRandom;
+
+import quantik.control.Partida;
+
+/**
+ * Estrategia que elige la jugada del turno actual de una partida.
+ *
+ * Las jugadas se codifican como en Partida.generarJugadasLegales:
+ * (fila * 4 + columna) << 2 | ordinal de la figura. Un jugador puede hacer y
+ * deshacer jugadas sobre la partida para decidir, pero debe dejarla en la
+ * misma posicion. El generador que recibe es el de la partida en curso, de modo
+ * que con la misma semilla se juega siempre la misma partida.
+ *
+ * Cada instancia la usa un solo hilo; el torneo crea una por hilo de trabajo.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.torneo.Torneo
+ *
+ */
+public interface Jugador {
+
+	/**
+	 * Elige una jugada legal del turno actual.
+	 *
+	 * @param partida	partida no acabada.
+	 * @param random	generador de la partida en curso.
+	 * @return int		jugada codificada.
+	 */
+	int elegirJugada(Partida partida, SplittableRandom random);
+
+
+	/**
+	 * Devuelve el nombre del jugador para los informes.
+	 *
+	 * @return String	nombre.
+	 */
+	String consultarNombre();
+}
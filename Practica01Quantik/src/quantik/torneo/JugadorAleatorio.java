@@ -0,0 +1,32 @@
+package quantik.torneo;
+
+import java.util.SplittableRandom;
+
+import quantik.control.Partida;
+
+/**
+ * Jugador que elige una jugada legal al azar.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+public class JugadorAleatorio implements Jugador {
+
+	/**
+	 * Jugadas legales de la posicion actual.
+	 */
+	private final int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+
+
+	@Override
+	public int elegirJugada(Partida partida, SplittableRandom random) {
+		return jugadas[random.nextInt(partida.generarJugadasLegales(jugadas))];
+	}
+
+
+	@Override
+	public String consultarNombre() {
+		return "aleatorio";
+	}
+}
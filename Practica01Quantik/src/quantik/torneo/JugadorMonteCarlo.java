@@ -0,0 +1,58 @@
+package quantik.torneo;
+
+import java.util.SplittableRandom;
+
+import quantik.control.Partida;
+import quantik.solver.BusquedaMonteCarlo;
+
+/**
+ * Jugador que elige cada jugada con una busqueda de Monte Carlo de un numero
+ * fijo de simulaciones en un solo hilo, de modo que las partidas del torneo
+ * se pueden repetir con la misma semilla.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.BusquedaMonteCarlo
+ *
+ */
+public class JugadorMonteCarlo implements Jugador {
+
+	/**
+	 * Nodos del arbol de cada busqueda.
+	 */
+	private static final int CAPACIDAD = 1 << 16;
+
+
+	/**
+	 * Simulaciones por jugada.
+	 */
+	private final int simulaciones;
+
+
+	/**
+	 * Busqueda propia del jugador.
+	 */
+	private final BusquedaMonteCarlo busqueda = new BusquedaMonteCarlo(1, CAPACIDAD);
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param simulaciones	simulaciones por jugada.
+	 */
+	public JugadorMonteCarlo(int simulaciones) {
+		this.simulaciones = simulaciones;
+	}
+
+
+	@Override
+	public int elegirJugada(Partida partida, SplittableRandom random) {
+		return busqueda.buscar(partida, Long.MAX_VALUE, simulaciones, random.nextLong());
+	}
+
+
+	@Override
+	public String consultarNombre() {
+		return "montecarlo(" + simulaciones + ")";
+	}
+}
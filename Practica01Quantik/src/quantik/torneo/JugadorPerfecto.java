@@ -0,0 +1,72 @@
+package quantik.torneo;
+
+import java.util.SplittableRandom;
+
+import quantik.control.Partida;
+import quantik.solver.Solucion;
+import quantik.solver.Solucionador;
+import quantik.solver.TablaTransposicionSecuencial;
+
+/**
+ * Jugador que resuelve la posicion con el Solucionador a partir de una jugada
+ * dada y juega como JugadorVoraz antes de ella o cuando la posicion esta
+ * perdida, para ponerle las cosas dificiles al contrario.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.solver.Solucionador
+ *
+ */
+public class JugadorPerfecto implements Jugador {
+
+	/**
+	 * Tamaño de la tabla del solucionador (2^18 entradas).
+	 */
+	private static final int BITS_TABLA = 18;
+
+
+	/**
+	 * Numero de jugada a partir del cual se resuelve.
+	 */
+	private final int desdeJugada;
+
+
+	/**
+	 * Solucionador propio del jugador.
+	 */
+	private final Solucionador solucionador = new Solucionador(new TablaTransposicionSecuencial(BITS_TABLA));
+
+
+	/**
+	 * Jugador para las posiciones que no se resuelven.
+	 */
+	private final JugadorVoraz voraz = new JugadorVoraz();
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param desdeJugada	numero de jugada a partir del cual se resuelve.
+	 */
+	public JugadorPerfecto(int desdeJugada) {
+		this.desdeJugada = desdeJugada;
+	}
+
+
+	@Override
+	public int elegirJugada(Partida partida, SplittableRandom random) {
+		if (partida.consultarNumeroJugada() >= desdeJugada) {
+			Solucion solucion = solucionador.resolver(partida);
+			if (solucion.ganaTurno() && solucion.tieneJugada()) {
+				return solucion.consultarJugada();
+			}
+		}
+		return voraz.elegirJugada(partida, random);
+	}
+
+
+	@Override
+	public String consultarNombre() {
+		return "perfecto(" + desdeJugada + ")";
+	}
+}
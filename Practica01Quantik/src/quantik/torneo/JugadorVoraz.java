@@ -0,0 +1,87 @@
+package quantik.torneo;
+
+import java.util.SplittableRandom;
+
+import quantik.control.Partida;
+import quantik.util.Figura;
+
+/**
+ * Jugador que mira una jugada por delante.
+ *
+ * Completa un grupo si puede; si no, prefiere una jugada que deje bloqueado al
+ * contrario y despues una que no le deje completar un grupo. Entre las
+ * jugadas del mismo tipo elige al azar.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+public class JugadorVoraz implements Jugador {
+
+	/**
+	 * Figuras indexadas por su ordinal.
+	 */
+	private static final Figura[] FIGURAS = Figura.values();
+
+
+	/**
+	 * Jugadas legales de la posicion actual.
+	 */
+	private final int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+
+
+	/**
+	 * Jugadas que no dejan ganar al contrario.
+	 */
+	private final int[] seguras = new int[Partida.MAXIMO_JUGADAS];
+
+
+	@Override
+	public int elegirJugada(Partida partida, SplittableRandom random) {
+		int ganadora = buscarJugadaGanadora(partida);
+		if (ganadora >= 0) {
+			return ganadora;
+		}
+		int numero = partida.generarJugadasLegales(jugadas);
+		int numeroSeguras = 0;
+		for (int i = 0; i < numero; i++) {
+			int testigo = partida.hacerJugada(jugadas[i]);
+			boolean bloquea = partida.estaBloqueadoTurnoActual();
+			boolean segura = bloquea || buscarJugadaGanadora(partida) < 0;
+			partida.deshacerJugada(testigo);
+			if (bloquea) {
+				return jugadas[i];
+			}
+			if (segura) {
+				seguras[numeroSeguras++] = jugadas[i];
+			}
+		}
+		if (numeroSeguras > 0) {
+			return seguras[random.nextInt(numeroSeguras)];
+		}
+		return jugadas[random.nextInt(numero)];
+	}
+
+
+	@Override
+	public String consultarNombre() {
+		return "voraz";
+	}
+
+
+	/**
+	 * Busca una jugada del turno actual que complete un grupo.
+	 *
+	 * @param partida	partida.
+	 * @return int		jugada codificada o -1 si no hay.
+	 */
+	static int buscarJugadaGanadora(Partida partida) {
+		for (Figura figura : FIGURAS) {
+			int celdas = partida.consultarJugadasGanadoras(figura);
+			if (celdas != 0) {
+				return Integer.numberOfTrailingZeros(celdas) << 2 | figura.ordinal();
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,197 @@
+package quantik.torneo;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import quantik.util.Color;
+
+/**
+ * Resultados acumulados de un torneo entre dos jugadores.
+ *
+ * Por cada jugador y color se cuentan las partidas ganadas, las perdidas y,
+ * de estas, las perdidas por quedarse bloqueado. Los contadores son LongAdder,
+ * de modo que todos los hilos del torneo pueden anotar a la vez sin cerrojos.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.torneo.Torneo
+ *
+ */
+public final class Marcador {
+
+	/**
+	 * Indices de cada contador dentro de los de un jugador y color.
+	 */
+	private static final int GANADAS = 0;
+	private static final int PERDIDAS = 1;
+	private static final int BLOQUEADAS = 2;
+
+
+	/**
+	 * Numero de contadores de cada jugador y color.
+	 */
+	private static final int CONTADORES = 3;
+
+
+	/**
+	 * Nombres de los dos jugadores.
+	 */
+	private final String[] nombres;
+
+
+	/**
+	 * Contadores indexados por (jugador * 2 + color) * CONTADORES + contador.
+	 */
+	private final LongAdder[] contadores = new LongAdder[2 * 2 * CONTADORES];
+
+
+	/**
+	 * Nanosegundos empleados en jugar las partidas.
+	 */
+	private volatile long nanosegundos;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param primero	nombre del primer jugador.
+	 * @param segundo	nombre del segundo jugador.
+	 */
+	public Marcador(String primero, String segundo) {
+		this.nombres = new String[] { primero, segundo };
+		for (int i = 0; i < contadores.length; i++) {
+			contadores[i] = new LongAdder();
+		}
+	}
+
+
+	/**
+	 * Anota el resultado de una partida.
+	 *
+	 * @param blancas	indice (0 o 1) del jugador con blancas.
+	 * @param ganador	color ganador.
+	 * @param bloqueo	True si el perdedor se quedo bloqueado.
+	 */
+	void anotar(int blancas, Color ganador, boolean bloqueo) {
+		int jugadorGanador = ganador == Color.BLANCO ? blancas : 1 - blancas;
+		contador(jugadorGanador, ganador, GANADAS).increment();
+		contador(1 - jugadorGanador, ganador.obtenerContrario(), PERDIDAS).increment();
+		if (bloqueo) {
+			contador(1 - jugadorGanador, ganador.obtenerContrario(), BLOQUEADAS).increment();
+		}
+	}
+
+
+	/**
+	 * Guarda el tiempo empleado en el torneo.
+	 *
+	 * @param nanosegundos	nanosegundos.
+	 */
+	void anotarTiempo(long nanosegundos) {
+		this.nanosegundos = nanosegundos;
+	}
+
+
+	/**
+	 * Devuelve el nombre de un jugador.
+	 *
+	 * @param jugador	indice del jugador (0 o 1).
+	 * @return String	nombre.
+	 */
+	public String consultarNombre(int jugador) {
+		return nombres[jugador];
+	}
+
+
+	/**
+	 * Devuelve las partidas ganadas por un jugador con un color.
+	 *
+	 * @param jugador	indice del jugador (0 o 1).
+	 * @param color		color con el que jugo.
+	 * @return long		partidas ganadas.
+	 */
+	public long consultarGanadas(int jugador, Color color) {
+		return contador(jugador, color, GANADAS).sum();
+	}
+
+
+	/**
+	 * Devuelve las partidas perdidas por un jugador con un color.
+	 *
+	 * @param jugador	indice del jugador (0 o 1).
+	 * @param color		color con el que jugo.
+	 * @return long		partidas perdidas, incluidas las perdidas por bloqueo.
+	 */
+	public long consultarPerdidas(int jugador, Color color) {
+		return contador(jugador, color, PERDIDAS).sum();
+	}
+
+
+	/**
+	 * Devuelve las partidas perdidas por un jugador con un color por quedarse
+	 * sin jugadas legales.
+	 *
+	 * @param jugador	indice del jugador (0 o 1).
+	 * @param color		color con el que jugo.
+	 * @return long		partidas perdidas por bloqueo.
+	 */
+	public long consultarBloqueadas(int jugador, Color color) {
+		return contador(jugador, color, BLOQUEADAS).sum();
+	}
+
+
+	/**
+	 * Devuelve el numero total de partidas anotadas.
+	 *
+	 * @return long	partidas.
+	 */
+	public long consultarPartidas() {
+		long total = 0;
+		for (int jugador = 0; jugador < 2; jugador++) {
+			for (Color color : Color.values()) {
+				total += consultarGanadas(jugador, color);
+			}
+		}
+		return total;
+	}
+
+
+	/**
+	 * Devuelve las partidas jugadas por segundo.
+	 *
+	 * @return double	partidas por segundo o 0 si no se ha anotado el tiempo.
+	 */
+	public double consultarPartidasPorSegundo() {
+		return nanosegundos == 0 ? 0 : consultarPartidas() * 1e9 / nanosegundos;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder texto = new StringBuilder();
+		texto.append(String.format("%-16s %-8s %10s %10s %10s%n", "jugador", "color", "ganadas", "perdidas",
+				"bloqueado"));
+		for (int jugador = 0; jugador < 2; jugador++) {
+			for (Color color : Color.values()) {
+				texto.append(String.format("%-16s %-8s %10d %10d %10d%n", nombres[jugador], color,
+						consultarGanadas(jugador, color), consultarPerdidas(jugador, color),
+						consultarBloqueadas(jugador, color)));
+			}
+		}
+		texto.append(String.format("%d partidas, %.0f partidas/s", consultarPartidas(),
+				consultarPartidasPorSegundo()));
+		return texto.toString();
+	}
+
+
+	/**
+	 * Devuelve un contador.
+	 *
+	 * @param jugador	indice del jugador.
+	 * @param color		color.
+	 * @param contador	indice del contador.
+	 * @return LongAdder	contador.
+	 */
+	private LongAdder contador(int jugador, Color color, int contador) {
+		return contadores[(jugador * 2 + color.ordinal()) * CONTADORES + contador];
+	}
+}
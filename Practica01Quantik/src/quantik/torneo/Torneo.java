@@ -0,0 +1,286 @@
+package quantik.torneo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Enfrenta dos jugadores en muchas partidas repartidas entre varios hilos.
+ *
+ * Las partidas se juegan por parejas: las dos parten de la misma apertura de
+ * jugadas al azar y en cada una un jugador lleva las blancas. La apertura y las
+ * decisiones al azar de los jugadores salen de un generador propio de cada
+ * pareja, calculado a partir de la semilla del torneo y del numero de pareja,
+ * asi que el resultado de cada partida no depende del hilo que la juegue ni del
+ * numero de hilos.
+ *
+ * Cada hilo reserva lotes de partidas con un contador atomico, tiene sus
+ * propios jugadores y una sola partida que reutiliza deshaciendo las jugadas
+ * al terminar, y anota los resultados en un Marcador comun sin cerrojos. Las
+ * mesas de los hilos se crean antes de repartirlas y los nombres del marcador
+ * salen de los jugadores de la primera, de modo que no se crea ningun jugador
+ * solo para consultar su nombre.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ * @see quantik.torneo.Jugador
+ * @see quantik.torneo.Marcador
+ *
+ */
+public class Torneo {
+
+	/**
+	 * Indice del primer jugador en el marcador.
+	 */
+	public static final int PRIMERO = 0;
+
+
+	/**
+	 * Indice del segundo jugador en el marcador.
+	 */
+	public static final int SEGUNDO = 1;
+
+
+	/**
+	 * Partidas que reserva un hilo cada vez.
+	 */
+	private static final int LOTE = 64;
+
+
+	/**
+	 * Numero maximo de jugadas de una partida: una por celda.
+	 */
+	private static final int MAXIMO_JUGADAS_PARTIDA = 16;
+
+
+	/**
+	 * Crea las instancias del primer y del segundo jugador.
+	 */
+	private final List<Supplier<Jugador>> jugadores;
+
+
+	/**
+	 * Jugadas al azar de cada apertura.
+	 */
+	private final int jugadasApertura;
+
+
+	/**
+	 * Numero de hilos.
+	 */
+	private final int hilos;
+
+
+	/**
+	 * Hilos de trabajo.
+	 */
+	private final ExecutorService ejecutor;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param primero			crea instancias del primer jugador.
+	 * @param segundo			crea instancias del segundo jugador.
+	 * @param hilos				numero de hilos.
+	 * @param jugadasApertura	jugadas al azar antes de que jueguen los jugadores.
+	 */
+	public Torneo(Supplier<Jugador> primero, Supplier<Jugador> segundo, int hilos, int jugadasApertura) {
+		if (jugadasApertura < 0 || jugadasApertura >= MAXIMO_JUGADAS_PARTIDA) {
+			throw new IllegalArgumentException("Numero de jugadas de apertura incorrecto: " + jugadasApertura);
+		}
+		this.jugadores = List.of(primero, segundo);
+		this.jugadasApertura = jugadasApertura;
+		this.hilos = hilos;
+		this.ejecutor = Executors.newFixedThreadPool(hilos);
+	}
+
+
+	/**
+	 * Juega las partidas indicadas y devuelve el marcador.
+	 *
+	 * @param partidas	numero de partidas.
+	 * @param semilla	semilla del torneo.
+	 * @return Marcador	resultados y partidas por segundo.
+	 */
+	public Marcador jugar(long partidas, long semilla) {
+		List<Mesa> mesas = new ArrayList<>(hilos);
+		for (int i = 0; i < hilos; i++) {
+			mesas.add(new Mesa());
+		}
+		Jugador[] propios = mesas.get(0).propios;
+		Marcador marcador = new Marcador(propios[PRIMERO].consultarNombre(), propios[SEGUNDO].consultarNombre());
+		AtomicLong siguiente = new AtomicLong();
+		long inicio = System.nanoTime();
+		List<Future<?>> tareas = new ArrayList<>(hilos);
+		for (Mesa mesa : mesas) {
+			tareas.add(ejecutor.submit(() -> mesa.jugar(siguiente, partidas, semilla, marcador)));
+		}
+		try {
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Torneo interrumpido", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error en un hilo del torneo", e.getCause());
+		}
+		marcador.anotarTiempo(System.nanoTime() - inicio);
+		return marcador;
+	}
+
+
+	/**
+	 * Detiene los hilos de trabajo.
+	 */
+	public void cerrar() {
+		ejecutor.shutdown();
+	}
+
+
+	/**
+	 * Devuelve la semilla de una pareja de partidas.
+	 *
+	 * @param semilla	semilla del torneo.
+	 * @param pareja	numero de pareja.
+	 * @return long		semilla de la pareja.
+	 */
+	static long semillaPareja(long semilla, long pareja) {
+		return new SplittableRandom(semilla + pareja).nextLong();
+	}
+
+
+	/**
+	 * Juega un torneo y muestra el marcador.
+	 *
+	 * @param args	partidas, hilos, semilla, primer jugador, segundo jugador y
+	 * 				jugadas de apertura; los jugadores pueden ser "aleatorio",
+	 * 				"voraz", "perfecto" o "montecarlo".
+	 */
+	public static void main(String[] args) {
+		long partidas = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+		int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long semilla = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+		Supplier<Jugador> primero = crearJugador(args.length > 3 ? args[3] : "voraz");
+		Supplier<Jugador> segundo = crearJugador(args.length > 4 ? args[4] : "aleatorio");
+		int apertura = args.length > 5 ? Integer.parseInt(args[5]) : 2;
+		Torneo torneo = new Torneo(primero, segundo, hilos, apertura);
+		try {
+			System.out.println(torneo.jugar(partidas, semilla));
+		} finally {
+			torneo.cerrar();
+		}
+	}
+
+
+	/**
+	 * Devuelve la fabrica de un jugador por su nombre.
+	 *
+	 * @param nombre			"aleatorio", "voraz", "perfecto" o "montecarlo".
+	 * @return Supplier			fabrica de jugadores.
+	 */
+	private static Supplier<Jugador> crearJugador(String nombre) {
+		switch (nombre) {
+		case "aleatorio":
+			return JugadorAleatorio::new;
+		case "voraz":
+			return JugadorVoraz::new;
+		case "perfecto":
+			return () -> new JugadorPerfecto(6);
+		case "montecarlo":
+			return () -> new JugadorMonteCarlo(2000);
+		default:
+			throw new IllegalArgumentException("Jugador desconocido: " + nombre);
+		}
+	}
+
+
+	/**
+	 * Estado de un hilo de trabajo: sus jugadores y su partida.
+	 */
+	private final class Mesa {
+
+		/**
+		 * Jugadores propios del hilo, indexados como en el marcador.
+		 */
+		private final Jugador[] propios = { jugadores.get(PRIMERO).get(), jugadores.get(SEGUNDO).get() };
+
+		/**
+		 * Partida reutilizada en todas las partidas del hilo.
+		 */
+		private final Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO),
+				new Caja(Color.NEGRO));
+
+		/**
+		 * Jugadas legales para la apertura.
+		 */
+		private final int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+
+		/**
+		 * Testigos de las jugadas de la partida en curso.
+		 */
+		private final int[] testigos = new int[MAXIMO_JUGADAS_PARTIDA];
+
+		/**
+		 * Juega lotes de partidas hasta que no quedan.
+		 *
+		 * @param siguiente	numero de la siguiente partida sin reservar.
+		 * @param partidas	numero total de partidas.
+		 * @param semilla	semilla del torneo.
+		 * @param marcador	marcador comun.
+		 */
+		void jugar(AtomicLong siguiente, long partidas, long semilla, Marcador marcador) {
+			for (long lote = siguiente.getAndAdd(LOTE); lote < partidas; lote = siguiente.getAndAdd(LOTE)) {
+				long fin = Math.min(lote + LOTE, partidas);
+				for (long numero = lote; numero < fin; numero++) {
+					jugarPartida(numero, semilla, marcador);
+				}
+			}
+		}
+
+		/**
+		 * Juega una partida, la anota y devuelve la partida al tablero vacio.
+		 *
+		 * @param numero	numero de la partida.
+		 * @param semilla	semilla del torneo.
+		 * @param marcador	marcador comun.
+		 */
+		private void jugarPartida(long numero, long semilla, Marcador marcador) {
+			SplittableRandom random = new SplittableRandom(semillaPareja(semilla, numero / 2));
+			int blancas = (int) (numero % 2);
+			int hechas = 0;
+			while (hechas < jugadasApertura && !partida.estaAcabadaPartida()) {
+				int jugada = jugadas[random.nextInt(partida.generarJugadasLegales(jugadas))];
+				testigos[hechas++] = partida.hacerJugada(jugada);
+				if (partida.estaAcabadaPartida()) {
+					partida.deshacerJugada(testigos[--hechas]);
+					break;
+				}
+			}
+			while (!partida.estaAcabadaPartida()) {
+				Jugador jugador = propios[partida.consultarTurno() == Color.BLANCO ? blancas : 1 - blancas];
+				int jugada = jugador.elegirJugada(partida, random);
+				if (!partida.esJugadaLegalEnTurnoActual(jugada)) {
+					throw new IllegalStateException("Jugada ilegal de " + jugador.consultarNombre() + ": " + jugada);
+				}
+				testigos[hechas++] = partida.hacerJugada(jugada);
+			}
+			marcador.anotar(blancas, partida.consultarGanador(), !partida.hayAlgunGrupoCompleto());
+			while (hechas > 0) {
+				partida.deshacerJugada(testigos[--hechas]);
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package quantik.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Claves de Zobrist de 64 bits para identificar posiciones de Quantik.
+ *
+ * La clave de una posicion es el XOR de las claves de cada pieza colocada en
+ * el tablero, de las claves del numero de piezas de cada figura que quedan en
+ * cada caja y, si le toca mover a las negras, de la clave del turno. Al mover
+ * basta con hacer XOR de las claves que cambian.
+ *
+ * Las tablas se generan con una semilla fija, de modo que las claves son las
+ * mismas en todas las ejecuciones y pueden guardarse en disco.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+public final class Zobrist {
+
+	/**
+	 * Semilla de generacion de las tablas.
+	 */
+	private static final long SEMILLA = 0x5155414E54494BL;
+
+
+	/**
+	 * Numero de celdas del tablero.
+	 */
+	private static final int NUMERO_CELDAS = 16;
+
+
+	/**
+	 * Maximo de piezas de una figura en una caja.
+	 */
+	private static final int MAXIMO_POR_FIGURA = 2;
+
+
+	/**
+	 * Claves de pieza indexadas por [color][figura][celda].
+	 */
+	private static final long[][][] PIEZAS;
+
+
+	/**
+	 * Claves de caja indexadas por [color][figura][piezas disponibles].
+	 */
+	private static final long[][][] CAJAS;
+
+
+	/**
+	 * Clave del turno de las negras.
+	 */
+	private static final long TURNO_NEGRO;
+
+
+	static {
+		SplittableRandom random = new SplittableRandom(SEMILLA);
+		int colores = Color.values().length;
+		int figuras = Figura.values().length;
+		PIEZAS = new long[colores][figuras][NUMERO_CELDAS];
+		CAJAS = new long[colores][figuras][MAXIMO_POR_FIGURA + 1];
+		for (int color = 0; color < colores; color++) {
+			for (int figura = 0; figura < figuras; figura++) {
+				for (int celda = 0; celda < NUMERO_CELDAS; celda++) {
+					PIEZAS[color][figura][celda] = random.nextLong();
+				}
+				for (int cantidad = 0; cantidad <= MAXIMO_POR_FIGURA; cantidad++) {
+					CAJAS[color][figura][cantidad] = random.nextLong();
+				}
+			}
+		}
+		TURNO_NEGRO = random.nextLong();
+	}
+
+
+	private Zobrist() {
+		// solo metodos de clase
+	}
+
+
+	/**
+	 * Devuelve la clave de una pieza colocada en una celda.
+	 *
+	 * @param figura	figura de la pieza.
+	 * @param color		color de la pieza.
+	 * @param celda		indice de la celda (fila * 4 + columna).
+	 * @return long		clave de la pieza en la celda.
+	 */
+	public static long clavePieza(Figura figura, Color color, int celda) {
+		return PIEZAS[color.ordinal()][figura.ordinal()][celda];
+	}
+
+
+	/**
+	 * Devuelve la clave del numero de piezas de una figura que quedan en una
+	 * caja.
+	 *
+	 * @param color			color de la caja.
+	 * @param figura		figura.
+	 * @param disponibles	piezas de esa figura en la caja, de 0 a 2.
+	 * @return long			clave del contenido.
+	 */
+	public static long claveCaja(Color color, Figura figura, int disponibles) {
+		return CAJAS[color.ordinal()][figura.ordinal()][disponibles];
+	}
+
+
+	/**
+	 * Devuelve la clave del turno.
+	 *
+	 * @param turno	color con turno.
+	 * @return long	clave del turno, cero para las blancas.
+	 */
+	public static long claveTurno(Color turno) {
+		return turno == Color.NEGRO ? TURNO_NEGRO : 0L;
+	}
+}
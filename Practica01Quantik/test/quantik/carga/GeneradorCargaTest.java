@@ -0,0 +1,117 @@
+package quantik.carga;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import quantik.carga.GeneradorCarga.Informe;
+import quantik.servidor.RegistroMesas;
+import quantik.servidor.ServidorNio;
+import quantik.servidor.ServidorPartidas;
+
+/**
+ * Tests sobre el generador de carga contra los dos servidores.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre GeneradorCarga (depende de los servidores).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class GeneradorCargaTest {
+
+	/**
+	 * Comprueba un informe sin errores y con todas las partidas cerradas.
+	 *
+	 * @param informe informe
+	 * @param mesas registro del servidor
+	 */
+	private void comprobar(Informe informe, RegistroMesas mesas) {
+		assertAll("informe",
+				() -> assertThat(informe.consultarErrores(), is(0L)),
+				() -> assertThat(informe.consultarPartidas(), is(greaterThan(0L))),
+				() -> assertThat(informe.consultarPeticiones(), is(informe.consultarLatencias().consultarTotal())),
+				() -> assertThat(informe.consultarPeticionesPorSegundo() > 0, is(true)),
+				() -> assertThat(mesas.contar(), is(0)));
+	}
+
+	/**
+	 * Genera carga contra el servidor de texto.
+	 *
+	 * @throws IOException si falla la conexion
+	 */
+	@Test
+	@DisplayName("Comprobar la carga contra el servidor de texto.")
+	void probarServidorTexto() throws IOException {
+		RegistroMesas mesas = new RegistroMesas();
+		ServidorPartidas servidor = new ServidorPartidas(mesas);
+		int puerto = servidor.iniciar(0);
+		try {
+			Informe informe = new GeneradorCarga(() -> new ConexionTexto(puerto), 200, 2).ejecutar(500, 1L);
+			comprobar(informe, mesas);
+		} finally {
+			servidor.cerrar();
+		}
+	}
+
+	/**
+	 * Genera carga contra el servidor binario.
+	 *
+	 * @throws IOException si falla la conexion
+	 */
+	@Test
+	@DisplayName("Comprobar la carga contra el servidor binario.")
+	void probarServidorBinario() throws IOException {
+		RegistroMesas mesas = new RegistroMesas();
+		ServidorNio servidor = new ServidorNio(mesas, 2);
+		int puerto = servidor.iniciar(0);
+		try {
+			Informe informe = new GeneradorCarga(() -> new ConexionBinaria(puerto), 200, 2).ejecutar(500, 2L);
+			comprobar(informe, mesas);
+		} finally {
+			servidor.cerrar();
+		}
+	}
+
+	/**
+	 * Comprueba que las partidas con respuestas inesperadas se cuentan como
+	 * errores y se cierran en el servidor.
+	 *
+	 * @throws IOException si falla la conexion
+	 */
+	@Test
+	@DisplayName("Comprobar que se cierran las partidas abandonadas.")
+	void probarPartidasAbandonadas() throws IOException {
+		RegistroMesas mesas = new RegistroMesas();
+		ServidorNio servidor = new ServidorNio(mesas, 2);
+		int puerto = servidor.iniciar(0);
+		try {
+			Informe informe = new GeneradorCarga(() -> new ConexionBinaria(puerto) {
+
+				/** Jugadas enviadas. */
+				private int enviadas;
+
+				@Override
+				protected void codificarJugada(ByteBuffer destino, long id, int jugada) {
+					// una de cada siete jugadas va a una partida que no existe
+					super.codificarJugada(destino, ++enviadas % 7 == 0 ? id + (1L << 40) : id, jugada);
+				}
+			}, 50, 2).ejecutar(300, 3L);
+			assertAll("abandonadas",
+					() -> assertThat(informe.consultarErrores(), is(greaterThan(0L))),
+					() -> assertThat(mesas.contar(), is(0)));
+		} finally {
+			servidor.cerrar();
+		}
+	}
+}
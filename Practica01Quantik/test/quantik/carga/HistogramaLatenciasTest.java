@@ -0,0 +1,109 @@
+package quantik.carga;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests sobre el histograma de latencias.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre HistogramaLatencias.")
+@Tag("UnitTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class HistogramaLatenciasTest {
+
+	/**
+	 * Comprueba que los valores pequeños se guardan exactos.
+	 */
+	@Test
+	@DisplayName("Comprobar valores pequeños.")
+	void probarValoresPequeños() {
+		HistogramaLatencias histograma = new HistogramaLatencias();
+		for (long valor = 1; valor <= 100; valor++) {
+			histograma.registrar(valor);
+		}
+		assertAll("valores pequeños",
+				() -> assertThat(histograma.consultarTotal(), is(100L)),
+				() -> assertThat(histograma.consultarMinimo(), is(1L)),
+				() -> assertThat(histograma.consultarMaximo(), is(100L)),
+				() -> assertThat(histograma.consultarMedia(), is(50.5)),
+				() -> assertThat(histograma.consultarPercentil(50), is(50L)),
+				() -> assertThat(histograma.consultarPercentil(99), is(99L)),
+				() -> assertThat(histograma.consultarPercentil(100), is(100L)));
+	}
+
+	/**
+	 * Comprueba que cada valor cae en una casilla cuyo limite superior no se
+	 * aleja mas de un 1,6 % del valor.
+	 */
+	@Test
+	@DisplayName("Comprobar el error relativo de las casillas.")
+	void probarErrorCasillas() {
+		SplittableRandom random = new SplittableRandom(3);
+		for (int i = 0; i < 100_000; i++) {
+			long valor = random.nextLong(1, 1L << random.nextInt(1, 40));
+			long limite = HistogramaLatencias.limiteSuperior(HistogramaLatencias.indice(valor));
+			assertThat(valor <= limite, is(true));
+			assertThat((double) (limite - valor), lessThanOrEqualTo(valor * 0.016));
+		}
+	}
+
+	/**
+	 * Comprueba los percentiles con datos aleatorios frente a los datos ordenados.
+	 */
+	@Test
+	@DisplayName("Comprobar percentiles con datos aleatorios.")
+	void probarPercentiles() {
+		SplittableRandom random = new SplittableRandom(7);
+		long[] valores = new long[200_000];
+		HistogramaLatencias histograma = new HistogramaLatencias();
+		for (int i = 0; i < valores.length; i++) {
+			valores[i] = (long) (20_000 * Math.exp(random.nextGaussian()));
+			histograma.registrar(valores[i]);
+		}
+		Arrays.sort(valores);
+		for (double percentil : new double[] { 50, 90, 99, 99.9 }) {
+			long exacto = valores[(int) Math.ceil(percentil / 100 * valores.length) - 1];
+			long aproximado = histograma.consultarPercentil(percentil);
+			assertThat(Math.abs(aproximado - exacto) <= exacto * 0.016, is(true));
+		}
+		assertThat(histograma.consultarMaximo(), is(valores[valores.length - 1]));
+	}
+
+	/**
+	 * Comprueba que sumar dos histogramas equivale a registrar todo en uno.
+	 */
+	@Test
+	@DisplayName("Comprobar la suma de histogramas.")
+	void probarSumar() {
+		SplittableRandom random = new SplittableRandom(11);
+		HistogramaLatencias todo = new HistogramaLatencias();
+		HistogramaLatencias primero = new HistogramaLatencias();
+		HistogramaLatencias segundo = new HistogramaLatencias();
+		for (int i = 0; i < 10_000; i++) {
+			long valor = random.nextLong(1_000_000_000L);
+			todo.registrar(valor);
+			(i % 3 == 0 ? primero : segundo).registrar(valor);
+		}
+		primero.sumar(segundo);
+		assertAll("suma",
+				() -> assertThat(primero.consultarTotal(), is(todo.consultarTotal())),
+				() -> assertThat(primero.consultarMinimo(), is(todo.consultarMinimo())),
+				() -> assertThat(primero.consultarMaximo(), is(todo.consultarMaximo())),
+				() -> assertThat(primero.consultarMedia(), is(todo.consultarMedia())),
+				() -> assertThat(primero.consultarPercentil(99), is(todo.consultarPercentil(99))));
+	}
+}
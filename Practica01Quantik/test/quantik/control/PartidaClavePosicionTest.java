@@ -0,0 +1,84 @@
+package quantik.control;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import quantik.modelo.Pieza;
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre las claves de Zobrist de la partida.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre la clave de posición de Partida (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class PartidaClavePosicionTest {
+
+	/**
+	 * Realiza una jugada y cambia el turno.
+	 *
+	 * @param partida partida
+	 * @param fila fila
+	 * @param columna columna
+	 * @param figura figura
+	 */
+	private static void jugar(Partida partida, int fila, int columna, Figura figura) {
+		partida.colocarPiezaEnTurnoActual(fila, columna, figura);
+		partida.cambiarTurno();
+	}
+
+	/** Comprueba que la misma posición alcanzada en distinto orden tiene la misma clave. */
+	@Test
+	@DisplayName("Comprobar que las transposiciones tienen la misma clave.")
+	void probarTransposiciones() {
+		Partida partida1 = PartidasAleatorias.crear(new Tablero());
+		jugar(partida1, 0, 0, Figura.CILINDRO);
+		jugar(partida1, 3, 3, Figura.CONO);
+		jugar(partida1, 1, 2, Figura.CUBO);
+		Partida partida2 = PartidasAleatorias.crear(new TableroBitboard());
+		jugar(partida2, 1, 2, Figura.CUBO);
+		jugar(partida2, 3, 3, Figura.CONO);
+		jugar(partida2, 0, 0, Figura.CILINDRO);
+		assertAll("transposiciones",
+				() -> assertThat(partida1.consultarClavePosicion(), is(partida2.consultarClavePosicion())),
+				() -> assertThat(partida1.consultarTablero().hashCode(), is(partida2.consultarTablero().hashCode())));
+	}
+
+	/** Comprueba que el turno y el contenido de las cajas forman parte de la clave. */
+	@Test
+	@DisplayName("Comprobar que el turno y las cajas forman parte de la clave.")
+	void probarTurnoYCajas() {
+		Partida partida = PartidasAleatorias.crear(new Tablero());
+		long inicial = partida.consultarClavePosicion();
+		partida.cambiarTurno();
+		long conTurnoNegro = partida.consultarClavePosicion();
+		partida.cambiarTurno();
+		Tablero tablero = new Tablero();
+		tablero.colocar(0, 0, new Pieza(Figura.ESFERA, Color.BLANCO));
+		Partida sinRetirarDeCaja = PartidasAleatorias.crear(tablero);
+		Partida retirandoDeCaja = PartidasAleatorias.crear(new Tablero());
+		retirandoDeCaja.colocarPiezaEnTurnoActual(0, 0, Figura.ESFERA);
+		assertAll("turno y cajas",
+				() -> assertThat(conTurnoNegro, is(not(inicial))),
+				() -> assertThat(partida.consultarClavePosicion(), is(inicial)),
+				() -> assertThat(sinRetirarDeCaja.consultarClavePosicion(),
+						is(not(retirandoDeCaja.consultarClavePosicion()))),
+				() -> assertThat(sinRetirarDeCaja.consultarTablero().consultarClave(),
+						is(retirandoDeCaja.consultarTablero().consultarClave())));
+	}
+}
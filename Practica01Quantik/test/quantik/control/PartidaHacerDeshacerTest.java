@@ -0,0 +1,128 @@
+package quantik.control;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre hacer y deshacer jugadas en la partida.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre hacerJugada y deshacerJugada de Partida (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class PartidaHacerDeshacerTest {
+
+	/**
+	 * Juega partidas aleatorias hasta el final y las deshace, comprobando tras
+	 * cada jugada deshecha que se vuelve exactamente a la posición anterior.
+	 *
+	 * @param semilla semilla de las partidas
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 1L, 7L, 42L, 2024L })
+	@DisplayName("Comprobar que deshacer restaura tablero, cajas, turno y número de jugada.")
+	void probarDeshacerPartidasAleatorias(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		for (Tablero tablero : new Tablero[] { new Tablero(), new TableroBitboard() }) {
+			Partida partida = PartidasAleatorias.crear(tablero);
+			Tablero[] tableros = new Tablero[17];
+			long[] claves = new long[17];
+			Color[] turnos = new Color[17];
+			int[] testigos = new int[16];
+			int jugadas = 0;
+			while (!partida.estaAcabadaPartida()) {
+				tableros[jugadas] = partida.consultarTablero();
+				claves[jugadas] = partida.consultarClavePosicion();
+				turnos[jugadas] = partida.consultarTurno();
+				int fila;
+				int columna;
+				Figura figura;
+				do {
+					fila = random.nextInt(4);
+					columna = random.nextInt(4);
+					figura = Figura.values()[random.nextInt(4)];
+				} while (!partida.esJugadaLegalEnTurnoActual(fila, columna, figura));
+				testigos[jugadas++] = partida.hacerJugada(fila, columna, figura);
+			}
+			while (jugadas > 0) {
+				partida.deshacerJugada(testigos[--jugadas]);
+				final int n = jugadas;
+				assertAll("deshacer la jugada " + n,
+						() -> assertEquals(tableros[n], partida.consultarTablero()),
+						() -> assertThat(partida.consultarClavePosicion(), is(claves[n])),
+						() -> assertThat(partida.consultarTurno(), is(turnos[n])),
+						() -> assertThat(partida.consultarNumeroJugada(), is(n)),
+						() -> assertThat(partida.consultarGanador(), is(nullValue())));
+			}
+		}
+	}
+
+	/**
+	 * Comprueba que una jugada ganadora no pasa el turno y que al deshacerla la
+	 * partida deja de estar acabada.
+	 */
+	@Test
+	@DisplayName("Comprobar que la jugada ganadora mantiene el turno y se puede deshacer.")
+	void probarJugadaGanadora() {
+		Partida partida = PartidasAleatorias.crear(new TableroBitboard());
+		partida.hacerJugada(0, 0, Figura.CILINDRO);
+		partida.hacerJugada(3, 3, Figura.CILINDRO);
+		partida.hacerJugada(0, 1, Figura.CONO);
+		partida.hacerJugada(3, 2, Figura.CONO);
+		partida.hacerJugada(0, 2, Figura.CUBO);
+		int testigo = partida.hacerJugada(0, 3, Figura.ESFERA);
+		assertAll("jugada ganadora",
+				() -> assertThat(partida.consultarGanador(), is(Color.NEGRO)),
+				() -> assertThat(partida.consultarTurno(), is(Color.NEGRO)));
+		partida.deshacerJugada(testigo);
+		assertAll("jugada ganadora deshecha",
+				() -> assertThat(partida.estaAcabadaPartida(), is(false)),
+				() -> assertThat(partida.consultarTurno(), is(Color.NEGRO)),
+				() -> assertThat(partida.consultarNumeroJugada(), is(5)));
+	}
+
+	/**
+	 * Comprueba que hacer una jugada codificada equivale a hacerla con la fila,
+	 * la columna y la figura.
+	 *
+	 * @param semilla semilla de las partidas
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 5L, 13L })
+	@DisplayName("Comprobar que la jugada codificada equivale a la jugada con fila, columna y figura.")
+	void probarJugadaCodificada(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		Partida codificada = PartidasAleatorias.crear(new TableroBitboard());
+		Partida explicita = PartidasAleatorias.crear(new Tablero());
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		while (!codificada.estaAcabadaPartida()) {
+			int jugada = jugadas[random.nextInt(codificada.generarJugadasLegales(jugadas))];
+			int testigo = codificada.hacerJugada(jugada);
+			int esperado = explicita.hacerJugada((jugada >>> 2) / 4, (jugada >>> 2) % 4, Figura.values()[jugada & 3]);
+			assertAll("jugada " + jugada,
+					() -> assertThat(testigo, is(esperado)),
+					() -> assertThat(codificada.consultarClavePosicion(), is(explicita.consultarClavePosicion())),
+					() -> assertThat(codificada.consultarTurno(), is(explicita.consultarTurno())));
+		}
+	}
+}
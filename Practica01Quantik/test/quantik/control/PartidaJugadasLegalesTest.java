@@ -0,0 +1,104 @@
+package quantik.control;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre la generacion de jugadas legales de la partida.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre el generador de jugadas legales de Partida (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class PartidaJugadasLegalesTest {
+
+	/**
+	 * Comprueba que el generador coincide con la consulta jugada a jugada.
+	 *
+	 * @param partida partida
+	 */
+	private static void comprobarGenerador(Partida partida) {
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		int numero = partida.generarJugadasLegales(jugadas);
+		int esperadas = 0;
+		for (Figura figura : Figura.values()) {
+			int mascara = 0;
+			for (int celda = 0; celda < 16; celda++) {
+				boolean legal = partida.esJugadaLegalEnTurnoActual(celda / 4, celda % 4, figura);
+				assertThat("Jugada codificada " + celda + " " + figura,
+						partida.esJugadaLegalEnTurnoActual(celda << 2 | figura.ordinal()), is(legal));
+				if (legal) {
+					mascara |= 1 << celda;
+					esperadas++;
+				}
+			}
+			assertThat("Máscara de " + figura, partida.consultarJugadasLegales(figura), is(mascara));
+		}
+		assertThat("Número de jugadas legales", numero, is(esperadas));
+		assertThat("Jugadas fuera de rango", partida.esJugadaLegalEnTurnoActual(-1)
+				|| partida.esJugadaLegalEnTurnoActual(64), is(false));
+		for (int i = 0; i < numero; i++) {
+			int celda = jugadas[i] >>> 2;
+			Figura figura = Figura.values()[jugadas[i] & 3];
+			assertThat("Jugada generada " + jugadas[i], partida.esJugadaLegalEnTurnoActual(celda / 4, celda % 4, figura), is(true));
+		}
+		assertThat("Bloqueo", partida.estaBloqueadoTurnoActual(), is(numero == 0));
+	}
+
+	/**
+	 * Comprueba en partidas aleatorias que las jugadas generadas coinciden con
+	 * las consultadas una a una.
+	 *
+	 * @param semilla semilla de las partidas
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 3L, 11L, 99L, 31337L })
+	@DisplayName("Comprobar que el generador coincide con esJugadaLegalEnTurnoActual.")
+	void probarGeneradorEnPartidasAleatorias(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		for (Tablero tablero : new Tablero[] { new Tablero(), new TableroBitboard() }) {
+			for (int i = 0; i < 20; i++) {
+				Partida partida = PartidasAleatorias.crear(tablero.clonar());
+				comprobarGenerador(partida);
+				while (!partida.estaAcabadaPartida()) {
+					int jugada = PartidasAleatorias.elegirJugada(partida, random, jugadas);
+					partida.hacerJugada(jugada);
+					comprobarGenerador(partida);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Comprueba que sin piezas de una figura en la caja no se genera ninguna
+	 * jugada con ella.
+	 */
+	@Test
+	@DisplayName("Comprobar que no se generan jugadas con figuras agotadas en la caja.")
+	void probarFiguraAgotada() {
+		Partida partida = PartidasAleatorias.crear(new TableroBitboard());
+		partida.hacerJugada(0, 0, Figura.CONO);
+		partida.hacerJugada(3, 3, Figura.CUBO);
+		partida.hacerJugada(1, 2, Figura.CONO);
+		partida.hacerJugada(2, 0, Figura.CUBO);
+		assertThat(partida.consultarJugadasLegales(Figura.CONO), is(0));
+		comprobarGenerador(partida);
+	}
+}
@@ -0,0 +1,120 @@
+package quantik.control;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import quantik.modelo.Caja;
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Partidas con jugadas legales al azar compartidas por los tests.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+public final class PartidasAleatorias {
+
+	private PartidasAleatorias() {
+		// solo metodos de clase
+	}
+
+	/**
+	 * Crea una partida vacia sobre TableroBitboard.
+	 *
+	 * @return partida
+	 */
+	public static Partida crearVacia() {
+		return crear(new TableroBitboard());
+	}
+
+	/**
+	 * Crea una partida vacia sobre el tablero indicado.
+	 *
+	 * @param tablero tablero vacio de la partida
+	 * @return partida
+	 */
+	public static Partida crear(Tablero tablero) {
+		return new Partida(tablero, new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+	}
+
+	/**
+	 * Elige al azar una jugada legal del turno actual.
+	 *
+	 * @param partida partida sin acabar
+	 * @param random generador
+	 * @param jugadas array de al menos Partida.MAXIMO_JUGADAS posiciones
+	 * @return jugada codificada
+	 */
+	public static int elegirJugada(Partida partida, SplittableRandom random, int[] jugadas) {
+		return jugadas[random.nextInt(partida.generarJugadasLegales(jugadas))];
+	}
+
+	/**
+	 * Crea una partida tras jugar al azar el número de jugadas indicado, sin acabarla.
+	 *
+	 * @param random generador
+	 * @param numero numero maximo de jugadas
+	 * @return partida
+	 */
+	public static Partida crear(SplittableRandom random, int numero) {
+		return continuar(crearVacia(), random, numero);
+	}
+
+	/**
+	 * Hace jugadas al azar en una copia de la partida sin acabarla: si una
+	 * jugada acaba la partida se deshace y se para.
+	 *
+	 * @param partida partida
+	 * @param random generador
+	 * @param numero numero maximo de jugadas
+	 * @return copia con las jugadas
+	 */
+	public static Partida continuar(Partida partida, SplittableRandom random, int numero) {
+		Partida copia = partida.clonar();
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		for (int i = 0; i < numero && !copia.estaAcabadaPartida(); i++) {
+			int testigo = copia.hacerJugada(elegirJugada(copia, random, jugadas));
+			if (copia.estaAcabadaPartida()) {
+				copia.deshacerJugada(testigo);
+				break;
+			}
+		}
+		return copia;
+	}
+
+	/**
+	 * Juega al azar una partida completa.
+	 *
+	 * @param random generador
+	 * @return jugadas de la partida, en orden
+	 */
+	public static int[] jugarCompleta(SplittableRandom random) {
+		Partida partida = crearVacia();
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		int[] secuencia = new int[Partida.MAXIMO_JUGADAS];
+		int hechas = 0;
+		while (!partida.estaAcabadaPartida()) {
+			secuencia[hechas] = elegirJugada(partida, random, jugadas);
+			partida.hacerJugada(secuencia[hechas++]);
+		}
+		return Arrays.copyOf(secuencia, hechas);
+	}
+
+	/**
+	 * Genera partidas completas con jugadas legales al azar.
+	 *
+	 * @param semilla semilla
+	 * @param numero numero de partidas
+	 * @return jugadas de cada partida
+	 */
+	public static int[][] generar(long semilla, int numero) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		int[][] partidas = new int[numero][];
+		for (int n = 0; n < numero; n++) {
+			partidas[n] = jugarCompleta(random);
+		}
+		return partidas;
+	}
+}
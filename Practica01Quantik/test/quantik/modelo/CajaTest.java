@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertNotSame;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +24,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import quantik.util.Color;
 import quantik.util.Figura;
+import quantik.util.Zobrist;
 
 /**
  * Tests sobre la caja.
@@ -286,5 +288,35 @@ public class CajaTest {
 			() -> assertArrayEquals(disponiblesEnCajaLocal, disponiblesEnCajaClon,"Los arrays de piezas disponibles no son iguales en contenido.")
 			);
 	}
+	
+	/**
+	 * Comprueba que la clave mantenida al retirar y reponer coincide con la
+	 * calculada a partir de las piezas disponibles.
+	 * 
+	 * @param color color
+	 */
+	@ParameterizedTest
+	@EnumSource(Color.class)
+	@DisplayName("Comprobar que la clave se mantiene al retirar y reponer piezas.")
+	void comprobarClaveIncremental(Color color) {
+		Caja cajaLocal = new Caja(color);
+		SplittableRandom random = new SplittableRandom(color.ordinal());
+		for (int i = 0; i < 200; i++) {
+			Figura figura = Figura.values()[random.nextInt(4)];
+			if (random.nextBoolean()) {
+				cajaLocal.retirar(figura);
+			} else {
+				cajaLocal.reponer(figura);
+			}
+			long esperada = 0L;
+			for (Figura candidata : Figura.values()) {
+				long piezas = Arrays.stream(cajaLocal.consultarPiezasDisponibles())
+						.filter(pieza -> pieza.consultarFigura() == candidata).count();
+				esperada ^= Zobrist.claveCaja(color, candidata, (int) piezas);
+			}
+			assertThat("Clave tras " + (i + 1) + " operaciones.", cajaLocal.consultarClave(), is(esperada));
+			assertThat("Clave del clon.", cajaLocal.clonar().consultarClave(), is(esperada));
+		}
+	}
 
 }
@@ -0,0 +1,64 @@
+package quantik.modelo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests sobre las coordenadas compartidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre Coordenada.")
+@Tag("UnitTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class CoordenadaTest {
+
+	/**
+	 * Comprueba que las coordenadas del tablero son instancias compartidas y que
+	 * las celdas y sus clones las reutilizan.
+	 *
+	 * @param fila fila
+	 * @param columna columna
+	 */
+	@ParameterizedTest
+	@MethodSource("quantik.modelo.Util#proveerCoordenadas")
+	@DisplayName("Comprobar que las coordenadas del tablero son únicas.")
+	void comprobarCoordenadasCompartidas(int fila, int columna) {
+		Coordenada coordenada = Coordenada.de(fila, columna);
+		Celda celda = new Celda(fila, columna);
+		assertAll("coordenadas compartidas",
+				() -> assertSame(coordenada, Coordenada.de(fila, columna)),
+				() -> assertSame(coordenada, celda.consultarCoordenada()),
+				() -> assertSame(coordenada, celda.clonar().consultarCoordenada()),
+				() -> assertThat(coordenada.consultarFila(), is(fila)),
+				() -> assertThat(coordenada.consultarColumna(), is(columna)));
+	}
+
+	/**
+	 * Comprueba que las coordenadas fuera del tablero conservan sus valores.
+	 *
+	 * @param fila fila
+	 * @param columna columna
+	 */
+	@ParameterizedTest
+	@MethodSource("quantik.modelo.Util#proveerCoordenadasIncorrectas")
+	@DisplayName("Comprobar las coordenadas fuera del tablero.")
+	void comprobarCoordenadasFueraDelTablero(int fila, int columna) {
+		Coordenada coordenada = Coordenada.de(fila, columna);
+		assertAll("coordenadas fuera del tablero",
+				() -> assertThat(coordenada.consultarFila(), is(fila)),
+				() -> assertThat(coordenada.consultarColumna(), is(columna)),
+				() -> assertThat(coordenada, is(Coordenada.de(fila, columna))));
+	}
+}
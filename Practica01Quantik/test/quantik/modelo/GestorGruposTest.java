@@ -102,6 +102,24 @@ public class GestorGruposTest {
 			assertThat("La celda no tiene asignado un número de grupos correcto.", gruposRelacionados.length, is(3));
 		}
 
+		/**
+		 * Comprueba que modificar los grupos devueltos no altera las siguientes consultas.
+		 * 
+		 * @param fila fila 
+		 * @param columna columna
+		 */
+		@ParameterizedTest
+		@MethodSource("quantik.modelo.Util#proveerCoordenadas")
+		@DisplayName("Comprobar que los grupos devueltos son una copia.")
+		void probarCopiaGrupos(int fila, int columna) {
+			Celda celda = tablero.obtenerCelda(fila, columna);
+			Grupo[] gruposRelacionados = gestorGrupos.obtenerGruposConteniendoCelda(celda);
+			Grupo primero = gruposRelacionados[0];
+			gruposRelacionados[0] = null;
+			assertThat("Los grupos de la celda se han modificado desde fuera.",
+					gestorGrupos.obtenerGruposConteniendoCelda(celda)[0], is(primero));
+		}
+
 		/**
 		 * Comprueba que toda celda está correctamente asignada a su grupo horizontal.
 		 * 
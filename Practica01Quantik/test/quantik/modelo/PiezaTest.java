@@ -4,6 +4,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.Mockito.when;
 
@@ -99,6 +100,24 @@ public class PiezaTest {
 			);		
 	}
 	
+	/**
+	 * Comprueba que las piezas compartidas son únicas por figura y color.
+	 * 
+	 * @param figura figura
+	 * @param color color
+	 */
+	@DisplayName("Comprobar que Pieza.de devuelve siempre la misma instancia.")
+	@ParameterizedTest
+	@MethodSource("proveerFiguraYColor")
+	void comprobarPiezasCompartidas(Figura figura, Color color) {
+		Pieza pieza = Pieza.de(figura, color);
+		assertAll("comprobando piezas compartidas",
+				() -> assertSame(pieza, Pieza.de(figura, color), "Debería devolver la misma referencia."),
+				() -> assertThat("La pieza compartida debería ser igual a una nueva.", pieza, is(new Pieza(figura, color))),
+				() -> assertNotSame(pieza, pieza.clonar(), "El clon no debería ser la pieza compartida.")
+			);
+	}
+	
 	// Métodos de utilidad para los tests...
 
 	/**
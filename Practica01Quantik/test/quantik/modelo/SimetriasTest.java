@@ -0,0 +1,144 @@
+package quantik.modelo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre las claves canonicas por simetria.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre Simetrias (depende de TableroBitboard).")
+@Tag("IntegrationTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class SimetriasTest {
+
+	/**
+	 * Comprueba que las permutaciones de celdas conservan los doce grupos y son distintas.
+	 */
+	@Test
+	@DisplayName("Comprobar que las simetrías conservan los grupos.")
+	void probarSimetriasConservanGrupos() {
+		Set<Integer> grupos = new HashSet<>();
+		for (int mascara : GestorGrupos.MASCARA_GRUPO) {
+			grupos.add(mascara);
+		}
+		Set<String> distintas = new HashSet<>();
+		for (int[] simetria : Simetrias.SIMETRIAS) {
+			distintas.add(Arrays.toString(simetria));
+			for (int mascara : GestorGrupos.MASCARA_GRUPO) {
+				int imagen = 0;
+				for (int celda = 0; celda < 16; celda++) {
+					if ((mascara & (1 << simetria[celda])) != 0) {
+						imagen |= 1 << celda;
+					}
+				}
+				assertThat("La imagen de un grupo debería ser un grupo.", grupos.contains(imagen), is(true));
+			}
+		}
+		assertThat(distintas.size(), is(Simetrias.SIMETRIAS.length));
+	}
+
+	/**
+	 * Comprueba que posiciones transformadas por simetría, renombrado de figuras
+	 * e intercambio de colores y turno tienen la misma clave.
+	 *
+	 * @param semilla semilla
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 5L, 17L, 123L })
+	@DisplayName("Comprobar que las posiciones equivalentes tienen la misma clave canónica.")
+	void probarPosicionesEquivalentes(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		Figura[] figuras = Figura.values();
+		for (int prueba = 0; prueba < 200; prueba++) {
+			Tablero tablero = new TableroBitboard();
+			int piezas = random.nextInt(12);
+			for (int i = 0; i < piezas; i++) {
+				tablero.colocar(random.nextInt(4), random.nextInt(4),
+						Pieza.de(figuras[random.nextInt(4)], random.nextBoolean() ? Color.BLANCO : Color.NEGRO));
+			}
+			Color turno = random.nextBoolean() ? Color.BLANCO : Color.NEGRO;
+			int[] simetria = Simetrias.SIMETRIAS[random.nextInt(Simetrias.SIMETRIAS.length)];
+			int[] permutacion = { 0, 1, 2, 3 };
+			for (int i = 3; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int aux = permutacion[i];
+				permutacion[i] = permutacion[j];
+				permutacion[j] = aux;
+			}
+			boolean intercambiar = random.nextBoolean();
+			Tablero transformado = new TableroBitboard();
+			for (int celda = 0; celda < 16; celda++) {
+				Celda origen = tablero.consultarCelda(simetria[celda] / 4, simetria[celda] % 4);
+				if (!origen.estaVacia()) {
+					Pieza pieza = origen.consultarPieza();
+					Color color = intercambiar ? pieza.consultarColor().obtenerContrario() : pieza.consultarColor();
+					transformado.colocar(celda / 4, celda % 4,
+							Pieza.de(figuras[permutacion[pieza.consultarFigura().ordinal()]], color));
+				}
+			}
+			Color turnoTransformado = intercambiar ? turno.obtenerContrario() : turno;
+			assertThat(Simetrias.claveCanonica(transformado, turnoTransformado),
+					is(Simetrias.claveCanonica(tablero, turno)));
+		}
+	}
+
+	/**
+	 * Comprueba claves de posiciones conocidas.
+	 */
+	@Test
+	@DisplayName("Comprobar claves canónicas de posiciones conocidas.")
+	void probarPosicionesConocidas() {
+		Set<Long> primerasJugadas = new HashSet<>();
+		for (int celda = 0; celda < 16; celda++) {
+			for (Figura figura : Figura.values()) {
+				Tablero tablero = new TableroBitboard();
+				tablero.colocar(celda / 4, celda % 4, Pieza.de(figura, Color.BLANCO));
+				primerasJugadas.add(Simetrias.claveCanonica(tablero, Color.NEGRO));
+			}
+		}
+		Tablero mismoGrupo = new TableroBitboard();
+		mismoGrupo.colocar(0, 0, Pieza.de(Figura.CONO, Color.BLANCO));
+		mismoGrupo.colocar(0, 1, Pieza.de(Figura.CUBO, Color.NEGRO));
+		Tablero sinGrupoComun = new TableroBitboard();
+		sinGrupoComun.colocar(0, 0, Pieza.de(Figura.CONO, Color.BLANCO));
+		sinGrupoComun.colocar(1, 2, Pieza.de(Figura.CUBO, Color.NEGRO));
+		Tablero mismaFigura = new TableroBitboard();
+		mismaFigura.colocar(0, 0, Pieza.de(Figura.CONO, Color.BLANCO));
+		mismaFigura.colocar(0, 1, Pieza.de(Figura.CONO, Color.NEGRO));
+		Tablero dosBlancas = mismoGrupo.clonar();
+		dosBlancas.colocar(3, 3, Pieza.de(Figura.ESFERA, Color.BLANCO));
+		assertAll("posiciones conocidas",
+				() -> assertThat(Simetrias.claveCanonica(new TableroBitboard(), Color.BLANCO), is(0L)),
+				() -> assertThat(Simetrias.claveCanonica(new Tablero(), Color.BLANCO), is(0L)),
+				() -> assertThat(primerasJugadas.size(), is(1)),
+				() -> assertThat(Simetrias.claveCanonica(mismoGrupo, Color.BLANCO),
+						is(not(Simetrias.claveCanonica(sinGrupoComun, Color.BLANCO)))),
+				() -> assertThat(Simetrias.claveCanonica(mismoGrupo, Color.BLANCO),
+						is(not(Simetrias.claveCanonica(mismaFigura, Color.BLANCO)))),
+				() -> assertThat(Simetrias.claveCanonica(mismoGrupo, Color.BLANCO),
+						is(Simetrias.claveCanonica(mismoGrupo, Color.NEGRO))),
+				() -> assertThat(Simetrias.claveCanonica(dosBlancas, Color.BLANCO),
+						is(not(Simetrias.claveCanonica(dosBlancas, Color.NEGRO)))));
+	}
+}
@@ -0,0 +1,149 @@
+package quantik.modelo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre el tablero con bitboards, comparando con el tablero de referencia.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ *
+ */
+@DisplayName("Tests sobre TableroBitboard (compara con la implementación de referencia de Tablero).")
+@Tag("IntegrationTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class TableroBitboardTest {
+
+	/** Tablero con bitboards. */
+	private TableroBitboard tablero;
+
+	/** Tablero de referencia. */
+	private Tablero referencia;
+
+	/** Inicialización. */
+	@BeforeEach
+	void inicializar() {
+		tablero = new TableroBitboard();
+		referencia = new Tablero();
+	}
+
+	/**
+	 * Comprueba que la colocación de piezas es equivalente a la del tablero de referencia.
+	 *
+	 * @param fila fila
+	 * @param columna columna
+	 * @param pieza pieza
+	 */
+	@ParameterizedTest
+	@MethodSource("quantik.modelo.Util#proveerCoordenadasYPiezas")
+	@DisplayName("Comprobar que la colocación de piezas coincide con el tablero de referencia.")
+	void probarColocarPiezas(int fila, int columna, Pieza pieza) {
+		tablero.colocar(fila, columna, pieza);
+		referencia.colocar(fila, columna, pieza);
+		assertAll("colocación de piezas",
+				() -> assertThat(tablero.consultarCelda(fila, columna), is(referencia.consultarCelda(fila, columna))),
+				() -> assertThat(tablero.obtenerCelda(fila, columna).consultarPieza(), is(pieza)),
+				() -> assertThat(tablero.consultarOcupacion(pieza.consultarFigura(), pieza.consultarColor()),
+						is(referencia.consultarOcupacion(pieza.consultarFigura(), pieza.consultarColor()))),
+				() -> assertEquals(referencia.aTexto(), tablero.aTexto()));
+	}
+
+	/**
+	 * Comprueba que la consulta de celdas fuera del tablero devuelve nulo.
+	 *
+	 * @param fila fila
+	 * @param columna columna
+	 */
+	@ParameterizedTest
+	@MethodSource("quantik.modelo.Util#proveerCoordenadasIncorrectas")
+	@DisplayName("Comprobar que la consulta de celdas fuera del tablero devuelve nulo.")
+	void probarConsultaIncorrecta(int fila, int columna) {
+		assertAll("comprobar accesos fuera del tablero",
+				() -> assertThat(tablero.consultarCelda(fila, columna), is(nullValue())),
+				() -> assertThat(tablero.obtenerCelda(fila, columna), is(nullValue())));
+	}
+
+	/**
+	 * Comprueba que colocar a través de la celda obtenida modifica el tablero.
+	 */
+	@Test
+	@DisplayName("Comprobar que las celdas obtenidas son vistas sobre el tablero.")
+	void probarVistasDeCeldas() {
+		Celda celda = tablero.obtenerCelda(2, 1);
+		celda.colocar(new Pieza(Figura.CONO, Color.NEGRO));
+		tablero.colocar(2, 1, new Pieza(Figura.ESFERA, Color.BLANCO));
+		assertAll("vistas",
+				() -> assertThat(tablero.consultarCelda(2, 1).consultarPieza(), is(new Pieza(Figura.ESFERA, Color.BLANCO))),
+				() -> assertThat(celda.consultarPieza(), is(new Pieza(Figura.ESFERA, Color.BLANCO))),
+				() -> assertThat(tablero.consultarOcupacion(Figura.CONO, Color.NEGRO), is(0)),
+				() -> assertThat(tablero.consultarOcupacion(Figura.ESFERA, Color.BLANCO), is(1 << 9)));
+	}
+
+	/**
+	 * Comprueba la clonación, igualdad y código hash de un tablero con algunas jugadas.
+	 */
+	@Test
+	@DisplayName("Comprobar la clonación de un tablero con algunas jugadas")
+	void comprobarClonacion() {
+		tablero.colocar(0, 0, new Pieza(Figura.CILINDRO, Color.BLANCO));
+		tablero.colocar(1, 1, new Pieza(Figura.CONO, Color.NEGRO));
+		tablero.colocar(2, 2, new Pieza(Figura.CUBO, Color.BLANCO));
+		tablero.colocar(3, 3, new Pieza(Figura.ESFERA, Color.NEGRO));
+		Tablero clon = tablero.clonar();
+		assertAll("clonación",
+				() -> assertNotSame(clon, tablero),
+				() -> assertEquals(tablero, clon),
+				() -> assertEquals(tablero.hashCode(), clon.hashCode()));
+		clon.colocar(3, 0, new Pieza(Figura.ESFERA, Color.NEGRO));
+		assertThat("El clon no debería compartir estado.", clon, is(not(tablero)));
+	}
+
+	/**
+	 * Comprueba que los gestores de grupos de ambos tableros ven las piezas
+	 * colocadas a través de las celdas y que los gestores de un mismo tablero
+	 * comparten su estado.
+	 */
+	@Test
+	@DisplayName("Comprobar que los gestores de grupos ven las piezas colocadas en las celdas.")
+	void probarGestoresConCeldas() {
+		GestorGrupos gestor = new GestorGrupos(tablero);
+		GestorGrupos gestorReferencia = new GestorGrupos(referencia);
+		Figura[] figuras = Figura.values();
+		for (int j = 0; j < figuras.length; j++) {
+			Pieza pieza = Pieza.de(figuras[j], j % 2 == 0 ? Color.BLANCO : Color.NEGRO);
+			tablero.obtenerCelda(1, j).colocar(pieza);
+			referencia.obtenerCelda(1, j).colocar(pieza);
+		}
+		GestorGrupos otro = new GestorGrupos(tablero);
+		assertAll("grupo completo",
+				() -> assertThat(gestor.hayGrupoGanador(), is(true)),
+				() -> assertThat(gestorReferencia.hayGrupoGanador(), is(true)),
+				() -> assertThat(otro.hayGrupoGanador(), is(true)));
+		tablero.obtenerCelda(1, 0).colocar(null);
+		referencia.obtenerCelda(1, 0).colocar(null);
+		assertAll("grupo incompleto",
+				() -> assertThat(gestor.hayGrupoGanador(), is(false)),
+				() -> assertThat(gestorReferencia.hayGrupoGanador(), is(false)),
+				() -> assertThat(otro.hayGrupoGanador(), is(false)),
+				() -> assertEquals(referencia.aTexto(), tablero.aTexto()));
+	}
+}
@@ -249,4 +249,31 @@ public class TableroTest {
 		
 	}	
 	
+	/**
+	 * Comprueba que colocar una pieza a través de la celda obtenida equivale a
+	 * colocarla con el tablero, también en la igualdad y el código hash.
+	 * 
+	 * @param fila fila
+	 * @param columna columna
+	 * @param pieza pieza
+	 */
+	@ParameterizedTest
+	@MethodSource("quantik.modelo.Util#proveerCoordenadasYPiezas")
+	@DisplayName("Comprobar que colocar a través de la celda mantiene la igualdad y el código hash.")
+	void probarColocarATravesDeCelda(int fila, int columna, Pieza pieza) {
+		Tablero otro = new Tablero();
+		tablero.obtenerCelda(fila, columna).colocar(pieza);
+		otro.colocar(fila, columna, pieza);
+		assertAll("colocación a través de la celda",
+				() -> assertEquals(otro, tablero),
+				() -> assertEquals(otro.hashCode(), tablero.hashCode()),
+				() -> assertThat(tablero.consultarClave(), is(otro.consultarClave())),
+				() -> assertEquals(tablero.clonar(), tablero),
+				() -> assertEquals(tablero.clonar().hashCode(), tablero.hashCode()));
+		tablero.obtenerCelda(fila, columna).colocar(null);
+		assertAll("retirada a través de la celda",
+				() -> assertEquals(new Tablero(), tablero),
+				() -> assertEquals(new Tablero().hashCode(), tablero.hashCode()));
+	}
+	
 }
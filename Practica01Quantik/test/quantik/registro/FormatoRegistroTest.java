@@ -0,0 +1,142 @@
+package quantik.registro;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests sobre el formato binario de las partidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre FormatoRegistro.")
+@Tag("UnitTest")
+@Timeout(value = 2, unit = TimeUnit.SECONDS)
+public class FormatoRegistroTest {
+
+	/**
+	 * Comprueba que codificar y decodificar devuelve las mismas jugadas.
+	 */
+	@Test
+	@DisplayName("Comprobar la ida y vuelta de registros.")
+	void probarIdaYVuelta() throws IOException {
+		SplittableRandom random = new SplittableRandom(1L);
+		ByteBuffer buffer = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_REGISTRO * 100);
+		int[][] partidas = new int[100][];
+		for (int i = 0; i < partidas.length; i++) {
+			partidas[i] = random.ints(random.nextInt(FormatoRegistro.MAXIMO_JUGADAS + 1), 0, 64).toArray();
+			FormatoRegistro.codificar(partidas[i], partidas[i].length, buffer);
+			assertThat(buffer.position(), is((i + 1) * FormatoRegistro.TAMAÑO_REGISTRO));
+		}
+		buffer.flip();
+		int[] jugadas = new int[FormatoRegistro.MAXIMO_JUGADAS];
+		for (int[] partida : partidas) {
+			int numero = FormatoRegistro.decodificar(buffer, jugadas);
+			assertThat(Arrays.copyOf(jugadas, numero), is(partida));
+		}
+		assertThat(buffer.hasRemaining(), is(false));
+	}
+
+	/**
+	 * Comprueba el empaquetado de bits de un registro conocido.
+	 */
+	@Test
+	@DisplayName("Comprobar los bytes de un registro conocido.")
+	void probarRegistroConocido() {
+		ByteBuffer buffer = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_REGISTRO);
+		FormatoRegistro.codificar(new int[] { 0x3F, 0x01, 0x20 }, 3, buffer);
+		byte[] esperado = new byte[FormatoRegistro.TAMAÑO_REGISTRO];
+		esperado[0] = 3;
+		esperado[1] = (byte) 0xFC;
+		esperado[2] = (byte) 0x18;
+		assertAll("registro",
+				() -> assertThat(FormatoRegistro.TAMAÑO_REGISTRO, is(13)),
+				() -> assertThat(buffer.array(), is(esperado)));
+	}
+
+	/**
+	 * Comprueba la cabecera y el rechazo de datos incorrectos.
+	 */
+	@Test
+	@DisplayName("Comprobar la cabecera y los registros incorrectos.")
+	void probarCabeceraYErrores() throws IOException {
+		ByteBuffer cabecera = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_CABECERA);
+		FormatoRegistro.escribirCabecera(cabecera);
+		cabecera.flip();
+		FormatoRegistro.comprobarCabecera(cabecera);
+		ByteBuffer otra = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_CABECERA);
+		otra.putInt(0x12345678).flip();
+		ByteBuffer registro = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_REGISTRO);
+		registro.put(0, (byte) 17);
+		assertAll("errores",
+				() -> assertThrows(IOException.class, () -> FormatoRegistro.comprobarCabecera(otra)),
+				() -> assertThrows(FormatoRegistro.RegistroIncorrecto.class,
+						() -> FormatoRegistro.decodificar(registro, new int[16])),
+				() -> assertThat(registro.position(), is(FormatoRegistro.TAMAÑO_REGISTRO)),
+				() -> assertThrows(IllegalArgumentException.class,
+						() -> FormatoRegistro.codificar(new int[17], 17, ByteBuffer.allocate(64))));
+	}
+
+	/**
+	 * Comprueba que una cabecera con otro tamaño de registro no se confunde con
+	 * una de otra version.
+	 */
+	@Test
+	@DisplayName("Comprobar los mensajes de versión y tamaño de registro incorrectos.")
+	void probarCabeceraIncorrecta() {
+		ByteBuffer version = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_CABECERA);
+		FormatoRegistro.escribirCabecera(version);
+		version.put(4, (byte) (FormatoRegistro.VERSION + 1)).flip();
+		ByteBuffer tamaño = ByteBuffer.allocate(FormatoRegistro.TAMAÑO_CABECERA);
+		FormatoRegistro.escribirCabecera(tamaño);
+		tamaño.put(5, (byte) 12).flip();
+		IOException errorVersion = assertThrows(IOException.class, () -> FormatoRegistro.comprobarCabecera(version));
+		IOException errorTamaño = assertThrows(IOException.class, () -> FormatoRegistro.comprobarCabecera(tamaño));
+		assertAll("mensajes",
+				() -> assertThat(errorVersion.getMessage(),
+						is("Version de fichero de partidas no soportada: " + (FormatoRegistro.VERSION + 1))),
+				() -> assertThat(errorTamaño.getMessage(), is("Tamaño de registro de partidas incorrecto: 12 bytes"
+						+ " en lugar de " + FormatoRegistro.TAMAÑO_REGISTRO)));
+	}
+
+	/**
+	 * Comprueba la conversion con el formato de texto nnll.
+	 *
+	 * @param texto jugada en texto
+	 * @param jugada jugada codificada
+	 */
+	@ParameterizedTest
+	@CsvSource({ "00CL, 0", "00CN, 1", "12ES, 27", "33CB, 62" })
+	@DisplayName("Comprobar la conversión con el formato nnll.")
+	void probarTexto(String texto, int jugada) {
+		assertAll("texto",
+				() -> assertThat(FormatoRegistro.deTexto(texto), is(jugada)),
+				() -> assertThat(FormatoRegistro.aTexto(jugada), is(texto)));
+	}
+
+	/**
+	 * Comprueba que los textos incorrectos se rechazan.
+	 */
+	@Test
+	@DisplayName("Comprobar textos de jugada incorrectos.")
+	void probarTextoIncorrecto() {
+		for (String texto : new String[] { "", "12E", "42ES", "1-ES", "12XX", "12ESX" }) {
+			assertThat(texto, FormatoRegistro.deTexto(texto), is(-1));
+		}
+	}
+}
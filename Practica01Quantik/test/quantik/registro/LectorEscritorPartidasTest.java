@@ -0,0 +1,115 @@
+package quantik.registro;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import quantik.control.PartidasAleatorias;
+
+/**
+ * Tests sobre la escritura y lectura de ficheros de partidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre EscritorPartidas y LectorPartidas (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+public class LectorEscritorPartidasTest {
+
+	/** Directorio temporal. */
+	@TempDir
+	Path directorio;
+
+	/**
+	 * Comprueba que se leen las mismas partidas que se escriben, tambien al
+	 * añadir a un fichero existente.
+	 */
+	@Test
+	@DisplayName("Comprobar la ida y vuelta de un fichero de partidas.")
+	void probarIdaYVuelta() throws IOException {
+		Path fichero = directorio.resolve("partidas.qtk");
+		int[][] partidas = PartidasAleatorias.generar(7L, 10_000);
+		try (EscritorPartidas escritor = EscritorPartidas.crear(fichero)) {
+			for (int i = 0; i < 6000; i++) {
+				escritor.escribir(partidas[i], partidas[i].length);
+			}
+			assertThat(escritor.consultarRegistros(), is(6000L));
+		}
+		try (EscritorPartidas escritor = new EscritorPartidas(
+				FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE))) {
+			for (int i = 6000; i < partidas.length; i++) {
+				escritor.escribir(partidas[i], partidas[i].length);
+			}
+		}
+		assertThat(Files.size(fichero),
+				is((long) FormatoRegistro.TAMAÑO_CABECERA + partidas.length * FormatoRegistro.TAMAÑO_REGISTRO));
+		int[] jugadas = new int[FormatoRegistro.MAXIMO_JUGADAS];
+		try (LectorPartidas lector = LectorPartidas.abrir(fichero)) {
+			for (int[] partida : partidas) {
+				int numero = lector.leer(jugadas);
+				assertThat(Arrays.copyOf(jugadas, numero), is(partida));
+			}
+			assertThat(lector.leer(jugadas), is(-1));
+		}
+	}
+
+	/**
+	 * Comprueba que al añadir se descarta un registro incompleto del final.
+	 */
+	@Test
+	@DisplayName("Comprobar que se descarta un registro incompleto al añadir.")
+	void probarRegistroIncompleto() throws IOException {
+		Path fichero = directorio.resolve("cortado.qtk");
+		int[][] partidas = PartidasAleatorias.generar(8L, 20);
+		try (EscritorPartidas escritor = EscritorPartidas.crear(fichero)) {
+			for (int i = 0; i < 10; i++) {
+				escritor.escribir(partidas[i], partidas[i].length);
+			}
+		}
+		Files.write(fichero, new byte[FormatoRegistro.TAMAÑO_REGISTRO - 1], StandardOpenOption.APPEND);
+		try (EscritorPartidas escritor = new EscritorPartidas(
+				FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE))) {
+			assertThat(Files.size(fichero),
+					is((long) FormatoRegistro.TAMAÑO_CABECERA + 10 * FormatoRegistro.TAMAÑO_REGISTRO));
+			for (int i = 10; i < partidas.length; i++) {
+				escritor.escribir(partidas[i], partidas[i].length);
+			}
+		}
+		int[] jugadas = new int[FormatoRegistro.MAXIMO_JUGADAS];
+		try (LectorPartidas lector = LectorPartidas.abrir(fichero)) {
+			assertThat(lector.contarRegistros(), is((long) partidas.length));
+			for (int[] partida : partidas) {
+				int numero = lector.leer(jugadas);
+				assertThat(Arrays.copyOf(jugadas, numero), is(partida));
+			}
+		}
+	}
+
+	/**
+	 * Comprueba que no se leen ficheros que no son de partidas.
+	 */
+	@Test
+	@DisplayName("Comprobar que se rechazan ficheros que no son de partidas.")
+	void probarFicheroIncorrecto() throws IOException {
+		Path fichero = directorio.resolve("texto.txt");
+		Files.writeString(fichero, "12ES 00CL 33CB\n");
+		Path vacio = Files.createFile(directorio.resolve("vacio.qtk"));
+		assertThrows(IOException.class, () -> LectorPartidas.abrir(fichero).close());
+		assertThrows(IOException.class, () -> LectorPartidas.abrir(vacio).close());
+	}
+}
@@ -0,0 +1,133 @@
+package quantik.registro;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Tests sobre la reproducción de ficheros de partidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre ReproductorPartidas (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class ReproductorPartidasTest {
+
+	/** Numero de partidas legales del fichero. */
+	private static final int PARTIDAS = 5000;
+
+	/** Directorio temporal. */
+	@TempDir
+	Path directorio;
+
+	/**
+	 * Comprueba los totales con partidas legales, ilegales y sin acabar,
+	 * con distinto numero de hilos, tamaño de bloque y tablero.
+	 *
+	 * @param hilos hilos
+	 * @param bloque registros por bloque
+	 * @param objetos true para usar el tablero de objetos
+	 */
+	@ParameterizedTest
+	@CsvSource({ "1, 65536, false", "3, 97, false", "2, 1000, true" })
+	@DisplayName("Comprobar los totales de la reproducción.")
+	void probarReproduccion(int hilos, long bloque, boolean objetos) throws IOException {
+		int[][] partidas = PartidasAleatorias.generar(3L, PARTIDAS);
+		long[] victorias = new long[2];
+		long[] bloqueos = new long[2];
+		long jugadas = 0;
+		for (int[] secuencia : partidas) {
+			Partida partida = PartidasAleatorias.crearVacia();
+			for (int jugada : secuencia) {
+				partida.hacerJugada(jugada);
+			}
+			victorias[partida.consultarGanador().ordinal()]++;
+			if (!partida.hayAlgunGrupoCompleto()) {
+				bloqueos[partida.consultarGanador().ordinal()]++;
+			}
+			jugadas += secuencia.length;
+		}
+		Path fichero = directorio.resolve("partidas.qtk");
+		try (EscritorPartidas escritor = EscritorPartidas.crear(fichero)) {
+			for (int i = 0; i < PARTIDAS; i++) {
+				if (i == 1234) {
+					// misma celda dos veces
+					escritor.escribir(new int[] { 0, 5, 0 }, 3);
+				}
+				escritor.escribir(partidas[i], partidas[i].length);
+			}
+			// jugada despues de acabar la partida
+			int[] conExtra = Arrays.copyOf(partidas[0], partidas[0].length + 1);
+			escritor.escribir(conExtra, conExtra.length);
+			// partida sin acabar
+			escritor.escribir(partidas[1], 2);
+		}
+		ReproductorPartidas reproductor = new ReproductorPartidas(hilos, bloque,
+				objetos ? Tablero::new : TableroBitboard::new);
+		ReproductorPartidas.Resumen resumen = reproductor.reproducir(fichero);
+		final long esperadas = jugadas + 2 + partidas[0].length + 2;
+		assertAll("resumen",
+				() -> assertThat(resumen.consultarPartidas(), is((long) PARTIDAS + 3)),
+				() -> assertThat(resumen.consultarJugadas(), is(esperadas)),
+				() -> assertThat(resumen.consultarVictorias(Color.BLANCO), is(victorias[0])),
+				() -> assertThat(resumen.consultarVictorias(Color.NEGRO), is(victorias[1])),
+				() -> assertThat(resumen.consultarBloqueos(Color.BLANCO), is(bloqueos[0])),
+				() -> assertThat(resumen.consultarBloqueos(Color.NEGRO), is(bloqueos[1])),
+				() -> assertThat(resumen.consultarIlegales(), is(2L)),
+				() -> assertThat(resumen.consultarPrimerIlegal(), is(1234L)),
+				() -> assertThat(resumen.consultarSinAcabar(), is(1L)));
+	}
+
+	/**
+	 * Comprueba que los registros incorrectos se cuentan y se saltan sin
+	 * detener la reproduccion.
+	 */
+	@Test
+	@DisplayName("Comprobar que se saltan los registros incorrectos.")
+	void probarRegistrosIncorrectos() throws IOException {
+		int[][] partidas = PartidasAleatorias.generar(4L, 100);
+		Path fichero = directorio.resolve("incorrectos.qtk");
+		try (EscritorPartidas escritor = EscritorPartidas.crear(fichero)) {
+			for (int[] partida : partidas) {
+				escritor.escribir(partida, partida.length);
+			}
+		}
+		try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.WRITE)) {
+			for (long registro : new long[] { 57, 10 }) {
+				canal.write(ByteBuffer.wrap(new byte[] { (byte) 17 }),
+						FormatoRegistro.TAMAÑO_CABECERA + registro * FormatoRegistro.TAMAÑO_REGISTRO);
+			}
+		}
+		ReproductorPartidas.Resumen resumen = new ReproductorPartidas(2, 16, TableroBitboard::new).reproducir(fichero);
+		assertAll("resumen",
+				() -> assertThat(resumen.consultarPartidas(), is(98L)),
+				() -> assertThat(resumen.consultarIncorrectos(), is(2L)),
+				() -> assertThat(resumen.consultarPrimerIncorrecto(), is(10L)),
+				() -> assertThat(resumen.consultarIlegales(), is(0L)),
+				() -> assertThat(resumen.consultarSinAcabar(), is(0L)));
+	}
+}
@@ -0,0 +1,346 @@
+package quantik.servidor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.registro.FormatoRegistro;
+import quantik.util.Color;
+
+/**
+ * Tests sobre el servidor binario de partidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre ServidorNio (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class ServidorNioTest {
+
+	/** Registro compartido por los dos servidores. */
+	private RegistroMesas mesas;
+
+	/** Servidor binario. */
+	private ServidorNio servidor;
+
+	/** Puerto del servidor binario. */
+	private int puerto;
+
+	/** Inicialización. */
+	@BeforeEach
+	void inicializar() throws IOException {
+		mesas = new RegistroMesas();
+		servidor = new ServidorNio(mesas, 2);
+		puerto = servidor.iniciar(0);
+	}
+
+	/** Cierre del servidor. */
+	@AfterEach
+	void cerrar() throws IOException {
+		servidor.cerrar();
+	}
+
+	/**
+	 * Atiende una peticion sin pasar por la red.
+	 *
+	 * @param id partida
+	 * @param cerrar true para cerrar la partida
+	 * @param jugadas jugadas en texto nnll
+	 * @return respuesta
+	 */
+	private ByteBuffer responder(long id, boolean cerrar, String... jugadas) {
+		int[] codificadas = new int[jugadas.length];
+		for (int i = 0; i < jugadas.length; i++) {
+			codificadas[i] = FormatoRegistro.deTexto(jugadas[i]);
+		}
+		ByteBuffer peticion = ByteBuffer.allocate(ServidorNio.MAXIMA_PETICION);
+		ServidorNio.codificarPeticion(peticion, id, codificadas, codificadas.length, cerrar);
+		peticion.flip();
+		assertThat(ServidorNio.medirPeticion(peticion), is(peticion.remaining()));
+		ByteBuffer respuesta = ByteBuffer.allocate(ServidorNio.RESPUESTA);
+		servidor.responder(peticion, respuesta, new int[ServidorNio.MAXIMO_JUGADAS]);
+		assertThat(peticion.hasRemaining(), is(false));
+		return respuesta.flip();
+	}
+
+	/**
+	 * Comprueba las respuestas a las peticiones sin pasar por la red.
+	 */
+	@Test
+	@DisplayName("Comprobar las respuestas del protocolo binario.")
+	void probarProtocolo() {
+		ByteBuffer nueva = responder(0, false, "00CL", "33CN");
+		long id = nueva.getLong();
+		ByteBuffer ilegal = responder(id, false, "32CN", "01CN");
+		ByteBuffer desconocida = responder(id + 100, false);
+		ByteBuffer cerrada = responder(id, true);
+		ByteBuffer formato = ByteBuffer.allocate(ServidorNio.RESPUESTA);
+		ByteBuffer peticion = ByteBuffer.allocate(ServidorNio.MAXIMA_PETICION);
+		peticion.put((byte) 17).putLong(0).put(new byte[ServidorNio.bytesJugadas(17)]).flip();
+		servidor.responder(peticion, formato, new int[ServidorNio.MAXIMO_JUGADAS]);
+		formato.flip();
+		assertAll("protocolo",
+				() -> assertThat(nueva.get(), is(ServidorNio.TURNO_BLANCO)),
+				() -> assertThat(nueva.get(), is((byte) 2)),
+				() -> assertThat(nueva.get(), is((byte) 2)),
+				() -> assertThat(ilegal.getLong(), is(id)),
+				() -> assertThat(ilegal.get(), is(ServidorNio.ERROR_ILEGAL)),
+				() -> assertThat(ilegal.get(), is((byte) 0)),
+				() -> assertThat(desconocida.getLong(), is(id + 100)),
+				() -> assertThat(desconocida.get(), is(ServidorNio.ERROR_PARTIDA)),
+				() -> assertThat(cerrada.getLong(), is(id)),
+				() -> assertThat(cerrada.get(), is(ServidorNio.TURNO_BLANCO)),
+				() -> assertThat(formato.position(Long.BYTES).get(), is(ServidorNio.ERROR_FORMATO)),
+				() -> assertThat(peticion.hasRemaining(), is(false)),
+				() -> assertThat(mesas.contar(), is(0)));
+	}
+
+	/**
+	 * Comprueba que una partida completa enviada en una sola peticion, con las
+	 * jugadas empaquetadas, se aplica entera.
+	 */
+	@Test
+	@DisplayName("Comprobar una partida completa en una sola petición.")
+	void probarPartidaEnUnaPeticion() {
+		SplittableRandom random = new SplittableRandom(5L);
+		for (int n = 0; n < 50; n++) {
+			int[] jugadas = PartidasAleatorias.jugarCompleta(random);
+			int numero = jugadas.length;
+			Partida partida = PartidasAleatorias.crearVacia();
+			for (int jugada : jugadas) {
+				partida.hacerJugada(jugada);
+			}
+			ByteBuffer peticion = ByteBuffer.allocate(ServidorNio.MAXIMA_PETICION);
+			ServidorNio.codificarPeticion(peticion, 0, jugadas, numero, true);
+			peticion.flip();
+			assertThat(peticion.remaining(), is(ServidorNio.CABECERA_PETICION + (numero * 6 + 7) / 8));
+			ByteBuffer respuesta = ByteBuffer.allocate(ServidorNio.RESPUESTA);
+			servidor.responder(peticion, respuesta, new int[ServidorNio.MAXIMO_JUGADAS]);
+			respuesta.flip().getLong();
+			assertThat(respuesta.get(), is((byte) (2 + partida.consultarGanador().ordinal())));
+			assertThat(respuesta.get(), is((byte) numero));
+		}
+		assertThat(mesas.contar(), is(0));
+	}
+
+	/**
+	 * Juega a la vez partidas completas desde varias conexiones, una jugada
+	 * por peticion, comprobando cada respuesta con una partida local.
+	 */
+	@Test
+	@DisplayName("Comprobar partidas simultáneas por el servidor binario.")
+	void probarPartidasSimultaneas() throws Exception {
+		ExecutorService clientes = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> tareas = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				long semilla = i;
+				tareas.add(clientes.submit(() -> jugarPartidas(semilla, 20)));
+			}
+			for (Future<Integer> tarea : tareas) {
+				assertThat(tarea.get(), is(20));
+			}
+		} finally {
+			clientes.shutdown();
+		}
+		assertThat(mesas.contar(), is(0));
+	}
+
+	/**
+	 * Envia de una vez mas peticiones de las que caben en el buffer de salida
+	 * del reactor y comprueba que llegan todas las respuestas en orden.
+	 */
+	@Test
+	@DisplayName("Comprobar peticiones encadenadas sin esperar respuesta.")
+	void probarPeticionesEncadenadas() throws IOException {
+		int numero = 3000;
+		try (SocketChannel canal = conectar()) {
+			ByteBuffer peticiones = ByteBuffer.allocate(numero * ServidorNio.CABECERA_PETICION);
+			for (int i = 0; i < numero; i++) {
+				ServidorNio.codificarPeticion(peticiones, 1_000_000 + i, null, 0, false);
+			}
+			peticiones.flip();
+			while (peticiones.hasRemaining()) {
+				canal.write(peticiones);
+			}
+			ByteBuffer respuestas = leer(canal, numero * ServidorNio.RESPUESTA);
+			for (int i = 0; i < numero; i++) {
+				assertThat(respuestas.getLong(), is(1_000_000L + i));
+				assertThat(respuestas.get(), is(ServidorNio.ERROR_PARTIDA));
+				respuestas.position(respuestas.position() + 2);
+			}
+		}
+	}
+
+	/**
+	 * Comprueba que una partida creada por el servidor de texto se juega por el
+	 * binario y que se cuentan las conexiones abiertas.
+	 */
+	@Test
+	@DisplayName("Comprobar el registro compartido y las conexiones inactivas.")
+	void probarRegistroCompartidoYConexiones() throws Exception {
+		ServidorPartidas texto = new ServidorPartidas(mesas);
+		long id = Long.parseLong(texto.atender("NUEVA").substring("PARTIDA ".length()));
+		List<SocketChannel> canales = new ArrayList<>();
+		try {
+			for (int i = 0; i < 200; i++) {
+				canales.add(conectar());
+			}
+			ByteBuffer peticion = ByteBuffer.allocate(ServidorNio.MAXIMA_PETICION);
+			ServidorNio.codificarPeticion(peticion, id, new int[] { FormatoRegistro.deTexto("12ES") }, 1, false);
+			canales.get(150).write(peticion.flip());
+			ByteBuffer respuesta = leer(canales.get(150), ServidorNio.RESPUESTA);
+			assertThat(respuesta.getLong(), is(id));
+			assertThat(respuesta.get(), is(ServidorNio.TURNO_NEGRO));
+			assertThat(texto.atender("ESTADO " + id), is("TURNO NEGRO 1"));
+			esperar(200);
+		} finally {
+			for (SocketChannel canal : canales) {
+				canal.close();
+			}
+		}
+		esperar(0);
+	}
+
+	/**
+	 * Comprueba que cerrar el servidor cierra las conexiones abiertas, tambien
+	 * las que estan llegando, y deja la cuenta de conexiones a cero.
+	 */
+	@Test
+	@DisplayName("Comprobar que cerrar el servidor cierra todas las conexiones.")
+	void probarCierre() throws Exception {
+		List<SocketChannel> canales = new ArrayList<>();
+		try {
+			for (int i = 0; i < 100; i++) {
+				canales.add(conectar());
+			}
+			esperar(100);
+			ExecutorService clientes = Executors.newSingleThreadExecutor();
+			try {
+				Future<?> llegando = clientes.submit(() -> {
+					for (int i = 0; i < 100; i++) {
+						try {
+							conectar().close();
+						} catch (IOException e) {
+							return;
+						}
+					}
+				});
+				servidor.cerrar();
+				llegando.get();
+			} finally {
+				clientes.shutdown();
+			}
+			assertThat(servidor.consultarConexiones(), is(0));
+			ByteBuffer buffer = ByteBuffer.allocate(1);
+			for (SocketChannel canal : canales) {
+				assertThat(canal.read(buffer), is(-1));
+			}
+		} finally {
+			for (SocketChannel canal : canales) {
+				canal.close();
+			}
+		}
+	}
+
+	/**
+	 * Espera a que el servidor tenga el numero de conexiones indicado.
+	 *
+	 * @param conexiones conexiones
+	 * @throws InterruptedException si se interrumpe la espera
+	 */
+	private void esperar(int conexiones) throws InterruptedException {
+		while (servidor.consultarConexiones() != conexiones) {
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Juega partidas aleatorias por una conexion.
+	 *
+	 * @param semilla semilla
+	 * @param numero numero de partidas
+	 * @return partidas acabadas
+	 * @throws IOException si falla la conexion
+	 */
+	private int jugarPartidas(long semilla, int numero) throws IOException {
+		SplittableRandom random = new SplittableRandom(semilla);
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		ByteBuffer peticion = ByteBuffer.allocate(ServidorNio.MAXIMA_PETICION);
+		int acabadas = 0;
+		try (SocketChannel canal = conectar()) {
+			for (int n = 0; n < numero; n++) {
+				Partida partida = PartidasAleatorias.crearVacia();
+				long id = 0;
+				while (!partida.estaAcabadaPartida()) {
+					int jugada = PartidasAleatorias.elegirJugada(partida, random, jugadas);
+					partida.hacerJugada(jugada);
+					peticion.clear();
+					ServidorNio.codificarPeticion(peticion, id, new int[] { jugada }, 1,
+							partida.estaAcabadaPartida());
+					canal.write(peticion.flip());
+					ByteBuffer respuesta = leer(canal, ServidorNio.RESPUESTA);
+					id = respuesta.getLong();
+					Color ganador = partida.consultarGanador();
+					int esperado = ganador == null ? partida.consultarTurno().ordinal() : 2 + ganador.ordinal();
+					assertThat(respuesta.get(), is((byte) esperado));
+					assertThat(respuesta.get(), is((byte) 1));
+					assertThat(respuesta.get(), is((byte) partida.consultarNumeroJugada()));
+				}
+				acabadas++;
+			}
+		}
+		return acabadas;
+	}
+
+	/**
+	 * Abre una conexion bloqueante con el servidor.
+	 *
+	 * @return canal
+	 * @throws IOException si no se puede conectar
+	 */
+	private SocketChannel conectar() throws IOException {
+		return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto));
+	}
+
+	/**
+	 * Lee un numero exacto de bytes.
+	 *
+	 * @param canal canal bloqueante
+	 * @param bytes bytes a leer
+	 * @return buffer listo para leer
+	 * @throws IOException si se cierra la conexion
+	 */
+	private static ByteBuffer leer(SocketChannel canal, int bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(bytes);
+		while (buffer.hasRemaining()) {
+			if (canal.read(buffer) < 0) {
+				throw new IOException("Conexion cerrada");
+			}
+		}
+		return buffer.flip();
+	}
+}
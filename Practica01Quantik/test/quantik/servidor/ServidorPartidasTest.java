@@ -0,0 +1,262 @@
+package quantik.servidor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.registro.FormatoRegistro;
+
+/**
+ * Tests sobre el servidor de partidas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre ServidorPartidas (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class ServidorPartidasTest {
+
+	/** Servidor. */
+	private ServidorPartidas servidor;
+
+	/** Puerto del servidor. */
+	private int puerto;
+
+	/** Inicialización. */
+	@BeforeEach
+	void inicializar() throws IOException {
+		servidor = new ServidorPartidas();
+		puerto = servidor.iniciar(0);
+	}
+
+	/** Cierre del servidor. */
+	@AfterEach
+	void cerrar() throws IOException {
+		servidor.cerrar();
+	}
+
+	/**
+	 * Comprueba las respuestas a las ordenes sin pasar por la red.
+	 */
+	@Test
+	@DisplayName("Comprobar las respuestas del protocolo.")
+	void probarProtocolo() {
+		String id = servidor.atender("NUEVA").substring("PARTIDA ".length());
+		assertAll("protocolo",
+				() -> assertThat(servidor.atender("ESTADO " + id), is("TURNO BLANCO 0")),
+				() -> assertThat(servidor.atender("JUGAR " + id + " 00CL"), is("TURNO NEGRO")),
+				() -> assertThat(servidor.atender("JUGAR " + id + " 00CN"), is("ERROR ilegal")),
+				() -> assertThat(servidor.atender("JUGAR " + id + " 01CL"), is("ERROR ilegal")),
+				() -> assertThat(servidor.atender("JUGAR " + id + " 01XX"), is("ERROR formato")),
+				() -> assertThat(servidor.atender("JUGAR 999 01CN"), is("ERROR partida")),
+				() -> assertThat(servidor.atender("JUGAR x 01CN"), is("ERROR partida")),
+				() -> assertThat(servidor.atender("JUGAR " + id), is("ERROR formato")),
+				() -> assertThat(servidor.atender("BAILAR"), is("ERROR orden")),
+				() -> assertThat(servidor.atender("ESTADO " + id), is("TURNO NEGRO 1")),
+				() -> assertThat(servidor.consultarPartidas(), is(1)),
+				() -> assertThat(servidor.atender("CERRAR " + id), is("CERRADA " + id)),
+				() -> assertThat(servidor.atender("ESTADO " + id), is("ERROR partida")),
+				() -> assertThat(servidor.atender("SALIR") == null, is(true)));
+	}
+
+	/**
+	 * Juega a la vez muchas partidas completas desde distintas conexiones.
+	 */
+	@Test
+	@DisplayName("Comprobar partidas simultáneas por TCP.")
+	void probarPartidasSimultaneas() throws Exception {
+		ExecutorService clientes = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<Integer>> tareas = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				long semilla = i;
+				tareas.add(clientes.submit(() -> jugarPartidas(semilla, 10)));
+			}
+			for (Future<Integer> tarea : tareas) {
+				assertThat(tarea.get(), is(10));
+			}
+		} finally {
+			clientes.shutdown();
+		}
+		assertThat(servidor.consultarPartidas(), is(0));
+	}
+
+	/**
+	 * Comprueba que dos conexiones pueden jugar la misma partida por turnos.
+	 */
+	@Test
+	@DisplayName("Comprobar una partida entre dos conexiones.")
+	void probarDosConexiones() throws IOException {
+		try (Cliente blancas = new Cliente(); Cliente negras = new Cliente()) {
+			String id = blancas.enviar("NUEVA").substring("PARTIDA ".length());
+			assertThat(blancas.enviar("JUGAR " + id + " 00CL"), is("TURNO NEGRO"));
+			assertThat(negras.enviar("JUGAR " + id + " 33CN"), is("TURNO BLANCO"));
+			assertThat(negras.enviar("ESTADO " + id), is("TURNO BLANCO 2"));
+			assertThat(blancas.enviar("ESTADO " + id), is("TURNO BLANCO 2"));
+			assertThat(negras.enviar("SALIR"), is("ADIOS"));
+		}
+	}
+
+	/**
+	 * Comprueba que una linea demasiado larga se descarta y que la conexion
+	 * sigue atendiendo las siguientes ordenes.
+	 */
+	@Test
+	@DisplayName("Comprobar que se rechazan las líneas demasiado largas.")
+	void probarLineaLarga() throws IOException {
+		try (Cliente cliente = new Cliente()) {
+			assertThat(cliente.enviar("JUGAR " + "1".repeat(100_000)), is("ERROR formato"));
+			String id = cliente.enviar("NUEVA\r").substring("PARTIDA ".length());
+			assertThat(cliente.enviar("ESTADO " + id), is("TURNO BLANCO 0"));
+		}
+	}
+
+	/**
+	 * Comprueba que sin hilos virtuales, porque no existen o porque son una
+	 * API en vista previa, las conexiones usan hilos de plataforma.
+	 *
+	 * @throws Exception si falla una tarea
+	 */
+	@Test
+	@DisplayName("Comprobar los hilos de plataforma cuando no hay hilos virtuales.")
+	void probarEjecutorSinHilosVirtuales() throws Exception {
+		ExecutorService sinMetodo = ServidorPartidas.crearEjecutor(Executors.class, "noExiste");
+		ExecutorService enVistaPrevia = ServidorPartidas.crearEjecutor(VistaPrevia.class, "crear");
+		try {
+			for (ExecutorService ejecutor : List.of(sinMetodo, enVistaPrevia)) {
+				Thread hilo = ejecutor.submit(Thread::currentThread).get();
+				assertAll("ejecutor",
+						() -> assertThat(hilo.getName(), startsWith("quantik-conexion-")),
+						() -> assertThat(hilo.isDaemon(), is(true)));
+			}
+		} finally {
+			sinMetodo.shutdown();
+			enVistaPrevia.shutdown();
+		}
+	}
+
+	/**
+	 * Juega partidas aleatorias por una conexion comprobando cada respuesta con
+	 * una partida local.
+	 *
+	 * @param semilla semilla
+	 * @param numero numero de partidas
+	 * @return partidas acabadas
+	 * @throws IOException si falla la conexion
+	 */
+	private int jugarPartidas(long semilla, int numero) throws IOException {
+		SplittableRandom random = new SplittableRandom(semilla);
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		int acabadas = 0;
+		try (Cliente cliente = new Cliente()) {
+			for (int n = 0; n < numero; n++) {
+				String id = cliente.enviar("NUEVA").substring("PARTIDA ".length());
+				Partida partida = PartidasAleatorias.crearVacia();
+				String respuesta = null;
+				while (!partida.estaAcabadaPartida()) {
+					int jugada = PartidasAleatorias.elegirJugada(partida, random, jugadas);
+					partida.hacerJugada(jugada);
+					respuesta = cliente.enviar("JUGAR " + id + " " + FormatoRegistro.aTexto(jugada));
+					if (!partida.estaAcabadaPartida()) {
+						assertThat(respuesta, is("TURNO " + partida.consultarTurno()));
+					}
+				}
+				assertThat(respuesta, is("GANADOR " + partida.consultarGanador()));
+				assertThat(cliente.enviar("JUGAR " + id + " 00CL"), startsWith("ERROR"));
+				assertThat(cliente.enviar("CERRAR " + id), is("CERRADA " + id));
+				acabadas++;
+			}
+		}
+		return acabadas;
+	}
+
+	/**
+	 * Imita Executors.newVirtualThreadPerTaskExecutor en los JDK 19 y 20 sin
+	 * --enable-preview.
+	 */
+	public static final class VistaPrevia {
+
+		/** Solo metodos de clase. */
+		private VistaPrevia() {
+		}
+
+		/**
+		 * Falla como una API en vista previa no habilitada.
+		 *
+		 * @return nunca
+		 */
+		public static ExecutorService crear() {
+			throw new UnsupportedOperationException("Preview Features not enabled");
+		}
+	}
+
+	/**
+	 * Conexion de prueba que envia una orden y espera su respuesta.
+	 */
+	private final class Cliente implements AutoCloseable {
+
+		/** Conexion. */
+		private final Socket socket;
+
+		/** Lectura de respuestas. */
+		private final BufferedReader entrada;
+
+		/** Escritura de ordenes. */
+		private final PrintWriter salida;
+
+		/**
+		 * Constructor.
+		 *
+		 * @throws IOException si no se puede conectar
+		 */
+		Cliente() throws IOException {
+			socket = new Socket(InetAddress.getLoopbackAddress(), puerto);
+			entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			salida = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Envia una orden.
+		 *
+		 * @param orden orden
+		 * @return respuesta
+		 * @throws IOException si falla la conexion
+		 */
+		String enviar(String orden) throws IOException {
+			salida.print(orden + "\n");
+			salida.flush();
+			return entrada.readLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package quantik.solver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre la busqueda alfa-beta con profundizacion iterativa, comparando
+ * con el solucionador.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre BusquedaAlfaBeta (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class BusquedaAlfaBetaTest {
+
+	/** Busqueda. */
+	private BusquedaAlfaBeta busqueda;
+
+	/** Inicialización. */
+	@BeforeEach
+	void inicializar() {
+		busqueda = new BusquedaAlfaBeta();
+	}
+
+	/**
+	 * Comprueba que la jugada es legal, que la partida no cambia y que con el
+	 * mismo limite de nodos se elige la misma jugada.
+	 */
+	@Test
+	@DisplayName("Comprobar que las jugadas son legales y reproducibles.")
+	void probarJugadasLegales() {
+		SplittableRandom random = new SplittableRandom(9L);
+		for (int prueba = 0; prueba < 30; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, random.nextInt(12));
+			long clave = partida.consultarClavePosicion();
+			int jugada = busqueda.buscar(partida, Long.MAX_VALUE, 20_000);
+			int nodos = (int) busqueda.consultarNodos();
+			assertAll("jugada " + prueba,
+					() -> assertThat(partida.consultarClavePosicion(), is(clave)),
+					() -> assertThat(partida.esJugadaLegalEnTurnoActual((jugada >>> 2) / 4, (jugada >>> 2) % 4,
+							Figura.values()[jugada & 0x3]), is(true)),
+					() -> assertThat(nodos <= 20_000, is(true)),
+					() -> assertThat(busqueda.buscar(partida, Long.MAX_VALUE, 20_000), is(jugada)),
+					() -> assertThat(partida.consultarClavePosicion(), is(clave)));
+		}
+	}
+
+	/**
+	 * Comprueba que cerca del final la busqueda llega a valores exactos que
+	 * coinciden con el solucionador y que en las posiciones ganadas la jugada
+	 * mantiene la victoria.
+	 *
+	 * @param semilla semilla
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 90L, 100L })
+	@DisplayName("Comprobar los valores exactos contra el solucionador.")
+	void probarContraSolucionador(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		Solucionador solucionador = new Solucionador(new TablaTransposicionSecuencial(18));
+		for (int prueba = 0; prueba < 30; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, 8 + random.nextInt(3));
+			if (partida.estaAcabadaPartida()) {
+				continue;
+			}
+			boolean gana = solucionador.resolver(partida).ganaTurno();
+			int jugada = busqueda.buscar(partida, 10_000);
+			int valor = busqueda.consultarValor();
+			assertThat("prueba " + prueba, Math.abs(valor) > BusquedaAlfaBeta.VICTORIA - 17, is(true));
+			assertThat("prueba " + prueba, valor > 0, is(gana));
+			if (gana) {
+				partida.hacerJugada(jugada);
+				assertThat(partida.estaAcabadaPartida() || !solucionador.resolver(partida).ganaTurno(), is(true));
+			}
+		}
+	}
+
+	/**
+	 * Comprueba que la busqueda respeta el limite de nodos exactamente y el de
+	 * tiempo con un margen holgado, ya que el tiempo depende de la carga de la
+	 * maquina, y que mide nodos por segundo.
+	 */
+	@Test
+	@DisplayName("Comprobar que se respetan los límites de nodos y tiempo.")
+	void probarTiempo() {
+		Partida partida = PartidasAleatorias.crear(new SplittableRandom(1L), 0);
+		int porNodos = busqueda.buscar(partida, Long.MAX_VALUE, 50_000);
+		long nodos = busqueda.consultarNodos();
+		int profundidad = busqueda.consultarProfundidad();
+		long inicio = System.nanoTime();
+		int porTiempo = busqueda.buscar(partida, 200);
+		long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+		assertAll("limites",
+				() -> assertThat(porNodos >= 0, is(true)),
+				() -> assertThat(nodos, is(50_000L)),
+				() -> assertThat(profundidad >= 1, is(true)),
+				() -> assertThat(porTiempo >= 0, is(true)),
+				() -> assertThat(milisegundos < 5_000, is(true)),
+				() -> assertThat(busqueda.consultarNodosPorSegundo() > 0, is(true)));
+	}
+
+	/**
+	 * Comprueba la jugada ganadora inmediata y la partida acabada.
+	 */
+	@Test
+	@DisplayName("Comprobar una victoria inmediata y una partida acabada.")
+	void probarVictoriaInmediata() {
+		Partida partida = PartidasAleatorias.crear(new SplittableRandom(2L), 0);
+		partida.hacerJugada(0 << 2 | Figura.CONO.ordinal());
+		partida.hacerJugada(1 << 2 | Figura.CUBO.ordinal());
+		partida.hacerJugada(4 << 2 | Figura.ESFERA.ordinal());
+		int ganadora = busqueda.buscar(partida, 1000);
+		int valor = busqueda.consultarValor();
+		partida.hacerJugada(ganadora);
+		assertAll("victoria inmediata",
+				() -> assertThat(valor, is(BusquedaAlfaBeta.VICTORIA - 1)),
+				() -> assertThat(partida.hayAlgunGrupoCompleto(), is(true)),
+				() -> assertThat(busqueda.buscar(partida, 100), is(-1)));
+	}
+}
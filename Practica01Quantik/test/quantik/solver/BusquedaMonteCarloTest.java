@@ -0,0 +1,138 @@
+package quantik.solver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre la busqueda de Monte Carlo, comparando con el solucionador.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre BusquedaMonteCarlo (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class BusquedaMonteCarloTest {
+
+	/** Busqueda con un hilo. */
+	private BusquedaMonteCarlo secuencial;
+
+	/** Busqueda con varios hilos. */
+	private BusquedaMonteCarlo paralela;
+
+	/** Inicialización. */
+	@BeforeEach
+	void inicializar() {
+		secuencial = new BusquedaMonteCarlo(1, 1 << 16);
+		paralela = new BusquedaMonteCarlo(3, 1 << 16);
+	}
+
+	/** Liberación de los hilos. */
+	@AfterEach
+	void cerrar() {
+		secuencial.cerrar();
+		paralela.cerrar();
+	}
+
+	/**
+	 * Comprueba que la jugada es legal, que la partida no cambia y que con la
+	 * misma semilla y un hilo se elige la misma jugada.
+	 */
+	@Test
+	@DisplayName("Comprobar que las jugadas son legales y reproducibles.")
+	void probarJugadasLegales() {
+		SplittableRandom random = new SplittableRandom(8L);
+		for (int prueba = 0; prueba < 30; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, random.nextInt(12));
+			long clave = partida.consultarClavePosicion();
+			long semilla = prueba;
+			int jugada = secuencial.buscar(partida, Long.MAX_VALUE, 300, semilla);
+			assertAll("jugada " + prueba,
+					() -> assertThat(partida.consultarClavePosicion(), is(clave)),
+					() -> assertThat(partida.esJugadaLegalEnTurnoActual((jugada >>> 2) / 4, (jugada >>> 2) % 4,
+							Figura.values()[jugada & 0x3]), is(true)),
+					() -> assertThat(secuencial.buscar(partida, Long.MAX_VALUE, 300, semilla), is(jugada)),
+					() -> assertThat(paralela.buscar(partida, Long.MAX_VALUE, 300, semilla) >= 0, is(true)),
+					() -> assertThat(partida.consultarClavePosicion(), is(clave)));
+		}
+	}
+
+	/**
+	 * Comprueba que en posiciones ganadas cercanas al final se elige una
+	 * jugada que mantiene la victoria.
+	 *
+	 * @param semilla semilla
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 70L, 80L })
+	@DisplayName("Comprobar que se conservan las posiciones ganadas.")
+	void probarPosicionesGanadas(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		Solucionador solucionador = new Solucionador(new TablaTransposicionSecuencial(18));
+		int probadas = 0;
+		for (int prueba = 0; prueba < 40; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, 8 + random.nextInt(3));
+			if (partida.estaAcabadaPartida() || !solucionador.resolver(partida).ganaTurno()) {
+				continue;
+			}
+			probadas++;
+			int jugada = paralela.buscar(partida, Long.MAX_VALUE, 20_000, prueba);
+			partida.hacerJugada(jugada);
+			boolean gana = partida.estaAcabadaPartida() || !solucionador.resolver(partida).ganaTurno();
+			assertThat("prueba " + prueba, gana, is(true));
+		}
+		assertThat(probadas > 0, is(true));
+	}
+
+	/**
+	 * Comprueba que la busqueda respeta el tiempo y no pasa de la capacidad.
+	 */
+	@Test
+	@DisplayName("Comprobar que se respeta el tiempo de búsqueda.")
+	void probarTiempo() {
+		Partida partida = PartidasAleatorias.crear(new SplittableRandom(1L), 0);
+		long inicio = System.nanoTime();
+		int jugada = paralela.buscar(partida, 200);
+		long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+		assertAll("tiempo",
+				() -> assertThat(jugada >= 0, is(true)),
+				() -> assertThat(milisegundos >= 200 && milisegundos < 400, is(true)),
+				() -> assertThat(paralela.consultarSimulaciones() > 0, is(true)),
+				() -> assertThat(paralela.consultarNodos() <= 1 << 16, is(true)),
+				() -> assertThat(paralela.consultarValor() > 0 && paralela.consultarValor() < 1, is(true)));
+	}
+
+	/**
+	 * Comprueba que una partida acabada no tiene jugada.
+	 */
+	@Test
+	@DisplayName("Comprobar una partida acabada.")
+	void probarPartidaAcabada() {
+		Partida partida = PartidasAleatorias.crear(new SplittableRandom(2L), 0);
+		partida.hacerJugada(0 << 2 | Figura.CONO.ordinal());
+		partida.hacerJugada(1 << 2 | Figura.CUBO.ordinal());
+		partida.hacerJugada(4 << 2 | Figura.ESFERA.ordinal());
+		int ganadora = secuencial.buscar(partida, 100);
+		partida.hacerJugada(ganadora);
+		assertAll("partida acabada",
+				() -> assertThat(partida.hayAlgunGrupoCompleto(), is(true)),
+				() -> assertThat(secuencial.buscar(partida, 100), is(-1)));
+	}
+}
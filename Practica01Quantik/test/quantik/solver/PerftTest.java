@@ -0,0 +1,172 @@
+package quantik.solver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.modelo.Caja;
+import quantik.modelo.Celda;
+import quantik.modelo.Grupo;
+import quantik.modelo.Tablero;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre perft, comparando con un recorrido sobre el modelo de objetos.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre Perft (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class PerftTest {
+
+	/**
+	 * Crea los doce grupos sobre las celdas del tablero.
+	 *
+	 * @param tablero tablero
+	 * @return grupos
+	 */
+	private static Grupo[] crearGrupos(Tablero tablero) {
+		Grupo[] grupos = new Grupo[12];
+		for (int i = 0; i < 4; i++) {
+			Celda[] fila = new Celda[4];
+			Celda[] columna = new Celda[4];
+			Celda[] cuadrante = new Celda[4];
+			for (int j = 0; j < 4; j++) {
+				fila[j] = tablero.obtenerCelda(i, j);
+				columna[j] = tablero.obtenerCelda(j, i);
+				cuadrante[j] = tablero.obtenerCelda((i / 2) * 2 + j / 2, (i % 2) * 2 + j % 2);
+			}
+			grupos[i] = new Grupo(fila);
+			grupos[4 + i] = new Grupo(columna);
+			grupos[8 + i] = new Grupo(cuadrante);
+		}
+		return grupos;
+	}
+
+	/**
+	 * Perft de referencia usando solo Tablero, Grupo y Caja.
+	 *
+	 * @param tablero tablero
+	 * @param grupos grupos del tablero
+	 * @param cajas cajas indexadas por ordinal del color
+	 * @param turno color con turno
+	 * @param profundidad profundidad
+	 * @return hojas
+	 */
+	private static long referencia(Tablero tablero, Grupo[] grupos, Caja[] cajas, Color turno, int profundidad) {
+		if (profundidad == 0) {
+			return 1;
+		}
+		for (Grupo grupo : grupos) {
+			if (grupo.estaCompletoConFigurasDiferentes()) {
+				return 0;
+			}
+		}
+		Caja caja = cajas[turno.ordinal()];
+		long hojas = 0;
+		for (int fila = 0; fila < 4; fila++) {
+			for (int columna = 0; columna < 4; columna++) {
+				Celda celda = tablero.obtenerCelda(fila, columna);
+				if (!celda.estaVacia()) {
+					continue;
+				}
+				for (Figura figura : Figura.values()) {
+					boolean legal = caja.estaDisponible(figura);
+					for (Grupo grupo : grupos) {
+						if (legal && grupo.contieneCelda(celda)) {
+							legal = !grupo.existeMismaPiezaDelColorContrario(figura, turno);
+						}
+					}
+					if (legal) {
+						tablero.colocar(fila, columna, caja.retirar(figura));
+						hojas += referencia(tablero, grupos, cajas, turno.obtenerContrario(), profundidad - 1);
+						tablero.colocar(fila, columna, null);
+						caja.reponer(figura);
+					}
+				}
+			}
+		}
+		return hojas;
+	}
+
+	/**
+	 * Comprueba los números de referencia del tablero vacío con ambos tableros.
+	 *
+	 * @param profundidad profundidad
+	 * @param hojas hojas esperadas
+	 */
+	@ParameterizedTest
+	@CsvSource({ "0, 1", "1, 64", "2, 3392", "3, 167552", "4, 6776960" })
+	@DisplayName("Comprobar los números de referencia del tablero vacío.")
+	void probarTableroVacio(int profundidad, long hojas) {
+		assertAll("perft(" + profundidad + ")",
+				() -> assertThat(Perft.contar(PartidasAleatorias.crear(new TableroBitboard()), profundidad), is(hojas)),
+				() -> assertThat(Perft.contar(PartidasAleatorias.crear(new Tablero()), profundidad), is(hojas)));
+	}
+
+	/**
+	 * Compara con el perft de referencia sobre el modelo de objetos.
+	 */
+	@Test
+	@DisplayName("Comprobar que coincide con el recorrido sobre el modelo de objetos.")
+	void probarContraModeloDeObjetos() {
+		Tablero tablero = new Tablero();
+		Caja[] cajas = { new Caja(Color.BLANCO), new Caja(Color.NEGRO) };
+		assertThat(referencia(tablero, crearGrupos(tablero), cajas, Color.BLANCO, 3), is(167552L));
+		SplittableRandom random = new SplittableRandom(8);
+		for (int prueba = 0; prueba < 10; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, 3 + random.nextInt(6));
+			Tablero copia = partida.consultarTablero();
+			Tablero objetos = new Tablero();
+			Caja[] cajasObjetos = { new Caja(Color.BLANCO), new Caja(Color.NEGRO) };
+			for (int fila = 0; fila < 4; fila++) {
+				for (int columna = 0; columna < 4; columna++) {
+					Celda celda = copia.consultarCelda(fila, columna);
+					if (!celda.estaVacia()) {
+						Color color = celda.consultarPieza().consultarColor();
+						objetos.colocar(fila, columna, cajasObjetos[color.ordinal()].retirar(celda.consultarPieza().consultarFigura()));
+					}
+				}
+			}
+			assertThat(Perft.contar(partida, 3),
+					is(referencia(objetos, crearGrupos(objetos), cajasObjetos, partida.consultarTurno(), 3)));
+		}
+	}
+
+	/**
+	 * Comprueba que el desglose por jugada y el modo paralelo suman lo mismo.
+	 */
+	@Test
+	@DisplayName("Comprobar el desglose por jugada y el modo paralelo.")
+	void probarDesgloseYParalelo() {
+		Partida partida = PartidasAleatorias.crear(new TableroBitboard());
+		partida.hacerJugada(1, 1, Figura.CONO);
+		long clave = partida.consultarClavePosicion();
+		Map<Integer, Long> secuencial = Perft.dividir(partida, 3);
+		Map<Integer, Long> paralelo = Perft.dividirEnParalelo(partida, 3, 3);
+		long total = secuencial.values().stream().mapToLong(Long::longValue).sum();
+		assertAll("desglose",
+				() -> assertThat(secuencial.size(), is(53)),
+				() -> assertThat(paralelo, is(secuencial)),
+				() -> assertThat(total, is(Perft.contar(partida, 3))),
+				() -> assertThat(Perft.contarEnParalelo(partida, 3, 2), is(total)),
+				() -> assertThat(partida.consultarClavePosicion(), is(clave)));
+	}
+}
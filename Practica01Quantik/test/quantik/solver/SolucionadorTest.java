@@ -0,0 +1,102 @@
+package quantik.solver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.util.Color;
+
+/**
+ * Tests sobre el solucionador, comparando con un minimax sin podas ni tablas.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre Solucionador (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+public class SolucionadorTest {
+
+	/**
+	 * Minimax de referencia sin tabla ni simetrías.
+	 *
+	 * @param partida partida
+	 * @return true si gana el jugador con turno
+	 */
+	private static boolean ganaTurno(Partida partida) {
+		if (partida.hayAlgunGrupoCompleto()) {
+			return true;
+		}
+		int[] jugadas = new int[Partida.MAXIMO_JUGADAS];
+		int numero = partida.generarJugadasLegales(jugadas);
+		for (int i = 0; i < numero; i++) {
+			int testigo = partida.hacerJugada(jugadas[i]);
+			boolean gana = partida.hayAlgunGrupoCompleto() || !ganaTurno(partida);
+			partida.deshacerJugada(testigo);
+			if (gana) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compara el solucionador con el minimax de referencia en posiciones aleatorias.
+	 *
+	 * @param semilla semilla
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = { 1L, 2L, 3L, 4L })
+	@DisplayName("Comprobar que el valor coincide con un minimax de referencia.")
+	void probarContraReferencia(long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		Solucionador solucionador = new Solucionador(new TablaTransposicionSecuencial(16));
+		for (int prueba = 0; prueba < 30; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, 6 + random.nextInt(5));
+			long clave = partida.consultarClavePosicion();
+			Solucion solucion = solucionador.resolver(partida);
+			assertAll("posición " + prueba,
+					() -> assertThat(solucion.ganaTurno(), is(ganaTurno(partida))),
+					() -> assertThat("La partida debería quedar igual.", partida.consultarClavePosicion(), is(clave)));
+			if (solucion.tieneJugada()) {
+				assertThat(partida.esJugadaLegalEnTurnoActual(solucion.consultarFila(), solucion.consultarColumna(),
+						solucion.consultarFigura()), is(true));
+				if (solucion.ganaTurno()) {
+					int testigo = partida.hacerJugada(solucion.consultarJugada());
+					assertThat("La jugada debería dejar al rival perdido.",
+							partida.hayAlgunGrupoCompleto() || !ganaTurno(partida), is(true));
+					partida.deshacerJugada(testigo);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Comprueba la solución del tablero vacío: gana el segundo jugador.
+	 */
+	@Test
+	@Tag("SlowTest")
+	@Timeout(value = 120, unit = TimeUnit.SECONDS)
+	@DisplayName("Comprobar que en el tablero vacío pierde el jugador que empieza.")
+	void probarTableroVacio() {
+		Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+		Solucion solucion = new Solucionador().resolver(partida);
+		assertAll("tablero vacío",
+				() -> assertThat(solucion.ganaTurno(), is(false)),
+				() -> assertThat(solucion.tieneJugada(), is(true)));
+	}
+}
@@ -0,0 +1,111 @@
+package quantik.solver;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+
+/**
+ * Tests comunes a los solucionadores con varios hilos, comparando con el
+ * secuencial.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre SolucionadorParalelo y SolucionadorLazySMP (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class SolucionadoresMultihiloTest {
+
+	/**
+	 * Solucionador con varios hilos visto a traves de resolver y cerrar.
+	 */
+	private static final class Multihilo {
+
+		/** Resolucion de una partida. */
+		private final Function<Partida, Solucion> resolver;
+
+		/** Liberacion de los hilos. */
+		private final Runnable cerrar;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param resolver resolucion de una partida
+		 * @param cerrar liberacion de los hilos
+		 */
+		Multihilo(Function<Partida, Solucion> resolver, Runnable cerrar) {
+			this.resolver = resolver;
+			this.cerrar = cerrar;
+		}
+	}
+
+	/**
+	 * Provee cada solucionador con las semillas de sus posiciones.
+	 *
+	 * @return solucionador y semilla
+	 */
+	static Stream<Arguments> proveerSolucionadores() {
+		Named<Supplier<Multihilo>> paralelo = Named.of("SolucionadorParalelo", () -> {
+			SolucionadorParalelo solucionador = new SolucionadorParalelo(3, 16, 2);
+			return new Multihilo(solucionador::resolver, solucionador::cerrar);
+		});
+		Named<Supplier<Multihilo>> lazySMP = Named.of("SolucionadorLazySMP", () -> {
+			SolucionadorLazySMP solucionador = new SolucionadorLazySMP(4, new TablaTransposicionConcurrente(16));
+			return new Multihilo(solucionador::resolver, solucionador::cerrar);
+		});
+		return Stream.of(Arguments.of(paralelo, 10L), Arguments.of(paralelo, 20L), Arguments.of(paralelo, 30L),
+				Arguments.of(lazySMP, 40L), Arguments.of(lazySMP, 50L), Arguments.of(lazySMP, 60L));
+	}
+
+	/**
+	 * Compara valor y jugada con el solucionador secuencial en posiciones aleatorias.
+	 *
+	 * @param fabrica fabrica del solucionador
+	 * @param semilla semilla
+	 */
+	@ParameterizedTest(name = "{0} con semilla {1}")
+	@MethodSource("proveerSolucionadores")
+	@DisplayName("Comprobar que el valor coincide con el solucionador secuencial.")
+	void probarContraSecuencial(Supplier<Multihilo> fabrica, long semilla) {
+		SplittableRandom random = new SplittableRandom(semilla);
+		Solucionador secuencial = new Solucionador(new TablaTransposicionSecuencial(18));
+		Multihilo multihilo = fabrica.get();
+		try {
+			for (int prueba = 0; prueba < 15; prueba++) {
+				Partida partida = PartidasAleatorias.crear(random, 4 + random.nextInt(6));
+				long clave = partida.consultarClavePosicion();
+				Solucion esperada = secuencial.resolver(partida);
+				Solucion solucion = multihilo.resolver.apply(partida);
+				assertAll("posición " + prueba,
+						() -> assertThat(solucion.ganaTurno(), is(esperada.ganaTurno())),
+						() -> assertThat(solucion.tieneJugada(), is(esperada.tieneJugada())),
+						() -> assertThat("La partida no debería modificarse.", partida.consultarClavePosicion(), is(clave)));
+				if (solucion.ganaTurno() && solucion.tieneJugada()) {
+					int testigo = partida.hacerJugada(solucion.consultarJugada());
+					boolean rivalPierde = partida.hayAlgunGrupoCompleto() || !secuencial.resolver(partida).ganaTurno();
+					partida.deshacerJugada(testigo);
+					assertThat("La jugada debería ser ganadora.", rivalPierde, is(true));
+				}
+			}
+		} finally {
+			multihilo.cerrar.run();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package quantik.solver;
+
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests sobre la tabla de transposicion concurrente.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre TablaTransposicionConcurrente.")
+@Tag("UnitTest")
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+public class TablaTransposicionConcurrenteTest {
+
+	/**
+	 * Valor asociado a cada clave en las pruebas.
+	 *
+	 * @param clave clave
+	 * @return valor
+	 */
+	private static int valorDe(long clave) {
+		return (clave & 1) == 0 ? Solucionador.GANA : Solucionador.PIERDE;
+	}
+
+	/** Comprueba consultas y escrituras desde un solo hilo. */
+	@Test
+	@DisplayName("Comprobar guardar, consultar y limpiar.")
+	void probarUnHilo() {
+		TablaTransposicionConcurrente tabla = new TablaTransposicionConcurrente(8);
+		tabla.guardar(0L, Solucionador.PIERDE);
+		tabla.guardar(0x1234_5678_9ABCL, Solucionador.GANA);
+		assertAll("un hilo",
+				() -> assertThat(tabla.consultar(0L), is(Solucionador.PIERDE)),
+				() -> assertThat(tabla.consultar(0x1234_5678_9ABCL), is(Solucionador.GANA)),
+				() -> assertThat(tabla.consultar(42L), is(TablaTransposicion.DESCONOCIDO)),
+				() -> assertThat(tabla.consultarCapacidad(), is(256)));
+		tabla.limpiar();
+		assertThat(tabla.consultar(0L), is(TablaTransposicion.DESCONOCIDO));
+	}
+
+	/**
+	 * Comprueba que con varios hilos escribiendo en una tabla pequeña las
+	 * lecturas nunca devuelven el valor de otra clave.
+	 *
+	 * @throws Exception si falla algún hilo
+	 */
+	@Test
+	@DisplayName("Comprobar que las escrituras concurrentes no corrompen las lecturas.")
+	void probarVariosHilos() throws Exception {
+		TablaTransposicionConcurrente tabla = new TablaTransposicionConcurrente(6);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(4);
+		AtomicInteger aciertos = new AtomicInteger();
+		List<Future<?>> tareas = new ArrayList<>();
+		for (int hilo = 0; hilo < 4; hilo++) {
+			long semilla = hilo;
+			tareas.add(ejecutor.submit(() -> {
+				SplittableRandom random = new SplittableRandom(semilla);
+				for (int i = 0; i < 200_000; i++) {
+					long clave = random.nextLong(512);
+					if (random.nextBoolean()) {
+						tabla.guardar(clave, valorDe(clave));
+					} else {
+						int valor = tabla.consultar(clave);
+						assertThat(valor, anyOf(is(TablaTransposicion.DESCONOCIDO), is(valorDe(clave))));
+						if (valor != TablaTransposicion.DESCONOCIDO) {
+							aciertos.incrementAndGet();
+						}
+					}
+				}
+			}));
+		}
+		try {
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+		assertThat("Debería encontrar algunas claves guardadas.", aciertos.get() > 0, is(true));
+	}
+}
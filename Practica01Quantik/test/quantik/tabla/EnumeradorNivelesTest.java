@@ -0,0 +1,188 @@
+package quantik.tabla;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+
+/**
+ * Tests sobre la enumeracion de posiciones por niveles en disco.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre EnumeradorNiveles y FicheroClaves (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+public class EnumeradorNivelesTest {
+
+	/** Directorio temporal. */
+	@TempDir
+	Path directorio;
+
+	/**
+	 * Enumera los niveles de una posicion en un subdirectorio.
+	 *
+	 * @param raiz posicion inicial
+	 * @param hilos hilos
+	 * @param claves claves en memoria
+	 * @param nombre nombre del subdirectorio
+	 * @return resumen
+	 * @throws IOException si falla la entrada/salida
+	 */
+	private EnumeradorNiveles.Resumen enumerar(Partida raiz, int hilos, long claves, String nombre)
+			throws IOException {
+		Path destino = Files.createDirectory(directorio.resolve(nombre));
+		EnumeradorNiveles enumerador = new EnumeradorNiveles(hilos, claves, destino);
+		try {
+			return enumerador.enumerar(raiz);
+		} finally {
+			enumerador.cerrar();
+		}
+	}
+
+	/**
+	 * Lee un fichero de claves.
+	 *
+	 * @param fichero fichero
+	 * @return claves
+	 * @throws IOException si falla la lectura
+	 */
+	private static long[] leer(Path fichero) throws IOException {
+		if (!Files.exists(fichero)) {
+			return new long[0];
+		}
+		long[] claves = new long[(int) FicheroClaves.contar(fichero)];
+		try (FicheroClaves.Lector lector = new FicheroClaves.Lector(fichero, 0, claves.length)) {
+			for (int i = 0; lector.avanzar(); i++) {
+				claves[i] = lector.consultarActual();
+			}
+		}
+		return claves;
+	}
+
+	/**
+	 * Comprueba que la mezcla de muchos ficheros da las claves distintas
+	 * ordenadas y borra las entradas.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar la mezcla de ficheros ordenados.")
+	void probarMezcla() throws IOException {
+		SplittableRandom random = new SplittableRandom(21L);
+		TreeSet<Long> esperadas = new TreeSet<>();
+		List<Path> entradas = new ArrayList<>();
+		for (int i = 0; i < FicheroClaves.MAXIMO_ENTRADAS * 2 + 3; i++) {
+			long[] claves = new long[random.nextInt(50)];
+			for (int j = 0; j < claves.length; j++) {
+				claves[j] = random.nextLong(-100_000, 100_000);
+			}
+			Arrays.sort(claves);
+			int numero = ListaClaves.quitarRepetidas(claves, claves.length);
+			for (int j = 0; j < numero; j++) {
+				esperadas.add(claves[j]);
+			}
+			Path entrada = directorio.resolve("entrada-" + i);
+			FicheroClaves.escribir(entrada, claves, numero);
+			entradas.add(entrada);
+		}
+		Path destino = directorio.resolve("mezcla");
+		assertThat(FicheroClaves.mezclar(entradas, destino), is((long) esperadas.size()));
+		long[] leidas = leer(destino);
+		assertThat(Arrays.equals(leidas, esperadas.stream().mapToLong(Long::longValue).toArray()), is(true));
+		try (var ficheros = Files.list(directorio)) {
+			assertThat(ficheros.count(), is(1L));
+		}
+	}
+
+	/**
+	 * Comprueba que si la mezcla falla se borra el destino a medias y se
+	 * dejan las entradas.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que una mezcla fallida conserva las entradas.")
+	void probarMezclaFallida() throws IOException {
+		List<Path> entradas = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Path entrada = directorio.resolve("entrada-" + i);
+			FicheroClaves.escribir(entrada, new long[] { i, i + 10L }, 2);
+			entradas.add(entrada);
+		}
+		entradas.add(directorio.resolve("no-existe"));
+		Path destino = directorio.resolve("mezcla");
+		assertThrows(IOException.class, () -> FicheroClaves.mezclar(entradas, destino));
+		assertThat(Files.exists(destino), is(false));
+		for (Path entrada : entradas.subList(0, 3)) {
+			assertThat(entrada.toString(), leer(entrada).length, is(2));
+		}
+	}
+
+	/**
+	 * Compara los niveles con la enumeracion en memoria de GeneradorTabla, con
+	 * poca memoria para forzar muchos tramos.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar los niveles contra GeneradorTabla.")
+	void probarContraGenerador() throws IOException {
+		Partida raiz = PartidasAleatorias.crear(new SplittableRandom(22L), 8);
+		EnumeradorNiveles.Resumen resumen = enumerar(raiz, 2, 2 * EnumeradorNiveles.MINIMO_CLAVES_POR_HILO, "niveles");
+		GeneradorTabla generador = new GeneradorTabla(1);
+		long[][] niveles;
+		try {
+			niveles = generador.enumerar(raiz);
+		} finally {
+			generador.cerrar();
+		}
+		for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+			long[] claves = leer(EnumeradorNiveles.rutaNivel(directorio.resolve("niveles"), nivel));
+			long[] sinGrupo = Arrays.stream(claves)
+					.filter(clave -> !FormatoTabla.decodificar(clave).hayAlgunGrupoCompleto()).toArray();
+			assertThat("nivel " + nivel, Arrays.equals(sinGrupo, niveles[nivel]), is(true));
+			assertThat("nivel " + nivel, resumen.consultarPosiciones(nivel), is((long) claves.length));
+			assertThat("nivel " + nivel, resumen.consultarEnJuego(nivel) + resumen.consultarBloqueo(nivel),
+					is((long) niveles[nivel].length));
+		}
+	}
+
+	/**
+	 * Comprueba que los niveles no dependen del numero de hilos ni de la
+	 * memoria.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que los niveles no dependen de los hilos ni de la memoria.")
+	void probarHilos() throws IOException {
+		Partida raiz = PartidasAleatorias.crear(new SplittableRandom(23L), 6);
+		EnumeradorNiveles.Resumen uno = enumerar(raiz, 1, 1 << 20, "uno");
+		EnumeradorNiveles.Resumen tres = enumerar(raiz, 3, 3 * EnumeradorNiveles.MINIMO_CLAVES_POR_HILO, "tres");
+		assertThat(uno.toString(), is(tres.toString()));
+		for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+			assertThat("nivel " + nivel, Arrays.equals(leer(EnumeradorNiveles.rutaNivel(directorio.resolve("uno"), nivel)),
+					leer(EnumeradorNiveles.rutaNivel(directorio.resolve("tres"), nivel))), is(true));
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package quantik.tabla;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+
+/**
+ * Tests sobre el indice de las tablas de resultados.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre IndicePerfecto (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+public class IndicePerfectoTest {
+
+	/** Directorio temporal. */
+	@TempDir
+	Path directorio;
+
+	/**
+	 * Crea claves distintas al azar.
+	 *
+	 * @param random generador
+	 * @param numero numero de claves
+	 * @return claves
+	 */
+	private static long[] crearClaves(SplittableRandom random, int numero) {
+		Set<Long> vistas = new HashSet<>();
+		long[] claves = new long[numero];
+		for (int i = 0; i < numero;) {
+			long clave = random.nextLong();
+			if (vistas.add(clave)) {
+				claves[i++] = clave;
+			}
+		}
+		return claves;
+	}
+
+	/**
+	 * Genera la tabla de una posicion.
+	 *
+	 * @param raiz posicion inicial
+	 * @param conIndice si se escribe con indice
+	 * @param nombre nombre del fichero
+	 * @return fichero
+	 * @throws IOException si falla la escritura
+	 */
+	private Path generar(Partida raiz, boolean conIndice, String nombre) throws IOException {
+		GeneradorTabla generador = new GeneradorTabla(2, conIndice);
+		try {
+			Path fichero = directorio.resolve(nombre);
+			generador.generar(raiz, fichero);
+			return fichero;
+		} finally {
+			generador.cerrar();
+		}
+	}
+
+	/**
+	 * Comprueba que las claves dan valores distintos entre 0 y su numero, que
+	 * el indice ocupa menos de 4 bits por clave y que el fichero no depende
+	 * del numero de hilos.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que el indice da un valor distinto a cada clave.")
+	void probarPosiciones() throws IOException {
+		long[] claves = crearClaves(new SplittableRandom(11L), 100_000);
+		Path uno = directorio.resolve("uno.indice");
+		Path tres = directorio.resolve("tres.indice");
+		IndicePerfecto.construir(claves, 1, uno);
+		IndicePerfecto.construir(claves, 3, tres);
+		assertThat(Arrays.equals(Files.readAllBytes(uno), Files.readAllBytes(tres)), is(true));
+		try (IndicePerfecto indice = IndicePerfecto.abrir(uno)) {
+			boolean[] usados = new boolean[claves.length];
+			for (int i = 0; i < claves.length; i++) {
+				long valor = indice.buscar(claves[i]);
+				assertThat("clave " + i, valor >= 0 && valor < claves.length && !usados[(int) valor], is(true));
+				usados[(int) valor] = true;
+			}
+			SplittableRandom random = new SplittableRandom(12L);
+			for (int prueba = 0; prueba < 1000; prueba++) {
+				long posicion = indice.buscar(random.nextLong());
+				assertThat("prueba " + prueba, posicion >= -1 && posicion < claves.length, is(true));
+			}
+			assertAll("tamaño",
+					() -> assertThat(indice.consultarClaves(), is((long) claves.length)),
+					() -> assertThat(indice.consultarTamaño() < claves.length * 4L / Byte.SIZE, is(true)));
+		}
+	}
+
+	/**
+	 * Comprueba los casos sin claves y con una sola clave.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar índices vacíos y de una clave.")
+	void probarPocasClaves() throws IOException {
+		Path vacio = directorio.resolve("vacio.indice");
+		Path una = directorio.resolve("una.indice");
+		IndicePerfecto.construir(new long[0], 2, vacio);
+		IndicePerfecto.construir(new long[] { 42L }, 2, una);
+		try (IndicePerfecto indiceVacio = IndicePerfecto.abrir(vacio);
+				IndicePerfecto indiceUna = IndicePerfecto.abrir(una)) {
+			assertAll("pocas claves",
+					() -> assertThat(indiceVacio.buscar(42L), is(-1L)),
+					() -> assertThat(indiceVacio.consultarNiveles(), is(0)),
+					() -> assertThat(indiceUna.buscar(42L), is(0L)));
+		}
+	}
+
+	/**
+	 * Comprueba que la tabla en orden hash da los mismos resultados que la
+	 * tabla por niveles y que cada clave esta en la posicion de su valor.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que la tabla da los mismos resultados con y sin índice.")
+	void probarTablaConIndice() throws IOException {
+		SplittableRandom random = new SplittableRandom(13L);
+		Partida raiz = PartidasAleatorias.crear(random, 5);
+		Path hash = generar(raiz, true, "hash.tabla");
+		Path niveles = generar(raiz, false, "niveles.tabla");
+		assertAll("ficheros",
+				() -> assertThat(Files.exists(IndicePerfecto.rutaIndice(hash)), is(true)),
+				() -> assertThat(Files.exists(IndicePerfecto.rutaIndice(niveles)), is(false)),
+				() -> assertThat(Files.size(hash), is(Files.size(niveles))));
+		try (TablaResultados conIndice = TablaResultados.abrir(hash);
+				TablaResultados sinIndice = TablaResultados.abrir(niveles);
+				IndicePerfecto indice = IndicePerfecto.abrir(IndicePerfecto.rutaIndice(hash))) {
+			assertThat(conIndice.tieneIndice() && !sinIndice.tieneIndice(), is(true));
+			for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+				assertThat("nivel " + nivel, conIndice.consultarPosiciones(nivel),
+						is(sinIndice.consultarPosiciones(nivel)));
+			}
+			for (long posicion = 0; posicion < sinIndice.consultarPosiciones(); posicion++) {
+				long clave = sinIndice.consultarClave(posicion);
+				assertThat("posicion " + posicion, conIndice.buscar(clave), is(indice.buscar(clave)));
+				assertThat(conIndice.consultarClave(conIndice.buscar(clave)), is(clave));
+				assertThat(conIndice.consultar(clave), is(sinIndice.consultar(clave)));
+			}
+			for (int prueba = 0; prueba < 500; prueba++) {
+				long clave = PartidasAleatorias.crear(random, random.nextInt(12)).consultarClaveCanonica();
+				assertThat("prueba " + prueba, conIndice.buscar(clave) >= 0, is(sinIndice.buscarBinaria(clave) >= 0));
+				assertThat(conIndice.consultar(clave), is(sinIndice.consultar(clave)));
+			}
+		}
+	}
+
+	/**
+	 * Comprueba que se rechazan indices incorrectos o de otra tabla y las
+	 * tablas en orden hash sin indice.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que se rechazan índices incorrectos.")
+	void probarIndicesIncorrectos() throws IOException {
+		Path basura = directorio.resolve("basura.indice");
+		Files.write(basura, new byte[IndicePerfecto.TAMAÑO_CABECERA]);
+		Path cortado = directorio.resolve("cortado.indice");
+		IndicePerfecto.construir(crearClaves(new SplittableRandom(14L), 1000), 1, cortado);
+		byte[] contenido = Files.readAllBytes(cortado);
+		Files.write(cortado, Arrays.copyOf(contenido, contenido.length - 1));
+		Path fichero = generar(PartidasAleatorias.crear(new SplittableRandom(15L), 10), true, "otra.tabla");
+		long posiciones;
+		try (TablaResultados tabla = TablaResultados.abrir(fichero)) {
+			posiciones = tabla.consultarPosiciones();
+		}
+		Path ajeno = directorio.resolve("ajeno.indice");
+		IndicePerfecto.construir(crearClaves(new SplittableRandom(16L), (int) posiciones + 1), 1, ajeno);
+		Files.move(ajeno, IndicePerfecto.rutaIndice(fichero), StandardCopyOption.REPLACE_EXISTING);
+		try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+			assertAll("indices incorrectos",
+					() -> assertThrows(IOException.class, () -> IndicePerfecto.abrir(basura)),
+					() -> assertThrows(IOException.class, () -> IndicePerfecto.abrir(cortado)),
+					() -> assertThrows(IOException.class, () -> TablaResultados.abrir(fichero)),
+					() -> assertThrows(IOException.class, () -> new TablaResultados(canal)));
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package quantik.tabla;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import quantik.control.Partida;
+import quantik.control.PartidasAleatorias;
+import quantik.solver.Solucionador;
+import quantik.solver.TablaTransposicion;
+import quantik.solver.TablaTransposicionSecuencial;
+import quantik.util.Color;
+
+/**
+ * Tests sobre la generacion y consulta de tablas de resultados.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre GeneradorTabla y TablaResultados (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 30, unit = TimeUnit.SECONDS)
+public class TablaResultadosTest {
+
+	/** Directorio temporal. */
+	@TempDir
+	Path directorio;
+
+	/**
+	 * Genera la tabla de una posicion.
+	 *
+	 * @param raiz posicion inicial
+	 * @param hilos hilos
+	 * @param nombre nombre del fichero
+	 * @return fichero
+	 * @throws IOException si falla la escritura
+	 */
+	private Path generar(Partida raiz, int hilos, String nombre) throws IOException {
+		GeneradorTabla generador = new GeneradorTabla(hilos);
+		try {
+			Path fichero = directorio.resolve(nombre);
+			generador.generar(raiz, fichero);
+			return fichero;
+		} finally {
+			generador.cerrar();
+		}
+	}
+
+	/**
+	 * Comprueba que decodificar una clave canonica da una partida con la misma clave.
+	 */
+	@Test
+	@DisplayName("Comprobar la decodificación de claves canónicas.")
+	void probarDecodificar() {
+		SplittableRandom random = new SplittableRandom(4L);
+		for (int prueba = 0; prueba < 500; prueba++) {
+			Partida partida = PartidasAleatorias.crear(random, random.nextInt(17));
+			long clave = partida.consultarClaveCanonica();
+			Partida decodificada = FormatoTabla.decodificar(clave);
+			assertAll("prueba " + prueba,
+					() -> assertThat(decodificada.consultarClaveCanonica(), is(clave)),
+					() -> assertThat(FormatoTabla.contarPiezas(clave), is(partida.consultarNumeroJugada())),
+					() -> assertThat(decodificada.consultarNumeroJugada(), is(partida.consultarNumeroJugada())),
+					() -> assertThat(decodificada.estaAcabadaPartida(), is(partida.estaAcabadaPartida())));
+		}
+	}
+
+	/**
+	 * Compara los resultados de la tabla con el solucionador en posiciones
+	 * alcanzables desde la raiz.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar los resultados contra el solucionador.")
+	void probarContraSolucionador() throws IOException {
+		SplittableRandom random = new SplittableRandom(6L);
+		Partida raiz = PartidasAleatorias.crear(random, 6);
+		Solucionador solucionador = new Solucionador(new TablaTransposicionSecuencial(18));
+		try (TablaResultados tabla = TablaResultados.abrir(generar(raiz, 2, "raiz.tabla"))) {
+			for (int prueba = 0; prueba < 200; prueba++) {
+				Partida partida = PartidasAleatorias.continuar(raiz, random, random.nextInt(10));
+				Color turno = partida.consultarTurno();
+				Color esperado = solucionador.resolver(partida).ganaTurno() ? turno : turno.obtenerContrario();
+				assertThat("prueba " + prueba, tabla.consultarGanador(partida), is(esperado));
+			}
+			Partida vacia = PartidasAleatorias.crear(random, 0);
+			assertAll("fuera de la tabla",
+					() -> assertThat(tabla.consultarGanador(vacia), is(nullValue())),
+					() -> assertThat(tabla.consultar(vacia.consultarClaveCanonica()),
+							is(TablaTransposicion.DESCONOCIDO)),
+					() -> assertThat(tabla.consultarPosiciones(6), is(1L)));
+		}
+	}
+
+	/**
+	 * Comprueba que la tabla no depende del numero de hilos y que el resumen
+	 * coincide con el indice.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que la tabla no depende del número de hilos.")
+	void probarHilos() throws IOException {
+		Partida raiz = PartidasAleatorias.crear(new SplittableRandom(7L), 7);
+		Path uno = generar(raiz, 1, "uno.tabla");
+		Path tres = generar(raiz, 3, "tres.tabla");
+		GeneradorTabla generador = new GeneradorTabla(1);
+		GeneradorTabla.Resumen resumen;
+		try {
+			resumen = generador.generar(raiz, directorio.resolve("resumen.tabla"));
+		} finally {
+			generador.cerrar();
+		}
+		assertThat(Arrays.equals(Files.readAllBytes(uno), Files.readAllBytes(tres)), is(true));
+		try (TablaResultados tabla = TablaResultados.abrir(uno)) {
+			long total = 0;
+			for (int nivel = 0; nivel < FormatoTabla.NIVELES; nivel++) {
+				assertThat(tabla.consultarPosiciones(nivel), is(resumen.consultarPosiciones(nivel)));
+				total += resumen.consultarPosiciones(nivel);
+			}
+			assertThat(tabla.consultarPosiciones(), is(total));
+			assertThat(Files.size(uno), is(FormatoTabla.calcularTamaño(total)));
+		}
+	}
+
+	/**
+	 * Comprueba que se rechazan ficheros que no son tablas o estan incompletos.
+	 *
+	 * @throws IOException si falla la entrada/salida
+	 */
+	@Test
+	@DisplayName("Comprobar que se rechazan ficheros incorrectos.")
+	void probarFicherosIncorrectos() throws IOException {
+		Path basura = directorio.resolve("basura.tabla");
+		Files.write(basura, new byte[FormatoTabla.TAMAÑO_CABECERA]);
+		Path tabla = generar(PartidasAleatorias.crear(new SplittableRandom(8L), 10), 1, "cortada.tabla");
+		byte[] contenido = Files.readAllBytes(tabla);
+		Files.write(tabla, Arrays.copyOf(contenido, contenido.length - 1));
+		assertAll("ficheros incorrectos",
+				() -> assertThrows(IOException.class, () -> TablaResultados.abrir(basura)),
+				() -> assertThrows(IOException.class, () -> TablaResultados.abrir(tabla)));
+	}
+}
@@ -0,0 +1,191 @@
+package quantik.torneo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import quantik.control.Partida;
+import quantik.modelo.Caja;
+import quantik.modelo.TableroBitboard;
+import quantik.solver.Solucionador;
+import quantik.util.Color;
+import quantik.util.Figura;
+
+/**
+ * Tests sobre el torneo y los jugadores.
+ *
+ * @author Rocio Agueda Miguel
+ * @version 1.0
+ */
+@DisplayName("Tests sobre Torneo (depende de las implementaciones reales).")
+@Tag("IntegrationTest")
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class TorneoTest {
+
+	/**
+	 * Juega un torneo y cierra sus hilos.
+	 *
+	 * @param hilos hilos
+	 * @param partidas partidas
+	 * @param semilla semilla
+	 * @return marcador
+	 */
+	private static Marcador jugar(int hilos, long partidas, long semilla) {
+		Torneo torneo = new Torneo(JugadorVoraz::new, JugadorAleatorio::new, hilos, 2);
+		try {
+			return torneo.jugar(partidas, semilla);
+		} finally {
+			torneo.cerrar();
+		}
+	}
+
+	/**
+	 * Comprueba que los contadores del marcador son coherentes.
+	 */
+	@Test
+	@DisplayName("Comprobar que el marcador suma todas las partidas.")
+	void probarMarcador() {
+		Marcador marcador = jugar(2, 1000, 3L);
+		long ganadas = 0;
+		for (int jugador = 0; jugador < 2; jugador++) {
+			for (Color color : Color.values()) {
+				ganadas += marcador.consultarGanadas(jugador, color);
+				assertThat(marcador.consultarGanadas(jugador, color) + marcador.consultarPerdidas(jugador, color),
+						is(500L));
+				assertThat(marcador.consultarBloqueadas(jugador, color) <= marcador.consultarPerdidas(jugador, color),
+						is(true));
+				assertThat(marcador.consultarPerdidas(jugador, color),
+						is(marcador.consultarGanadas(1 - jugador, color.obtenerContrario())));
+			}
+		}
+		final long total = ganadas;
+		assertAll("totales",
+				() -> assertThat(total, is(1000L)),
+				() -> assertThat(marcador.consultarPartidas(), is(1000L)),
+				() -> assertThat(marcador.consultarNombre(Torneo.PRIMERO), is("voraz")),
+				() -> assertThat(marcador.consultarPartidasPorSegundo() > 0, is(true)));
+	}
+
+	/**
+	 * Comprueba que el torneo crea un jugador de cada clase por hilo y ninguno
+	 * mas para los nombres del marcador.
+	 */
+	@Test
+	@DisplayName("Comprobar que solo se crea un jugador de cada clase por hilo.")
+	void probarInstanciasPorHilo() {
+		AtomicInteger primeros = new AtomicInteger();
+		AtomicInteger segundos = new AtomicInteger();
+		Torneo torneo = new Torneo(() -> {
+			primeros.incrementAndGet();
+			return new JugadorVoraz();
+		}, () -> {
+			segundos.incrementAndGet();
+			return new JugadorAleatorio();
+		}, 3, 2);
+		Marcador marcador;
+		try {
+			marcador = torneo.jugar(300, 5L);
+		} finally {
+			torneo.cerrar();
+		}
+		assertAll("instancias",
+				() -> assertThat(primeros.get(), is(3)),
+				() -> assertThat(segundos.get(), is(3)),
+				() -> assertThat(marcador.consultarNombre(Torneo.PRIMERO), is("voraz")),
+				() -> assertThat(marcador.consultarNombre(Torneo.SEGUNDO), is("aleatorio")));
+	}
+
+	/**
+	 * Comprueba que con la misma semilla el resultado no depende del numero de hilos.
+	 */
+	@Test
+	@DisplayName("Comprobar que el torneo es reproducible con distinto número de hilos.")
+	void probarReproducible() {
+		Marcador uno = jugar(1, 700, 11L);
+		Marcador tres = jugar(3, 700, 11L);
+		Marcador otra = jugar(1, 700, 12L);
+		boolean distinta = false;
+		for (int jugador = 0; jugador < 2; jugador++) {
+			for (Color color : Color.values()) {
+				assertThat(tres.consultarGanadas(jugador, color), is(uno.consultarGanadas(jugador, color)));
+				assertThat(tres.consultarBloqueadas(jugador, color), is(uno.consultarBloqueadas(jugador, color)));
+				distinta |= otra.consultarGanadas(jugador, color) != uno.consultarGanadas(jugador, color);
+			}
+		}
+		assertThat(distinta, is(true));
+	}
+
+	/**
+	 * Comprueba que el jugador voraz completa un grupo cuando puede y que las
+	 * jugadas elegidas son legales.
+	 */
+	@Test
+	@DisplayName("Comprobar que el jugador voraz gana cuando puede.")
+	void probarJugadorVoraz() {
+		SplittableRandom random = new SplittableRandom(21L);
+		Jugador aleatorio = new JugadorAleatorio();
+		Jugador voraz = new JugadorVoraz();
+		int ganadoras = 0;
+		for (int prueba = 0; prueba < 300; prueba++) {
+			Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+			while (!partida.estaAcabadaPartida()) {
+				long clave = partida.consultarClavePosicion();
+				boolean puedeGanar = JugadorVoraz.buscarJugadaGanadora(partida) >= 0;
+				int jugada = voraz.elegirJugada(partida, random);
+				assertThat(partida.consultarClavePosicion(), is(clave));
+				assertThat(partida.esJugadaLegalEnTurnoActual((jugada >>> 2) / 4, (jugada >>> 2) % 4,
+						Figura.values()[jugada & 0x3]), is(true));
+				if (puedeGanar) {
+					ganadoras++;
+					partida.hacerJugada(jugada);
+					assertThat(partida.hayAlgunGrupoCompleto(), is(true));
+				} else {
+					partida.hacerJugada(jugada);
+					if (!partida.estaAcabadaPartida()) {
+						partida.hacerJugada(aleatorio.elegirJugada(partida, random));
+					}
+				}
+			}
+		}
+		assertThat(ganadoras > 0, is(true));
+	}
+
+	/**
+	 * Comprueba que el jugador perfecto no falla partidas que empieza ganadas.
+	 */
+	@Test
+	@DisplayName("Comprobar que el jugador perfecto gana las posiciones ganadas.")
+	void probarJugadorPerfecto() {
+		SplittableRandom random = new SplittableRandom(5L);
+		Jugador perfecto = new JugadorPerfecto(0);
+		Jugador voraz = new JugadorVoraz();
+		Solucionador solucionador = new Solucionador();
+		int probadas = 0;
+		for (int prueba = 0; prueba < 40; prueba++) {
+			Partida partida = new Partida(new TableroBitboard(), new Caja(Color.BLANCO), new Caja(Color.NEGRO));
+			for (int i = 0; i < 6 && !partida.estaAcabadaPartida(); i++) {
+				partida.hacerJugada(voraz.elegirJugada(partida, random));
+			}
+			if (partida.estaAcabadaPartida() || !solucionador.resolver(partida).ganaTurno()) {
+				continue;
+			}
+			probadas++;
+			Color turno = partida.consultarTurno();
+			while (!partida.estaAcabadaPartida()) {
+				Jugador jugador = partida.consultarTurno() == turno ? perfecto : voraz;
+				partida.hacerJugada(jugador.elegirJugada(partida, random));
+			}
+			assertThat(partida.consultarGanador(), is(turno));
+		}
+		assertThat(probadas > 0, is(true));
+	}
+}